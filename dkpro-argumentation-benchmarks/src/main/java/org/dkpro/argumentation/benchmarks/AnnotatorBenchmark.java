@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dkpro.argumentation.benchmarks;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.misc.corpus.SyntheticCorpusGenerator;
+import org.dkpro.argumentation.preprocessing.annotation.ArgumentSimplifiedSentenceBIOAnnotator;
+import org.dkpro.argumentation.preprocessing.annotation.ArgumentSimplifiedTokenBIOAnnotator;
+import org.dkpro.argumentation.preprocessing.annotation.ArgumentTokenBIOAnnotator;
+import org.dkpro.argumentation.types.BIOSimplifiedSentenceArgumentAnnotation;
+import org.dkpro.argumentation.types.BIOSimplifiedTokenArgumentAnnotation;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@code process} methods of the BIO annotators. The output annotations of
+ * the measured annotator are removed before each invocation, so every invocation labels the
+ * same document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnotatorBenchmark
+{
+    @Param({ "100", "1000", "5000" })
+    public int sentences;
+
+    @Param({ "0.1", "0.5", "1.0" })
+    public double density;
+
+    private JCas jCas;
+
+    private AnalysisEngine tokenAnnotator;
+
+    private AnalysisEngine simplifiedTokenAnnotator;
+
+    private AnalysisEngine simplifiedSentenceAnnotator;
+
+    @Setup(Level.Trial)
+    public void setUp()
+            throws Exception
+    {
+        // no overlapping components, which the token annotator rejects
+        jCas = new SyntheticCorpusGenerator(42)
+                .setSentencesPerDocument(sentences)
+                .setComponentDensity(density)
+                .setCrossSentenceProbability(0)
+                .setNestingProbability(0)
+                .generate(0);
+
+        tokenAnnotator = AnalysisEngineFactory.createEngine(ArgumentTokenBIOAnnotator.class);
+        simplifiedTokenAnnotator = AnalysisEngineFactory
+                .createEngine(ArgumentSimplifiedTokenBIOAnnotator.class);
+        simplifiedSentenceAnnotator = AnalysisEngineFactory
+                .createEngine(ArgumentSimplifiedSentenceBIOAnnotator.class);
+
+        // the simplified token annotator checks the labels of the token annotator
+        tokenAnnotator.process(jCas);
+    }
+
+    @Setup(Level.Invocation)
+    public void removeOutput()
+    {
+        jCas.removeAllIncludingSubtypes(BIOSimplifiedTokenArgumentAnnotation.type);
+        jCas.removeAllIncludingSubtypes(BIOSimplifiedSentenceArgumentAnnotation.type);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        tokenAnnotator.destroy();
+        simplifiedTokenAnnotator.destroy();
+        simplifiedSentenceAnnotator.destroy();
+    }
+
+    @Benchmark
+    public JCas tokenBIO()
+            throws Exception
+    {
+        jCas.removeAllIncludingSubtypes(BIOTokenArgumentAnnotation.type);
+        tokenAnnotator.process(jCas);
+        return jCas;
+    }
+
+    @Benchmark
+    public JCas simplifiedTokenBIO()
+            throws Exception
+    {
+        simplifiedTokenAnnotator.process(jCas);
+        return jCas;
+    }
+
+    @Benchmark
+    public JCas simplifiedSentenceBIO()
+            throws Exception
+    {
+        simplifiedSentenceAnnotator.process(jCas);
+        return jCas;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dkpro.argumentation.benchmarks;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.writer.ArgumentDumpWriter;
+import org.dkpro.argumentation.misc.corpus.SyntheticCorpusGenerator;
+import org.dkpro.argumentation.misc.uima.JCasUtil2;
+import org.dkpro.argumentation.types.ArgumentComponent;
+import org.dkpro.argumentation.types.ArgumentUnitUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the utility methods used per sentence, token or component by the annotators
+ * and writers. The lookups are done for an element in the middle of the document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UtilsBenchmark
+{
+    @Param({ "100", "1000", "5000" })
+    public int sentences;
+
+    @Param({ "0.1", "0.5", "1.0" })
+    public double density;
+
+    private JCas jCas;
+
+    private Sentence sentence;
+
+    private int tokenBegin;
+
+    private ArgumentComponent component;
+
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp()
+            throws Exception
+    {
+        // no overlapping components, which the token annotator rejects
+        jCas = new SyntheticCorpusGenerator(42)
+                .setSentencesPerDocument(sentences)
+                .setComponentDensity(density)
+                .setCrossSentenceProbability(0)
+                .setNestingProbability(0)
+                .generate(0);
+
+        List<Sentence> allSentences = new ArrayList<>(JCasUtil.select(jCas, Sentence.class));
+        sentence = allSentences.get(allSentences.size() / 2);
+
+        List<Token> tokens = new ArrayList<>(JCasUtil.select(jCas, Token.class));
+        tokenBegin = tokens.get(tokens.size() / 2).getBegin();
+
+        List<ArgumentComponent> components = new ArrayList<>(
+                JCasUtil.select(jCas, ArgumentComponent.class));
+        component = components.get(components.size() / 2);
+        ArgumentUnitUtils.setProperty(component, "source", "benchmark");
+    }
+
+    @Benchmark
+    public List<ArgumentComponent> selectOverlapping()
+    {
+        return JCasUtil2.selectOverlapping(ArgumentComponent.class, sentence, jCas);
+    }
+
+    @Benchmark
+    public Token findTokenByBeginPosition()
+    {
+        return JCasUtil2.findTokenByBeginPosition(jCas, tokenBegin);
+    }
+
+    @Benchmark
+    public String getProperty()
+    {
+        return ArgumentUnitUtils.getProperty(component, "source");
+    }
+
+    @Benchmark
+    public String setProperty()
+    {
+        return ArgumentUnitUtils.setProperty(component, "counter", Integer.toString(counter++));
+    }
+
+    @Benchmark
+    public String dumpArguments()
+    {
+        return ArgumentDumpWriter.dumpArguments(jCas, true, true);
+    }
+}
@@ -18,23 +18,80 @@
 
 package org.dkpro.argumentation.tutorial;
 
+import org.dkpro.argumentation.io.profiling.SlowDocumentCapture;
+import org.dkpro.argumentation.io.reader.XmiTypeFilter;
 import org.dkpro.argumentation.io.writer.TokenTabBIOArgumentWriter;
 import org.dkpro.argumentation.preprocessing.annotation.ArgumentTokenBIOAnnotator;
-import de.tudarmstadt.ukp.dkpro.core.io.xmi.XmiReader;
+import org.dkpro.argumentation.tutorial.pipeline.DocumentLatencyMonitor;
+import org.dkpro.argumentation.tutorial.pipeline.EngineSink;
+import org.dkpro.argumentation.tutorial.pipeline.ParallelCorpusPipeline;
+import org.dkpro.argumentation.tutorial.pipeline.ThreadPerDocumentPipeline;
+import org.dkpro.argumentation.tutorial.pipeline.XmiDocuments;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
-import org.apache.uima.fit.factory.CollectionReaderFactory;
-import org.apache.uima.fit.pipeline.SimplePipeline;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.NameValuePair;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Reads the complete argumentation corpus from
  * https://www.ukp.tu-darmstadt.de/data/argumentation-mining/argument-annotated-user-generated-web-discourse/
  * and writes argument units (argument components, argument relations, implicit component, etc.)
  * into files split by tokens with their corresponding BIO tag.
+ * <p>
+ * With the third argument {@code --incremental}, only documents which changed since the last
+ * run are exported; see {@link IncrementalExportManifest}. The manifest is kept in the output
+ * directory.
+ * </p>
+ * <p>
+ * With {@code --thread-per-document}, each document is loaded, annotated and written in its own
+ * (virtual, if available) thread; see {@link ThreadPerDocumentPipeline}.
+ * </p>
+ * <p>
+ * With {@code --slow-documents=<dir>}, the processing time of each document is recorded and
+ * reported every {@value #LATENCY_REPORT_INTERVAL} seconds, and the
+ * {@value #SLOW_DOCUMENT_COUNT} slowest documents are saved as XMI to the directory, listed in
+ * {@link SlowDocumentCapture#SUMMARY_FILE}; see {@link DocumentLatencyMonitor}.
+ * </p>
  *
  * @author Ivan Habernal
  */
 public class ArgumentationCorpusBIOTokenExporter
 {
+    public static final String INCREMENTAL = "--incremental";
+
+    public static final String THREAD_PER_DOCUMENT = "--thread-per-document";
+
+    public static final String SLOW_DOCUMENTS = "--slow-documents=";
+
+    public static final int SLOW_DOCUMENT_COUNT = 20;
+
+    /**
+     * Seconds between the latency reports
+     */
+    public static final int LATENCY_REPORT_INTERVAL = 30;
+
+    /**
+     * Documents in flight in the thread-per-document mode
+     */
+    private static final int MAX_IN_FLIGHT = 256;
+
+    public static final String MANIFEST_FILE = ".export-manifest.tsv";
+
+    /**
+     * Only the annotations read by the annotator are loaded from the corpus; the writer reads
+     * the BIO annotations the annotator creates
+     */
+    private static final Set<String> LOADED_TYPES = XmiTypeFilter.getInputTypes(
+            ArgumentTokenBIOAnnotator.class);
+
     public static void main(String[] args)
     {
         // TODO set this properly to "gold.data.toulmin" directory
@@ -43,29 +100,179 @@ public class ArgumentationCorpusBIOTokenExporter
         // TODO set this to output directory
         final String outputDir = args[1];
 
-        try {
-            SimplePipeline.runPipeline(CollectionReaderFactory.createReaderDescription(
-                    XmiReader.class,
-                    XmiReader.PARAM_SOURCE_LOCATION, annotatedCorpusDir,
-                    XmiReader.PARAM_PATTERNS, "[+]*.xmi",
-                    XmiReader.PARAM_LENIENT, true
-                    ),
-                    // annotate with BIO tags
-                    AnalysisEngineFactory.createEngineDescription(
-                            ArgumentTokenBIOAnnotator.class,
-                            ArgumentTokenBIOAnnotator.PARAM_LABEL_GRANULARITY,
-                            ArgumentTokenBIOAnnotator.BIO
-                    ),
-                    // export to TXT files
-                    AnalysisEngineFactory.createEngineDescription(
-                            TokenTabBIOArgumentWriter.class,
-                            TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION,
-                            outputDir
-                    )
-            );
+        String mode = null;
+        File slowDocumentsDir = null;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith(SLOW_DOCUMENTS)) {
+                slowDocumentsDir = new File(args[i].substring(SLOW_DOCUMENTS.length()));
+            }
+            else {
+                mode = args[i];
+            }
+        }
+
+        try (DocumentLatencyMonitor monitor = slowDocumentsDir != null ?
+                new DocumentLatencyMonitor(LATENCY_REPORT_INTERVAL, System.out,
+                        new SlowDocumentCapture(slowDocumentsDir, SLOW_DOCUMENT_COUNT, true)) :
+                null) {
+            if (INCREMENTAL.equals(mode)) {
+                exportIncremental(new File(annotatedCorpusDir), new File(outputDir), monitor);
+                return;
+            }
+
+            if (THREAD_PER_DOCUMENT.equals(mode)) {
+                ThreadPerDocumentPipeline pipeline = new ThreadPerDocumentPipeline(MAX_IN_FLIGHT,
+                        createAnnotatorDescription());
+                pipeline.setLoadedTypes(LOADED_TYPES);
+                pipeline.setLatencyMonitor(monitor);
+                pipeline.run(new File(annotatedCorpusDir),
+                        new EngineSink(createWriterDescription(outputDir, false), false));
+                return;
+            }
+
+            // the documents are independent, so the order of the output does not matter
+            ParallelCorpusPipeline pipeline = new ParallelCorpusPipeline(
+                    Runtime.getRuntime().availableProcessors(), createAnnotatorDescription());
+            pipeline.setLoadedTypes(LOADED_TYPES);
+            pipeline.setLatencyMonitor(monitor);
+            pipeline.run(new File(annotatedCorpusDir),
+                    new EngineSink(createWriterDescription(outputDir, false), false));
+            System.out.println("CAS pool: " + pipeline.getPool().getStatistics());
         }
         catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    private static AnalysisEngineDescription createAnnotatorDescription()
+            throws Exception
+    {
+        // annotate with BIO tags
+        return AnalysisEngineFactory.createEngineDescription(
+                ArgumentTokenBIOAnnotator.class,
+                ArgumentTokenBIOAnnotator.PARAM_LABEL_GRANULARITY,
+                ArgumentTokenBIOAnnotator.BIO
+        );
+    }
+
+    private static AnalysisEngineDescription createWriterDescription(String outputDir,
+            boolean overwrite)
+            throws Exception
+    {
+        // export to TXT files; only the incremental mode exports changed documents again
+        return AnalysisEngineFactory.createEngineDescription(
+                TokenTabBIOArgumentWriter.class,
+                TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION,
+                outputDir,
+                TokenTabBIOArgumentWriter.PARAM_OVERWRITE,
+                overwrite
+        );
+    }
+
+    /**
+     * Exports all XMI files of the corpus whose content or the configuration of the pipeline
+     * changed since the last run
+     *
+     * @param corpusDir corpus directory
+     * @param outputDir output directory
+     * @throws Exception if processing fails; documents exported so far are kept in the manifest
+     */
+    public static void exportIncremental(File corpusDir, File outputDir)
+            throws Exception
+    {
+        exportIncremental(corpusDir, outputDir, null);
+    }
+
+    /**
+     * Like {@link #exportIncremental(File, File)}, recording the processing time of each
+     * exported document
+     *
+     * @param corpusDir corpus directory
+     * @param outputDir output directory
+     * @param monitor   latency monitor, may be null
+     * @throws Exception if processing fails; documents exported so far are kept in the manifest
+     */
+    public static void exportIncremental(File corpusDir, File outputDir,
+            DocumentLatencyMonitor monitor)
+            throws Exception
+    {
+        AnalysisEngineDescription annotator = createAnnotatorDescription();
+        AnalysisEngineDescription writer = createWriterDescription(outputDir.getPath(), true);
+        String fingerprint = fingerprint(annotator, writer);
+
+        List<File> files = XmiDocuments.list(corpusDir);
+
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + outputDir);
+        }
+
+        AnalysisEngine engine = AnalysisEngineFactory.createEngine(
+                AnalysisEngineFactory.createEngineDescription(annotator, writer));
+        JCas jCas = engine.newJCas();
+
+        List<String> sources = new ArrayList<>();
+        int exported = 0;
+
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                new File(outputDir, MANIFEST_FILE))) {
+            for (File file : files) {
+                String source = file.getName();
+                // taken before reading, so that a concurrent change is seen on the next run
+                long size = file.length();
+                long lastModified = file.lastModified();
+                String contentHash = manifest.contentHash(source, file, size, lastModified);
+                sources.add(source);
+
+                if (manifest.isUpToDate(source, contentHash, fingerprint, outputDir)) {
+                    continue;
+                }
+
+                jCas.reset();
+                XmiDocuments.load(jCas, corpusDir, file, LOADED_TYPES);
+                long start = System.nanoTime();
+                engine.process(jCas);
+                if (monitor != null) {
+                    monitor.record(jCas, System.nanoTime() - start);
+                }
+
+                // the writer stores the document under its path relative to the corpus
+                manifest.record(source, contentHash, size, lastModified, fingerprint,
+                        source + ".txt");
+                exported++;
+            }
+
+            engine.collectionProcessComplete();
+            for (String output : manifest.compact(sources, outputDir)) {
+                System.out.println("Removed " + output + " of a deleted document");
+            }
+        }
+        finally {
+            engine.destroy();
+        }
+
+        System.out.println("Exported " + exported + " documents, " + (files.size() - exported)
+                + " unchanged");
+    }
+
+    /**
+     * Hash of the components and their parameters; a change of the configuration invalidates
+     * all manifest entries
+     */
+    private static String fingerprint(AnalysisEngineDescription... descriptions)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (AnalysisEngineDescription description : descriptions) {
+            sb.append(description.getAnnotatorImplementationName()).append('\n');
+
+            NameValuePair[] parameters = description.getAnalysisEngineMetaData()
+                    .getConfigurationParameterSettings().getParameterSettings().clone();
+            Arrays.sort(parameters, Comparator.comparing(NameValuePair::getName));
+            for (NameValuePair parameter : parameters) {
+                sb.append(parameter.getName()).append('=')
+                        .append(Arrays.deepToString(new Object[] { parameter.getValue() }))
+                        .append('\n');
+            }
+        }
+        return IncrementalExportManifest.sha256(sb.toString());
+    }
 }
@@ -19,10 +19,11 @@
 package org.dkpro.argumentation.tutorial;
 
 import org.dkpro.argumentation.io.writer.ArgumentDumpWriter;
-import de.tudarmstadt.ukp.dkpro.core.io.xmi.XmiReader;
+import org.dkpro.argumentation.tutorial.pipeline.EngineSink;
+import org.dkpro.argumentation.tutorial.pipeline.ParallelCorpusPipeline;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
-import org.apache.uima.fit.factory.CollectionReaderFactory;
-import org.apache.uima.fit.pipeline.SimplePipeline;
+
+import java.io.File;
 
 /**
  * Reads the complete argumentation corpus from
@@ -40,16 +41,12 @@ public class ArgumentationCorpusDebugger
         final String annotatedCorpusDir = args[0];
 
         try {
-            SimplePipeline.runPipeline(CollectionReaderFactory.createReaderDescription(
-                            XmiReader.class,
-                            XmiReader.PARAM_SOURCE_LOCATION, annotatedCorpusDir,
-                            XmiReader.PARAM_PATTERNS, "[+]*.xmi",
-                            XmiReader.PARAM_LENIENT, true
-                    ),
-                    AnalysisEngineFactory.createEngineDescription(
-                            ArgumentDumpWriter.class
-                    )
-            );
+            // the dump is printed in the order of the files
+            new ParallelCorpusPipeline(Runtime.getRuntime().availableProcessors())
+                    .run(new File(annotatedCorpusDir), new EngineSink(
+                            AnalysisEngineFactory.createEngineDescription(
+                                    ArgumentDumpWriter.class
+                            ), true));
         }
         catch (Exception e) {
             e.printStackTrace();
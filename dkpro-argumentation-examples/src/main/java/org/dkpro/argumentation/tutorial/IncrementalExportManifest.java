@@ -0,0 +1,310 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records which source files have been exported, so that an export can skip documents whose
+ * content and configuration did not change since the last run.
+ * <p>
+ * The manifest is a tab-separated journal with one line per exported document: source path,
+ * SHA-256 of the source content, fingerprint of the configuration, output path and size and
+ * modification time of the source. Each line is flushed as soon as the document has been
+ * written, so an interrupted run resumes after the last completed document; a later line for
+ * the same source replaces the earlier one and a truncated last line is ignored. Lines written
+ * before size and modification time were recorded are still read, their sources are hashed
+ * once more. {@link #compact(Collection, File)} rewrites the journal with only the current
+ * entries and deletes the outputs of sources which no longer exist.
+ * </p>
+ */
+public class IncrementalExportManifest
+        implements Closeable
+{
+    private static final class Entry
+    {
+        final String contentHash;
+        final String fingerprint;
+        final String output;
+        final long size;
+        final long lastModified;
+
+        Entry(String contentHash, String fingerprint, String output, long size,
+                long lastModified)
+        {
+            this.contentHash = contentHash;
+            this.fingerprint = fingerprint;
+            this.output = output;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        String toLine(String source)
+        {
+            return source + "\t" + contentHash + "\t" + fingerprint + "\t" + output + "\t" + size
+                    + "\t" + lastModified + "\n";
+        }
+    }
+
+    private static final long UNKNOWN = -1;
+
+    private final File file;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private Writer journal;
+
+    /**
+     * Loads the manifest, if it exists, and opens it for appending
+     *
+     * @param file manifest file
+     * @throws IOException if reading or opening fails
+     */
+    public IncrementalExportManifest(File file)
+            throws IOException
+    {
+        this.file = file;
+
+        if (file.isFile()) {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t");
+                // a crash may leave a truncated last line
+                if (fields.length == 6) {
+                    try {
+                        entries.put(fields[0], new Entry(fields[1], fields[2], fields[3],
+                                Long.parseLong(fields[4]), Long.parseLong(fields[5])));
+                    }
+                    catch (NumberFormatException e) {
+                        // truncated within the modification time
+                    }
+                }
+                else if (fields.length == 4) {
+                    // written without size and modification time
+                    entries.put(fields[0],
+                            new Entry(fields[1], fields[2], fields[3], UNKNOWN, UNKNOWN));
+                }
+            }
+        }
+
+        journal = openJournal();
+    }
+
+    private Writer openJournal()
+            throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the recorded hash of the source if its size and modification time did not change
+     * since it was recorded, otherwise hashes the file. Like most incremental build tools, this
+     * misses a change which keeps the size within the resolution of the modification time.
+     *
+     * @param source       source path, relative to the corpus
+     * @param file         source file
+     * @param size         size of the file, taken before reading it
+     * @param lastModified modification time of the file, taken before reading it
+     * @return hash of the source content
+     * @throws IOException if reading fails
+     */
+    public String contentHash(String source, File file, long size, long lastModified)
+            throws IOException
+    {
+        Entry entry = entries.get(source);
+        if (entry != null && entry.size != UNKNOWN && entry.size == size
+                && entry.lastModified == lastModified) {
+            return entry.contentHash;
+        }
+        return sha256(file);
+    }
+
+    /**
+     * Returns true if the source was exported with the same content and configuration and its
+     * output still exists
+     *
+     * @param source      source path, relative to the corpus
+     * @param contentHash hash of the source content
+     * @param fingerprint fingerprint of the configuration
+     * @param outputDir   output directory
+     * @return whether the source can be skipped
+     */
+    public boolean isUpToDate(String source, String contentHash, String fingerprint,
+            File outputDir)
+    {
+        Entry entry = entries.get(source);
+        return entry != null && entry.contentHash.equals(contentHash)
+                && entry.fingerprint.equals(fingerprint)
+                && new File(outputDir, entry.output).isFile();
+    }
+
+    /**
+     * Records and flushes an exported document
+     *
+     * @param source       source path, relative to the corpus
+     * @param contentHash  hash of the source content
+     * @param size         size of the source, as passed to
+     *                     {@link #contentHash(String, File, long, long)}
+     * @param lastModified modification time of the source, as passed to
+     *                     {@link #contentHash(String, File, long, long)}
+     * @param fingerprint  fingerprint of the configuration
+     * @param output       output path, relative to the output directory
+     * @throws IOException if writing fails
+     */
+    public void record(String source, String contentHash, long size, long lastModified,
+            String fingerprint, String output)
+            throws IOException
+    {
+        Entry entry = new Entry(contentHash, fingerprint, output, size, lastModified);
+        entries.put(source, entry);
+        journal.write(entry.toLine(source));
+        journal.flush();
+    }
+
+    /**
+     * Rewrites the manifest with the latest entry of each of the given sources. Entries of
+     * sources which no longer exist are dropped and their outputs deleted, unless a current
+     * source writes to the same output.
+     *
+     * @param sources   current source paths
+     * @param outputDir output directory
+     * @return the deleted outputs, relative to the output directory
+     * @throws IOException if writing the manifest or deleting an output fails
+     */
+    public List<String> compact(Collection<String> sources, File outputDir)
+            throws IOException
+    {
+        Set<String> current = new HashSet<>(sources);
+        List<String> orphaned = new ArrayList<>();
+        for (String source : new ArrayList<>(entries.keySet())) {
+            if (!current.contains(source)) {
+                orphaned.add(entries.remove(source).output);
+            }
+        }
+
+        Set<String> outputs = new HashSet<>();
+        for (Entry entry : entries.values()) {
+            outputs.add(entry.output);
+        }
+
+        List<String> deleted = new ArrayList<>();
+        for (String output : orphaned) {
+            File orphan = new File(outputDir, output);
+            if (outputs.contains(output) || !orphan.exists()) {
+                continue;
+            }
+            Files.delete(orphan.toPath());
+            deleted.add(output);
+        }
+
+        journal.close();
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                writer.write(e.getValue().toLine(e.getKey()));
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        journal = openJournal();
+        return deleted;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        journal.close();
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 of the file content
+     *
+     * @param file file
+     * @return hash
+     * @throws IOException if reading fails
+     */
+    public static String sha256(File file)
+            throws IOException
+    {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[65536];
+        try (InputStream is = new FileInputStream(file)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 of the string
+     *
+     * @param value string
+     * @return hash
+     */
+    public static String sha256(String value)
+    {
+        return toHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.profiling.LatencyHistogram;
+import org.dkpro.argumentation.io.profiling.SlowDocumentCapture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the processing time of each document of a pipeline run in a
+ * {@link LatencyHistogram}, reports the median, 99th percentile and maximum of the last
+ * interval periodically and of the whole run when closed, and optionally passes the documents
+ * to a {@link SlowDocumentCapture}. Instances are thread-safe.
+ */
+public class DocumentLatencyMonitor
+        implements Closeable
+{
+    private final LatencyHistogram total = new LatencyHistogram();
+
+    private final LatencyHistogram interval = new LatencyHistogram();
+
+    private final long reportIntervalNanos;
+
+    private final AtomicLong nextReport;
+
+    private final PrintStream out;
+
+    private final SlowDocumentCapture capture;
+
+    /**
+     * @param reportInterval interval of the reports in seconds
+     * @param out            output of the reports
+     * @param capture        capture of the slowest documents, may be null
+     */
+    public DocumentLatencyMonitor(long reportInterval, PrintStream out,
+            SlowDocumentCapture capture)
+    {
+        this.reportIntervalNanos = TimeUnit.SECONDS.toNanos(reportInterval);
+        this.nextReport = new AtomicLong(System.nanoTime() + reportIntervalNanos);
+        this.out = out;
+        this.capture = capture;
+    }
+
+    /**
+     * Records a processed document; called by the worker which processed it, before the CAS is
+     * passed on or released
+     *
+     * @param jCas         processed document
+     * @param latencyNanos processing time
+     * @throws IOException if the slow document capture fails
+     */
+    public void record(JCas jCas, long latencyNanos)
+            throws IOException
+    {
+        total.record(latencyNanos);
+        interval.record(latencyNanos);
+        if (capture != null) {
+            capture.offer(jCas, latencyNanos);
+        }
+
+        long now = System.nanoTime();
+        long next = nextReport.get();
+        // one of the workers reports; documents recorded during the reset may be lost from
+        // the interval, but not from the total
+        if (now - next >= 0 && nextReport.compareAndSet(next, now + reportIntervalNanos)) {
+            out.println("Last " + reportIntervalNanos / 1000000000L + " s: "
+                    + interval.summary());
+            interval.reset();
+        }
+    }
+
+    /**
+     * @return processing times of all documents
+     */
+    public LatencyHistogram getLatency()
+    {
+        return total;
+    }
+
+    /**
+     * Reports the processing times of the whole run and writes the list of the slowest
+     * documents
+     *
+     * @throws IOException if the list cannot be written
+     */
+    @Override
+    public void close()
+            throws IOException
+    {
+        out.println("Total: " + total.summary());
+        if (capture != null) {
+            capture.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+
+/**
+ * Receives the processed documents of a {@link ParallelCorpusPipeline}, typically to write
+ * them. Calls of {@link #process(JCas)} come from the worker threads but are never concurrent.
+ */
+public interface DocumentSink
+{
+    /**
+     * Whether the documents must be passed in the order of the input; otherwise they are passed
+     * as soon as they are processed
+     *
+     * @return true for ordered output
+     */
+    boolean isOrdered();
+
+    /**
+     * Consumes a processed document; the CAS is reused after this call returns
+     *
+     * @param jCas processed document
+     * @throws AnalysisEngineProcessException if consuming fails; the pipeline is aborted
+     */
+    void process(JCas jCas)
+            throws AnalysisEngineProcessException;
+
+    /**
+     * Called once after all documents have been processed successfully
+     *
+     * @throws AnalysisEngineProcessException if completing the output fails
+     */
+    void collectionProcessComplete()
+            throws AnalysisEngineProcessException;
+
+    /**
+     * Releases the resources of the sink; called once at the end, also after a failure
+     */
+    void destroy();
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+
+/**
+ * Passes the documents to a single instance of an analysis engine, e.g. one of the
+ * argumentation writers, which therefore does not need to be thread-safe
+ */
+public class EngineSink
+        implements DocumentSink
+{
+    private final AnalysisEngine engine;
+
+    private final boolean ordered;
+
+    /**
+     * @param description engine (or aggregate) consuming the documents
+     * @param ordered     whether the documents must arrive in the order of the input
+     * @throws ResourceInitializationException if the engine cannot be created
+     */
+    public EngineSink(AnalysisEngineDescription description, boolean ordered)
+            throws ResourceInitializationException
+    {
+        this.engine = AnalysisEngineFactory.createEngine(description);
+        this.ordered = ordered;
+    }
+
+    @Override
+    public boolean isOrdered()
+    {
+        return ordered;
+    }
+
+    @Override
+    public void process(JCas jCas)
+            throws AnalysisEngineProcessException
+    {
+        engine.process(jCas);
+    }
+
+    @Override
+    public void collectionProcessComplete()
+            throws AnalysisEngineProcessException
+    {
+        engine.collectionProcessComplete();
+    }
+
+    @Override
+    public void destroy()
+    {
+        engine.destroy();
+    }
+}
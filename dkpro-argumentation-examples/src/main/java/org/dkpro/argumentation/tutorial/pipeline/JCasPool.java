@@ -0,0 +1,372 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.fit.factory.FsIndexFactory;
+import org.apache.uima.fit.factory.TypePrioritiesFactory;
+import org.apache.uima.fit.factory.TypeSystemDescriptionFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.FsIndexDescription;
+import org.apache.uima.resource.metadata.TypePriorities;
+import org.apache.uima.util.CasCreationUtils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of reusable CASes of the type system of all uimaFIT components. Released CASes are reset
+ * and handed out again, so a corpus run allocates at most {@code maxSize} CASes.
+ * <p>
+ * The pool also bounds the memory held by its CASes. When a CAS is released, its footprint is
+ * estimated from the used heap cells and the document text (see {@link #estimateSize(JCas)});
+ * if the footprints of all CASes of the pool exceed {@code maxBytes}, the released CAS is
+ * dropped rather than reused, and no new CAS is created while the bound is exceeded. A single
+ * CAS is always allowed, so documents larger than the bound are still processed.
+ * </p>
+ * The pool is thread-safe.
+ */
+public class JCasPool
+{
+    /**
+     * Snapshot of the pool statistics
+     */
+    public static final class Statistics
+    {
+        private final long hits;
+        private final long created;
+        private final long waits;
+        private final long dropped;
+        private final int highWaterMark;
+        private final long footprint;
+
+        Statistics(long hits, long created, long waits, long dropped, int highWaterMark,
+                long footprint)
+        {
+            this.hits = hits;
+            this.created = created;
+            this.waits = waits;
+            this.dropped = dropped;
+            this.highWaterMark = highWaterMark;
+            this.footprint = footprint;
+        }
+
+        /**
+         * @return number of acquisitions served by a pooled CAS
+         */
+        public long getHits()
+        {
+            return hits;
+        }
+
+        /**
+         * @return number of CASes created
+         */
+        public long getCreated()
+        {
+            return created;
+        }
+
+        /**
+         * @return number of acquisitions which had to wait for a release
+         */
+        public long getWaits()
+        {
+            return waits;
+        }
+
+        /**
+         * @return number of released CASes dropped because of the memory bound
+         */
+        public long getDropped()
+        {
+            return dropped;
+        }
+
+        /**
+         * @return maximal number of CASes in use at the same time
+         */
+        public int getHighWaterMark()
+        {
+            return highWaterMark;
+        }
+
+        /**
+         * @return estimated bytes held by the CASes of the pool
+         */
+        public long getFootprint()
+        {
+            return footprint;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "hits=" + hits + ", created=" + created + ", waits=" + waits + ", dropped="
+                    + dropped + ", highWaterMark=" + highWaterMark + ", footprint="
+                    + footprint;
+        }
+    }
+
+    private final int maxSize;
+
+    private final long maxBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    private final Deque<JCas> idle = new ArrayDeque<>();
+
+    /**
+     * Estimated footprint of each CAS of the pool, idle or in use
+     */
+    private final Map<JCas, Long> footprints = new IdentityHashMap<>();
+
+    private long footprint;
+
+    private int inUse;
+
+    /**
+     * CASes being created outside of the lock
+     */
+    private int pending;
+
+    private long hits;
+    private long created;
+    private long waits;
+    private long dropped;
+    private int highWaterMark;
+
+    private TypeSystem typeSystem;
+    private TypePriorities typePriorities;
+    private FsIndexDescription[] indexes;
+
+    /**
+     * @param maxSize  maximal number of CASes
+     * @param maxBytes bound of the estimated memory held by the CASes
+     */
+    public JCasPool(int maxSize, long maxBytes)
+    {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive, was " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Creates a pool without a memory bound
+     *
+     * @param maxSize maximal number of CASes
+     */
+    public JCasPool(int maxSize)
+    {
+        this(maxSize, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns an empty CAS, waiting while all CASes are in use
+     *
+     * @return empty jcas
+     * @throws ResourceInitializationException if a new CAS cannot be created
+     * @throws InterruptedException            if interrupted while waiting
+     */
+    public JCas acquire()
+            throws ResourceInitializationException, InterruptedException
+    {
+        boolean create;
+
+        lock.lockInterruptibly();
+        try {
+            boolean waited = false;
+            while (idle.isEmpty() && !canCreate()) {
+                waited = true;
+                released.await();
+            }
+            if (waited) {
+                waits++;
+            }
+
+            inUse++;
+            highWaterMark = Math.max(highWaterMark, inUse);
+
+            create = idle.isEmpty();
+            if (!create) {
+                hits++;
+                return idle.pop();
+            }
+
+            created++;
+            pending++;
+        }
+        finally {
+            lock.unlock();
+        }
+
+        JCas jCas;
+        try {
+            jCas = createJCas();
+        }
+        catch (ResourceInitializationException | RuntimeException e) {
+            lock.lock();
+            try {
+                inUse--;
+                pending--;
+                released.signal();
+            }
+            finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            pending--;
+            // the footprint is known after the first release
+            footprints.put(jCas, 0L);
+        }
+        finally {
+            lock.unlock();
+        }
+        return jCas;
+    }
+
+    private boolean canCreate()
+    {
+        int size = footprints.size() + pending;
+        if (size >= maxSize) {
+            return false;
+        }
+        // one CAS is always allowed; otherwise assume a new CAS needs an average footprint
+        return size == 0 || footprint + footprint / size <= maxBytes;
+    }
+
+    /**
+     * Resets the CAS and returns it to the pool, or drops it if the pool exceeds its memory
+     * bound
+     *
+     * @param jCas jcas obtained from {@link #acquire()}
+     */
+    public void release(JCas jCas)
+    {
+        long size = estimateSize(jCas);
+        jCas.reset();
+
+        lock.lock();
+        try {
+            Long previous = footprints.get(jCas);
+            if (previous == null) {
+                throw new IllegalArgumentException("CAS does not belong to this pool");
+            }
+
+            inUse--;
+            footprint += size - previous;
+
+            if (footprint > maxBytes && footprints.size() > 1) {
+                footprints.remove(jCas);
+                footprint -= size;
+                dropped++;
+            }
+            else {
+                footprints.put(jCas, size);
+                idle.push(jCas);
+            }
+
+            released.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics
+     *
+     * @return statistics
+     */
+    public Statistics getStatistics()
+    {
+        lock.lock();
+        try {
+            return new Statistics(hits, created, waits, dropped, highWaterMark, footprint);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estimates the bytes held by the CAS: four bytes per used cell of the main heap and two
+     * bytes per character of the document text. Strings and the auxiliary heaps are not
+     * counted, so this is a lower bound suitable for comparing documents.
+     *
+     * @param jCas jcas
+     * @return estimated bytes
+     */
+    public static long estimateSize(JCas jCas)
+    {
+        CAS cas = jCas.getCas();
+        long size = 4L * ((CASImpl) cas.getLowLevelCAS()).getHeap().getNextId();
+        String text = cas.getDocumentText();
+        if (text != null) {
+            size += 2L * text.length();
+        }
+        return size;
+    }
+
+    private JCas createJCas()
+            throws ResourceInitializationException
+    {
+        try {
+            lock.lock();
+            try {
+                if (typeSystem == null) {
+                    typePriorities = TypePrioritiesFactory.createTypePriorities();
+                    indexes = FsIndexFactory.createFsIndexCollection().getFsIndexes();
+                    CAS cas = CasCreationUtils.createCas(
+                            TypeSystemDescriptionFactory.createTypeSystemDescription(),
+                            typePriorities, indexes);
+                    typeSystem = cas.getTypeSystem();
+                    return cas.getJCas();
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+
+            // share the committed type system instead of merging the descriptors again
+            return CasCreationUtils.createCas(typeSystem, typePriorities, indexes, null)
+                    .getJCas();
+        }
+        catch (CASException e) {
+            throw new ResourceInitializationException(e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.io.reader.XmiTypeFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes a corpus of XMI documents with a fixed number of worker threads, as a parallel
+ * replacement of {@link org.apache.uima.fit.pipeline.SimplePipeline#runPipeline} with an
+ * {@link de.tudarmstadt.ukp.dkpro.core.io.xmi.XmiReader}.
+ * <p>
+ * Each worker creates its own instances of the processing engines, takes the next document,
+ * loads it into a CAS from the {@link JCasPool}, processes it, and passes it to the
+ * {@link DocumentSink}. Annotators
+ * therefore need not be thread-safe, but must not share mutable static state. The sink is
+ * called by one worker at a time, either in the order in which the documents are processed or,
+ * for an {@link DocumentSink#isOrdered() ordered} sink, in the order of the input; in the latter
+ * case a worker which finished ahead of its turn waits with its CAS. Since the sink is
+ * serialized, expensive processing belongs into the engines of the pipeline rather than into
+ * the sink.
+ * </p>
+ * The first failure aborts the run: the remaining documents are not processed and the failure
+ * is rethrown by {@link #run(File, List, DocumentSink)}.
+ */
+public class ParallelCorpusPipeline
+{
+    private final int threadCount;
+
+    private final AnalysisEngineDescription processing;
+
+    private final JCasPool pool;
+
+    private Collection<String> loadedTypes;
+
+    private DocumentLatencyMonitor latencyMonitor;
+
+    /**
+     * Creates a pipeline with a pool of one CAS per worker
+     *
+     * @param threadCount number of worker threads
+     * @param engines     processing engines, instantiated once per worker
+     * @throws ResourceInitializationException if the aggregate cannot be created
+     */
+    public ParallelCorpusPipeline(int threadCount, AnalysisEngineDescription... engines)
+            throws ResourceInitializationException
+    {
+        this(threadCount, new JCasPool(threadCount), engines);
+    }
+
+    /**
+     * @param threadCount number of worker threads
+     * @param pool        pool of the CASes; with fewer CASes than workers, workers wait for
+     *                    a CAS before they take the next document
+     * @param engines     processing engines, instantiated once per worker
+     * @throws ResourceInitializationException if the aggregate cannot be created
+     */
+    public ParallelCorpusPipeline(int threadCount, JCasPool pool,
+            AnalysisEngineDescription... engines)
+            throws ResourceInitializationException
+    {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException(
+                    "threadCount must be positive, was " + threadCount);
+        }
+
+        this.threadCount = threadCount;
+        this.pool = pool;
+        this.processing = AnalysisEngineFactory.createEngineDescription(engines);
+    }
+
+    /**
+     * Restricts the deserialized types, see {@link XmiDocuments#load(JCas, File, File,
+     * Collection)}; e.g. the input types of the engines from
+     * {@link XmiTypeFilter#getInputTypes(Class[])}
+     *
+     * @param loadedTypes names of the types to load, or null to load all types (default)
+     */
+    public void setLoadedTypes(Collection<String> loadedTypes)
+    {
+        this.loadedTypes = loadedTypes;
+    }
+
+    /**
+     * Records the processing time of each document, see {@link DocumentLatencyMonitor}
+     *
+     * @param latencyMonitor monitor, or null to not record the processing times (default)
+     */
+    public void setLatencyMonitor(DocumentLatencyMonitor latencyMonitor)
+    {
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    /**
+     * Returns the CAS pool, e.g. for its statistics
+     *
+     * @return pool
+     */
+    public JCasPool getPool()
+    {
+        return pool;
+    }
+
+    /**
+     * Processes all documents of the directory, see {@link XmiDocuments#list(File)}
+     *
+     * @param corpusDir corpus directory
+     * @param sink      sink; completed and destroyed at the end
+     * @throws UIMAException if processing fails
+     * @throws IOException   if loading a document fails
+     */
+    public void run(File corpusDir, DocumentSink sink)
+            throws UIMAException, IOException
+    {
+        run(corpusDir, XmiDocuments.list(corpusDir), sink);
+    }
+
+    /**
+     * Processes the given documents
+     *
+     * @param corpusDir corpus directory the documents are relative to
+     * @param documents XMI files
+     * @param sink      sink; completed and destroyed at the end
+     * @throws UIMAException if processing fails
+     * @throws IOException   if loading a document fails
+     */
+    public void run(File corpusDir, List<File> documents, DocumentSink sink)
+            throws UIMAException, IOException
+    {
+        Run run = new Run(corpusDir, documents, sink);
+
+        try {
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < Math.min(threadCount, Math.max(documents.size(), 1)); i++) {
+                Thread worker = new Thread(run::work, "corpus-worker-" + i);
+                workers.add(worker);
+                worker.start();
+            }
+
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                }
+                catch (InterruptedException e) {
+                    run.dispatcher.fail(e);
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            run.dispatcher.rethrow();
+            sink.collectionProcessComplete();
+        }
+        finally {
+            sink.destroy();
+        }
+    }
+
+    /**
+     * State of one run, shared by the workers
+     */
+    private final class Run
+    {
+        private final File corpusDir;
+        private final List<File> documents;
+        private final SinkDispatcher dispatcher;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        Run(File corpusDir, List<File> documents, DocumentSink sink)
+        {
+            this.corpusDir = corpusDir;
+            this.documents = documents;
+            this.dispatcher = new SinkDispatcher(sink);
+        }
+
+        void work()
+        {
+            AnalysisEngine engine = null;
+            try {
+                engine = AnalysisEngineFactory.createEngine(processing);
+
+                while (!dispatcher.isFailed() && next.get() < documents.size()) {
+                    JCas jCas = pool.acquire();
+                    try {
+                        // take the next document only while holding a CAS: otherwise, with
+                        // fewer CASes than workers, the worker of the document an ordered sink
+                        // waits for could wait for a CAS held by a worker waiting for the sink
+                        int index = next.getAndIncrement();
+                        if (index >= documents.size()) {
+                            break;
+                        }
+
+                        XmiDocuments.load(jCas, corpusDir, documents.get(index), loadedTypes);
+                        long start = System.nanoTime();
+                        engine.process(jCas);
+                        if (latencyMonitor != null) {
+                            latencyMonitor.record(jCas, System.nanoTime() - start);
+                        }
+                        dispatcher.emit(index, jCas);
+                    }
+                    finally {
+                        pool.release(jCas);
+                    }
+                }
+
+                engine.collectionProcessComplete();
+            }
+            catch (Throwable e) {
+                dispatcher.fail(e);
+            }
+            finally {
+                if (engine != null) {
+                    engine.destroy();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.collection.CollectionReaderDescription;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.CollectionReaderFactory;
+import org.apache.uima.jcas.JCas;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Variant of {@link org.apache.uima.fit.pipeline.SimplePipeline#runPipeline(
+ * CollectionReaderDescription, AnalysisEngineDescription...)} which takes the CAS for each
+ * document from a {@link JCasPool}, so that the CASes (and their memory) are shared with other
+ * pipelines using the same pool.
+ */
+public final class PooledPipeline
+{
+    private PooledPipeline()
+    {
+        // utility class
+    }
+
+    /**
+     * Reads all documents and processes them with the engines
+     *
+     * @param pool    CAS pool
+     * @param reader  collection reader
+     * @param engines analysis engines
+     * @throws UIMAException if reading or processing fails
+     * @throws IOException   if reading fails or the thread is interrupted
+     */
+    public static void runPipeline(JCasPool pool, CollectionReaderDescription reader,
+            AnalysisEngineDescription... engines)
+            throws UIMAException, IOException
+    {
+        CollectionReader collectionReader = CollectionReaderFactory.createReader(reader);
+        AnalysisEngine engine = AnalysisEngineFactory.createEngine(
+                AnalysisEngineFactory.createEngineDescription(engines));
+
+        try {
+            while (collectionReader.hasNext()) {
+                JCas jCas = pool.acquire();
+                try {
+                    collectionReader.getNext(jCas.getCas());
+                    engine.process(jCas);
+                }
+                finally {
+                    pool.release(jCas);
+                }
+            }
+
+            engine.collectionProcessComplete();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        finally {
+            collectionReader.close();
+            collectionReader.destroy();
+            engine.destroy();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.jcas.JCas;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Passes processed documents from concurrent workers to a {@link DocumentSink}, one at a time
+ * and, for an ordered sink, in the order of their index. Records the first failure of any
+ * worker, after which waiting workers are released and no further documents are passed.
+ * <p>
+ * Uses a {@link ReentrantLock} rather than monitors, so that waiting virtual threads do not pin
+ * their carrier thread.
+ * </p>
+ */
+class SinkDispatcher
+{
+    private final DocumentSink sink;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition turnChanged = lock.newCondition();
+
+    /**
+     * Index of the document an ordered sink expects next; guarded by lock
+     */
+    private int turn;
+
+    private volatile Throwable failure;
+
+    SinkDispatcher(DocumentSink sink)
+    {
+        this.sink = sink;
+    }
+
+    /**
+     * Passes the document to the sink, for an ordered sink after all documents with a lower
+     * index; returns without passing it if the run failed
+     *
+     * @param index index of the document in the input
+     * @param jCas  processed document
+     * @throws Exception if the sink fails or the thread is interrupted
+     */
+    void emit(int index, JCas jCas)
+            throws Exception
+    {
+        lock.lockInterruptibly();
+        try {
+            if (sink.isOrdered()) {
+                while (turn != index && failure == null) {
+                    turnChanged.await();
+                }
+            }
+            if (failure != null) {
+                return;
+            }
+
+            try {
+                sink.process(jCas);
+            }
+            finally {
+                turn++;
+                turnChanged.signalAll();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isFailed()
+    {
+        return failure != null;
+    }
+
+    void fail(Throwable e)
+    {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = e;
+            }
+            turnChanged.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rethrows the first failure, if any
+     *
+     * @throws UIMAException if processing failed
+     * @throws IOException   if loading failed or the run was interrupted
+     */
+    void rethrow()
+            throws UIMAException, IOException
+    {
+        Throwable e = failure;
+        if (e == null) {
+            return;
+        }
+        if (e instanceof UIMAException) {
+            throw (UIMAException) e;
+        }
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e instanceof InterruptedException) {
+            throw (IOException) new InterruptedIOException().initCause(e);
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw new IOException(e);
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.io.reader.XmiTypeFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes each document in its own thread, for workloads dominated by loading and writing
+ * many small documents. At most {@code maxInFlight} documents are in flight at a time; each
+ * holds an instance of the processing engines, which are created on demand and reused, and a
+ * CAS from a {@link JCasPool}.
+ * <p>
+ * On Java 21 and later, the documents run in virtual threads
+ * ({@code Executors.newVirtualThreadPerTaskExecutor()}), so blocking reads and writes do not
+ * occupy platform threads and {@code maxInFlight} can be in the thousands. On older runtimes, a
+ * cached thread pool is used instead, which holds up to {@code maxInFlight} platform threads.
+ * </p>
+ * The {@link DocumentSink} is called as in {@link ParallelCorpusPipeline}.
+ */
+public class ThreadPerDocumentPipeline
+{
+    private final int maxInFlight;
+
+    private final AnalysisEngineDescription processing;
+
+    private final JCasPool pool;
+
+    private Collection<String> loadedTypes;
+
+    private DocumentLatencyMonitor latencyMonitor;
+
+    /**
+     * Creates a pipeline with a pool of one CAS per document in flight
+     *
+     * @param maxInFlight maximal number of documents processed at a time
+     * @param engines     processing engines, instantiated once per document in flight
+     * @throws ResourceInitializationException if the aggregate cannot be created
+     */
+    public ThreadPerDocumentPipeline(int maxInFlight, AnalysisEngineDescription... engines)
+            throws ResourceInitializationException
+    {
+        this(maxInFlight, new JCasPool(maxInFlight), engines);
+    }
+
+    /**
+     * @param maxInFlight maximal number of documents processed at a time
+     * @param pool        pool of the CASes; with fewer CASes, documents wait for a CAS before
+     *                    the next document is taken
+     * @param engines     processing engines, instantiated once per document in flight
+     * @throws ResourceInitializationException if the aggregate cannot be created
+     */
+    public ThreadPerDocumentPipeline(int maxInFlight, JCasPool pool,
+            AnalysisEngineDescription... engines)
+            throws ResourceInitializationException
+    {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException(
+                    "maxInFlight must be positive, was " + maxInFlight);
+        }
+
+        this.maxInFlight = maxInFlight;
+        this.pool = pool;
+        this.processing = AnalysisEngineFactory.createEngineDescription(engines);
+    }
+
+    /**
+     * Restricts the deserialized types, see {@link XmiDocuments#load(JCas, File, File,
+     * Collection)}; e.g. the input types of the engines from
+     * {@link XmiTypeFilter#getInputTypes(Class[])}
+     *
+     * @param loadedTypes names of the types to load, or null to load all types (default)
+     */
+    public void setLoadedTypes(Collection<String> loadedTypes)
+    {
+        this.loadedTypes = loadedTypes;
+    }
+
+    /**
+     * Records the processing time of each document, see {@link DocumentLatencyMonitor}
+     *
+     * @param latencyMonitor monitor, or null to not record the processing times (default)
+     */
+    public void setLatencyMonitor(DocumentLatencyMonitor latencyMonitor)
+    {
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    /**
+     * Returns the CAS pool, e.g. for its statistics
+     *
+     * @return pool
+     */
+    public JCasPool getPool()
+    {
+        return pool;
+    }
+
+    /**
+     * Returns true if documents run in virtual threads on this runtime
+     *
+     * @return whether virtual threads are available
+     */
+    public static boolean isVirtualThreadsAvailable()
+    {
+        return virtualThreadExecutorFactory() != null;
+    }
+
+    private static Method virtualThreadExecutorFactory()
+    {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor()
+    {
+        Method factory = virtualThreadExecutorFactory();
+        if (factory != null) {
+            try {
+                return (ExecutorService) factory.invoke(null);
+            }
+            catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "document-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Processes all documents of the directory, see {@link XmiDocuments#list(File)}
+     *
+     * @param corpusDir corpus directory
+     * @param sink      sink; completed and destroyed at the end
+     * @throws UIMAException if processing fails
+     * @throws IOException   if loading a document fails
+     */
+    public void run(File corpusDir, DocumentSink sink)
+            throws UIMAException, IOException
+    {
+        run(corpusDir, XmiDocuments.list(corpusDir), sink);
+    }
+
+    /**
+     * Processes the given documents
+     *
+     * @param corpusDir corpus directory the documents are relative to
+     * @param documents XMI files
+     * @param sink      sink; completed and destroyed at the end
+     * @throws UIMAException if processing fails
+     * @throws IOException   if loading a document fails
+     */
+    public void run(File corpusDir, List<File> documents, DocumentSink sink)
+            throws UIMAException, IOException
+    {
+        SinkDispatcher dispatcher = new SinkDispatcher(sink);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Queue<AnalysisEngine> idle = new ConcurrentLinkedQueue<>();
+        Queue<AnalysisEngine> all = new ConcurrentLinkedQueue<>();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = newThreadPerTaskExecutor();
+
+        try {
+            for (int i = 0; i < documents.size() && !dispatcher.isFailed(); i++) {
+                // blocks while all slots are in use
+                inFlight.acquire();
+
+                executor.execute(() -> {
+                    AnalysisEngine engine = idle.poll();
+                    JCas jCas = null;
+                    try {
+                        if (engine == null) {
+                            engine = AnalysisEngineFactory.createEngine(processing);
+                            all.add(engine);
+                        }
+
+                        if (!dispatcher.isFailed()) {
+                            jCas = pool.acquire();
+                            // one task per document, each takes the next document only while
+                            // holding a CAS, as in ParallelCorpusPipeline
+                            int index = next.getAndIncrement();
+                            XmiDocuments.load(jCas, corpusDir, documents.get(index), loadedTypes);
+                            long start = System.nanoTime();
+                            engine.process(jCas);
+                            if (latencyMonitor != null) {
+                                latencyMonitor.record(jCas, System.nanoTime() - start);
+                            }
+                            dispatcher.emit(index, jCas);
+                        }
+                    }
+                    catch (Throwable e) {
+                        dispatcher.fail(e);
+                    }
+                    finally {
+                        if (jCas != null) {
+                            pool.release(jCas);
+                        }
+                        if (engine != null) {
+                            idle.add(engine);
+                        }
+                        inFlight.release();
+                    }
+                });
+            }
+
+            // wait for the documents in flight
+            inFlight.acquire(maxInFlight);
+
+            dispatcher.rethrow();
+
+            for (AnalysisEngine engine : all) {
+                engine.collectionProcessComplete();
+            }
+            sink.collectionProcessComplete();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dispatcher.fail(e);
+            throw new InterruptedIOException();
+        }
+        finally {
+            // the engines and the sink must no longer be in use when they are destroyed
+            shutdown(executor);
+            for (AnalysisEngine engine : all) {
+                engine.destroy();
+            }
+            sink.destroy();
+        }
+    }
+
+    /**
+     * Interrupts the documents in flight and waits until their tasks have finished; the
+     * interrupt status of the calling thread is preserved
+     */
+    private static void shutdown(ExecutorService executor)
+    {
+        executor.shutdownNow();
+
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
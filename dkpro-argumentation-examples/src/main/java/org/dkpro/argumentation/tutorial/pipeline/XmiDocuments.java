@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import org.apache.uima.cas.impl.XmiCasDeserializer;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.reader.XmiTypeFilter;
+import org.xml.sax.SAXException;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Loads XMI documents into a CAS outside of a collection reader, with the same document
+ * metadata as set by the {@link de.tudarmstadt.ukp.dkpro.core.io.xmi.XmiReader}.
+ */
+public final class XmiDocuments
+{
+    private XmiDocuments()
+    {
+        // utility class
+    }
+
+    /**
+     * Returns the XMI files in the directory (not recursive), sorted by name
+     *
+     * @param directory corpus directory
+     * @return XMI files
+     */
+    public static List<File> list(File directory)
+    {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".xmi"));
+        if (files == null) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Deserializes the XMI file leniently into the (empty) CAS and sets the document base URI
+     * and URI, so that file writers store the output under the path relative to the corpus
+     *
+     * @param jCas      empty jcas
+     * @param corpusDir corpus directory
+     * @param file      XMI file in the corpus directory
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static void load(JCas jCas, File corpusDir, File file)
+            throws IOException
+    {
+        load(jCas, corpusDir, file, null);
+    }
+
+    /**
+     * Like {@link #load(JCas, File, File)}, but deserializes only the given types and their
+     * subtypes; see {@link XmiTypeFilter}
+     *
+     * @param jCas      empty jcas
+     * @param corpusDir corpus directory
+     * @param file      XMI file in the corpus directory
+     * @param types     names of the types to load, or null to load all types
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static void load(JCas jCas, File corpusDir, File file, Collection<String> types)
+            throws IOException
+    {
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            if (types != null) {
+                XmiTypeFilter.deserialize(is, jCas.getCas(), types);
+            }
+            else {
+                XmiCasDeserializer.deserialize(is, jCas.getCas(), true);
+            }
+        }
+        catch (SAXException e) {
+            throw new IOException("Cannot parse " + file, e);
+        }
+
+        DocumentMetaData metaData = JCasUtil.exists(jCas, DocumentMetaData.class) ?
+                DocumentMetaData.get(jCas) :
+                DocumentMetaData.create(jCas);
+        metaData.setDocumentBaseUri(corpusDir.toURI().toString());
+        metaData.setDocumentUri(file.toURI().toString());
+        if (metaData.getDocumentId() == null) {
+            metaData.setDocumentId(file.getName());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.tutorial;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalExportManifestTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File manifestFile()
+    {
+        return new File(folder.getRoot(), "manifest.tsv");
+    }
+
+    private File output(String name)
+            throws Exception
+    {
+        File output = new File(folder.getRoot(), name);
+        FileUtils.writeStringToFile(output, "Cats\tO\n", "UTF-8");
+        return output;
+    }
+
+    @Test
+    public void testJournalReplay()
+            throws Exception
+    {
+        output("a.xmi.txt");
+        output("b.xmi.txt");
+
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                manifestFile())) {
+            manifest.record("a.xmi", "hash1", 3, 1000, "config", "a.xmi.txt");
+            manifest.record("b.xmi", "hash1", 3, 1000, "config", "b.xmi.txt");
+            manifest.record("a.xmi", "hash2", 3, 1000, "config", "a.xmi.txt");
+        }
+
+        // the later line of a.xmi replaces the earlier one
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                manifestFile())) {
+            assertTrue(manifest.isUpToDate("a.xmi", "hash2", "config", folder.getRoot()));
+            assertFalse(manifest.isUpToDate("a.xmi", "hash1", "config", folder.getRoot()));
+            assertTrue(manifest.isUpToDate("b.xmi", "hash1", "config", folder.getRoot()));
+            assertFalse(manifest.isUpToDate("c.xmi", "hash1", "config", folder.getRoot()));
+        }
+    }
+
+    @Test
+    public void testTruncatedLastLine()
+            throws Exception
+    {
+        output("a.xmi.txt");
+        output("b.xmi.txt");
+
+        // an interrupted run may leave a partial line
+        FileUtils.writeStringToFile(manifestFile(),
+                "a.xmi\thash1\tconfig\ta.xmi.txt\t3\t1000\nb.xmi\thash1\tcon", "UTF-8");
+
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                manifestFile())) {
+            assertTrue(manifest.isUpToDate("a.xmi", "hash1", "config", folder.getRoot()));
+            assertFalse(manifest.isUpToDate("b.xmi", "hash1", "config", folder.getRoot()));
+        }
+    }
+
+    @Test
+    public void testCompact()
+            throws Exception
+    {
+        output("a.xmi.txt");
+
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                manifestFile())) {
+            manifest.record("a.xmi", "hash1", 3, 1000, "config", "a.xmi.txt");
+            manifest.record("b.xmi", "hash1", 3, 1000, "config", "b.xmi.txt");
+            manifest.record("a.xmi", "hash2", 3, 1000, "config", "a.xmi.txt");
+
+            // b.xmi was removed from the corpus
+            manifest.compact(Arrays.asList("a.xmi"), folder.getRoot());
+            assertEquals(Arrays.asList("a.xmi\thash2\tconfig\ta.xmi.txt\t3\t1000"),
+                    FileUtils.readLines(manifestFile(), "UTF-8"));
+
+            // the journal is open again after compacting
+            manifest.record("c.xmi", "hash1", 3, 1000, "config", "c.xmi.txt");
+        }
+
+        List<String> lines = FileUtils.readLines(manifestFile(), "UTF-8");
+        assertEquals(Arrays.asList("a.xmi\thash2\tconfig\ta.xmi.txt\t3\t1000",
+                "c.xmi\thash1\tconfig\tc.xmi.txt\t3\t1000"), lines);
+        assertFalse(new File(manifestFile().getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testCompactDeletesOrphanedOutputs()
+            throws Exception
+    {
+        File a = output("a.xmi.txt");
+        File b = output("b.xmi.txt");
+
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                manifestFile())) {
+            manifest.record("a.xmi", "hash1", 3, 1000, "config", "a.xmi.txt");
+            manifest.record("b.xmi", "hash1", 3, 1000, "config", "b.xmi.txt");
+            // c.xmi was never written
+            manifest.record("c.xmi", "hash1", 3, 1000, "config", "c.xmi.txt");
+            // d.xmi shares the output of a current source
+            manifest.record("d.xmi", "hash1", 3, 1000, "config", "a.xmi.txt");
+
+            assertEquals(Arrays.asList("b.xmi.txt"),
+                    manifest.compact(Arrays.asList("a.xmi"), folder.getRoot()));
+        }
+
+        assertTrue(a.isFile());
+        assertFalse(b.exists());
+    }
+
+    @Test
+    public void testContentHashSkipsUnchangedSources()
+            throws Exception
+    {
+        File source = folder.newFile("a.xmi");
+        FileUtils.writeStringToFile(source, "abc", "UTF-8");
+        String actual = IncrementalExportManifest.sha256(source);
+
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                manifestFile())) {
+            // not recorded yet
+            assertEquals(actual, manifest.contentHash("a.xmi", source, 3, 1000));
+
+            manifest.record("a.xmi", "recorded", 3, 1000, "config", "a.xmi.txt");
+            // same size and modification time, the file is not read
+            assertEquals("recorded", manifest.contentHash("a.xmi", source, 3, 1000));
+            // changed size or modification time
+            assertEquals(actual, manifest.contentHash("a.xmi", source, 4, 1000));
+            assertEquals(actual, manifest.contentHash("a.xmi", source, 3, 2000));
+        }
+    }
+
+    @Test
+    public void testLegacyLinesAreHashed()
+            throws Exception
+    {
+        output("a.xmi.txt");
+        File source = folder.newFile("a.xmi");
+        FileUtils.writeStringToFile(source, "abc", "UTF-8");
+
+        // written before size and modification time were recorded
+        FileUtils.writeStringToFile(manifestFile(), "a.xmi\trecorded\tconfig\ta.xmi.txt\n",
+                "UTF-8");
+
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                manifestFile())) {
+            assertTrue(manifest.isUpToDate("a.xmi", "recorded", "config", folder.getRoot()));
+            assertEquals(IncrementalExportManifest.sha256(source), manifest.contentHash(
+                    "a.xmi", source, source.length(), source.lastModified()));
+        }
+    }
+
+    @Test
+    public void testIsUpToDate()
+            throws Exception
+    {
+        File output = output("a.xmi.txt");
+
+        try (IncrementalExportManifest manifest = new IncrementalExportManifest(
+                manifestFile())) {
+            manifest.record("a.xmi", "hash1", 3, 1000, "config1", "a.xmi.txt");
+
+            assertTrue(manifest.isUpToDate("a.xmi", "hash1", "config1", folder.getRoot()));
+            // changed content
+            assertFalse(manifest.isUpToDate("a.xmi", "hash2", "config1", folder.getRoot()));
+            // changed configuration
+            assertFalse(manifest.isUpToDate("a.xmi", "hash1", "config2", folder.getRoot()));
+            // different output directory
+            assertFalse(manifest.isUpToDate("a.xmi", "hash1", "config1",
+                    folder.newFolder("other")));
+
+            // deleted output
+            assertTrue(output.delete());
+            assertFalse(manifest.isUpToDate("a.xmi", "hash1", "config1", folder.getRoot()));
+        }
+    }
+
+    @Test
+    public void testSha256()
+            throws Exception
+    {
+        File file = folder.newFile("content.txt");
+        FileUtils.writeStringToFile(file, "abc", "UTF-8");
+
+        String expected = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+        assertEquals(expected, IncrementalExportManifest.sha256("abc"));
+        assertEquals(expected, IncrementalExportManifest.sha256(file));
+    }
+}
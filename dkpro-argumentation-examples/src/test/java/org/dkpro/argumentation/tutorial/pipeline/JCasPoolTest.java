@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JCasPoolTest
+{
+    private static final int TEXT_LENGTH = 1000;
+
+    private static String text()
+    {
+        StringBuilder sb = new StringBuilder(TEXT_LENGTH);
+        for (int i = 0; i < TEXT_LENGTH; i++) {
+            sb.append('a');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Starts a thread acquiring a CAS and waits until it blocks
+     */
+    private static Thread acquireInBackground(JCasPool pool, AtomicReference<JCas> result)
+            throws InterruptedException
+    {
+        Thread thread = new Thread(() -> {
+            try {
+                result.set(pool.acquire());
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+        return thread;
+    }
+
+    @Test
+    public void testHitsAndCreation()
+            throws Exception
+    {
+        JCasPool pool = new JCasPool(2);
+
+        JCas first = pool.acquire();
+        JCas second = pool.acquire();
+        assertNotSame(first, second);
+        first.setDocumentText("Cats purr.");
+        pool.release(first);
+
+        // the released CAS is reset and reused
+        JCas third = pool.acquire();
+        assertSame(first, third);
+        assertNull(third.getDocumentText());
+
+        JCasPool.Statistics statistics = pool.getStatistics();
+        assertEquals(2, statistics.getCreated());
+        assertEquals(1, statistics.getHits());
+        assertEquals(0, statistics.getWaits());
+        assertEquals(0, statistics.getDropped());
+        assertEquals(2, statistics.getHighWaterMark());
+    }
+
+    @Test
+    public void testAcquireWaitsForRelease()
+            throws Exception
+    {
+        JCasPool pool = new JCasPool(1);
+        JCas jCas = pool.acquire();
+
+        AtomicReference<JCas> result = new AtomicReference<>();
+        Thread waiting = acquireInBackground(pool, result);
+
+        pool.release(jCas);
+        waiting.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(waiting.isAlive());
+        assertSame(jCas, result.get());
+
+        JCasPool.Statistics statistics = pool.getStatistics();
+        assertEquals(1, statistics.getCreated());
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getWaits());
+        assertEquals(1, statistics.getHighWaterMark());
+    }
+
+    @Test
+    public void testMemoryBound()
+            throws Exception
+    {
+        // a single document exceeds the bound
+        JCasPool pool = new JCasPool(4, TEXT_LENGTH);
+
+        JCas first = pool.acquire();
+        JCas second = pool.acquire();
+        first.setDocumentText(text());
+        second.setDocumentText(text());
+
+        // the pool exceeds its bound, so the first CAS is dropped ...
+        pool.release(first);
+        assertEquals(1, pool.getStatistics().getDropped());
+        // ... but a single CAS is always kept
+        pool.release(second);
+        assertEquals(1, pool.getStatistics().getDropped());
+        assertTrue(pool.getStatistics().getFootprint() > TEXT_LENGTH);
+
+        JCas third = pool.acquire();
+        assertSame(second, third);
+
+        // no further CAS is created while the bound is exceeded
+        AtomicReference<JCas> result = new AtomicReference<>();
+        Thread waiting = acquireInBackground(pool, result);
+
+        pool.release(third);
+        waiting.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(waiting.isAlive());
+        assertSame(second, result.get());
+
+        JCasPool.Statistics statistics = pool.getStatistics();
+        assertEquals(2, statistics.getCreated());
+        assertEquals(2, statistics.getHits());
+        assertEquals(1, statistics.getWaits());
+        assertEquals(1, statistics.getDropped());
+    }
+
+    @Test
+    public void testEstimateSize()
+            throws Exception
+    {
+        JCasPool pool = new JCasPool(1);
+        JCas jCas = pool.acquire();
+
+        long empty = JCasPool.estimateSize(jCas);
+        jCas.setDocumentText(text());
+        assertTrue(JCasPool.estimateSize(jCas) >= empty + 2 * TEXT_LENGTH);
+    }
+
+    @Test
+    public void testReleaseForeignCas()
+            throws Exception
+    {
+        JCas foreign = new JCasPool(1).acquire();
+        try {
+            new JCasPool(1).release(foreign);
+            fail("Expected an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.NoOpAnnotator;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.dkpro.argumentation.tutorial.pipeline.PipelineTestSupport.CountingAnnotator;
+import org.dkpro.argumentation.tutorial.pipeline.PipelineTestSupport.RecordingSink;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelCorpusPipelineTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int DOCUMENTS = 30;
+
+    private static final int THREADS = 4;
+
+    private File corpus;
+
+    private List<String> names;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        CountingAnnotator.reset();
+        corpus = folder.newFolder("corpus");
+        names = PipelineTestSupport.createCorpus(corpus, DOCUMENTS);
+    }
+
+    private static AnalysisEngineDescription annotator(Object... parameters)
+            throws Exception
+    {
+        return AnalysisEngineFactory.createEngineDescription(CountingAnnotator.class,
+                parameters);
+    }
+
+    @Test
+    public void testOrderedOutputEqualsSequentialOutput()
+            throws Exception
+    {
+        RecordingSink sequential = new RecordingSink(true);
+        new ParallelCorpusPipeline(1, annotator()).run(corpus, sequential);
+
+        RecordingSink parallel = new RecordingSink(true);
+        new ParallelCorpusPipeline(THREADS,
+                annotator(CountingAnnotator.PARAM_MAX_DELAY, 5)).run(corpus, parallel);
+
+        assertEquals(names, sequential.documents);
+        assertEquals(sequential.documents, parallel.documents);
+        assertEquals(1, parallel.completed.get());
+        assertEquals(1, parallel.destroyed.get());
+    }
+
+    @Test
+    public void testUnorderedCompletion()
+            throws Exception
+    {
+        RecordingSink sink = new RecordingSink(false);
+        new ParallelCorpusPipeline(THREADS, annotator(CountingAnnotator.PARAM_MAX_DELAY, 5))
+                .run(corpus, sink);
+
+        // every document exactly once, in any order
+        List<String> received = new ArrayList<>(sink.documents);
+        received.sort(null);
+        assertEquals(names, received);
+        assertEquals(1, sink.completed.get());
+        assertEquals(1, sink.destroyed.get());
+    }
+
+    @Test
+    public void testPerWorkerLifecycle()
+            throws Exception
+    {
+        new ParallelCorpusPipeline(THREADS, annotator()).run(corpus, new RecordingSink(false));
+
+        assertEquals(THREADS, CountingAnnotator.INITIALIZED.get());
+        assertEquals(DOCUMENTS, CountingAnnotator.PROCESSED.get());
+        assertEquals(THREADS, CountingAnnotator.COMPLETED.get());
+        assertEquals(THREADS, CountingAnnotator.DESTROYED.get());
+    }
+
+    @Test
+    public void testFirstFailureIsPropagated()
+            throws Exception
+    {
+        String failing = names.get(10);
+        RecordingSink sink = new RecordingSink(true);
+        try {
+            new ParallelCorpusPipeline(THREADS,
+                    annotator(CountingAnnotator.PARAM_FAIL_ON, failing)).run(corpus, sink);
+            fail("Expected the failure of " + failing);
+        }
+        catch (AnalysisEngineProcessException e) {
+            assertTrue(e.getCause().getMessage().contains(failing));
+        }
+
+        // the ordered sink never gets past the failed document and is not completed
+        assertFalse(sink.documents.contains(failing));
+        assertEquals(names.subList(0, sink.documents.size()), sink.documents);
+        assertEquals(0, sink.completed.get());
+        assertEquals(1, sink.destroyed.get());
+
+        // every worker destroys its engines, also after the failure
+        assertEquals(THREADS, CountingAnnotator.INITIALIZED.get());
+        assertEquals(THREADS, CountingAnnotator.DESTROYED.get());
+    }
+
+    @Test(timeout = 60000)
+    public void testOrderedSinkWithFewerCasesThanWorkers()
+            throws Exception
+    {
+        JCasPool pool = new JCasPool(1);
+        RecordingSink sink = new RecordingSink(true);
+        new ParallelCorpusPipeline(THREADS, pool,
+                annotator(CountingAnnotator.PARAM_MAX_DELAY, 2)).run(corpus, sink);
+
+        assertEquals(names, sink.documents);
+        assertEquals(1, pool.getStatistics().getHighWaterMark());
+    }
+
+    @Test(timeout = 60000)
+    public void testOrderedSinkWithMemoryBoundPool()
+            throws Exception
+    {
+        // every released CAS exceeds the bound, so the pool shrinks to a single CAS
+        JCasPool pool = new JCasPool(THREADS, 1);
+        RecordingSink sink = new RecordingSink(true);
+        new ParallelCorpusPipeline(THREADS, pool,
+                annotator(CountingAnnotator.PARAM_MAX_DELAY, 2)).run(corpus, sink);
+
+        assertEquals(names, sink.documents);
+        assertTrue(pool.getStatistics().getDropped() > 0);
+    }
+
+    @Test
+    public void testEngineSink()
+            throws Exception
+    {
+        EngineSink sink = new EngineSink(annotator(), true);
+        assertTrue(sink.isOrdered());
+        assertEquals(1, CountingAnnotator.INITIALIZED.get());
+
+        new ParallelCorpusPipeline(THREADS, AnalysisEngineFactory.createEngineDescription(
+                NoOpAnnotator.class)).run(corpus, sink);
+
+        assertEquals(DOCUMENTS, CountingAnnotator.PROCESSED.get());
+        assertEquals(1, CountingAnnotator.COMPLETED.get());
+        assertEquals(1, CountingAnnotator.DESTROYED.get());
+    }
+}
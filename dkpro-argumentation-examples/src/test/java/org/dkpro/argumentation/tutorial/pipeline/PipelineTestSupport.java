@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Corpus, engine and sink shared by the pipeline tests
+ */
+final class PipelineTestSupport
+{
+    private PipelineTestSupport()
+    {
+        // utility class
+    }
+
+    /**
+     * Writes XMI documents {@code doc-000.xmi}, ... with their file name as document id
+     *
+     * @param directory corpus directory
+     * @param count     number of documents
+     * @return names of the documents in the order of the input
+     */
+    static List<String> createCorpus(File directory, int count)
+            throws Exception
+    {
+        List<String> names = new ArrayList<>();
+        JCas jCas = JCasFactory.createJCas();
+        for (int i = 0; i < count; i++) {
+            String name = String.format("doc-%03d.xmi", i);
+            jCas.reset();
+            jCas.setDocumentText("Document " + i);
+            DocumentMetaData.create(jCas).setDocumentId(name);
+            try (OutputStream os = new FileOutputStream(new File(directory, name))) {
+                XmiCasSerializer.serialize(jCas.getCas(), os);
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Counts the life cycle calls of all its instances; optionally sleeps a random time per
+     * document, to shuffle the completion order, or a fixed time which is not cut short by
+     * interrupts, and fails on one document
+     */
+    public static class CountingAnnotator
+            extends JCasAnnotator_ImplBase
+    {
+        static final AtomicInteger INITIALIZED = new AtomicInteger();
+        static final AtomicInteger PROCESSED = new AtomicInteger();
+        static final AtomicInteger COMPLETED = new AtomicInteger();
+        static final AtomicInteger DESTROYED = new AtomicInteger();
+        static final AtomicInteger DESTROYED_WHILE_PROCESSING = new AtomicInteger();
+
+        public static final String PARAM_MAX_DELAY = "maxDelay";
+        @ConfigurationParameter(name = PARAM_MAX_DELAY, mandatory = true, defaultValue = "0")
+        private int maxDelay;
+
+        public static final String PARAM_DELAY = "delay";
+        @ConfigurationParameter(name = PARAM_DELAY, mandatory = true, defaultValue = "0")
+        private int delay;
+
+        public static final String PARAM_FAIL_ON = "failOn";
+        @ConfigurationParameter(name = PARAM_FAIL_ON, mandatory = false)
+        private String failOn;
+
+        private volatile boolean processing;
+
+        static void reset()
+        {
+            INITIALIZED.set(0);
+            PROCESSED.set(0);
+            COMPLETED.set(0);
+            DESTROYED.set(0);
+            DESTROYED_WHILE_PROCESSING.set(0);
+        }
+
+        @Override
+        public void initialize(UimaContext context)
+                throws ResourceInitializationException
+        {
+            super.initialize(context);
+            INITIALIZED.incrementAndGet();
+        }
+
+        @Override
+        public void process(JCas jCas)
+                throws AnalysisEngineProcessException
+        {
+            processing = true;
+            try {
+                if (DocumentMetaData.get(jCas).getDocumentId().equals(failOn)) {
+                    throw new AnalysisEngineProcessException(
+                            new IllegalStateException("Failing on " + failOn));
+                }
+
+                if (maxDelay > 0) {
+                    try {
+                        Thread.sleep(ThreadLocalRandom.current().nextInt(maxDelay + 1));
+                    }
+                    catch (InterruptedException e) {
+                        throw new AnalysisEngineProcessException(e);
+                    }
+                }
+                if (delay > 0) {
+                    sleepUninterruptibly(delay);
+                }
+                PROCESSED.incrementAndGet();
+            }
+            finally {
+                processing = false;
+            }
+        }
+
+        private static void sleepUninterruptibly(long millis)
+        {
+            boolean interrupted = false;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void collectionProcessComplete()
+                throws AnalysisEngineProcessException
+        {
+            super.collectionProcessComplete();
+            COMPLETED.incrementAndGet();
+        }
+
+        @Override
+        public void destroy()
+        {
+            if (processing) {
+                DESTROYED_WHILE_PROCESSING.incrementAndGet();
+            }
+            DESTROYED.incrementAndGet();
+            super.destroy();
+        }
+    }
+
+    /**
+     * Records the ids of the documents it receives and its life cycle calls
+     */
+    static class RecordingSink
+            implements DocumentSink
+    {
+        final List<String> documents = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger destroyed = new AtomicInteger();
+        private final boolean ordered;
+
+        RecordingSink(boolean ordered)
+        {
+            this.ordered = ordered;
+        }
+
+        @Override
+        public boolean isOrdered()
+        {
+            return ordered;
+        }
+
+        @Override
+        public void process(JCas jCas)
+        {
+            documents.add(DocumentMetaData.get(jCas).getDocumentId());
+        }
+
+        @Override
+        public void collectionProcessComplete()
+        {
+            completed.incrementAndGet();
+        }
+
+        @Override
+        public void destroy()
+        {
+            destroyed.incrementAndGet();
+        }
+    }
+}
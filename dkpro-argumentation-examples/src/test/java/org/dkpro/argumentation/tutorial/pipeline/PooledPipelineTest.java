@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import de.tudarmstadt.ukp.dkpro.core.io.xmi.XmiReader;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.collection.CollectionReaderDescription;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.CollectionReaderFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.tutorial.pipeline.PipelineTestSupport.CountingAnnotator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PooledPipelineTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int DOCUMENTS = 10;
+
+    private File corpus;
+
+    private List<String> names;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        CountingAnnotator.reset();
+        corpus = folder.newFolder("corpus");
+        names = PipelineTestSupport.createCorpus(corpus, DOCUMENTS);
+    }
+
+    private CollectionReaderDescription reader()
+            throws Exception
+    {
+        return CollectionReaderFactory.createReaderDescription(XmiReader.class,
+                XmiReader.PARAM_SOURCE_LOCATION, corpus,
+                XmiReader.PARAM_PATTERNS, "*.xmi");
+    }
+
+    @Test
+    public void testDocumentsShareOneCas()
+            throws Exception
+    {
+        JCasPool pool = new JCasPool(2);
+        PooledPipeline.runPipeline(pool, reader(),
+                AnalysisEngineFactory.createEngineDescription(CountingAnnotator.class));
+
+        assertEquals(DOCUMENTS, CountingAnnotator.PROCESSED.get());
+        assertEquals(1, CountingAnnotator.COMPLETED.get());
+        assertEquals(1, CountingAnnotator.DESTROYED.get());
+
+        // each document is released before the next one is read
+        JCasPool.Statistics statistics = pool.getStatistics();
+        assertEquals(1, statistics.getCreated());
+        assertEquals(DOCUMENTS - 1, statistics.getHits());
+        assertEquals(0, statistics.getWaits());
+        assertEquals(0, statistics.getDropped());
+        assertEquals(1, statistics.getHighWaterMark());
+        assertTrue(statistics.getFootprint() > 0);
+    }
+
+    @Test
+    public void testFailedDocumentReleasesCas()
+            throws Exception
+    {
+        JCasPool pool = new JCasPool(1);
+        try {
+            PooledPipeline.runPipeline(pool, reader(),
+                    AnalysisEngineFactory.createEngineDescription(CountingAnnotator.class,
+                            CountingAnnotator.PARAM_FAIL_ON, names.get(3)));
+            fail("Expected an AnalysisEngineProcessException");
+        }
+        catch (AnalysisEngineProcessException e) {
+            // expected
+        }
+
+        assertEquals(3, CountingAnnotator.PROCESSED.get());
+        assertEquals(0, CountingAnnotator.COMPLETED.get());
+        assertEquals(1, CountingAnnotator.DESTROYED.get());
+
+        // the CAS of the failed document is back in the pool
+        JCas jCas = pool.acquire();
+        assertNotNull(jCas);
+        assertEquals(4, pool.getStatistics().getHits());
+        assertEquals(1, pool.getStatistics().getCreated());
+    }
+}
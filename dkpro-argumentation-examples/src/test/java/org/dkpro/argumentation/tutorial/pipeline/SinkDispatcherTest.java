@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.tutorial.pipeline.PipelineTestSupport.RecordingSink;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SinkDispatcherTest
+{
+    private static JCas document(String id)
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        DocumentMetaData.create(jCas).setDocumentId(id);
+        return jCas;
+    }
+
+    @Test
+    public void testOrderedEmit()
+            throws Exception
+    {
+        RecordingSink sink = new RecordingSink(true);
+        SinkDispatcher dispatcher = new SinkDispatcher(sink);
+
+        // the workers arrive in reverse order and wait for their turn
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 3; i >= 0; i--) {
+            int index = i;
+            JCas jCas = document("doc" + i);
+            Thread worker = new Thread(() -> {
+                try {
+                    dispatcher.emit(index, jCas);
+                }
+                catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+            Thread.sleep(20);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertTrue(errors.isEmpty());
+        assertEquals(Arrays.asList("doc0", "doc1", "doc2", "doc3"), sink.documents);
+        assertFalse(dispatcher.isFailed());
+        dispatcher.rethrow();
+    }
+
+    @Test
+    public void testUnorderedEmit()
+            throws Exception
+    {
+        RecordingSink sink = new RecordingSink(false);
+        SinkDispatcher dispatcher = new SinkDispatcher(sink);
+
+        // nothing waits for the lower indices
+        dispatcher.emit(2, document("doc2"));
+        dispatcher.emit(0, document("doc0"));
+
+        assertEquals(Arrays.asList("doc2", "doc0"), sink.documents);
+    }
+
+    @Test
+    public void testFailReleasesWaitingWorkers()
+            throws Exception
+    {
+        RecordingSink sink = new RecordingSink(true);
+        SinkDispatcher dispatcher = new SinkDispatcher(sink);
+
+        JCas jCas = document("doc1");
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        Thread waiting = new Thread(() -> {
+            try {
+                dispatcher.emit(1, jCas);
+            }
+            catch (Throwable e) {
+                errors.add(e);
+            }
+        });
+        waiting.start();
+        Thread.sleep(50);
+        assertTrue(waiting.isAlive());
+
+        AnalysisEngineProcessException first = new AnalysisEngineProcessException();
+        dispatcher.fail(first);
+        dispatcher.fail(new IOException("second"));
+
+        waiting.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(waiting.isAlive());
+        assertTrue(errors.isEmpty());
+        assertTrue(sink.documents.isEmpty());
+        assertTrue(dispatcher.isFailed());
+
+        // after the failure, documents are no longer passed
+        dispatcher.emit(0, document("doc0"));
+        assertTrue(sink.documents.isEmpty());
+
+        try {
+            dispatcher.rethrow();
+            fail("Expected the first failure");
+        }
+        catch (AnalysisEngineProcessException e) {
+            assertSame(first, e);
+        }
+    }
+
+    @Test
+    public void testSinkFailureAdvancesTurn()
+            throws Exception
+    {
+        SinkDispatcher dispatcher = new SinkDispatcher(new RecordingSink(true)
+        {
+            @Override
+            public void process(JCas jCas)
+            {
+                if ("doc0".equals(DocumentMetaData.get(jCas).getDocumentId())) {
+                    throw new IllegalStateException("sink failed");
+                }
+                super.process(jCas);
+            }
+        });
+
+        try {
+            dispatcher.emit(0, document("doc0"));
+            fail("Expected the failure of the sink");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+
+        // the next document does not wait for the failed one
+        dispatcher.emit(1, document("doc1"));
+    }
+
+    @Test
+    public void testInterruptionIsRethrownAsIOException()
+            throws Exception
+    {
+        SinkDispatcher dispatcher = new SinkDispatcher(new RecordingSink(false));
+        dispatcher.fail(new InterruptedException());
+
+        try {
+            dispatcher.rethrow();
+            fail("Expected an InterruptedIOException");
+        }
+        catch (InterruptedIOException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+    }
+}
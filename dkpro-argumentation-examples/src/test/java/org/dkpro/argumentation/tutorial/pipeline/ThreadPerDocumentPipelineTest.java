@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.tutorial.pipeline;
+
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.dkpro.argumentation.tutorial.pipeline.PipelineTestSupport.CountingAnnotator;
+import org.dkpro.argumentation.tutorial.pipeline.PipelineTestSupport.RecordingSink;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ThreadPerDocumentPipelineTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int DOCUMENTS = 30;
+
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private File corpus;
+
+    private List<String> names;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        CountingAnnotator.reset();
+        corpus = folder.newFolder("corpus");
+        names = PipelineTestSupport.createCorpus(corpus, DOCUMENTS);
+    }
+
+    private static AnalysisEngineDescription annotator(Object... parameters)
+            throws Exception
+    {
+        return AnalysisEngineFactory.createEngineDescription(CountingAnnotator.class,
+                parameters);
+    }
+
+    @Test
+    public void testCompletion()
+            throws Exception
+    {
+        RecordingSink sink = new RecordingSink(true);
+        new ThreadPerDocumentPipeline(MAX_IN_FLIGHT,
+                annotator(CountingAnnotator.PARAM_MAX_DELAY, 5)).run(corpus, sink);
+
+        assertEquals(names, sink.documents);
+        assertEquals(1, sink.completed.get());
+        assertEquals(1, sink.destroyed.get());
+
+        // engines are reused by the documents and completed and destroyed once each
+        int engines = CountingAnnotator.INITIALIZED.get();
+        assertTrue(engines >= 1 && engines <= MAX_IN_FLIGHT);
+        assertEquals(DOCUMENTS, CountingAnnotator.PROCESSED.get());
+        assertEquals(engines, CountingAnnotator.COMPLETED.get());
+        assertEquals(engines, CountingAnnotator.DESTROYED.get());
+    }
+
+    @Test(timeout = 60000)
+    public void testOrderedSinkWithFewerCasesThanDocumentsInFlight()
+            throws Exception
+    {
+        JCasPool pool = new JCasPool(1);
+        RecordingSink sink = new RecordingSink(true);
+        new ThreadPerDocumentPipeline(MAX_IN_FLIGHT, pool,
+                annotator(CountingAnnotator.PARAM_MAX_DELAY, 2)).run(corpus, sink);
+
+        assertEquals(names, sink.documents);
+        assertEquals(1, pool.getStatistics().getHighWaterMark());
+    }
+
+    @Test
+    public void testFailureOfOneDocument()
+            throws Exception
+    {
+        String failing = names.get(10);
+        RecordingSink sink = new RecordingSink(true);
+        try {
+            new ThreadPerDocumentPipeline(MAX_IN_FLIGHT,
+                    annotator(CountingAnnotator.PARAM_FAIL_ON, failing,
+                            CountingAnnotator.PARAM_DELAY, 5)).run(corpus, sink);
+            fail("Expected the failure of " + failing);
+        }
+        catch (AnalysisEngineProcessException e) {
+            assertTrue(e.getCause().getMessage().contains(failing));
+        }
+
+        assertFalse(sink.documents.contains(failing));
+        assertEquals(names.subList(0, sink.documents.size()), sink.documents);
+        assertEquals(0, sink.completed.get());
+        assertEquals(1, sink.destroyed.get());
+        assertEquals(CountingAnnotator.INITIALIZED.get(), CountingAnnotator.DESTROYED.get());
+        assertEquals(0, CountingAnnotator.DESTROYED_WHILE_PROCESSING.get());
+    }
+
+    @Test
+    public void testInterruption()
+            throws Exception
+    {
+        RecordingSink sink = new RecordingSink(false);
+        ThreadPerDocumentPipeline pipeline = new ThreadPerDocumentPipeline(MAX_IN_FLIGHT,
+                annotator(CountingAnnotator.PARAM_DELAY, 200));
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread runner = new Thread(() -> {
+            try {
+                pipeline.run(corpus, sink);
+            }
+            catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        runner.start();
+
+        // interrupt while the first documents are in flight and others still create engines
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (CountingAnnotator.INITIALIZED.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        runner.interrupt();
+        runner.join(TimeUnit.SECONDS.toMillis(30));
+        assertFalse(runner.isAlive());
+
+        assertTrue(String.valueOf(failure.get()),
+                failure.get() instanceof InterruptedIOException);
+        assertEquals(0, sink.completed.get());
+        assertEquals(1, sink.destroyed.get());
+        assertTrue(sink.documents.size() < DOCUMENTS);
+
+        // no document was still in flight when run returned
+        int initialized = CountingAnnotator.INITIALIZED.get();
+        int processed = CountingAnnotator.PROCESSED.get();
+        Thread.sleep(500);
+        assertEquals(initialized, CountingAnnotator.INITIALIZED.get());
+        assertEquals(processed, CountingAnnotator.PROCESSED.get());
+        assertEquals(initialized, CountingAnnotator.DESTROYED.get());
+        assertEquals(0, CountingAnnotator.DESTROYED_WHILE_PROCESSING.get());
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.columnar;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spools the columns of a column-oriented corpus file into temporary files next to the output
+ * file while a collection is processed, and assembles them into the output file at the end, so
+ * the memory used by a writer does not grow with the corpus.
+ * <p>
+ * The output file consists of the header, the data offset (a long), the strings, padding up to
+ * the data offset and the data columns in the order of their creation, each starting at an
+ * aligned position. The strings are the in-memory strings given to
+ * {@link #writeFile(byte[], byte[])} followed by the string columns in the order of their
+ * creation.
+ * </p>
+ * Close the spool to delete the temporary files, also if the collection was aborted.
+ */
+public final class ColumnSpool
+        implements Closeable
+{
+    /**
+     * Column spooled into a temporary file
+     */
+    public static final class Column
+    {
+        private final File file;
+        private final DataOutputStream out;
+        private long size;
+
+        private Column(String name, File directory)
+                throws IOException
+        {
+            file = File.createTempFile(name, ".tmp", directory);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+
+        public void writeInt(int value)
+                throws IOException
+        {
+            out.writeInt(value);
+            size += 4;
+        }
+
+        public void writeByte(int value)
+                throws IOException
+        {
+            out.writeByte(value);
+            size++;
+        }
+
+        public void write(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            out.write(bytes, offset, length);
+            size += length;
+        }
+
+        /**
+         * Writes the string as in {@link ColumnSpool#writeString(DataOutput, String)}
+         *
+         * @param value string; may be null
+         * @throws IOException if writing fails
+         */
+        public void writeString(String value)
+                throws IOException
+        {
+            size += ColumnSpool.writeString(out, value);
+        }
+
+        /**
+         * @return number of bytes written
+         */
+        public long size()
+        {
+            return size;
+        }
+    }
+
+    private final File outputFile;
+    private final File directory;
+    private final int alignment;
+
+    private final List<Column> columns = new ArrayList<>();
+    private final List<Column> stringColumns = new ArrayList<>();
+
+    /**
+     * @param outputFile output file; its directory is created if necessary
+     * @param alignment  column alignment in bytes, a power of two
+     */
+    public ColumnSpool(File outputFile, int alignment)
+    {
+        this.outputFile = outputFile;
+        this.directory = outputFile.getAbsoluteFile().getParentFile();
+        this.alignment = alignment;
+        directory.mkdirs();
+    }
+
+    /**
+     * Creates the next data column
+     *
+     * @param name prefix of the temporary file
+     * @return column
+     * @throws IOException if the temporary file cannot be created
+     */
+    public Column createColumn(String name)
+            throws IOException
+    {
+        Column column = new Column(name, directory);
+        columns.add(column);
+        return column;
+    }
+
+    /**
+     * Creates the next column of the string section
+     *
+     * @param name prefix of the temporary file
+     * @return column
+     * @throws IOException if the temporary file cannot be created
+     */
+    public Column createStringColumn(String name)
+            throws IOException
+    {
+        Column column = new Column(name, directory);
+        stringColumns.add(column);
+        return column;
+    }
+
+    /**
+     * @return number of bytes written to all columns
+     */
+    public long size()
+    {
+        long size = 0;
+        for (Column column : columns) {
+            size += column.size;
+        }
+        for (Column column : stringColumns) {
+            size += column.size;
+        }
+        return size;
+    }
+
+    /**
+     * Assembles the output file; the columns must not be written afterwards
+     *
+     * @param header  fixed header fields before the data offset
+     * @param strings strings before the string columns
+     * @return size of the output file
+     * @throws IOException if writing fails
+     */
+    public long writeFile(byte[] header, byte[] strings)
+            throws IOException
+    {
+        long stringsSize = strings.length;
+        for (Column column : stringColumns) {
+            column.out.close();
+            stringsSize += column.size;
+        }
+        for (Column column : columns) {
+            column.out.close();
+        }
+        long dataOffset = align(header.length + 8 + stringsSize);
+
+        try (FileOutputStream fileOut = new FileOutputStream(outputFile)) {
+            FileChannel target = fileOut.getChannel();
+            // the stream and the channel share the file position, the stream is flushed
+            // before each transfer
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+
+            out.write(header);
+            out.writeLong(dataOffset);
+            out.write(strings);
+            out.flush();
+            long position = header.length + 8 + strings.length;
+            for (Column column : stringColumns) {
+                position += transfer(column.file, target);
+            }
+
+            for (int i = 0; i < columns.size(); i++) {
+                position = pad(out, position);
+                position += transfer(columns.get(i).file, target);
+            }
+            out.flush();
+            return position;
+        }
+    }
+
+    /**
+     * Writes the string as its length and UTF-8 bytes; length -1 for null
+     *
+     * @param out   output
+     * @param value string; may be null
+     * @return number of bytes written
+     * @throws IOException if writing fails
+     */
+    public static int writeString(DataOutput out, String value)
+            throws IOException
+    {
+        if (value == null) {
+            out.writeInt(-1);
+            return 4;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    /**
+     * Closes the columns and deletes their temporary files; can be called repeatedly
+     */
+    @Override
+    public void close()
+    {
+        for (Column column : columns) {
+            IOUtils.closeQuietly(column.out);
+            FileUtils.deleteQuietly(column.file);
+        }
+        for (Column column : stringColumns) {
+            IOUtils.closeQuietly(column.out);
+            FileUtils.deleteQuietly(column.file);
+        }
+        columns.clear();
+        stringColumns.clear();
+    }
+
+    private long align(long position)
+    {
+        return (position + alignment - 1) & ~((long) alignment - 1);
+    }
+
+    /**
+     * Writes zero bytes up to the next column boundary and returns the new position
+     */
+    private long pad(DataOutputStream out, long position)
+            throws IOException
+    {
+        long aligned = align(position);
+        for (long i = position; i < aligned; i++) {
+            out.write(0);
+        }
+        out.flush();
+        return aligned;
+    }
+
+    private static long transfer(File source, FileChannel target)
+            throws IOException
+    {
+        try (FileInputStream in = new FileInputStream(source)) {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            long transferred = 0;
+            while (transferred < size) {
+                transferred += channel.transferTo(transferred, size - transferred, target);
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.columnar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only random access to a corpus written by
+ * {@link org.dkpro.argumentation.io.writer.ColumnarBIOCorpusWriter}. The columns are
+ * memory-mapped, so documents, sentences and tokens are accessed directly in the mapped file
+ * without deserialization; only the label vocabulary and the document ids are read eagerly.
+ * <p>
+ * Token, sentence and document indices are global over the whole corpus; the
+ * {@code ...Begin} methods return inclusive and the {@code ...End} methods exclusive indices.
+ * Instances are immutable and can be shared between threads.
+ * </p>
+ */
+public class ColumnarBIOCorpus
+{
+    private final int tokenCount;
+    private final int sentenceCount;
+    private final int documentCount;
+
+    private final List<String> labels;
+    private final String[] documentIds;
+
+    private final IntBuffer tokenOffsets;
+    private final IntBuffer labelIds;
+    private final IntBuffer sentenceTokenStarts;
+    private final IntBuffer documentTokenStarts;
+    private final IntBuffer documentSentenceStarts;
+    private final ByteBuffer tokenPool;
+
+    private ColumnarBIOCorpus(FileChannel channel)
+            throws IOException
+    {
+        if (channel.size() < ColumnarBIOCorpusFormat.FIXED_HEADER_SIZE) {
+            throw new IOException("Not a columnar BIO corpus file");
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                ColumnarBIOCorpusFormat.FIXED_HEADER_SIZE);
+
+        if (header.getInt() != ColumnarBIOCorpusFormat.MAGIC) {
+            throw new IOException("Not a columnar BIO corpus file");
+        }
+        int version = header.getInt();
+        if (version != ColumnarBIOCorpusFormat.VERSION) {
+            throw new IOException("Unsupported corpus version " + version);
+        }
+
+        tokenCount = header.getInt();
+        sentenceCount = header.getInt();
+        documentCount = header.getInt();
+        int labelCount = header.getInt();
+        long poolSize = header.getLong();
+        long dataOffset = header.getLong();
+        if (dataOffset > channel.size()) {
+            throw new IOException("Truncated corpus file");
+        }
+
+        // the label vocabulary and the document ids up to the first column
+        ByteBuffer strings = channel.map(FileChannel.MapMode.READ_ONLY,
+                ColumnarBIOCorpusFormat.FIXED_HEADER_SIZE,
+                dataOffset - ColumnarBIOCorpusFormat.FIXED_HEADER_SIZE);
+
+        List<String> labelList = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            labelList.add(readString(strings));
+        }
+        labels = Collections.unmodifiableList(labelList);
+
+        documentIds = new String[documentCount];
+        for (int i = 0; i < documentCount; i++) {
+            documentIds[i] = readString(strings);
+        }
+
+        long position = dataOffset;
+        tokenOffsets = mapInts(channel, position, tokenCount + 1);
+        position = ColumnarBIOCorpusFormat.align(position + (tokenCount + 1) * 4L);
+        labelIds = mapInts(channel, position, tokenCount);
+        position = ColumnarBIOCorpusFormat.align(position + tokenCount * 4L);
+        sentenceTokenStarts = mapInts(channel, position, sentenceCount + 1);
+        position = ColumnarBIOCorpusFormat.align(position + (sentenceCount + 1) * 4L);
+        documentTokenStarts = mapInts(channel, position, documentCount + 1);
+        position = ColumnarBIOCorpusFormat.align(position + (documentCount + 1) * 4L);
+        documentSentenceStarts = mapInts(channel, position, documentCount + 1);
+        position = ColumnarBIOCorpusFormat.align(position + (documentCount + 1) * 4L);
+        tokenPool = channel.map(FileChannel.MapMode.READ_ONLY, position, poolSize)
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * Maps the given corpus file. The mapping stays valid after this method returns; the file
+     * must not be modified while the corpus is in use.
+     *
+     * @param file corpus file
+     * @return corpus
+     * @throws IOException if the file cannot be mapped or is not a corpus file
+     */
+    public static ColumnarBIOCorpus open(File file)
+            throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new ColumnarBIOCorpus(channel);
+        }
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count)
+            throws IOException
+    {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, count * 4L).asIntBuffer();
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getTokenCount()
+    {
+        return tokenCount;
+    }
+
+    public int getSentenceCount()
+    {
+        return sentenceCount;
+    }
+
+    public int getDocumentCount()
+    {
+        return documentCount;
+    }
+
+    /**
+     * Returns the label vocabulary; label ids are indices into this list
+     *
+     * @return unmodifiable list of labels
+     */
+    public List<String> getLabelVocabulary()
+    {
+        return labels;
+    }
+
+    public String getDocumentId(int document)
+    {
+        return documentIds[document];
+    }
+
+    public int getDocumentTokenBegin(int document)
+    {
+        return documentTokenStarts.get(document);
+    }
+
+    public int getDocumentTokenEnd(int document)
+    {
+        return documentTokenStarts.get(document + 1);
+    }
+
+    public int getDocumentSentenceBegin(int document)
+    {
+        return documentSentenceStarts.get(document);
+    }
+
+    public int getDocumentSentenceEnd(int document)
+    {
+        return documentSentenceStarts.get(document + 1);
+    }
+
+    public int getSentenceTokenBegin(int sentence)
+    {
+        return sentenceTokenStarts.get(sentence);
+    }
+
+    public int getSentenceTokenEnd(int sentence)
+    {
+        return sentenceTokenStarts.get(sentence + 1);
+    }
+
+    /**
+     * Returns the label id of the token
+     *
+     * @param token token index
+     * @return index into {@link #getLabelVocabulary()} or
+     * {@link ColumnarBIOCorpusFormat#NO_LABEL}
+     */
+    public int getLabelId(int token)
+    {
+        return labelIds.get(token);
+    }
+
+    /**
+     * Returns the label of the token
+     *
+     * @param token token index
+     * @return label or null if the token has no tag
+     */
+    public String getLabel(int token)
+    {
+        int id = labelIds.get(token);
+        return id == ColumnarBIOCorpusFormat.NO_LABEL ? null : labels.get(id);
+    }
+
+    /**
+     * Returns a view of the label ids of the given token range, backed by the mapped file
+     *
+     * @param tokenBegin first token (inclusive)
+     * @param tokenEnd   last token (exclusive)
+     * @return read-only buffer positioned at zero
+     */
+    public IntBuffer getLabelIds(int tokenBegin, int tokenEnd)
+    {
+        IntBuffer view = labelIds.duplicate();
+        view.limit(tokenEnd);
+        view.position(tokenBegin);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the UTF-8 bytes of the token as a view of the mapped token pool
+     *
+     * @param token token index
+     * @return read-only buffer positioned at zero
+     */
+    public ByteBuffer getTokenBytes(int token)
+    {
+        ByteBuffer view = tokenPool.duplicate();
+        view.limit(tokenOffsets.get(token + 1));
+        view.position(tokenOffsets.get(token));
+        return view.slice();
+    }
+
+    /**
+     * Decodes the token text; use {@link #getTokenBytes(int)} to avoid creating Strings
+     *
+     * @param token token index
+     * @return token text
+     */
+    public String getTokenText(int token)
+    {
+        return StandardCharsets.UTF_8.decode(getTokenBytes(token)).toString();
+    }
+}
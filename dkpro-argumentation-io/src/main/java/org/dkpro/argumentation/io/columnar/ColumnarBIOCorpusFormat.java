@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.columnar;
+
+/**
+ * Layout of the columnar BIO corpus file written by
+ * {@link org.dkpro.argumentation.io.writer.ColumnarBIOCorpusWriter} and read by
+ * {@link ColumnarBIOCorpus}. All numbers are big-endian.
+ * <pre>
+ * int     magic ("ARGC")
+ * int     version
+ * int     token count (T)
+ * int     sentence count (S)
+ * int     document count (D)
+ * int     label count (L)
+ * long    token pool size in bytes
+ * long    data offset (start of the first column, 8-byte aligned)
+ * L x     label (int length, UTF-8 bytes)
+ * D x     document id (int length, UTF-8 bytes; length -1 for null)
+ * ...     padding up to data offset
+ * int[T+1] token start offsets into the token pool
+ * int[T]   label ids (index into the label vocabulary, -1 for tokens without a tag)
+ * int[S+1] first token of each sentence
+ * int[D+1] first token of each document
+ * int[D+1] first sentence of each document
+ * byte[]   token pool (UTF-8)
+ * </pre>
+ * Each column starts at an 8-byte aligned position.
+ */
+public final class ColumnarBIOCorpusFormat
+{
+    /**
+     * "ARGC"
+     */
+    public static final int MAGIC = 0x41524743;
+
+    public static final int VERSION = 1;
+
+    /**
+     * Label id of tokens whose annotation has no tag
+     */
+    public static final int NO_LABEL = -1;
+
+    /**
+     * Size of the header fields before the label vocabulary
+     */
+    public static final int FIXED_HEADER_SIZE = 40;
+
+    /**
+     * Column alignment in bytes
+     */
+    public static final int ALIGNMENT = 8;
+
+    private ColumnarBIOCorpusFormat()
+    {
+        throw new UnsupportedOperationException("utility class");
+    }
+
+    /**
+     * Rounds the position up to the next column boundary
+     *
+     * @param position position in the file
+     * @return aligned position
+     */
+    public static long align(long position)
+    {
+        return (position + ALIGNMENT - 1) & ~((long) ALIGNMENT - 1);
+    }
+}
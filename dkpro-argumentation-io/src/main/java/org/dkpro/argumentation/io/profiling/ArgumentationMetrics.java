@@ -0,0 +1,394 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.profiling;
+
+import org.apache.commons.io.output.ProxyOutputStream;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and gauges of one engine of a pipeline, registered in the platform MBean server as
+ * {@code org.dkpro.argumentation:type=ArgumentationMetrics,pipeline=<id>,engine=<name>} so
+ * that long-running jobs can be watched with any JMX client. Counters are {@link LongAdder}s,
+ * so replicated instances of an engine can update them concurrently without contention.
+ * <p>
+ * Each engine instance calls {@link #attach(String, String)} when initialized and
+ * {@link #detach()} when destroyed; the MBean is registered with the first instance and
+ * unregistered with the last one.
+ * </p>
+ */
+public final class ArgumentationMetrics
+        implements ArgumentationMetricsMXBean
+{
+    public static final String DOMAIN = "org.dkpro.argumentation";
+
+    /**
+     * Name of the parameter of the engines for the id of the pipeline under which their metrics
+     * are exposed
+     */
+    public static final String PARAM_PIPELINE_ID = "pipelineId";
+
+    /**
+     * Pipeline id of engines which are not given one
+     */
+    public static final String DEFAULT_PIPELINE_ID = "default";
+
+    private static final ConcurrentMap<ObjectName, ArgumentationMetrics> REGISTRY =
+            new ConcurrentHashMap<>();
+
+    private final ObjectName objectName;
+
+    private final String pipelineId;
+
+    private final String engine;
+
+    private final LongAdder documentsProcessed = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LongAdder tokensLabeled = new LongAdder();
+
+    private final ConcurrentMap<String, LongAdder> labels = new ConcurrentHashMap<>();
+
+    private final LongAdder lenientConflicts = new LongAdder();
+
+    private final LongAdder tokensOutsideSentences = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private final CopyOnWriteArraySet<IntSupplier> queueDepths = new CopyOnWriteArraySet<>();
+
+    /**
+     * Guarded by this
+     */
+    private int attached;
+
+    /**
+     * Guarded by this
+     */
+    private boolean registered;
+
+    private ArgumentationMetrics(ObjectName objectName, String pipelineId, String engine)
+    {
+        this.objectName = objectName;
+        this.pipelineId = pipelineId;
+        this.engine = engine;
+    }
+
+    /**
+     * Returns the JMX name of the metrics of an engine
+     *
+     * @param pipelineId pipeline id
+     * @param engine     engine name
+     * @return object name
+     */
+    public static ObjectName objectName(String pipelineId, String engine)
+    {
+        try {
+            return new ObjectName(DOMAIN + ":type=ArgumentationMetrics,pipeline="
+                    + ObjectName.quote(pipelineId) + ",engine=" + ObjectName.quote(engine));
+        }
+        catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Returns the metrics of the engine, registering the MBean if needed, and registers the
+     * caller as one of its instances
+     *
+     * @param pipelineId pipeline id
+     * @param engine     engine name
+     * @return metrics
+     */
+    public static ArgumentationMetrics attach(String pipelineId, String engine)
+    {
+        return REGISTRY.compute(objectName(pipelineId, engine), (name, metrics) -> {
+            ArgumentationMetrics result = metrics != null ?
+                    metrics :
+                    new ArgumentationMetrics(name, pipelineId, engine);
+            synchronized (result) {
+                if (result.attached++ == 0) {
+                    result.register();
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Unregisters one instance; the MBean is unregistered with the last one
+     */
+    public void detach()
+    {
+        REGISTRY.computeIfPresent(objectName, (name, metrics) -> {
+            if (metrics != this) {
+                return metrics;
+            }
+            synchronized (this) {
+                if (--attached > 0) {
+                    return this;
+                }
+                unregister();
+                return null;
+            }
+        });
+    }
+
+    private void register()
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, objectName);
+            registered = true;
+        }
+        catch (InstanceAlreadyExistsException e) {
+            // registered by a copy of this class in another class loader; metrics of this
+            // class loader are still counted, but not exposed
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + objectName, e);
+        }
+    }
+
+    private void unregister()
+    {
+        if (!registered) {
+            return;
+        }
+        registered = false;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+        catch (InstanceNotFoundException e) {
+            // unregistered by someone else
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister " + objectName, e);
+        }
+    }
+
+    /**
+     * Counts a processed document
+     *
+     * @param latencyNanos processing time of the document
+     */
+    public void documentProcessed(long latencyNanos)
+    {
+        documentsProcessed.increment();
+        latency.record(latencyNanos);
+    }
+
+    /**
+     * @return histogram of the processing times of the documents
+     */
+    public LatencyHistogram getLatency()
+    {
+        return latency;
+    }
+
+    /**
+     * Counts assigned labels
+     *
+     * @param tag    label tag
+     * @param count  number of labels with the tag
+     * @param tokens whether the labels were assigned to tokens
+     */
+    public void labelsAssigned(String tag, long count, boolean tokens)
+    {
+        labels.computeIfAbsent(tag, key -> new LongAdder()).add(count);
+        if (tokens) {
+            tokensLabeled.add(count);
+        }
+    }
+
+    /**
+     * Counts an overlap of components resolved in lenient mode
+     */
+    public void lenientConflict()
+    {
+        lenientConflicts.increment();
+    }
+
+    /**
+     * Counts a token not covered by a sentence
+     */
+    public void tokenOutsideSentences()
+    {
+        tokensOutsideSentences.increment();
+    }
+
+    /**
+     * Counts written bytes
+     *
+     * @param count number of bytes
+     */
+    public void bytesWritten(long count)
+    {
+        bytesWritten.add(count);
+    }
+
+    /**
+     * Returns a stream which counts the bytes written through it; closing it closes the given
+     * stream
+     *
+     * @param out stream to count
+     * @return counting stream
+     */
+    public OutputStream countBytes(OutputStream out)
+    {
+        return new ProxyOutputStream(out)
+        {
+            @Override
+            protected void afterWrite(int n)
+            {
+                bytesWritten.add(n);
+            }
+        };
+    }
+
+    /**
+     * Adds the depth of a queue to {@link #getAsyncQueueDepth()}
+     *
+     * @param depth queue depth, e.g. {@code queue::getDepth}
+     */
+    public void addQueue(IntSupplier depth)
+    {
+        queueDepths.add(depth);
+    }
+
+    /**
+     * Removes a queue added by {@link #addQueue(IntSupplier)}
+     *
+     * @param depth the same supplier instance
+     */
+    public void removeQueue(IntSupplier depth)
+    {
+        queueDepths.remove(depth);
+    }
+
+    @Override
+    public String getPipelineId()
+    {
+        return pipelineId;
+    }
+
+    @Override
+    public String getEngine()
+    {
+        return engine;
+    }
+
+    @Override
+    public long getDocumentsProcessed()
+    {
+        return documentsProcessed.sum();
+    }
+
+    @Override
+    public double getLatencyP50Millis()
+    {
+        return latency.getPercentile(0.5) / 1e6;
+    }
+
+    @Override
+    public double getLatencyP99Millis()
+    {
+        return latency.getPercentile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getLatencyMaxMillis()
+    {
+        return latency.getMax() / 1e6;
+    }
+
+    @Override
+    public long getTokensLabeled()
+    {
+        return tokensLabeled.sum();
+    }
+
+    @Override
+    public Map<String, Long> getLabelDistribution()
+    {
+        SortedMap<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : labels.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    @Override
+    public long getLenientConflicts()
+    {
+        return lenientConflicts.sum();
+    }
+
+    @Override
+    public long getTokensOutsideSentences()
+    {
+        return tokensOutsideSentences.sum();
+    }
+
+    @Override
+    public long getBytesWritten()
+    {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public int getAsyncQueueDepth()
+    {
+        int depth = 0;
+        for (IntSupplier queue : queueDepths) {
+            depth += queue.getAsInt();
+        }
+        return depth;
+    }
+
+    @Override
+    public void reset()
+    {
+        documentsProcessed.reset();
+        latency.reset();
+        tokensLabeled.reset();
+        for (LongAdder counter : labels.values()) {
+            counter.reset();
+        }
+        lenientConflicts.reset();
+        tokensOutsideSentences.reset();
+        bytesWritten.reset();
+    }
+}
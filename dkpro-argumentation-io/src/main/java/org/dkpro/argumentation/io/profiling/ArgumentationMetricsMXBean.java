@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.profiling;
+
+import java.util.Map;
+
+/**
+ * Live metrics of one engine of an argumentation pipeline, exposed via JMX by
+ * {@link ArgumentationMetrics}. Counters are totals since the engine was initialized or since
+ * the last {@link #reset()}; replicated instances of an engine share their metrics.
+ */
+public interface ArgumentationMetricsMXBean
+{
+    /**
+     * @return id of the pipeline
+     */
+    String getPipelineId();
+
+    /**
+     * @return name of the engine
+     */
+    String getEngine();
+
+    /**
+     * @return number of processed documents
+     */
+    long getDocumentsProcessed();
+
+    /**
+     * @return median processing time of a document in milliseconds
+     */
+    double getLatencyP50Millis();
+
+    /**
+     * @return 99th percentile of the processing time of a document in milliseconds
+     */
+    double getLatencyP99Millis();
+
+    /**
+     * @return maximal processing time of a document in milliseconds
+     */
+    double getLatencyMaxMillis();
+
+    /**
+     * @return number of tokens to which a label was assigned
+     */
+    long getTokensLabeled();
+
+    /**
+     * @return number of assigned labels by tag, including sentence labels
+     */
+    Map<String, Long> getLabelDistribution();
+
+    /**
+     * @return number of overlapping components resolved in lenient mode
+     */
+    long getLenientConflicts();
+
+    /**
+     * @return number of tokens not covered by a sentence
+     */
+    long getTokensOutsideSentences();
+
+    /**
+     * @return number of bytes written by writers
+     */
+    long getBytesWritten();
+
+    /**
+     * @return number of documents waiting in the queues of asynchronous writers
+     */
+    int getAsyncQueueDepth();
+
+    /**
+     * Resets all counters to zero
+     */
+    void reset();
+}
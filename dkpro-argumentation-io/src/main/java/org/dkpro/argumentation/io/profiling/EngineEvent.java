@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of one document processed by one engine; the duration of the event is
+ * the elapsed time of {@code process}
+ */
+@Name(EngineEvent.NAME)
+@Label("Argumentation Engine")
+@Description("A document processed by an argumentation analysis engine")
+@Category("DKPro Argumentation")
+@StackTrace(false)
+final class EngineEvent
+        extends jdk.jfr.Event
+{
+    static final String NAME = "org.dkpro.argumentation.Engine";
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Document Id")
+    String documentId;
+
+    @Label("Tokens")
+    int tokenCount;
+
+    @Label("Argument Components")
+    int componentCount;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
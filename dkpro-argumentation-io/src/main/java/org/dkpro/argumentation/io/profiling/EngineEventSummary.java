@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Summarizes the {@link EngineProfiler} events of a flight recording into a latency table per
+ * engine: number of documents, mean, median, 95th and 99th percentile and maximal latency,
+ * throughput in tokens per second and allocation per document.
+ * <p>
+ * Run as {@code java -cp ... org.dkpro.argumentation.io.profiling.EngineEventSummary
+ * recording.jfr}, e.g. on a recording of a pipeline started with
+ * {@code -XX:StartFlightRecording=filename=recording.jfr}.
+ * </p>
+ */
+public final class EngineEventSummary
+{
+    /**
+     * Latencies of one engine
+     */
+    public static final class EngineLatency
+    {
+        private final String engine;
+
+        private long[] durations = new long[64];
+
+        private int count;
+
+        private long tokens;
+
+        private long components;
+
+        private long allocatedBytes;
+
+        private boolean sorted;
+
+        EngineLatency(String engine)
+        {
+            this.engine = engine;
+        }
+
+        void add(long durationNanos, int tokenCount, int componentCount, long allocated)
+        {
+            if (count == durations.length) {
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            durations[count++] = durationNanos;
+            tokens += tokenCount;
+            components += componentCount;
+            allocatedBytes += Math.max(allocated, 0);
+            sorted = false;
+        }
+
+        /**
+         * @return engine name
+         */
+        public String getEngine()
+        {
+            return engine;
+        }
+
+        /**
+         * @return number of processed documents
+         */
+        public int getCount()
+        {
+            return count;
+        }
+
+        /**
+         * @return total number of tokens of the processed documents
+         */
+        public long getTokens()
+        {
+            return tokens;
+        }
+
+        /**
+         * @return total number of argument components of the processed documents
+         */
+        public long getComponents()
+        {
+            return components;
+        }
+
+        /**
+         * @return total processing time in nanoseconds
+         */
+        public long getTotalNanos()
+        {
+            long total = 0;
+            for (int i = 0; i < count; i++) {
+                total += durations[i];
+            }
+            return total;
+        }
+
+        /**
+         * Returns the latency below which the given fraction of documents was processed
+         * (nearest rank)
+         *
+         * @param fraction fraction between 0 and 1
+         * @return latency in nanoseconds, 0 if there are no documents
+         */
+        public long getPercentileNanos(double fraction)
+        {
+            if (count == 0) {
+                return 0;
+            }
+            if (!sorted) {
+                Arrays.sort(durations, 0, count);
+                sorted = true;
+            }
+            int rank = (int) Math.ceil(fraction * count);
+            return durations[Math.min(Math.max(rank, 1), count) - 1];
+        }
+
+        /**
+         * @return mean number of bytes allocated per document
+         */
+        public long getAllocatedBytesPerDocument()
+        {
+            return count > 0 ? allocatedBytes / count : 0;
+        }
+    }
+
+    private final SortedMap<String, EngineLatency> engines = new TreeMap<>();
+
+    private EngineEventSummary()
+    {
+    }
+
+    /**
+     * Reads the engine events of a recording
+     *
+     * @param recording flight recording file
+     * @return summary
+     * @throws IOException if the recording cannot be read
+     */
+    public static EngineEventSummary read(Path recording)
+            throws IOException
+    {
+        EngineEventSummary summary = new EngineEventSummary();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                if (!EngineEvent.NAME.equals(event.getEventType().getName())) {
+                    continue;
+                }
+                String engine = event.getString("engine");
+                summary.engines.computeIfAbsent(engine, EngineLatency::new).add(
+                        event.getDuration().toNanos(), event.getInt("tokenCount"),
+                        event.getInt("componentCount"), event.getLong("allocatedBytes"));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * @return latencies by engine name
+     */
+    public SortedMap<String, EngineLatency> getEngines()
+    {
+        return Collections.unmodifiableSortedMap(engines);
+    }
+
+    /**
+     * Prints the latency table, one row per engine; times are in milliseconds
+     *
+     * @param out output
+     */
+    public void print(PrintStream out)
+    {
+        out.printf("%-40s %8s %10s %8s %8s %8s %8s %8s %12s %12s%n", "engine", "docs",
+                "total", "mean", "p50", "p95", "p99", "max", "tokens/s", "alloc/doc");
+        for (EngineLatency latency : engines.values()) {
+            long total = latency.getTotalNanos();
+            out.printf("%-40s %8d %10.1f %8.2f %8.2f %8.2f %8.2f %8.2f %12.0f %12s%n",
+                    latency.getEngine(), latency.getCount(), millis(total),
+                    millis(total) / latency.getCount(),
+                    millis(latency.getPercentileNanos(0.5)),
+                    millis(latency.getPercentileNanos(0.95)),
+                    millis(latency.getPercentileNanos(0.99)),
+                    millis(latency.getPercentileNanos(1.0)),
+                    total > 0 ? latency.getTokens() * 1e9 / total : 0.0,
+                    bytes(latency.getAllocatedBytesPerDocument()));
+        }
+    }
+
+    private static double millis(long nanos)
+    {
+        return nanos / 1e6;
+    }
+
+    private static String bytes(long bytes)
+    {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KiB", bytes / 1024.0);
+        }
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024));
+    }
+
+    public static void main(String[] args)
+            throws IOException
+    {
+        if (args.length == 0) {
+            System.err.println("Usage: EngineEventSummary <recording.jfr>...");
+            System.exit(1);
+        }
+
+        for (String arg : args) {
+            System.out.println(arg);
+            read(Paths.get(arg)).print(System.out);
+            System.out.println();
+        }
+    }
+}
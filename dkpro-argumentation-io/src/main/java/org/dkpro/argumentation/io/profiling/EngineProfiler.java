@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.profiling;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+
+/**
+ * Emits a Java Flight Recorder event for each document processed by an engine, carrying the
+ * engine name, the document id, the number of tokens and argument components, the elapsed time
+ * and the bytes allocated by the processing thread. Recordings can be summarized into
+ * per-engine latency tables with {@link EngineEventSummary}.
+ * <p>
+ * Nothing is measured unless a recording with the event {@code org.dkpro.argumentation.Engine}
+ * enabled is running, so profiling can be left on in production; a threshold in the recording
+ * settings limits the events to slow documents. On JVMs without the {@code jdk.jfr} API (Java 8
+ * before update 262) spans do nothing; compiling this package needs the API, see the README.
+ * </p>
+ * Usage in an analysis component:
+ * <pre>
+ * public void process(AbstractCas aCas)
+ *         throws AnalysisEngineProcessException
+ * {
+ *     profiler.instrument((JCas) aCas, metrics, () -&gt; super.process(aCas));
+ * }
+ * </pre>
+ */
+public final class EngineProfiler
+{
+    /**
+     * Measurement of one document
+     */
+    public interface Span
+    {
+        /**
+         * Ends the measurement and emits the event
+         *
+         * @param jCas processed document
+         */
+        void end(JCas jCas);
+    }
+
+    /**
+     * Processing of one document
+     */
+    @FunctionalInterface
+    public interface Body
+    {
+        void run()
+                throws AnalysisEngineProcessException;
+    }
+
+    static final Span NOOP = jCas -> {
+    };
+
+    private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+    private final String engine;
+
+    private EngineProfiler(String engine)
+    {
+        this.engine = engine;
+    }
+
+    /**
+     * @param engine engine name reported in the events
+     * @return profiler of the engine
+     */
+    public static EngineProfiler forEngine(String engine)
+    {
+        return new EngineProfiler(engine);
+    }
+
+    /**
+     * Starts measuring a document
+     *
+     * @return span to end after the document is processed
+     */
+    public Span begin()
+    {
+        return JFR_AVAILABLE ? JfrSpan.begin(engine) : NOOP;
+    }
+
+    /**
+     * Runs the body, emitting an event for the document and counting it with its latency in the
+     * metrics, also if the body fails
+     *
+     * @param jCas    document
+     * @param metrics metrics of the engine
+     * @param body    processing of the document
+     * @throws AnalysisEngineProcessException if the body fails
+     */
+    public void instrument(JCas jCas, ArgumentationMetrics metrics, Body body)
+            throws AnalysisEngineProcessException
+    {
+        long start = System.nanoTime();
+        Span span = begin();
+        try {
+            body.run();
+        }
+        finally {
+            span.end(jCas);
+            metrics.documentProcessed(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return engine name
+     */
+    public String getEngine()
+    {
+        return engine;
+    }
+
+    private static boolean isJfrAvailable()
+    {
+        try {
+            Class.forName("jdk.jfr.Event", false, EngineProfiler.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.profiling;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.ArgumentComponent;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Emits an {@link EngineEvent} per document; only loaded if the flight recorder API is available
+ */
+final class JfrSpan
+        implements EngineProfiler.Span
+{
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final EngineEvent event;
+
+    private final long allocatedBefore;
+
+    private JfrSpan(EngineEvent event)
+    {
+        this.event = event;
+        allocatedBefore = allocatedBytes();
+        event.begin();
+    }
+
+    static EngineProfiler.Span begin(String engine)
+    {
+        EngineEvent event = new EngineEvent();
+        if (!event.isEnabled()) {
+            return EngineProfiler.NOOP;
+        }
+        event.engine = engine;
+        return new JfrSpan(event);
+    }
+
+    @Override
+    public void end(JCas jCas)
+    {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+
+        long allocated = allocatedBytes();
+        event.allocatedBytes = allocated >= 0 && allocatedBefore >= 0 ?
+                allocated - allocatedBefore :
+                -1;
+        // index sizes are maintained by the CAS, so counting costs nothing
+        event.tokenCount = jCas.getAnnotationIndex(Token.type).size();
+        event.componentCount = jCas.getAnnotationIndex(ArgumentComponent.type).size();
+        if (JCasUtil.exists(jCas, DocumentMetaData.class)) {
+            event.documentId = DocumentMetaData.get(jCas).getDocumentId();
+        }
+        event.commit();
+    }
+
+    private static long allocatedBytes()
+    {
+        return THREADS != null ?
+                THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) :
+                -1;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter()
+    {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) threads;
+            if (result.isThreadAllocatedMemorySupported()
+                    && result.isThreadAllocatedMemoryEnabled()) {
+                return result;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.profiling;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with a fixed relative precision, in the style of an
+ * HdrHistogram: values below 128 are counted exactly, larger values in buckets whose width
+ * grows with the value, so that each bucket spans less than 1/64 (1.6%) of its values. The
+ * whole range of {@code long} fits into 3712 counters (29 KB), and recording is a single
+ * atomic increment without allocation, so histograms can record every document.
+ * <p>
+ * Instances are thread-safe. Percentiles read while other threads record are approximate.
+ * </p>
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 7;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    private static final int LENGTH = index(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LENGTH);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Returns the bucket of the value
+     */
+    static int index(long value)
+    {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // shift such that value >> shift is in [HALF, SUB_BUCKETS)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return (shift + 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /**
+     * Returns the largest value of the bucket
+     */
+    static long highestValue(int index)
+    {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF - 1;
+        long subBucket = index % HALF + HALF;
+        long next = (subBucket + 1) << shift;
+        // the last bucket ends at Long.MAX_VALUE
+        return next > 0 ? next - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Records a latency
+     *
+     * @param nanos latency in nanoseconds; negative values are recorded as zero
+     */
+    public void record(long nanos)
+    {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        max.accumulate(value);
+    }
+
+    /**
+     * @return number of recorded latencies
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+    /**
+     * @return largest recorded latency in nanoseconds, 0 if none was recorded
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Returns the latency below which the given fraction of the recorded latencies lies,
+     * within the precision of the histogram
+     *
+     * @param fraction fraction between 0 and 1
+     * @return latency in nanoseconds, 0 if none was recorded
+     */
+    public long getPercentile(double fraction)
+    {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Removes all recorded latencies
+     */
+    public void reset()
+    {
+        for (int i = 0; i < LENGTH; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        max.reset();
+    }
+
+    /**
+     * Formats the number of latencies, median, 99th percentile and maximum, e.g.
+     * {@code 1200 documents, p50 3.1 ms, p99 41.0 ms, max 112.5 ms}
+     *
+     * @return summary
+     */
+    public String summary()
+    {
+        return String.format("%d documents, p50 %.1f ms, p99 %.1f ms, max %.1f ms", getCount(),
+                getPercentile(0.5) / 1e6, getPercentile(0.99) / 1e6, getMax() / 1e6);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.profiling;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.ArgumentComponent;
+import org.xml.sax.SAXException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the slowest documents of a run, so that worst cases can be reproduced: their document
+ * id, latency and size (characters, tokens, argument components) and, optionally, the CAS
+ * itself as an XMI file {@code slow-<n>.xmi}. When closed, the documents are listed from the
+ * slowest in {@code slow-documents.tsv} in the directory.
+ * <p>
+ * Documents faster than the slowest N so far are rejected without locking, so the capture can
+ * be offered every document. A CAS is serialized when its document enters the slowest N and
+ * its file is deleted when the document is displaced. Instances are thread-safe.
+ * </p>
+ */
+public class SlowDocumentCapture
+        implements Closeable
+{
+    public static final String SUMMARY_FILE = "slow-documents.tsv";
+
+    /**
+     * A captured document
+     */
+    public static final class Document
+    {
+        private final String documentId;
+        private final long latencyNanos;
+        private final int characters;
+        private final int tokens;
+        private final int components;
+        private final File casFile;
+
+        Document(String documentId, long latencyNanos, int characters, int tokens,
+                int components, File casFile)
+        {
+            this.documentId = documentId;
+            this.latencyNanos = latencyNanos;
+            this.characters = characters;
+            this.tokens = tokens;
+            this.components = components;
+            this.casFile = casFile;
+        }
+
+        public String getDocumentId()
+        {
+            return documentId;
+        }
+
+        public long getLatencyNanos()
+        {
+            return latencyNanos;
+        }
+
+        public int getCharacters()
+        {
+            return characters;
+        }
+
+        public int getTokens()
+        {
+            return tokens;
+        }
+
+        public int getComponents()
+        {
+            return components;
+        }
+
+        /**
+         * @return the serialized CAS, or null if CASes are not saved
+         */
+        public File getCasFile()
+        {
+            return casFile;
+        }
+    }
+
+    private static final Comparator<Document> BY_LATENCY = Comparator
+            .comparingLong(Document::getLatencyNanos);
+
+    private final File directory;
+
+    private final int capacity;
+
+    private final boolean saveCas;
+
+    /**
+     * Fastest of the slowest documents, guarded by this
+     */
+    private final PriorityQueue<Document> slowest;
+
+    /**
+     * Latency a document must exceed to be captured; 0 until the capture is full
+     */
+    private volatile long threshold;
+
+    private final AtomicInteger fileCount = new AtomicInteger();
+
+    /**
+     * @param directory output directory, created if needed
+     * @param capacity  number of documents to keep
+     * @param saveCas   whether to save the CAS of each captured document
+     * @throws IOException if the directory cannot be created
+     */
+    public SlowDocumentCapture(File directory, int capacity, boolean saveCas)
+            throws IOException
+    {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, was " + capacity);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+
+        this.directory = directory;
+        this.capacity = capacity;
+        this.saveCas = saveCas;
+        slowest = new PriorityQueue<>(capacity, BY_LATENCY);
+    }
+
+    /**
+     * Captures the document if it is one of the slowest so far
+     *
+     * @param jCas         processed document
+     * @param latencyNanos processing time
+     * @return whether the document was captured
+     * @throws IOException if the CAS cannot be saved
+     */
+    public boolean offer(JCas jCas, long latencyNanos)
+            throws IOException
+    {
+        if (latencyNanos <= threshold) {
+            return false;
+        }
+
+        // serialize outside the lock; the file is dropped if a slower document came first
+        File casFile = saveCas ? saveCas(jCas) : null;
+        Document document = new Document(
+                JCasUtil.exists(jCas, DocumentMetaData.class) ?
+                        DocumentMetaData.get(jCas).getDocumentId() :
+                        null,
+                latencyNanos, jCas.getDocumentText() != null ?
+                        jCas.getDocumentText().length() :
+                        0,
+                jCas.getAnnotationIndex(Token.type).size(),
+                jCas.getAnnotationIndex(ArgumentComponent.type).size(), casFile);
+
+        Document displaced = null;
+        boolean captured;
+        synchronized (this) {
+            captured = slowest.size() < capacity || latencyNanos > slowest.peek().latencyNanos;
+            if (captured) {
+                slowest.add(document);
+                if (slowest.size() > capacity) {
+                    displaced = slowest.poll();
+                }
+                if (slowest.size() == capacity) {
+                    threshold = slowest.peek().latencyNanos;
+                }
+            }
+        }
+
+        if (!captured) {
+            displaced = document;
+        }
+        if (displaced != null && displaced.casFile != null) {
+            displaced.casFile.delete();
+        }
+        return captured;
+    }
+
+    private File saveCas(JCas jCas)
+            throws IOException
+    {
+        File file = new File(directory, "slow-" + fileCount.getAndIncrement() + ".xmi");
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            XmiCasSerializer.serialize(jCas.getCas(), os);
+        }
+        catch (SAXException e) {
+            file.delete();
+            throw new IOException("Cannot serialize " + file, e);
+        }
+        return file;
+    }
+
+    /**
+     * @return captured documents, slowest first
+     */
+    public synchronized List<Document> getDocuments()
+    {
+        List<Document> result = new ArrayList<>(slowest);
+        result.sort(Collections.reverseOrder(BY_LATENCY));
+        return result;
+    }
+
+    /**
+     * Writes the list of the captured documents; may be called repeatedly
+     *
+     * @throws IOException if writing fails
+     */
+    public void writeSummary()
+            throws IOException
+    {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(new File(directory, SUMMARY_FILE)),
+                StandardCharsets.UTF_8))) {
+            writer.write("document\tlatencyMs\tcharacters\ttokens\tcomponents\tcas\n");
+            for (Document document : getDocuments()) {
+                writer.write(document.documentId + "\t"
+                        + String.format(Locale.ROOT, "%.3f", document.latencyNanos / 1e6) + "\t"
+                        + document.characters + "\t" + document.tokens + "\t"
+                        + document.components + "\t"
+                        + (document.casFile != null ? document.casFile.getName() : "") + "\n");
+            }
+        }
+    }
+
+    /**
+     * Writes the list of the captured documents
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close()
+            throws IOException
+    {
+        writeSummary();
+    }
+}
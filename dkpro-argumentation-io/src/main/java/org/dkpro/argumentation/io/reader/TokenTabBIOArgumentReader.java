@@ -0,0 +1,381 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.reader;
+
+import de.tudarmstadt.ukp.dkpro.core.api.io.JCasResourceCollectionReader_ImplBase;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionUtils;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.UimaContext;
+import org.apache.uima.cas.impl.XmiCasDeserializer;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.descriptor.TypeCapability;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+import org.xml.sax.SAXException;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads files in the format written by
+ * {@link org.dkpro.argumentation.io.writer.TokenTabBIOArgumentWriter} (a token and its BIO tag
+ * per line, delimited by a tab) and creates {@link BIOTokenArgumentAnnotation}s, e.g. to
+ * re-import predictions of a sequence tagger.
+ * <p>
+ * By default, a new document is created from the tokens: tokens are separated by a space and
+ * {@link Token}, {@link Sentence} and {@link BIOTokenArgumentAnnotation} annotations are
+ * created. Empty lines delimit sentences; a file without empty lines is a single sentence.
+ * </p>
+ * <p>
+ * If {@link #PARAM_REFERENCE_LOCATION} is set, the original document is loaded from the XMI file
+ * with the same name (without the {@code .txt} extension) and the tags are aligned to its
+ * existing {@link Token}s: the n-th line is attached to the n-th token, whose covered text must
+ * match the token of the line.
+ * </p>
+ * <p>
+ * Shard files written with {@code PARAM_SHARD_COUNT} are split into their documents at the
+ * {@value org.dkpro.argumentation.io.writer.TokenTabBIOArgumentWriter#DOCUMENT_START} lines.
+ * Each document gets the id of its start line and, in alignment mode, is aligned to the
+ * reference XMI named after that id. Empty files, such as unused shards, are skipped.
+ * </p>
+ */
+@TypeCapability(outputs = {
+        "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token",
+        "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence",
+        "org.dkpro.argumentation.types.BIOTokenArgumentAnnotation"
+})
+public class TokenTabBIOArgumentReader
+        extends JCasResourceCollectionReader_ImplBase
+{
+    /**
+     * Encoding of the input files
+     */
+    public static final String PARAM_SOURCE_ENCODING = ComponentParameters.PARAM_SOURCE_ENCODING;
+    @ConfigurationParameter(name = PARAM_SOURCE_ENCODING, mandatory = true,
+            defaultValue = "UTF-8")
+    private String sourceEncoding;
+
+    /**
+     * Directory with the original XMI files to align the tags to. If not set, the documents
+     * are created from the tokens.
+     */
+    public static final String PARAM_REFERENCE_LOCATION = "referenceLocation";
+    @ConfigurationParameter(name = PARAM_REFERENCE_LOCATION, mandatory = false)
+    private File referenceLocation;
+
+    private static final String TXT_EXTENSION = ".txt";
+
+    private static final String XMI_EXTENSION = ".xmi";
+
+    private TokenTabBIOParser parser;
+
+    // the file being read; shard files span several calls of getNext()
+    private Resource currentResource;
+    private Reader currentReader;
+
+    @Override
+    public void initialize(UimaContext context)
+            throws ResourceInitializationException
+    {
+        super.initialize(context);
+
+        parser = new TokenTabBIOParser();
+    }
+
+    @Override
+    public boolean hasNext()
+            throws IOException, CollectionException
+    {
+        while (currentReader == null && super.hasNext()) {
+            Resource res = nextFile();
+            Reader reader = new BufferedReader(new InputStreamReader(
+                    CompressionUtils.getInputStream(res.getLocation(), res.getInputStream()),
+                    sourceEncoding));
+
+            reader.mark(1);
+            if (reader.read() == -1) {
+                reader.close();
+                continue;
+            }
+            reader.reset();
+
+            currentResource = res;
+            currentReader = reader;
+            parser.reset();
+        }
+        return currentReader != null;
+    }
+
+    @Override
+    public void getNext(JCas jCas)
+            throws IOException, CollectionException
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        boolean more = false;
+        try {
+            if (referenceLocation != null) {
+                AligningHandler handler = new AligningHandler(jCas, currentResource);
+                more = parser.parseDocument(currentReader, handler);
+                handler.finish();
+            }
+            else {
+                initCas(jCas, currentResource);
+                CreatingHandler handler = new CreatingHandler(jCas);
+                more = parser.parseDocument(currentReader, handler);
+                handler.finish();
+            }
+        }
+        finally {
+            if (!more) {
+                closeCurrentReader();
+            }
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        closeCurrentReader();
+        super.close();
+    }
+
+    private void closeCurrentReader()
+            throws IOException
+    {
+        Reader reader = currentReader;
+        currentReader = null;
+        currentResource = null;
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    private void loadReference(JCas jCas, String path, String location)
+            throws IOException
+    {
+        if (path.endsWith(TXT_EXTENSION)) {
+            path = path.substring(0, path.length() - TXT_EXTENSION.length());
+        }
+
+        File reference = new File(referenceLocation, path);
+        if (!reference.isFile()) {
+            reference = new File(referenceLocation, path + XMI_EXTENSION);
+        }
+        if (!reference.isFile()) {
+            throw new FileNotFoundException(
+                    "No reference XMI for " + location + " in " + referenceLocation);
+        }
+
+        try (InputStream is = new BufferedInputStream(new FileInputStream(reference))) {
+            XmiCasDeserializer.deserialize(is, jCas.getCas(), true);
+        }
+        catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Builds the document text and creates tokens, sentences and tags
+     */
+    private static class CreatingHandler
+            implements TokenTabBIOParser.Handler
+    {
+        private final JCas jCas;
+        private final StringBuilder text = new StringBuilder();
+        private int sentenceBegin = -1;
+        private int sentenceEnd;
+
+        CreatingHandler(JCas jCas)
+        {
+            this.jCas = jCas;
+        }
+
+        @Override
+        public void documentStart(String documentId)
+        {
+            DocumentMetaData metadata = DocumentMetaData.get(jCas);
+            metadata.setDocumentId(documentId);
+            metadata.setDocumentTitle(documentId);
+            // distinct URIs, so that writers do not put all documents of a shard in one file
+            if (metadata.getDocumentBaseUri() != null) {
+                metadata.setDocumentUri(metadata.getDocumentBaseUri() + documentId);
+            }
+        }
+
+        @Override
+        public void token(CharSequence token, String tag)
+        {
+            if (sentenceBegin < 0) {
+                if (text.length() > 0) {
+                    text.append('\n');
+                }
+                sentenceBegin = text.length();
+            }
+            else {
+                text.append(' ');
+            }
+
+            int begin = text.length();
+            text.append(token);
+            int end = text.length();
+
+            new Token(jCas, begin, end).addToIndexes();
+            BIOTokenArgumentAnnotation annotation = new BIOTokenArgumentAnnotation(jCas, begin,
+                    end);
+            annotation.setTag(tag);
+            annotation.addToIndexes();
+
+            sentenceEnd = end;
+        }
+
+        @Override
+        public void sentenceBoundary()
+        {
+            if (sentenceBegin >= 0) {
+                new Sentence(jCas, sentenceBegin, sentenceEnd).addToIndexes();
+                sentenceBegin = -1;
+            }
+        }
+
+        void finish()
+        {
+            sentenceBoundary();
+            jCas.setDocumentText(text.toString());
+        }
+    }
+
+    /**
+     * Attaches the tags to the tokens of the reference document, which is loaded for the id
+     * of the document start line or else for the name of the file
+     */
+    private class AligningHandler
+            implements TokenTabBIOParser.Handler
+    {
+        private final JCas jCas;
+        private final Resource res;
+        private String location;
+        private String text;
+        private Iterator<Token> tokens;
+        private int line;
+
+        AligningHandler(JCas jCas, Resource res)
+        {
+            this.jCas = jCas;
+            this.res = res;
+        }
+
+        @Override
+        public void documentStart(String documentId)
+                throws IOException
+        {
+            load(documentId, res.getLocation() + "#" + documentId);
+        }
+
+        private void load(String path, String location)
+                throws IOException
+        {
+            if (path.endsWith(TXT_EXTENSION)) {
+                path = path.substring(0, path.length() - TXT_EXTENSION.length());
+            }
+            loadReference(jCas, path, location);
+
+            this.location = location;
+            this.text = jCas.getDocumentText();
+            // the new annotations are not tokens, so iterating the index while adding is safe
+            this.tokens = JCasUtil.select(jCas, Token.class).iterator();
+        }
+
+        private void ensureLoaded()
+                throws IOException
+        {
+            if (tokens == null) {
+                load(res.getPath(), res.getLocation());
+            }
+        }
+
+        @Override
+        public void token(CharSequence token, String tag)
+                throws IOException
+        {
+            ensureLoaded();
+            line++;
+
+            if (!tokens.hasNext()) {
+                throw new IOException(location + ": more lines than tokens in the reference "
+                        + "document (line " + line + ")");
+            }
+
+            Token reference = tokens.next();
+            if (!matches(reference, token)) {
+                throw new IOException(location + ": token of line " + line
+                        + " does not match the reference token at [" + reference.getBegin()
+                        + ", " + reference.getEnd() + "]");
+            }
+
+            BIOTokenArgumentAnnotation annotation = new BIOTokenArgumentAnnotation(jCas,
+                    reference.getBegin(), reference.getEnd());
+            annotation.setTag(tag);
+            annotation.addToIndexes();
+        }
+
+        private boolean matches(Token reference, CharSequence token)
+        {
+            int begin = reference.getBegin();
+            int length = reference.getEnd() - begin;
+
+            if (length != token.length()) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (text.charAt(begin + i) != token.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public void sentenceBoundary()
+        {
+            // sentences are taken from the reference document
+        }
+
+        void finish()
+                throws IOException
+        {
+            ensureLoaded();
+            if (tokens.hasNext()) {
+                throw new IOException(location + ": fewer lines (" + line
+                        + ") than tokens in the reference document");
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.reader;
+
+import org.dkpro.argumentation.io.writer.TokenTabBIOArgumentWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of the format written by
+ * {@link org.dkpro.argumentation.io.writer.TokenTabBIOArgumentWriter}: one token per line,
+ * followed by a tab and its tag. Empty lines are reported as sentence boundaries.
+ * <p>
+ * Shard files of the writer hold several documents, each starting with a line
+ * {@value org.dkpro.argumentation.io.writer.TokenTabBIOArgumentWriter#DOCUMENT_START} tab
+ * document id. Such lines are reported as document starts; {@link #parseDocument(Reader,
+ * Handler)} stops before the start of the next document, so the documents of a shard can be
+ * processed one by one.
+ * </p>
+ * <p>
+ * The input is read through a reusable char buffer and the token of each line is passed to the
+ * handler as a reusable {@link CharSequence} which is only valid during the callback. Tags are
+ * canonicalized, so each distinct tag is a single String instance. The tag {@code null} (as
+ * written for tokens without a tag) is reported as {@code null}.
+ * </p>
+ * Instances are not thread-safe but can be reused for multiple inputs.
+ */
+public class TokenTabBIOParser
+{
+    /**
+     * Receives the parsed lines
+     */
+    public interface Handler
+    {
+        /**
+         * Called for each {@code -DOCSTART-} line
+         *
+         * @param documentId document id
+         * @throws IOException to abort parsing
+         */
+        void documentStart(String documentId)
+                throws IOException;
+
+        /**
+         * Called for each token line
+         *
+         * @param token token text; only valid during this call
+         * @param tag   canonical tag or null
+         * @throws IOException to abort parsing
+         */
+        void token(CharSequence token, String tag)
+                throws IOException;
+
+        /**
+         * Called for each empty line
+         *
+         * @throws IOException to abort parsing
+         */
+        void sentenceBoundary()
+                throws IOException;
+    }
+
+    private static final String NULL_TAG = "null";
+
+    private final char[] buffer;
+
+    private final StringBuilder token = new StringBuilder();
+
+    private final StringBuilder tag = new StringBuilder();
+
+    private final List<String> tags = new ArrayList<>();
+
+    // state of the current input, kept between calls of parseDocument
+    private int position;
+    private int limit;
+    private int line;
+    private boolean inTag;
+    private boolean lineStarted;
+    private boolean afterCarriageReturn;
+    private String nextDocumentId;
+
+    public TokenTabBIOParser()
+    {
+        this(8192);
+    }
+
+    /**
+     * @param bufferSize size of the char buffer
+     */
+    public TokenTabBIOParser(int bufferSize)
+    {
+        buffer = new char[bufferSize];
+    }
+
+    /**
+     * Parses the whole input; the reader is not closed
+     *
+     * @param reader  input
+     * @param handler handler
+     * @throws IOException if reading fails, a line has no tab, or the handler throws
+     */
+    public void parse(Reader reader, Handler handler)
+            throws IOException
+    {
+        reset();
+        while (parseDocument(reader, handler)) {
+            // all documents go to the same handler
+        }
+    }
+
+    /**
+     * Prepares the parser for a new input of {@link #parseDocument(Reader, Handler)}
+     */
+    public void reset()
+    {
+        position = 0;
+        limit = 0;
+        line = 1;
+        inTag = false;
+        lineStarted = false;
+        afterCarriageReturn = false;
+        nextDocumentId = null;
+        token.setLength(0);
+        tag.setLength(0);
+    }
+
+    /**
+     * Parses the input up to the start of the next document, i.e. a {@code -DOCSTART-} line
+     * after the first line of the current document, or to the end of the input. Call
+     * {@link #reset()} before the first call for an input; the reader is not closed.
+     *
+     * @param reader  input
+     * @param handler handler
+     * @return true if another document follows
+     * @throws IOException if reading fails, a line has no tab, or the handler throws
+     */
+    public boolean parseDocument(Reader reader, Handler handler)
+            throws IOException
+    {
+        boolean contentSeen = false;
+        if (nextDocumentId != null) {
+            handler.documentStart(nextDocumentId);
+            nextDocumentId = null;
+            contentSeen = true;
+        }
+
+        while (true) {
+            if (position == limit) {
+                int read = reader.read(buffer);
+                if (read == -1) {
+                    break;
+                }
+                position = 0;
+                limit = read;
+            }
+
+            char c = buffer[position++];
+
+            if (c == '\n' && afterCarriageReturn) {
+                // second half of \r\n
+                afterCarriageReturn = false;
+                continue;
+            }
+            afterCarriageReturn = c == '\r';
+
+            if (c == '\n' || c == '\r') {
+                boolean documentStart = isDocumentStart();
+                if (documentStart && contentSeen) {
+                    nextDocumentId = tag.toString();
+                    endLine();
+                    return true;
+                }
+                if (documentStart) {
+                    handler.documentStart(tag.toString());
+                    endLine();
+                }
+                else {
+                    endLine(handler);
+                }
+                contentSeen = true;
+            }
+            else if (c == '\t' && !inTag) {
+                inTag = true;
+                lineStarted = true;
+            }
+            else {
+                (inTag ? tag : token).append(c);
+                lineStarted = true;
+            }
+        }
+
+        if (lineStarted) {
+            if (isDocumentStart()) {
+                if (contentSeen) {
+                    nextDocumentId = tag.toString();
+                    endLine();
+                    return true;
+                }
+                handler.documentStart(tag.toString());
+                endLine();
+            }
+            else {
+                endLine(handler);
+            }
+        }
+        return false;
+    }
+
+    private boolean isDocumentStart()
+    {
+        return inTag && TokenTabBIOArgumentWriter.DOCUMENT_START.contentEquals(token);
+    }
+
+    private void endLine()
+    {
+        token.setLength(0);
+        tag.setLength(0);
+        line++;
+        inTag = false;
+        lineStarted = false;
+    }
+
+    private void endLine(Handler handler)
+            throws IOException
+    {
+        if (!lineStarted) {
+            handler.sentenceBoundary();
+            line++;
+            return;
+        }
+
+        if (!inTag) {
+            throw new IOException("Line " + line + ": token and tag must be separated by a tab");
+        }
+
+        handler.token(token, canonicalTag());
+        endLine();
+    }
+
+    private String canonicalTag()
+    {
+        if (NULL_TAG.contentEquals(tag)) {
+            return null;
+        }
+
+        // the tag set is small, a linear scan is cheaper than creating a String for each line
+        for (int i = 0; i < tags.size(); i++) {
+            String candidate = tags.get(i);
+            if (candidate.contentEquals(tag)) {
+                return candidate;
+            }
+        }
+
+        String result = tag.toString();
+        tags.add(result);
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.reader;
+
+import de.tudarmstadt.ukp.dkpro.core.api.io.ResourceCollectionReaderBase;
+import de.tudarmstadt.ukp.dkpro.core.api.resources.CompressionUtils;
+import org.apache.uima.UimaContext;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads XMI files like the {@link de.tudarmstadt.ukp.dkpro.core.io.xmi.XmiReader}, but
+ * deserializes only the feature structures of the required types; see {@link XmiTypeFilter}.
+ * The required types are given explicitly by {@link #PARAM_TYPES} and/or collected from the
+ * {@code @TypeCapability} inputs of the downstream components in
+ * {@link #PARAM_TYPE_CAPABILITY_CLASSES}. The deserialization is always lenient.
+ */
+public class TypeFilteringXmiReader
+        extends ResourceCollectionReaderBase
+{
+    /**
+     * Names of the types to load (including their subtypes)
+     */
+    public static final String PARAM_TYPES = "types";
+    @ConfigurationParameter(name = PARAM_TYPES, mandatory = false)
+    private String[] types;
+
+    /**
+     * Classes of the components which consume the documents; the input types of their
+     * {@code @TypeCapability} annotations are loaded
+     */
+    public static final String PARAM_TYPE_CAPABILITY_CLASSES = "typeCapabilityClasses";
+    @ConfigurationParameter(name = PARAM_TYPE_CAPABILITY_CLASSES, mandatory = false)
+    private String[] typeCapabilityClasses;
+
+    private Set<String> keptTypes;
+
+    @Override
+    public void initialize(UimaContext context)
+            throws ResourceInitializationException
+    {
+        super.initialize(context);
+
+        keptTypes = new TreeSet<>();
+        if (types != null) {
+            keptTypes.addAll(Arrays.asList(types));
+        }
+        if (typeCapabilityClasses != null) {
+            for (String className : typeCapabilityClasses) {
+                try {
+                    keptTypes.addAll(XmiTypeFilter.getInputTypes(Class.forName(className)));
+                }
+                catch (ClassNotFoundException e) {
+                    throw new ResourceInitializationException(e);
+                }
+            }
+        }
+
+        if (keptTypes.isEmpty()) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "No types given; set " + PARAM_TYPES + " or "
+                            + PARAM_TYPE_CAPABILITY_CLASSES));
+        }
+    }
+
+    @Override
+    public void getNext(CAS cas)
+            throws IOException, CollectionException
+    {
+        Resource res = nextFile();
+        initCas(cas, res);
+
+        try (InputStream is = CompressionUtils.getInputStream(res.getLocation(),
+                res.getInputStream())) {
+            XmiTypeFilter.deserialize(is, cas, keptTypes);
+        }
+        catch (SAXException e) {
+            throw new IOException(e);
+        }
+
+        if (getLanguage() != null) {
+            cas.setDocumentLanguage(getLanguage());
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.reader;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.impl.XmiCasDeserializer;
+import org.apache.uima.fit.descriptor.TypeCapability;
+import org.xml.sax.*;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * SAX filter for XMI documents which passes only the feature structures of the given types
+ * (and their subtypes) to the {@link XmiCasDeserializer}, so that annotation layers which are
+ * not needed downstream are neither deserialized nor stored in the CAS.
+ * <p>
+ * The Sofas, views and the document annotation (including
+ * {@code de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData}) are always kept.
+ * References from kept feature structures to skipped ones are dangling, so the deserialization
+ * must be lenient; UIMA sets such references to null.
+ * </p>
+ */
+public class XmiTypeFilter
+        extends XMLFilterImpl
+{
+    private static final String NS_PREFIX = "http:///";
+
+    private static final String NS_SUFFIX = ".ecore";
+
+    private static final String CAS_NAMESPACE = "http:///uima/cas.ecore";
+
+    private final TypeSystem typeSystem;
+
+    private final List<Type> keptTypes = new ArrayList<>();
+
+    /**
+     * Decision per XML element name, as the same names repeat throughout the document
+     */
+    private final Map<String, Boolean> decisions = new HashMap<>();
+
+    private int depth;
+
+    /**
+     * Depth of the skipped element, or 0 if not inside a skipped element
+     */
+    private int skipDepth;
+
+    /**
+     * @param typeSystem type system of the target CAS
+     * @param typeNames  names of the types to keep; unknown names are ignored
+     */
+    public XmiTypeFilter(TypeSystem typeSystem, Collection<String> typeNames)
+    {
+        this.typeSystem = typeSystem;
+
+        for (String typeName : typeNames) {
+            Type type = typeSystem.getType(typeName);
+            if (type != null) {
+                keptTypes.add(type);
+            }
+        }
+        keptTypes.add(typeSystem.getType(CAS.TYPE_NAME_DOCUMENT_ANNOTATION));
+    }
+
+    /**
+     * Collects the input types declared in the {@link TypeCapability} annotations of the
+     * given component classes
+     *
+     * @param componentClasses analysis engine classes
+     * @return type names
+     */
+    public static Set<String> getInputTypes(Class<?>... componentClasses)
+    {
+        Set<String> result = new TreeSet<>();
+        for (Class<?> componentClass : componentClasses) {
+            for (Class<?> c = componentClass; c != null; c = c.getSuperclass()) {
+                TypeCapability capability = c.getAnnotation(TypeCapability.class);
+                if (capability != null) {
+                    result.addAll(Arrays.asList(capability.inputs()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deserializes the XMI leniently into the CAS, keeping only the given types
+     *
+     * @param inputStream XMI
+     * @param cas         empty CAS
+     * @param typeNames   names of the types to keep
+     * @throws SAXException if the XMI cannot be parsed
+     * @throws IOException  if reading fails
+     */
+    public static void deserialize(InputStream inputStream, CAS cas, Collection<String> typeNames)
+            throws SAXException, IOException
+    {
+        XMLReader reader;
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            reader = factory.newSAXParser().getXMLReader();
+        }
+        catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+
+        XmiTypeFilter filter = new XmiTypeFilter(cas.getTypeSystem(), typeNames);
+        filter.setParent(reader);
+        filter.setContentHandler(
+                new XmiCasDeserializer(cas.getTypeSystem()).getXmiCasHandler(cas, true));
+        filter.parse(new InputSource(inputStream));
+    }
+
+    private boolean isKept(String uri, String localName)
+    {
+        // Sofa, View, NULL and other CAS-level elements
+        if (CAS_NAMESPACE.equals(uri)) {
+            return true;
+        }
+
+        // XMI-level elements such as xmi:Extension have no ecore namespace
+        if (uri == null || !uri.startsWith(NS_PREFIX) || !uri.endsWith(NS_SUFFIX)) {
+            return true;
+        }
+
+        String key = uri + localName;
+        Boolean kept = decisions.get(key);
+        if (kept == null) {
+            String packageName = uri.substring(NS_PREFIX.length(), uri.length() - NS_SUFFIX.length())
+                    .replace('/', '.');
+            Type type = typeSystem.getType(packageName + "." + localName);
+            kept = false;
+            if (type != null) {
+                for (Type keptType : keptTypes) {
+                    if (typeSystem.subsumes(keptType, type)) {
+                        kept = true;
+                        break;
+                    }
+                }
+            }
+            decisions.put(key, kept);
+        }
+        return kept;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts)
+            throws SAXException
+    {
+        depth++;
+
+        if (skipDepth == 0 && depth == 2 && !isKept(uri, localName)) {
+            skipDepth = depth;
+        }
+
+        if (skipDepth == 0) {
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName)
+            throws SAXException
+    {
+        if (skipDepth == 0) {
+            super.endElement(uri, localName, qName);
+        }
+        else if (skipDepth == depth) {
+            skipDepth = 0;
+        }
+
+        depth--;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length)
+            throws SAXException
+    {
+        if (skipDepth == 0) {
+            super.characters(ch, start, length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length)
+            throws SAXException
+    {
+        if (skipDepth == 0) {
+            super.ignorableWhitespace(ch, start, length);
+        }
+    }
+}
@@ -24,16 +24,22 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.AbstractCas;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetrics;
+import org.dkpro.argumentation.io.profiling.EngineProfiler;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.IntSupplier;
 
 /**
  * Dumps all argument components in the {@code JCas} (similar to {@link org.apache.uima.fit.component.CasDumpWriter}).
@@ -64,39 +70,186 @@ public class ArgumentDumpWriter
             defaultValue = "true")
     boolean includeRelations;
 
+    /**
+     * If true, {@code process} only serializes the dump into a buffer and the output is written
+     * by a background thread (see {@link AsyncOutputQueue}). Write errors are reported by the
+     * next {@code process} call or by {@code collectionProcessComplete}.
+     */
+    public static final String PARAM_ASYNC = "async";
+    @ConfigurationParameter(name = PARAM_ASYNC, mandatory = true, defaultValue = "false")
+    boolean async;
+
+    /**
+     * Maximal number of serialized documents waiting for the background thread; when reached,
+     * {@code process} blocks
+     */
+    public static final String PARAM_ASYNC_QUEUE_SIZE = "asyncQueueSize";
+    @ConfigurationParameter(name = PARAM_ASYNC_QUEUE_SIZE, mandatory = true, defaultValue = "16")
+    int asyncQueueSize;
+
+    /**
+     * If greater than one, the documents are distributed over this number of files by the hash
+     * of their document id (see {@link ShardedOutput}). The files are named after
+     * {@link #PARAM_OUTPUT_FILE}, e.g. {@code dump-00000.txt}, and a manifest
+     * {@code dump.manifest.tsv} lists the number of documents in each file. Requires an
+     * output file.
+     */
+    public static final String PARAM_SHARD_COUNT = "shardCount";
+    @ConfigurationParameter(name = PARAM_SHARD_COUNT, mandatory = true, defaultValue = "1")
+    int shardCount;
+
+    /**
+     * Id of the pipeline under which the metrics are exposed via JMX (see
+     * {@link ArgumentationMetrics})
+     */
+    public static final String PARAM_PIPELINE_ID = ArgumentationMetrics.PARAM_PIPELINE_ID;
+    @ConfigurationParameter(name = PARAM_PIPELINE_ID, mandatory = true,
+            defaultValue = ArgumentationMetrics.DEFAULT_PIPELINE_ID)
+    private String pipelineId;
+
     private PrintWriter out;
 
+    private ShardedOutput shards;
+
+    private OutputStream outputStream;
+
+    private Charset charset;
+
+    private AsyncOutputQueue queue;
+
+    private ArgumentationMetrics metrics;
+
+    private IntSupplier queueDepth;
+
+    private final EngineProfiler profiler = EngineProfiler.forEngine(
+            getClass().getSimpleName());
+
     @Override
     public void initialize(UimaContext context)
             throws ResourceInitializationException
     {
         super.initialize(context);
 
+        if (metrics == null) {
+            metrics = ArgumentationMetrics.attach(pipelineId, getClass().getSimpleName());
+        }
+
         try {
-            if (out == null) {
+            if (shardCount > 1) {
+                if (shards == null) {
+                    if ("-".equals(outputFile.getName())) {
+                        throw new IllegalArgumentException(
+                                "Sharded output requires an output file");
+                    }
+
+                    String name = outputFile.getName();
+                    int dot = name.lastIndexOf('.');
+                    File directory = outputFile.getAbsoluteFile().getParentFile();
+                    shards = new ShardedOutput(directory, dot > 0 ? name.substring(0, dot) : name,
+                            dot > 0 ? name.substring(dot) : "", shardCount);
+                    charset = StandardCharsets.UTF_8;
+
+                    if (async) {
+                        queue = new AsyncOutputQueue(getClass().getSimpleName() + "-io",
+                                asyncQueueSize);
+                    }
+                }
+            }
+            else if (out == null && outputStream == null) {
                 if ("-".equals(outputFile.getName())) {
                     // default to System.out
-                    out = new PrintWriter(new CloseShieldOutputStream(System.out));
+                    outputStream = new CloseShieldOutputStream(System.out);
+                    charset = Charset.defaultCharset();
                 }
                 else {
                     if (outputFile.getParentFile() != null) {
                         outputFile.getParentFile().mkdirs();
                     }
-                    out = new PrintWriter(
-                            new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8"));
+                    outputStream = new BufferedOutputStream(new FileOutputStream(outputFile));
+                    charset = StandardCharsets.UTF_8;
+                }
+                outputStream = metrics.countBytes(outputStream);
+
+                if (async) {
+                    queue = new AsyncOutputQueue(getClass().getSimpleName() + "-io",
+                            asyncQueueSize);
+                }
+                else {
+                    out = new PrintWriter(new OutputStreamWriter(outputStream, charset));
                 }
             }
         }
-        catch (IOException e) {
+        catch (IOException | IllegalArgumentException e) {
             throw new ResourceInitializationException(e);
         }
+
+        if (queue != null && queueDepth == null) {
+            queueDepth = queue::getDepth;
+            metrics.addQueue(queueDepth);
+        }
     }
 
     @Override
     public void collectionProcessComplete()
+            throws AnalysisEngineProcessException
     {
-        IOUtils.closeQuietly(out);
-        out = null;
+        try {
+            closeOutputs();
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+    }
+
+    /**
+     * Writes the pending documents and closes the outputs; does nothing if they are already
+     * closed
+     *
+     * @throws IOException if writing any document failed
+     */
+    private void closeOutputs()
+            throws IOException
+    {
+        try {
+            if (queue != null) {
+                queue.close();
+            }
+            if (shards != null) {
+                shards.close();
+            }
+        }
+        finally {
+            queue = null;
+            if (metrics != null) {
+                metrics.removeQueue(queueDepth);
+            }
+            queueDepth = null;
+            IOUtils.closeQuietly(shards);
+            shards = null;
+            IOUtils.closeQuietly(out);
+            IOUtils.closeQuietly(outputStream);
+            out = null;
+            outputStream = null;
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        // collectionProcessComplete() is not called if the pipeline failed
+        try {
+            closeOutputs();
+        }
+        catch (IOException e) {
+            getLogger().warn("Writing the pending output failed", e);
+        }
+
+        if (metrics != null) {
+            metrics.detach();
+            metrics = null;
+        }
+
+        super.destroy();
     }
 
     /**
@@ -178,11 +331,60 @@ public class ArgumentDumpWriter
         }
     }
 
+    @Override
+    public void process(AbstractCas aCas)
+            throws AnalysisEngineProcessException
+    {
+        profiler.instrument((JCas) aCas, metrics, () -> super.process(aCas));
+    }
+
     @Override
     public void process(JCas jCas)
             throws AnalysisEngineProcessException
     {
-        out.println(dumpArguments(jCas, this.includeProperties, this.includeRelations));
+        String dump = dumpArguments(jCas, this.includeProperties, this.includeRelations);
+
+        if (out != null) {
+            out.println(dump);
+            return;
+        }
+
+        try {
+            int shard = shards != null ?
+                    shards.route(DocumentMetaData.get(jCas).getDocumentId()) :
+                    -1;
+            OutputStream target = shard >= 0 ?
+                    metrics.countBytes(shards.getStream(shard)) :
+                    outputStream;
+
+            if (queue == null) {
+                target.write((dump + System.lineSeparator()).getBytes(charset));
+                if (shard >= 0) {
+                    shards.documentWritten(shard);
+                }
+                return;
+            }
+
+            AsyncOutputQueue.OutputBuffer buffer = queue.acquire();
+            boolean serialized = false;
+            try {
+                Writer writer = new OutputStreamWriter(buffer, charset);
+                writer.write(dump);
+                writer.write(System.lineSeparator());
+                writer.flush();
+                serialized = true;
+            }
+            finally {
+                if (!serialized) {
+                    queue.release(buffer);
+                }
+            }
+            queue.submit(buffer, target, false,
+                    shard >= 0 ? () -> shards.documentWritten(shard) : null);
+        }
+        catch (IOException | IllegalArgumentException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
     }
 
     /**
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.writer;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of serialized documents which are written by a dedicated I/O thread, so that
+ * writers only serialize on the pipeline thread.
+ * <p>
+ * The pipeline thread {@link #acquire() acquires} a pooled buffer, serializes into it and
+ * {@link #submit(OutputBuffer, OutputStream, boolean) submits} it together with its target
+ * stream. When the queue is full, {@code submit} blocks until the I/O thread catches up. A
+ * failure of the I/O thread is rethrown by the next call of {@code acquire}, {@code submit} or
+ * {@link #close()}; later buffers are discarded.
+ * </p>
+ * Targets are written strictly in submission order. Buffers which grew beyond
+ * {@value #MAX_POOLED_CAPACITY} bytes for a large document are not returned to the pool but
+ * replaced, so a single large document does not hold its memory for the rest of the run.
+ */
+public class AsyncOutputQueue
+{
+    /**
+     * Reusable serialization buffer
+     */
+    public static final class OutputBuffer
+            extends ByteArrayOutputStream
+    {
+        private OutputBuffer()
+        {
+            super(8192);
+        }
+
+        /**
+         * @return size of the backing array in bytes
+         */
+        int capacity()
+        {
+            return buf.length;
+        }
+    }
+
+    private static final class Task
+    {
+        final OutputBuffer buffer;
+        final OutputStream target;
+        final boolean closeTarget;
+        final Runnable afterWrite;
+
+        Task(OutputBuffer buffer, OutputStream target, boolean closeTarget, Runnable afterWrite)
+        {
+            this.buffer = buffer;
+            this.target = target;
+            this.closeTarget = closeTarget;
+            this.afterWrite = afterWrite;
+        }
+    }
+
+    private static final Task END = new Task(null, null, false, null);
+
+    /**
+     * Maximal capacity of a buffer returned to the pool
+     */
+    public static final int MAX_POOLED_CAPACITY = 1 << 20;
+
+    /**
+     * Interval in which a blocked producer checks that the I/O thread is still running
+     */
+    private static final long POLL_MILLIS = 100;
+
+    private final BlockingQueue<Task> queue;
+
+    private final BlockingQueue<OutputBuffer> pool;
+
+    private final Thread thread;
+
+    private volatile Throwable failure;
+
+    private boolean closed;
+
+    /**
+     * Creates the queue and starts the I/O thread
+     *
+     * @param name     name of the I/O thread
+     * @param capacity maximal number of queued documents
+     */
+    public AsyncOutputQueue(String name, int capacity)
+    {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, was " + capacity);
+        }
+
+        queue = new ArrayBlockingQueue<>(capacity);
+
+        // one buffer in each queue slot, one being filled and one being written
+        pool = new ArrayBlockingQueue<>(capacity + 2);
+        for (int i = 0; i < capacity + 2; i++) {
+            pool.add(new OutputBuffer());
+        }
+
+        thread = new Thread(this::drain, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void drain()
+    {
+        while (true) {
+            Task task;
+            try {
+                task = queue.take();
+            }
+            catch (InterruptedException e) {
+                failure = e;
+                return;
+            }
+
+            if (task == END) {
+                return;
+            }
+
+            try {
+                if (failure == null) {
+                    task.buffer.writeTo(task.target);
+                    if (task.closeTarget) {
+                        task.target.close();
+                    }
+                    else {
+                        task.target.flush();
+                    }
+                    if (task.afterWrite != null) {
+                        task.afterWrite.run();
+                    }
+                }
+                else if (task.closeTarget) {
+                    IOUtils.closeQuietly(task.target);
+                }
+            }
+            catch (Throwable e) {
+                failure = e;
+                if (task.closeTarget) {
+                    IOUtils.closeQuietly(task.target);
+                }
+            }
+            finally {
+                recycle(task.buffer);
+            }
+        }
+    }
+
+    /**
+     * Rethrows the failure of the I/O thread, if any
+     *
+     * @throws IOException if writing a previous document failed
+     */
+    public void checkError()
+            throws IOException
+    {
+        Throwable e = failure;
+        if (e != null) {
+            if (e instanceof IOException) {
+                throw new IOException("Asynchronous write failed: " + e.getMessage(), e);
+            }
+            throw new IOException("Asynchronous write failed", e);
+        }
+    }
+
+    /**
+     * Takes an empty buffer from the pool, waiting if all buffers are in use
+     *
+     * @return empty buffer
+     * @throws IOException if writing a previous document failed
+     */
+    public OutputBuffer acquire()
+            throws IOException
+    {
+        checkError();
+        try {
+            return pool.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Returns an acquired buffer to the pool without writing it
+     *
+     * @param buffer buffer obtained from {@link #acquire()}
+     */
+    public void release(OutputBuffer buffer)
+    {
+        recycle(buffer);
+    }
+
+    private void recycle(OutputBuffer buffer)
+    {
+        if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+            pool.add(new OutputBuffer());
+        }
+        else {
+            buffer.reset();
+            pool.add(buffer);
+        }
+    }
+
+    /**
+     * Puts the task into the queue, waiting while the queue is full and the I/O thread is
+     * running
+     *
+     * @return false if the I/O thread has stopped
+     */
+    private boolean enqueue(Task task)
+            throws InterruptedException
+    {
+        while (thread.isAlive()) {
+            if (queue.offer(task, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hands the buffer over to the I/O thread, waiting while the queue is full. The buffer is
+     * returned to the pool also if this method fails.
+     *
+     * @param buffer      buffer obtained from {@link #acquire()}
+     * @param target      stream the buffer is written to
+     * @param closeTarget whether the target is closed after writing; otherwise it is flushed
+     * @throws IOException if writing a previous document failed
+     */
+    public void submit(OutputBuffer buffer, OutputStream target, boolean closeTarget)
+            throws IOException
+    {
+        submit(buffer, target, closeTarget, null);
+    }
+
+    /**
+     * Hands the buffer over to the I/O thread as {@link #submit(OutputBuffer, OutputStream,
+     * boolean)}, and runs the callback in the I/O thread once the buffer has been written
+     *
+     * @param buffer      buffer obtained from {@link #acquire()}
+     * @param target      stream the buffer is written to
+     * @param closeTarget whether the target is closed after writing; otherwise it is flushed
+     * @param afterWrite  run after a successful write; may be null
+     * @throws IOException if writing a previous document failed
+     */
+    public void submit(OutputBuffer buffer, OutputStream target, boolean closeTarget,
+            Runnable afterWrite)
+            throws IOException
+    {
+        if (closed) {
+            throw new IllegalStateException("queue is closed");
+        }
+
+        try {
+            checkError();
+        }
+        catch (IOException e) {
+            release(buffer);
+            if (closeTarget) {
+                IOUtils.closeQuietly(target);
+            }
+            throw e;
+        }
+
+        boolean queued;
+        try {
+            queued = enqueue(new Task(buffer, target, closeTarget, afterWrite));
+        }
+        catch (InterruptedException e) {
+            release(buffer);
+            if (closeTarget) {
+                IOUtils.closeQuietly(target);
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        if (!queued) {
+            release(buffer);
+            if (closeTarget) {
+                IOUtils.closeQuietly(target);
+            }
+            checkError();
+            throw new IOException("Asynchronous writer thread has stopped");
+        }
+    }
+
+    /**
+     * Closes the targets of the documents left in the queue by a stopped I/O thread
+     */
+    private void discardPending()
+    {
+        Task task;
+        while ((task = queue.poll()) != null) {
+            if (task != END) {
+                if (task.closeTarget) {
+                    IOUtils.closeQuietly(task.target);
+                }
+                recycle(task.buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of documents waiting to be written
+     *
+     * @return queue depth
+     */
+    public int getDepth()
+    {
+        return queue.size();
+    }
+
+    /**
+     * Writes all pending documents and stops the I/O thread
+     *
+     * @throws IOException if writing any document failed
+     */
+    public void close()
+            throws IOException
+    {
+        if (!closed) {
+            closed = true;
+            try {
+                // the I/O thread may have stopped with a full queue
+                enqueue(END);
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            discardPending();
+        }
+        checkError();
+    }
+}
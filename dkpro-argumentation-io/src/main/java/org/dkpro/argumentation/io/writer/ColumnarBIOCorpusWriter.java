@@ -0,0 +1,369 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.writer;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.AbstractCas;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.io.columnar.ColumnSpool;
+import org.dkpro.argumentation.io.columnar.ColumnarBIOCorpus;
+import org.dkpro.argumentation.io.columnar.ColumnarBIOCorpusFormat;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetrics;
+import org.dkpro.argumentation.io.profiling.EngineProfiler;
+import org.dkpro.argumentation.types.BIOAbstractArgumentAnnotation;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes all documents of the collection into a single columnar corpus file that can be
+ * memory-mapped by {@link ColumnarBIOCorpus}, so training code can iterate tokens and labels
+ * without parsing text files. See {@link ColumnarBIOCorpusFormat} for the file layout.
+ * <p>
+ * The columns and the document ids are spooled into temporary files next to the output file
+ * (see {@link ColumnSpool}) while the collection is processed and assembled into the output
+ * file in {@link #collectionProcessComplete()}, so memory usage does not grow with the corpus;
+ * only the label vocabulary is kept in memory.
+ * </p>
+ * Tokens which are not covered by any {@link Sentence} are attached to the preceding sentence.
+ */
+public class ColumnarBIOCorpusWriter
+        extends JCasAnnotator_ImplBase
+{
+    /**
+     * Output file of the corpus
+     */
+    public static final String PARAM_OUTPUT_FILE = "outputFile";
+    @ConfigurationParameter(name = PARAM_OUTPUT_FILE, mandatory = true)
+    private File outputFile;
+
+    /**
+     * Type of the BIO annotations to export; a subtype of
+     * {@link BIOAbstractArgumentAnnotation}, by default {@link BIOTokenArgumentAnnotation}
+     */
+    public static final String PARAM_ANNOTATION_TYPE = "annotationType";
+    @ConfigurationParameter(name = PARAM_ANNOTATION_TYPE, mandatory = true,
+            defaultValue = "org.dkpro.argumentation.types.BIOTokenArgumentAnnotation")
+    private String annotationType;
+
+    /**
+     * Id of the pipeline under which the metrics are exposed via JMX (see
+     * {@link ArgumentationMetrics})
+     */
+    public static final String PARAM_PIPELINE_ID = ArgumentationMetrics.PARAM_PIPELINE_ID;
+    @ConfigurationParameter(name = PARAM_PIPELINE_ID, mandatory = true,
+            defaultValue = ArgumentationMetrics.DEFAULT_PIPELINE_ID)
+    private String pipelineId;
+
+    private Class<? extends BIOAbstractArgumentAnnotation> annotationClass;
+
+    private ColumnSpool spool;
+
+    // in file order
+    private ColumnSpool.Column tokenOffsets;
+    private ColumnSpool.Column labelIdColumn;
+    private ColumnSpool.Column sentenceTokenStarts;
+    private ColumnSpool.Column documentTokenStarts;
+    private ColumnSpool.Column documentSentenceStarts;
+    private ColumnSpool.Column tokenPool;
+
+    private ColumnSpool.Column documentIds;
+
+    private final Map<String, Integer> labelIds = new HashMap<>();
+    private final List<String> labels = new ArrayList<>();
+
+    private int tokenCount;
+    private int sentenceCount;
+    private int documentCount;
+
+    // bytes reported to the metrics while spooling
+    private long reportedBytes;
+
+    private CharsetEncoder encoder;
+    private ByteBuffer encodeBuffer;
+
+    private ArgumentationMetrics metrics;
+
+    private final EngineProfiler profiler = EngineProfiler.forEngine(
+            getClass().getSimpleName());
+
+    @Override
+    public void initialize(UimaContext context)
+            throws ResourceInitializationException
+    {
+        super.initialize(context);
+
+        metrics = ArgumentationMetrics.attach(pipelineId, getClass().getSimpleName());
+
+        try {
+            annotationClass = Class.forName(annotationType)
+                    .asSubclass(BIOAbstractArgumentAnnotation.class);
+        }
+        catch (ClassNotFoundException | ClassCastException e) {
+            throw new ResourceInitializationException(e);
+        }
+
+        spool = new ColumnSpool(outputFile, ColumnarBIOCorpusFormat.ALIGNMENT);
+        try {
+            tokenOffsets = spool.createColumn("tokenOffsets");
+            labelIdColumn = spool.createColumn("labels");
+            sentenceTokenStarts = spool.createColumn("sentenceTokenStarts");
+            documentTokenStarts = spool.createColumn("documentTokenStarts");
+            documentSentenceStarts = spool.createColumn("documentSentenceStarts");
+            tokenPool = spool.createColumn("tokenPool");
+            documentIds = spool.createStringColumn("documentIds");
+        }
+        catch (IOException e) {
+            spool.close();
+            throw new ResourceInitializationException(e);
+        }
+
+        labelIds.clear();
+        labels.clear();
+        tokenCount = 0;
+        sentenceCount = 0;
+        documentCount = 0;
+        reportedBytes = 0;
+
+        encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        encodeBuffer = ByteBuffer.allocate(256);
+    }
+
+    @Override
+    public void process(AbstractCas aCas)
+            throws AnalysisEngineProcessException
+    {
+        profiler.instrument((JCas) aCas, metrics, () -> super.process(aCas));
+    }
+
+    @Override
+    public void process(JCas jCas)
+            throws AnalysisEngineProcessException
+    {
+        Collection<? extends BIOAbstractArgumentAnnotation> annotations = JCasUtil
+                .select(jCas, annotationClass);
+
+        if (annotations.isEmpty()) {
+            throw new AnalysisEngineProcessException(new IllegalStateException(
+                    "No annotations of type " + annotationType + " found. Make sure you run "
+                            + "the corresponding BIO annotator in the pipeline."));
+        }
+
+        // sentence spans of this document in index order
+        Collection<Sentence> sentences = JCasUtil.select(jCas, Sentence.class);
+        int[] sentenceBegins = new int[sentences.size()];
+        int[] sentenceEnds = new int[sentences.size()];
+        int sentencesInDocument = 0;
+        for (Sentence sentence : sentences) {
+            sentenceBegins[sentencesInDocument] = sentence.getBegin();
+            sentenceEnds[sentencesInDocument] = sentence.getEnd();
+            sentencesInDocument++;
+        }
+
+        String text = jCas.getDocumentText();
+
+        try {
+            documentIds.writeString(DocumentMetaData.get(jCas).getDocumentId());
+            documentTokenStarts.writeInt(tokenCount);
+            documentSentenceStarts.writeInt(sentenceCount);
+            documentCount++;
+
+            int s = 0;
+            int currentSentence = -1;
+            boolean first = true;
+
+            for (BIOAbstractArgumentAnnotation annotation : annotations) {
+                int begin = annotation.getBegin();
+
+                while (s < sentencesInDocument && sentenceEnds[s] <= begin) {
+                    s++;
+                }
+                int sentence = (s < sentencesInDocument && sentenceBegins[s] <= begin) ? s : -1;
+
+                if (first || (sentence != -1 && sentence != currentSentence)) {
+                    sentenceTokenStarts.writeInt(tokenCount);
+                    sentenceCount++;
+                }
+                if (sentence != -1) {
+                    currentSentence = sentence;
+                }
+                first = false;
+
+                tokenOffsets.writeInt(toIntOffset(tokenPool.size()));
+                encodeToken(text, begin, annotation.getEnd());
+                labelIdColumn.writeInt(getLabelId(annotation.getTag()));
+                tokenCount++;
+            }
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+        finally {
+            long spooled = spool.size();
+            metrics.bytesWritten(spooled - reportedBytes);
+            reportedBytes = spooled;
+        }
+    }
+
+    /**
+     * Writes the UTF-8 bytes of the given text span into the token pool without creating
+     * an intermediate String
+     */
+    private void encodeToken(String text, int begin, int end)
+            throws IOException
+    {
+        CharBuffer chars = CharBuffer.wrap(text, begin, end);
+        encoder.reset();
+        encodeBuffer.clear();
+
+        CoderResult result = encoder.encode(chars, encodeBuffer, true);
+        while (result.isOverflow()) {
+            growEncodeBuffer();
+            result = encoder.encode(chars, encodeBuffer, true);
+        }
+        result = encoder.flush(encodeBuffer);
+        while (result.isOverflow()) {
+            growEncodeBuffer();
+            result = encoder.flush(encodeBuffer);
+        }
+
+        tokenPool.write(encodeBuffer.array(), 0, encodeBuffer.position());
+    }
+
+    private void growEncodeBuffer()
+    {
+        ByteBuffer larger = ByteBuffer.allocate(encodeBuffer.capacity() * 2);
+        encodeBuffer.flip();
+        larger.put(encodeBuffer);
+        encodeBuffer = larger;
+    }
+
+    private int getLabelId(String tag)
+    {
+        if (tag == null) {
+            return ColumnarBIOCorpusFormat.NO_LABEL;
+        }
+
+        Integer id = labelIds.get(tag);
+        if (id == null) {
+            id = labels.size();
+            labels.add(tag);
+            labelIds.put(tag, id);
+        }
+        return id;
+    }
+
+    private static int toIntOffset(long offset)
+            throws IOException
+    {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Token pool exceeds " + Integer.MAX_VALUE + " bytes");
+        }
+        return (int) offset;
+    }
+
+    @Override
+    public void collectionProcessComplete()
+            throws AnalysisEngineProcessException
+    {
+        try {
+            // closing offsets
+            tokenOffsets.writeInt(toIntOffset(tokenPool.size()));
+            sentenceTokenStarts.writeInt(tokenCount);
+            documentTokenStarts.writeInt(tokenCount);
+            documentSentenceStarts.writeInt(sentenceCount);
+
+            long length = writeCorpus();
+            // the closing offsets, the header and the padding
+            metrics.bytesWritten(length - reportedBytes);
+            reportedBytes = length;
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+        finally {
+            spool.close();
+        }
+    }
+
+    /**
+     * @return size of the corpus file
+     */
+    private long writeCorpus()
+            throws IOException
+    {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(ColumnarBIOCorpusFormat.MAGIC);
+        header.writeInt(ColumnarBIOCorpusFormat.VERSION);
+        header.writeInt(tokenCount);
+        header.writeInt(sentenceCount);
+        header.writeInt(documentCount);
+        header.writeInt(labels.size());
+        header.writeLong(tokenPool.size());
+        header.flush();
+
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream strings = new DataOutputStream(stringBytes);
+        for (String label : labels) {
+            ColumnSpool.writeString(strings, label);
+        }
+        strings.flush();
+
+        return spool.writeFile(headerBytes.toByteArray(), stringBytes.toByteArray());
+    }
+
+    @Override
+    public void destroy()
+    {
+        // the collection may have been aborted before collectionProcessComplete()
+        if (spool != null) {
+            spool.close();
+        }
+
+        if (metrics != null) {
+            metrics.detach();
+            metrics = null;
+        }
+
+        super.destroy();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.writer;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A fixed number of output files (shards) to which documents are routed by the hash of their
+ * id, so that the output can be read in parallel. The same id is always routed to the same
+ * shard.
+ * <p>
+ * Shard {@code i} is written to {@code <prefix>-<i><extension>} (e.g. {@code dump-00003.txt})
+ * in the output directory. When closed, a manifest {@code <prefix>.manifest.tsv} is written
+ * which lists each shard file name and the number of documents written to it, delimited by a
+ * tab. Documents without an id cannot be routed.
+ * </p>
+ * Instances are not thread-safe, except for {@link #documentWritten(int)}, which may be called
+ * by an I/O thread (see {@link AsyncOutputQueue}).
+ */
+public class ShardedOutput
+        implements Closeable
+{
+    public static final String MANIFEST_SUFFIX = ".manifest.tsv";
+
+    private final File directory;
+
+    private final String prefix;
+
+    private final String[] names;
+
+    private final OutputStream[] streams;
+
+    private final AtomicIntegerArray documentCounts;
+
+    private boolean closed;
+
+    /**
+     * Creates the directory and opens all shard files
+     *
+     * @param directory  output directory
+     * @param prefix     file name prefix
+     * @param extension  file name extension including the dot, may be empty
+     * @param shardCount number of shards
+     * @throws IOException if a shard cannot be opened
+     */
+    public ShardedOutput(File directory, String prefix, String extension, int shardCount)
+            throws IOException
+    {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException(
+                    "shardCount must be positive, was " + shardCount);
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+
+        this.directory = directory;
+        this.prefix = prefix;
+        names = new String[shardCount];
+        streams = new OutputStream[shardCount];
+        documentCounts = new AtomicIntegerArray(shardCount);
+
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                names[i] = String.format("%s-%05d%s", prefix, i, extension);
+                streams[i] = new BufferedOutputStream(
+                        new FileOutputStream(new File(directory, names[i])));
+            }
+        }
+        catch (IOException e) {
+            for (OutputStream stream : streams) {
+                IOUtils.closeQuietly(stream);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the shard of the given document id
+     *
+     * @param documentId document id, may be null
+     * @param shardCount number of shards
+     * @return shard index
+     */
+    public static int shardOf(String documentId, int shardCount)
+    {
+        int h = documentId != null ? documentId.hashCode() : 0;
+        // spread the bits of String.hashCode, whose low bits are weak for similar ids
+        h *= 0x9E3779B9;
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % shardCount;
+    }
+
+    /**
+     * Returns the shard of the given document
+     *
+     * @param documentId document id
+     * @return shard index
+     * @throws IllegalArgumentException if the document has no id
+     */
+    public int route(String documentId)
+    {
+        if (closed) {
+            throw new IllegalStateException("output is closed");
+        }
+        if (documentId == null) {
+            throw new IllegalArgumentException(
+                    "Sharded output requires a document id, but the document has none");
+        }
+
+        return shardOf(documentId, streams.length);
+    }
+
+    /**
+     * Returns the stream of the given shard; it must not be closed by the caller
+     *
+     * @param shard shard index from {@link #route(String)}
+     * @return shard stream
+     */
+    public OutputStream getStream(int shard)
+    {
+        if (closed) {
+            throw new IllegalStateException("output is closed");
+        }
+
+        return streams[shard];
+    }
+
+    /**
+     * Counts a document in the manifest; to be called once the document has been written
+     *
+     * @param shard shard index from {@link #route(String)}
+     */
+    public void documentWritten(int shard)
+    {
+        documentCounts.incrementAndGet(shard);
+    }
+
+    /**
+     * Returns the number of shards
+     *
+     * @return shard count
+     */
+    public int getShardCount()
+    {
+        return streams.length;
+    }
+
+    /**
+     * Closes all shards and writes the manifest
+     *
+     * @throws IOException if closing a shard or writing the manifest fails
+     */
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        IOException failure = null;
+        for (OutputStream stream : streams) {
+            try {
+                stream.close();
+            }
+            catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(
+                new File(directory, prefix + MANIFEST_SUFFIX)), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < names.length; i++) {
+                writer.write(names[i] + "\t" + documentCounts.get(i) + "\n");
+            }
+        }
+    }
+}
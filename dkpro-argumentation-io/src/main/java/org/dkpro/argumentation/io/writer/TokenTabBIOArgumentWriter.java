@@ -19,14 +19,26 @@ package org.dkpro.argumentation.io.writer;
 
 import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
 import de.tudarmstadt.ukp.dkpro.core.api.io.JCasFileWriter_ImplBase;
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
 import org.apache.commons.io.IOUtils;
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.AbstractCas;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetrics;
+import org.dkpro.argumentation.io.profiling.EngineProfiler;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.Collection;
+import java.util.function.IntSupplier;
 
 /**
  * Exports each document into a text file in which each line contains a token and its BIO-tag
@@ -43,17 +55,121 @@ import java.util.Collection;
  * elit tab Premise-B
  * ...
  * </pre>
+ * If {@link #PARAM_SHARD_COUNT} is greater than one, the documents are instead appended to a
+ * fixed number of shard files; each document starts with a line {@code -DOCSTART-} tab
+ * document id and ends with an empty line.
  *
  * @author Ivan Habernal
  */
 public class TokenTabBIOArgumentWriter
         extends JCasFileWriter_ImplBase
 {
+    /**
+     * Encoding of the output files; the default matches the default source encoding of
+     * {@link org.dkpro.argumentation.io.reader.TokenTabBIOArgumentReader}
+     */
+    public static final String PARAM_TARGET_ENCODING = ComponentParameters.PARAM_TARGET_ENCODING;
+    @ConfigurationParameter(name = PARAM_TARGET_ENCODING, mandatory = true,
+            defaultValue = "UTF-8")
+    private String targetEncoding;
+
+    /**
+     * If true, {@code process} only serializes the document into a buffer and the file is
+     * written by a background thread (see {@link AsyncOutputQueue}). Write errors are reported
+     * by the next {@code process} call or by {@code collectionProcessComplete}. Not supported
+     * for ZIP targets.
+     */
+    public static final String PARAM_ASYNC = "async";
+    @ConfigurationParameter(name = PARAM_ASYNC, mandatory = true, defaultValue = "false")
+    private boolean async;
+
+    /**
+     * Maximal number of serialized documents waiting for the background thread; when reached,
+     * {@code process} blocks
+     */
+    public static final String PARAM_ASYNC_QUEUE_SIZE = "asyncQueueSize";
+    @ConfigurationParameter(name = PARAM_ASYNC_QUEUE_SIZE, mandatory = true, defaultValue = "16")
+    private int asyncQueueSize;
+
+    /**
+     * If greater than one, the documents are distributed over this number of files
+     * {@code shard-00000.txt}, ... in the target location by the hash of their document id (see
+     * {@link ShardedOutput}); a manifest {@code shard.manifest.tsv} lists the number of
+     * documents in each file. Not supported for ZIP targets.
+     */
+    public static final String PARAM_SHARD_COUNT = "shardCount";
+    @ConfigurationParameter(name = PARAM_SHARD_COUNT, mandatory = true, defaultValue = "1")
+    private int shardCount;
+
+    /**
+     * Id of the pipeline under which the metrics are exposed via JMX (see
+     * {@link ArgumentationMetrics})
+     */
+    public static final String PARAM_PIPELINE_ID = ArgumentationMetrics.PARAM_PIPELINE_ID;
+    @ConfigurationParameter(name = PARAM_PIPELINE_ID, mandatory = true,
+            defaultValue = ArgumentationMetrics.DEFAULT_PIPELINE_ID)
+    private String pipelineId;
+
+    /**
+     * First line of each document in a shard file
+     */
+    public static final String DOCUMENT_START = "-DOCSTART-";
+
+    private AsyncOutputQueue queue;
+
+    private ShardedOutput shards;
+
+    private ArgumentationMetrics metrics;
+
+    private IntSupplier queueDepth;
+
+    private final EngineProfiler profiler = EngineProfiler.forEngine(
+            getClass().getSimpleName());
+
+    @Override
+    public void initialize(UimaContext context)
+            throws ResourceInitializationException
+    {
+        super.initialize(context);
+
+        metrics = ArgumentationMetrics.attach(pipelineId, getClass().getSimpleName());
+
+        if (async) {
+            if (getTargetLocation() != null && getTargetLocation().startsWith(JAR_PREFIX)) {
+                throw new ResourceInitializationException(new IllegalArgumentException(
+                        "Asynchronous writing is not supported for ZIP targets"));
+            }
+            queue = new AsyncOutputQueue(getClass().getSimpleName() + "-io", asyncQueueSize);
+            queueDepth = queue::getDepth;
+            metrics.addQueue(queueDepth);
+        }
+
+        if (shardCount > 1) {
+            if (getTargetLocation() == null || getTargetLocation().startsWith(JAR_PREFIX)) {
+                throw new ResourceInitializationException(new IllegalArgumentException(
+                        "Sharded output requires a target directory"));
+            }
+            try {
+                shards = new ShardedOutput(new File(getTargetLocation()), "shard", ".txt",
+                        shardCount);
+            }
+            catch (IOException e) {
+                throw new ResourceInitializationException(e);
+            }
+        }
+    }
+
+    @Override
+    public void process(AbstractCas aCas)
+            throws AnalysisEngineProcessException
+    {
+        profiler.instrument((JCas) aCas, metrics, () -> super.process(aCas));
+    }
 
     @Override public void process(JCas jCas)
             throws AnalysisEngineProcessException
     {
-        try (OutputStream docOS = getOutputStream(jCas, ".txt")) {
+        try {
             Collection<BIOTokenArgumentAnnotation> bioTokenArgumentAnnotations = JCasUtil
                     .select(jCas, BIOTokenArgumentAnnotation.class);
 
@@ -62,16 +178,140 @@ public class TokenTabBIOArgumentWriter
                         "No annotations of type BIOTokenArgumentAnnotation found. Make sure you run ArgumentTokenBIOAnnotator in the pipeline.");
             }
 
-            PrintWriter pw = new PrintWriter(docOS, true);
-
-            for (BIOTokenArgumentAnnotation tokenAnnotation : bioTokenArgumentAnnotations) {
-                pw.printf("%s\t%s%n", tokenAnnotation.getCoveredText(), tokenAnnotation.getTag());
+            if (shards != null) {
+                String documentId = DocumentMetaData.get(jCas).getDocumentId();
+                int shard = shards.route(documentId);
+                OutputStream shardOS = metrics.countBytes(shards.getStream(shard));
+                if (queue != null) {
+                    AsyncOutputQueue.OutputBuffer buffer = queue.acquire();
+                    boolean serialized = false;
+                    try {
+                        writeShardDocument(documentId, bioTokenArgumentAnnotations, buffer);
+                        serialized = true;
+                    }
+                    finally {
+                        if (!serialized) {
+                            queue.release(buffer);
+                        }
+                    }
+                    queue.submit(buffer, shardOS, false, () -> shards.documentWritten(shard));
+                }
+                else {
+                    writeShardDocument(documentId, bioTokenArgumentAnnotations, shardOS);
+                    shards.documentWritten(shard);
+                }
+            }
+            else if (queue != null) {
+                AsyncOutputQueue.OutputBuffer buffer = queue.acquire();
+                OutputStream docOS = null;
+                try {
+                    writeTokens(bioTokenArgumentAnnotations, buffer);
+                    docOS = metrics.countBytes(getOutputStream(jCas, ".txt"));
+                }
+                finally {
+                    if (docOS == null) {
+                        queue.release(buffer);
+                    }
+                }
+                queue.submit(buffer, docOS, true);
+            }
+            else {
+                try (OutputStream docOS = metrics.countBytes(getOutputStream(jCas, ".txt"))) {
+                    writeTokens(bioTokenArgumentAnnotations, docOS);
+                }
             }
-
-            IOUtils.closeQuietly(docOS);
         }
         catch (Exception e) {
             throw new AnalysisEngineProcessException(e);
         }
     }
+
+    private void writeTokens(Collection<BIOTokenArgumentAnnotation> annotations,
+            OutputStream outputStream)
+            throws IOException
+    {
+        PrintWriter pw = new PrintWriter(new OutputStreamWriter(outputStream, targetEncoding));
+        writeTokens(annotations, pw);
+        pw.flush();
+    }
+
+    private static void writeTokens(Collection<BIOTokenArgumentAnnotation> annotations,
+            PrintWriter pw)
+    {
+        for (BIOTokenArgumentAnnotation tokenAnnotation : annotations) {
+            pw.printf("%s\t%s%n", tokenAnnotation.getCoveredText(), tokenAnnotation.getTag());
+        }
+    }
+
+    private void writeShardDocument(String documentId,
+            Collection<BIOTokenArgumentAnnotation> annotations, OutputStream outputStream)
+            throws IOException
+    {
+        PrintWriter pw = new PrintWriter(new OutputStreamWriter(outputStream, targetEncoding));
+        pw.printf("%s\t%s%n", DOCUMENT_START, documentId);
+        writeTokens(annotations, pw);
+        pw.println();
+        pw.flush();
+    }
+
+    @Override
+    public void collectionProcessComplete()
+            throws AnalysisEngineProcessException
+    {
+        try {
+            closeOutputs();
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+
+        super.collectionProcessComplete();
+    }
+
+    /**
+     * Writes the pending documents and closes the shard files; does nothing if they are
+     * already closed
+     *
+     * @throws IOException if writing any document failed
+     */
+    private void closeOutputs()
+            throws IOException
+    {
+        try {
+            if (queue != null) {
+                queue.close();
+            }
+            if (shards != null) {
+                shards.close();
+            }
+        }
+        finally {
+            queue = null;
+            if (metrics != null) {
+                metrics.removeQueue(queueDepth);
+            }
+            queueDepth = null;
+            IOUtils.closeQuietly(shards);
+            shards = null;
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        // collectionProcessComplete() is not called if the pipeline failed
+        try {
+            closeOutputs();
+        }
+        catch (IOException e) {
+            getLogger().warn("Writing the pending output failed", e);
+        }
+
+        if (metrics != null) {
+            metrics.detach();
+            metrics = null;
+        }
+
+        super.destroy();
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.columnar;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetrics;
+import org.dkpro.argumentation.io.writer.ColumnarBIOCorpusWriter;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ColumnarBIOCorpusTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JCas createDocument(String documentId, String text, int[][] sentences,
+            int[][] tokens, String[] tags)
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText(text);
+        DocumentMetaData.create(jCas).setDocumentId(documentId);
+
+        for (int[] sentence : sentences) {
+            new Sentence(jCas, sentence[0], sentence[1]).addToIndexes();
+        }
+
+        for (int i = 0; i < tokens.length; i++) {
+            BIOTokenArgumentAnnotation annotation = new BIOTokenArgumentAnnotation(jCas,
+                    tokens[i][0], tokens[i][1]);
+            annotation.setTag(tags[i]);
+            annotation.addToIndexes();
+        }
+
+        return jCas;
+    }
+
+    @Test
+    public void testRoundTrip()
+            throws Exception
+    {
+        File output = new File(folder.getRoot(), "corpus.bin");
+
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                ColumnarBIOCorpusWriter.class,
+                ColumnarBIOCorpusWriter.PARAM_OUTPUT_FILE, output);
+
+        // two sentences
+        writer.process(createDocument("doc1", "Cats purr. Dogs bark.",
+                new int[][] { { 0, 10 }, { 11, 21 } },
+                new int[][] { { 0, 4 }, { 5, 9 }, { 9, 10 }, { 11, 15 }, { 16, 20 },
+                        { 20, 21 } },
+                new String[] { "Claim-B", "Claim-I", "O", "Premise-B", "Premise-I", "O" }));
+
+        // no sentences, non-ASCII token
+        writer.process(createDocument("doc2", "Grüße", new int[0][],
+                new int[][] { { 0, 5 } }, new String[] { null }));
+
+        writer.collectionProcessComplete();
+        writer.destroy();
+
+        ColumnarBIOCorpus corpus = ColumnarBIOCorpus.open(output);
+
+        assertEquals(7, corpus.getTokenCount());
+        assertEquals(3, corpus.getSentenceCount());
+        assertEquals(2, corpus.getDocumentCount());
+        assertEquals(Arrays.asList("Claim-B", "Claim-I", "O", "Premise-B", "Premise-I"),
+                corpus.getLabelVocabulary());
+
+        assertEquals("doc1", corpus.getDocumentId(0));
+        assertEquals(0, corpus.getDocumentTokenBegin(0));
+        assertEquals(6, corpus.getDocumentTokenEnd(0));
+        assertEquals(0, corpus.getDocumentSentenceBegin(0));
+        assertEquals(2, corpus.getDocumentSentenceEnd(0));
+
+        assertEquals(3, corpus.getSentenceTokenBegin(1));
+        assertEquals(6, corpus.getSentenceTokenEnd(1));
+        assertEquals("Dogs", corpus.getTokenText(3));
+        assertEquals("Premise-B", corpus.getLabel(3));
+
+        IntBuffer labels = corpus.getLabelIds(3, 6);
+        assertEquals(3, labels.remaining());
+        assertEquals(3, labels.get(0));
+        assertEquals(4, labels.get(1));
+        assertEquals(2, labels.get(2));
+
+        assertEquals("doc2", corpus.getDocumentId(1));
+        assertEquals(2, corpus.getDocumentSentenceBegin(1));
+        assertEquals(3, corpus.getDocumentSentenceEnd(1));
+        assertEquals("Grüße", corpus.getTokenText(6));
+        assertEquals(7, corpus.getTokenBytes(6).remaining());
+        assertNull(corpus.getLabel(6));
+        assertEquals(ColumnarBIOCorpusFormat.NO_LABEL, corpus.getLabelId(6));
+    }
+
+    @Test
+    public void testAbortedCollectionLeavesNoTemporaryFiles()
+            throws Exception
+    {
+        File output = new File(folder.getRoot(), "corpus.bin");
+
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                ColumnarBIOCorpusWriter.class,
+                ColumnarBIOCorpusWriter.PARAM_OUTPUT_FILE, output);
+        writer.process(createDocument("doc1", "Cats purr.", new int[][] { { 0, 10 } },
+                new int[][] { { 0, 4 }, { 5, 9 } }, new String[] { "Claim-B", "Claim-I" }));
+
+        // no collectionProcessComplete()
+        writer.destroy();
+
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testBytesWritten()
+            throws Exception
+    {
+        File output = new File(folder.getRoot(), "corpus.bin");
+
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                ColumnarBIOCorpusWriter.class,
+                ColumnarBIOCorpusWriter.PARAM_OUTPUT_FILE, output,
+                ColumnarBIOCorpusWriter.PARAM_PIPELINE_ID, "columnarBytes");
+        writer.process(createDocument("doc1", "Cats purr.", new int[][] { { 0, 10 } },
+                new int[][] { { 0, 4 }, { 5, 9 } }, new String[] { "Claim-B", "Claim-I" }));
+        writer.process(createDocument("doc2", "Dogs bark.", new int[][] { { 0, 10 } },
+                new int[][] { { 0, 4 }, { 5, 9 } }, new String[] { "O", "O" }));
+        writer.collectionProcessComplete();
+
+        ObjectName name = ArgumentationMetrics.objectName("columnarBytes",
+                ColumnarBIOCorpusWriter.class.getSimpleName());
+        assertEquals(output.length(), ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(name, "BytesWritten"));
+        writer.destroy();
+
+        // the temporary files are deleted
+        assertArrayEquals(new String[] { "corpus.bin" }, folder.getRoot().list());
+        assertEquals("doc2", ColumnarBIOCorpus.open(output).getDocumentId(1));
+    }
+}
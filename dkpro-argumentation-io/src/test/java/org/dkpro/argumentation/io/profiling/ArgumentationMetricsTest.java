@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.profiling;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.writer.TokenTabBIOArgumentWriter;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArgumentationMetricsTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @Test
+    public void testRegisteredWhileAttached()
+            throws Exception
+    {
+        ObjectName name = ArgumentationMetrics.objectName("attach", "engine");
+
+        ArgumentationMetrics first = ArgumentationMetrics.attach("attach", "engine");
+        ArgumentationMetrics second = ArgumentationMetrics.attach("attach", "engine");
+        assertSame(first, second);
+        assertTrue(server.isRegistered(name));
+
+        first.documentProcessed(1000000);
+        second.documentProcessed(3000000);
+        second.addQueue(() -> 4);
+        assertEquals(2L, server.getAttribute(name, "DocumentsProcessed"));
+        assertEquals(4, server.getAttribute(name, "AsyncQueueDepth"));
+
+        first.detach();
+        assertTrue(server.isRegistered(name));
+        second.detach();
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testWriterBytes()
+            throws Exception
+    {
+        File target = folder.newFolder();
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                TokenTabBIOArgumentWriter.class,
+                TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION, target,
+                TokenTabBIOArgumentWriter.PARAM_PIPELINE_ID, "writerBytes");
+
+        JCas jCas = JCasFactory.createJCas();
+        for (int i = 0; i < 3; i++) {
+            jCas.reset();
+            jCas.setDocumentText("token" + i);
+            DocumentMetaData metaData = DocumentMetaData.create(jCas);
+            metaData.setDocumentId("doc" + i);
+            BIOTokenArgumentAnnotation annotation = new BIOTokenArgumentAnnotation(jCas, 0,
+                    jCas.getDocumentText().length());
+            annotation.setTag("O");
+            annotation.addToIndexes();
+            writer.process(jCas);
+        }
+        writer.collectionProcessComplete();
+
+        long length = 0;
+        for (File file : target.listFiles()) {
+            length += file.length();
+        }
+        ObjectName name = ArgumentationMetrics.objectName("writerBytes",
+                TokenTabBIOArgumentWriter.class.getSimpleName());
+        assertEquals(3L, server.getAttribute(name, "DocumentsProcessed"));
+        assertEquals(length, server.getAttribute(name, "BytesWritten"));
+
+        writer.destroy();
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testFailedDocumentCounted()
+            throws Exception
+    {
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                TokenTabBIOArgumentWriter.class,
+                TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION, folder.newFolder(),
+                TokenTabBIOArgumentWriter.PARAM_PIPELINE_ID, "failedDocument");
+
+        // no labels, which the writer rejects
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("token");
+        DocumentMetaData.create(jCas).setDocumentId("doc");
+        try {
+            writer.process(jCas);
+            fail("Expected AnalysisEngineProcessException");
+        }
+        catch (AnalysisEngineProcessException e) {
+            // expected
+        }
+
+        ObjectName name = ArgumentationMetrics.objectName("failedDocument",
+                TokenTabBIOArgumentWriter.class.getSimpleName());
+        assertEquals(1L, server.getAttribute(name, "DocumentsProcessed"));
+        writer.destroy();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.profiling;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import jdk.jfr.Recording;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.writer.ArgumentDumpWriter;
+import org.dkpro.argumentation.types.Claim;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EngineEventSummaryTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int DOCUMENTS = 5;
+
+    @Test
+    public void testWriterEvents()
+            throws Exception
+    {
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(ArgumentDumpWriter.class,
+                ArgumentDumpWriter.PARAM_OUTPUT_FILE, folder.newFile("dump.txt"));
+
+        Path file = folder.newFile("recording.jfr").toPath();
+        int tokens = 0;
+        try (Recording recording = new Recording()) {
+            recording.enable(EngineEvent.NAME);
+            recording.start();
+
+            JCas jCas = JCasFactory.createJCas();
+            for (int i = 0; i < DOCUMENTS; i++) {
+                jCas.reset();
+                StringBuilder text = new StringBuilder();
+                for (int j = 0; j <= i; j++) {
+                    new Token(jCas, text.length(), text.length() + 4).addToIndexes();
+                    text.append("word ");
+                    tokens++;
+                }
+                jCas.setDocumentText(text.toString());
+                DocumentMetaData.create(jCas).setDocumentId("doc" + i);
+                new Claim(jCas, 0, 4).addToIndexes();
+                writer.process(jCas);
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+        writer.collectionProcessComplete();
+        writer.destroy();
+
+        EngineEventSummary summary = EngineEventSummary.read(file);
+        assertEquals(1, summary.getEngines().size());
+        EngineEventSummary.EngineLatency latency = summary.getEngines().get(
+                "ArgumentDumpWriter");
+        assertEquals(DOCUMENTS, latency.getCount());
+        assertEquals(tokens, latency.getTokens());
+        assertEquals(DOCUMENTS, latency.getComponents());
+        assertTrue(latency.getPercentileNanos(0.5) <= latency.getPercentileNanos(1.0));
+        assertTrue(latency.getTotalNanos() > 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        summary.print(new PrintStream(out, true, "UTF-8"));
+        assertTrue(out.toString("UTF-8").contains("ArgumentDumpWriter"));
+    }
+
+    @Test
+    public void testNoEventsWithoutRecording()
+    {
+        assertEquals(EngineProfiler.NOOP, EngineProfiler.forEngine("engine").begin());
+    }
+}
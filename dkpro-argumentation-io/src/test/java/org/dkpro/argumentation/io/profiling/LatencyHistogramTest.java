@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.profiling;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void testBuckets()
+    {
+        Random random = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.highestValue(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestValue(index - 1));
+            // relative precision
+            assertTrue(LatencyHistogram.highestValue(index) - value <= value / 64);
+        }
+        assertEquals(Long.MAX_VALUE,
+                LatencyHistogram.highestValue(LatencyHistogram.index(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(1);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + (long) (random.nextDouble() * random.nextDouble() * 1e9);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double fraction : new double[] { 0.5, 0.9, 0.99, 0.999 }) {
+            long exact = values[(int) Math.ceil(fraction * values.length) - 1];
+            long approximate = histogram.getPercentile(fraction);
+            assertTrue(approximate >= exact);
+            assertTrue(approximate - exact <= exact / 64);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+}
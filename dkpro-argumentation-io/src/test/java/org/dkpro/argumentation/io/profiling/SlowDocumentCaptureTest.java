@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.profiling;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlowDocumentCaptureTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testKeepsSlowest()
+            throws Exception
+    {
+        File directory = folder.newFolder();
+        long[] latencies = { 5, 1, 9, 3, 7, 2, 8 };
+
+        JCas jCas = JCasFactory.createJCas();
+        try (SlowDocumentCapture capture = new SlowDocumentCapture(directory, 3, true)) {
+            for (int i = 0; i < latencies.length; i++) {
+                jCas.reset();
+                jCas.setDocumentText("word " + i);
+                DocumentMetaData.create(jCas).setDocumentId("doc" + i);
+                new Token(jCas, 0, 4).addToIndexes();
+                capture.offer(jCas, latencies[i] * 1000000);
+            }
+
+            List<SlowDocumentCapture.Document> documents = capture.getDocuments();
+            assertEquals(3, documents.size());
+            assertEquals("doc2", documents.get(0).getDocumentId());
+            assertEquals("doc6", documents.get(1).getDocumentId());
+            assertEquals("doc4", documents.get(2).getDocumentId());
+            assertEquals(1, documents.get(0).getTokens());
+            assertEquals(6, documents.get(0).getCharacters());
+            for (SlowDocumentCapture.Document document : documents) {
+                assertTrue(document.getCasFile().isFile());
+            }
+
+            // a faster document is rejected
+            assertFalse(capture.offer(jCas, 1000000));
+        }
+
+        // only the CASes of the slowest documents are kept
+        assertEquals(4, directory.listFiles().length);
+        List<String> lines = Files.readAllLines(
+                new File(directory, SlowDocumentCapture.SUMMARY_FILE).toPath(),
+                StandardCharsets.UTF_8);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).startsWith("doc2\t9.000\t6\t1\t0\tslow-"));
+    }
+}
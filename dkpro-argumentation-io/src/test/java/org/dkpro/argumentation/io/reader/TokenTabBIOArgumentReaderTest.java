@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.reader;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.CollectionReaderFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.pipeline.JCasIterable;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.writer.TokenTabBIOArgumentWriter;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TokenTabBIOArgumentReaderTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCreateDocument()
+            throws Exception
+    {
+        File input = folder.newFolder("input");
+        FileUtils.writeStringToFile(new File(input, "doc.txt"),
+                "Cats\tClaim-B\r\npurr\tClaim-I\n\nDogs\tO\nbark\tnull\n", "UTF-8");
+
+        int count = 0;
+        for (JCas jCas : new JCasIterable(CollectionReaderFactory.createReaderDescription(
+                TokenTabBIOArgumentReader.class,
+                TokenTabBIOArgumentReader.PARAM_SOURCE_LOCATION, input,
+                TokenTabBIOArgumentReader.PARAM_PATTERNS, "*.txt"))) {
+            assertEquals("Cats purr\nDogs bark", jCas.getDocumentText());
+
+            List<Sentence> sentences = new ArrayList<>(JCasUtil.select(jCas, Sentence.class));
+            assertEquals(2, sentences.size());
+            assertEquals("Cats purr", sentences.get(0).getCoveredText());
+            assertEquals("Dogs bark", sentences.get(1).getCoveredText());
+
+            assertEquals(4, JCasUtil.select(jCas, Token.class).size());
+
+            List<BIOTokenArgumentAnnotation> tags = new ArrayList<>(
+                    JCasUtil.select(jCas, BIOTokenArgumentAnnotation.class));
+            assertEquals(4, tags.size());
+            assertEquals("Claim-B", tags.get(0).getTag());
+            assertEquals("purr", tags.get(1).getCoveredText());
+            assertEquals("Claim-I", tags.get(1).getTag());
+            assertEquals("O", tags.get(2).getTag());
+            assertNull(tags.get(3).getTag());
+
+            count++;
+        }
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void testAlignToReference()
+            throws Exception
+    {
+        File input = folder.newFolder("input");
+        File reference = folder.newFolder("reference");
+
+        JCas original = JCasFactory.createJCas();
+        original.setDocumentText("Cats  purr.");
+        DocumentMetaData.create(original).setDocumentId("doc");
+        new Token(original, 0, 4).addToIndexes();
+        new Token(original, 6, 10).addToIndexes();
+        new Token(original, 10, 11).addToIndexes();
+        try (OutputStream os = new FileOutputStream(new File(reference, "doc.xmi"))) {
+            XmiCasSerializer.serialize(original.getCas(), os);
+        }
+
+        FileUtils.writeStringToFile(new File(input, "doc.xmi.txt"),
+                "Cats\tPremise-B\npurr\tPremise-I\n.\tO\n", "UTF-8");
+
+        int count = 0;
+        for (JCas jCas : new JCasIterable(CollectionReaderFactory.createReaderDescription(
+                TokenTabBIOArgumentReader.class,
+                TokenTabBIOArgumentReader.PARAM_SOURCE_LOCATION, input,
+                TokenTabBIOArgumentReader.PARAM_PATTERNS, "*.txt",
+                TokenTabBIOArgumentReader.PARAM_REFERENCE_LOCATION, reference))) {
+            assertEquals("Cats  purr.", jCas.getDocumentText());
+            assertEquals(3, JCasUtil.select(jCas, Token.class).size());
+
+            List<BIOTokenArgumentAnnotation> tags = new ArrayList<>(
+                    JCasUtil.select(jCas, BIOTokenArgumentAnnotation.class));
+            assertEquals(3, tags.size());
+            assertEquals(6, tags.get(1).getBegin());
+            assertEquals("Premise-I", tags.get(1).getTag());
+            assertEquals(".", tags.get(2).getCoveredText());
+            count++;
+        }
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void testReadShards()
+            throws Exception
+    {
+        File shards = folder.newFolder("shards");
+
+        // more shards than documents, so at least one shard file is empty
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                TokenTabBIOArgumentWriter.class,
+                TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION, shards,
+                TokenTabBIOArgumentWriter.PARAM_SHARD_COUNT, 4);
+        JCas jCas = JCasFactory.createJCas();
+        for (int i = 0; i < 3; i++) {
+            jCas.reset();
+            jCas.setDocumentText("Cats purr " + i + ". Dogs bark.");
+            DocumentMetaData.create(jCas).setDocumentId("doc" + i);
+            int[][] tokens = { { 0, 4 }, { 5, 9 }, { 10, 11 }, { 11, 12 }, { 13, 17 },
+                    { 18, 22 }, { 22, 23 } };
+            for (int[] token : tokens) {
+                new Token(jCas, token[0], token[1]).addToIndexes();
+                BIOTokenArgumentAnnotation tag = new BIOTokenArgumentAnnotation(jCas, token[0],
+                        token[1]);
+                tag.setTag(token[0] == 0 ? "Claim-B" : "O");
+                tag.addToIndexes();
+            }
+            writer.process(jCas);
+        }
+        writer.collectionProcessComplete();
+        writer.destroy();
+
+        Set<String> ids = new HashSet<>();
+        Set<String> uris = new HashSet<>();
+        for (JCas document : new JCasIterable(CollectionReaderFactory.createReaderDescription(
+                TokenTabBIOArgumentReader.class,
+                TokenTabBIOArgumentReader.PARAM_SOURCE_LOCATION, shards,
+                TokenTabBIOArgumentReader.PARAM_PATTERNS, "shard-*.txt"))) {
+            DocumentMetaData metaData = DocumentMetaData.get(document);
+            String id = metaData.getDocumentId();
+            assertTrue(ids.add(id));
+            uris.add(metaData.getDocumentUri());
+
+            assertEquals("Cats purr " + id.substring(3) + " . Dogs bark .",
+                    document.getDocumentText());
+            assertEquals(7, JCasUtil.select(document, Token.class).size());
+            List<BIOTokenArgumentAnnotation> tags = new ArrayList<>(
+                    JCasUtil.select(document, BIOTokenArgumentAnnotation.class));
+            assertEquals(7, tags.size());
+            assertEquals("Claim-B", tags.get(0).getTag());
+            assertFalse(TokenTabBIOArgumentWriter.DOCUMENT_START.equals(
+                    tags.get(0).getCoveredText()));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("doc0", "doc1", "doc2")), ids);
+        assertEquals(3, uris.size());
+    }
+
+    @Test
+    public void testRoundTripNonAscii()
+            throws Exception
+    {
+        File output = folder.newFolder("output");
+
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                TokenTabBIOArgumentWriter.class,
+                TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION, output);
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("Käse schmeckt €");
+        DocumentMetaData.create(jCas).setDocumentId("doc");
+        int[][] tokens = { { 0, 4 }, { 5, 13 }, { 14, 15 } };
+        for (int[] token : tokens) {
+            BIOTokenArgumentAnnotation tag = new BIOTokenArgumentAnnotation(jCas, token[0],
+                    token[1]);
+            tag.setTag("O");
+            tag.addToIndexes();
+        }
+        writer.process(jCas);
+        writer.collectionProcessComplete();
+        writer.destroy();
+
+        // the writer and the reader both default to UTF-8, regardless of the platform
+        File[] files = output.listFiles();
+        assertEquals(1, files.length);
+        assertTrue(FileUtils.readFileToString(files[0], "UTF-8").startsWith("Käse\tO"));
+
+        int count = 0;
+        for (JCas document : new JCasIterable(CollectionReaderFactory.createReaderDescription(
+                TokenTabBIOArgumentReader.class,
+                TokenTabBIOArgumentReader.PARAM_SOURCE_LOCATION, output,
+                TokenTabBIOArgumentReader.PARAM_PATTERNS, "*.txt"))) {
+            assertEquals("Käse schmeckt €", document.getDocumentText());
+            count++;
+        }
+        assertEquals(1, count);
+    }
+}
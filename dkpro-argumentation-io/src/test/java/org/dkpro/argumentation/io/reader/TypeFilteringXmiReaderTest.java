@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.io.reader;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.fit.descriptor.TypeCapability;
+import org.apache.uima.fit.factory.CollectionReaderFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.pipeline.JCasIterable;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TypeFilteringXmiReaderTest
+{
+    @TypeCapability(inputs = {
+            "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token",
+            "org.dkpro.argumentation.types.ArgumentComponent"
+    })
+    public static class TokenComponentConsumer
+    {
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeDocument()
+            throws Exception
+    {
+        File input = folder.newFolder("input");
+
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("Cats purr. Dogs bark.");
+        DocumentMetaData.create(jCas).setDocumentId("doc");
+        new Sentence(jCas, 0, 10).addToIndexes();
+        new Sentence(jCas, 11, 21).addToIndexes();
+        new Token(jCas, 0, 4).addToIndexes();
+        new Token(jCas, 5, 9).addToIndexes();
+        Claim claim = new Claim(jCas, 0, 10);
+        claim.addToIndexes();
+        Premise premise = new Premise(jCas, 11, 21);
+        premise.addToIndexes();
+        Support support = new Support(jCas);
+        support.setSource(premise);
+        support.setTarget(claim);
+        support.addToIndexes();
+
+        try (OutputStream os = new FileOutputStream(new File(input, "doc.xmi"))) {
+            XmiCasSerializer.serialize(jCas.getCas(), os);
+        }
+        return input;
+    }
+
+    @Test
+    public void testTypeCapabilityClasses()
+            throws Exception
+    {
+        File input = writeDocument();
+
+        int count = 0;
+        for (JCas jCas : new JCasIterable(CollectionReaderFactory.createReaderDescription(
+                TypeFilteringXmiReader.class,
+                TypeFilteringXmiReader.PARAM_SOURCE_LOCATION, input,
+                TypeFilteringXmiReader.PARAM_PATTERNS, "*.xmi",
+                TypeFilteringXmiReader.PARAM_TYPE_CAPABILITY_CLASSES,
+                TokenComponentConsumer.class.getName()))) {
+            assertEquals("Cats purr. Dogs bark.", jCas.getDocumentText());
+            assertEquals(2, JCasUtil.select(jCas, Token.class).size());
+            assertEquals(0, JCasUtil.select(jCas, Sentence.class).size());
+            assertEquals(2, JCasUtil.select(jCas, ArgumentComponent.class).size());
+            assertEquals(0, JCasUtil.select(jCas, ArgumentRelation.class).size());
+            assertEquals("doc", DocumentMetaData.get(jCas).getDocumentId());
+            count++;
+        }
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void testDanglingReferences()
+            throws Exception
+    {
+        File input = writeDocument();
+
+        for (JCas jCas : new JCasIterable(CollectionReaderFactory.createReaderDescription(
+                TypeFilteringXmiReader.class,
+                TypeFilteringXmiReader.PARAM_SOURCE_LOCATION, input,
+                TypeFilteringXmiReader.PARAM_PATTERNS, "*.xmi",
+                TypeFilteringXmiReader.PARAM_TYPES, new String[] {
+                        Sentence.class.getName(), Claim.class.getName(),
+                        ArgumentRelation.class.getName() }))) {
+            assertEquals(2, JCasUtil.select(jCas, Sentence.class).size());
+            assertEquals(0, JCasUtil.select(jCas, Token.class).size());
+            assertEquals(1, JCasUtil.select(jCas, ArgumentComponent.class).size());
+
+            ArgumentRelation relation = JCasUtil.selectSingle(jCas, ArgumentRelation.class);
+            assertEquals(Claim.class, relation.getTarget().getClass());
+            assertNull(relation.getSource());
+        }
+    }
+}
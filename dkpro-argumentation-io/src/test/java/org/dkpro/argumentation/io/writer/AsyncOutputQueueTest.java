@@ -0,0 +1,338 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.writer;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+import org.dkpro.argumentation.types.Claim;
+import org.dkpro.argumentation.types.Premise;
+import org.dkpro.argumentation.types.Support;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class AsyncOutputQueueTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int DOCUMENTS = 30;
+
+    private static void createDocument(JCas jCas, int i)
+    {
+        jCas.reset();
+        jCas.setDocumentText("We should act " + i + ". Because it helps.");
+        DocumentMetaData.create(jCas).setDocumentId("doc" + i);
+
+        Claim claim = new Claim(jCas, 0, 15);
+        claim.addToIndexes();
+        Premise premise = new Premise(jCas, 17, jCas.getDocumentText().length());
+        premise.addToIndexes();
+        Support support = new Support(jCas, premise.getBegin(), premise.getEnd());
+        support.setSource(premise);
+        support.setTarget(claim);
+        support.addToIndexes();
+
+        String[] tags = { "Claim-B", "Claim-I", "Claim-I", "Claim-I", "Premise-B", "Premise-I",
+                "Premise-I" };
+        String text = jCas.getDocumentText();
+        int begin = 0;
+        for (String tag : tags) {
+            while (text.charAt(begin) == ' ') {
+                begin++;
+            }
+            int end = begin;
+            while (end < text.length() && text.charAt(end) != ' ') {
+                end++;
+            }
+            BIOTokenArgumentAnnotation token = new BIOTokenArgumentAnnotation(jCas, begin, end);
+            token.setTag(tag);
+            token.addToIndexes();
+            begin = end;
+        }
+    }
+
+    private static void processDocuments(AnalysisEngine writer, boolean complete)
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            createDocument(jCas, i);
+            writer.process(jCas);
+        }
+        if (complete) {
+            writer.collectionProcessComplete();
+        }
+        writer.destroy();
+    }
+
+    private static AnalysisEngine createDumpWriter(File output, boolean async)
+            throws Exception
+    {
+        return AnalysisEngineFactory.createEngine(ArgumentDumpWriter.class,
+                ArgumentDumpWriter.PARAM_OUTPUT_FILE, output,
+                ArgumentDumpWriter.PARAM_ASYNC, async,
+                ArgumentDumpWriter.PARAM_ASYNC_QUEUE_SIZE, 1);
+    }
+
+    @Test
+    public void testDumpWriterAsyncOutputIsIdentical()
+            throws Exception
+    {
+        File sync = new File(folder.getRoot(), "sync.txt");
+        File async = new File(folder.getRoot(), "async.txt");
+        processDocuments(createDumpWriter(sync, false), true);
+        processDocuments(createDumpWriter(async, true), true);
+
+        assertTrue(sync.length() > 0);
+        assertArrayEquals(FileUtils.readFileToByteArray(sync),
+                FileUtils.readFileToByteArray(async));
+    }
+
+    @Test
+    public void testTokenTabAsyncOutputIsIdentical()
+            throws Exception
+    {
+        File sync = folder.newFolder("sync");
+        File async = folder.newFolder("async");
+        for (File target : new File[] { sync, async }) {
+            processDocuments(AnalysisEngineFactory.createEngine(
+                    TokenTabBIOArgumentWriter.class,
+                    TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION, target,
+                    TokenTabBIOArgumentWriter.PARAM_ASYNC, target == async,
+                    TokenTabBIOArgumentWriter.PARAM_ASYNC_QUEUE_SIZE, 1), true);
+        }
+
+        String[] files = sync.list();
+        assertEquals(DOCUMENTS, files.length);
+        for (String file : files) {
+            assertArrayEquals(file, FileUtils.readFileToByteArray(new File(sync, file)),
+                    FileUtils.readFileToByteArray(new File(async, file)));
+        }
+    }
+
+    @Test
+    public void testDestroyWritesPendingOutput()
+            throws Exception
+    {
+        File sync = new File(folder.getRoot(), "sync.txt");
+        File async = new File(folder.getRoot(), "async.txt");
+        processDocuments(createDumpWriter(sync, false), true);
+        // aborted pipeline, collectionProcessComplete() is not called
+        processDocuments(createDumpWriter(async, true), false);
+
+        assertArrayEquals(FileUtils.readFileToByteArray(sync),
+                FileUtils.readFileToByteArray(async));
+    }
+
+    @Test(expected = AnalysisEngineProcessException.class)
+    public void testWriteErrorSurfacesInCollectionProcessComplete()
+            throws Exception
+    {
+        File full = new File("/dev/full");
+        Assume.assumeTrue(full.exists());
+
+        AnalysisEngine writer = createDumpWriter(full, true);
+        try {
+            JCas jCas = JCasFactory.createJCas();
+            createDocument(jCas, 0);
+            writer.process(jCas);
+            writer.collectionProcessComplete();
+        }
+        finally {
+            writer.destroy();
+        }
+    }
+
+    @Test
+    public void testBackpressure()
+            throws Exception
+    {
+        CountDownLatch unblock = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream slow = new OutputStream()
+        {
+            @Override
+            public void write(int b)
+                    throws IOException
+            {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len)
+                    throws IOException
+            {
+                try {
+                    unblock.await();
+                }
+                catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                written.write(b, off, len);
+            }
+        };
+
+        AsyncOutputQueue queue = new AsyncOutputQueue("test-io", 1);
+        submit(queue, slow, "a");
+        // the I/O thread takes the first document and blocks in write
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queue.getDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        submit(queue, slow, "b");
+        assertEquals(1, queue.getDepth());
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                submit(queue, slow, "c");
+            }
+            catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue("submit must block while the queue is full", producer.isAlive());
+
+        unblock.countDown();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertNull(failure.get());
+
+        queue.close();
+        assertEquals("abc", written.toString("UTF-8"));
+    }
+
+    @Test
+    public void testWriteErrorSurfacesInLaterCall()
+            throws Exception
+    {
+        OutputStream failing = new OutputStream()
+        {
+            @Override
+            public void write(int b)
+                    throws IOException
+            {
+                throw new IOException("disk full");
+            }
+        };
+
+        AsyncOutputQueue queue = new AsyncOutputQueue("test-io", 1);
+        submit(queue, failing, "a");
+
+        IOException error = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (error == null && System.nanoTime() < deadline) {
+            try {
+                queue.release(queue.acquire());
+                Thread.sleep(1);
+            }
+            catch (IOException e) {
+                error = e;
+            }
+        }
+        assertNotNull(error);
+        assertTrue(error.getMessage().contains("disk full"));
+
+        try {
+            queue.close();
+            fail("close must rethrow the write error");
+        }
+        catch (IOException e) {
+            assertSame(error.getCause(), e.getCause());
+        }
+    }
+
+    @Test
+    public void testOversizedBufferIsNotPooled()
+            throws Exception
+    {
+        AsyncOutputQueue queue = new AsyncOutputQueue("test-io", 1);
+        AsyncOutputQueue.OutputBuffer buffer = queue.acquire();
+        buffer.write(new byte[AsyncOutputQueue.MAX_POOLED_CAPACITY + 1]);
+        queue.release(buffer);
+
+        // all buffers of the pool
+        for (int i = 0; i < 3; i++) {
+            AsyncOutputQueue.OutputBuffer pooled = queue.acquire();
+            assertNotSame(buffer, pooled);
+            assertTrue(pooled.capacity() <= AsyncOutputQueue.MAX_POOLED_CAPACITY);
+        }
+        queue.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testStoppedThreadDoesNotBlock()
+            throws Exception
+    {
+        AsyncOutputQueue queue = new AsyncOutputQueue("test-io-stopped", 1);
+        Thread thread = null;
+        for (Thread candidate : Thread.getAllStackTraces().keySet()) {
+            if (candidate.getName().equals("test-io-stopped")) {
+                thread = candidate;
+            }
+        }
+        assertNotNull(thread);
+        thread.interrupt();
+        thread.join();
+
+        try {
+            submit(queue, new ByteArrayOutputStream(), "a");
+            fail("submit must fail once the I/O thread has stopped");
+        }
+        catch (IOException e) {
+            // expected
+        }
+        try {
+            queue.close();
+            fail("close must rethrow the failure of the I/O thread");
+        }
+        catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static void submit(AsyncOutputQueue queue, OutputStream target, String content)
+            throws IOException
+    {
+        AsyncOutputQueue.OutputBuffer buffer = queue.acquire();
+        buffer.write(content.getBytes(StandardCharsets.UTF_8));
+        queue.submit(buffer, target, false);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.io.writer;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShardedOutputTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int DOCUMENTS = 20;
+
+    private static final int SHARDS = 3;
+
+    private static final String EOL = System.lineSeparator();
+
+    private void runWriter(AnalysisEngine writer)
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            jCas.reset();
+            jCas.setDocumentText("token" + i);
+            DocumentMetaData metaData = DocumentMetaData.create(jCas);
+            metaData.setDocumentId("doc" + i);
+            BIOTokenArgumentAnnotation annotation = new BIOTokenArgumentAnnotation(jCas, 0,
+                    jCas.getDocumentText().length());
+            annotation.setTag("O");
+            annotation.addToIndexes();
+            writer.process(jCas);
+        }
+        writer.collectionProcessComplete();
+        writer.destroy();
+    }
+
+    private void runTokenTabWriter(File target, boolean async)
+            throws Exception
+    {
+        runWriter(AnalysisEngineFactory.createEngine(
+                TokenTabBIOArgumentWriter.class,
+                TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION, target,
+                TokenTabBIOArgumentWriter.PARAM_SHARD_COUNT, SHARDS,
+                TokenTabBIOArgumentWriter.PARAM_ASYNC, async));
+    }
+
+    private void runDumpWriter(File target, boolean async)
+            throws Exception
+    {
+        runWriter(AnalysisEngineFactory.createEngine(
+                ArgumentDumpWriter.class,
+                ArgumentDumpWriter.PARAM_OUTPUT_FILE, new File(target, "dump.txt"),
+                ArgumentDumpWriter.PARAM_SHARD_COUNT, SHARDS,
+                ArgumentDumpWriter.PARAM_ASYNC, async));
+    }
+
+    /**
+     * Checks that the manifest lists all shard files in order and returns the document count
+     * of each
+     */
+    private int[] assertManifest(File target, String prefix, String extension)
+            throws Exception
+    {
+        List<String> manifest = FileUtils.readLines(
+                new File(target, prefix + ShardedOutput.MANIFEST_SUFFIX), "UTF-8");
+        assertEquals(SHARDS, manifest.size());
+
+        int[] counts = new int[SHARDS];
+        int total = 0;
+        for (int i = 0; i < SHARDS; i++) {
+            String[] fields = manifest.get(i).split("\t");
+            assertEquals(2, fields.length);
+            assertEquals(String.format("%s-%05d%s", prefix, i, extension), fields[0]);
+            assertTrue(new File(target, fields[0]).isFile());
+            counts[i] = Integer.parseInt(fields[1]);
+            total += counts[i];
+        }
+        assertEquals(DOCUMENTS, total);
+        return counts;
+    }
+
+    private void assertTokenTabShards(File target)
+            throws Exception
+    {
+        int[] counts = assertManifest(target, "shard", ".txt");
+
+        for (int i = 0; i < SHARDS; i++) {
+            String content = FileUtils.readFileToString(
+                    new File(target, String.format("shard-%05d.txt", i)), "UTF-8");
+            assertEquals(counts[i], content.split(TokenTabBIOArgumentWriter.DOCUMENT_START,
+                    -1).length - 1);
+
+            for (String document : content.split(EOL + EOL)) {
+                if (!document.isEmpty()) {
+                    assertTrue(document.startsWith(TokenTabBIOArgumentWriter.DOCUMENT_START));
+                    String id = document.substring(document.indexOf('\t') + 1,
+                            document.indexOf(EOL));
+                    assertEquals(i, ShardedOutput.shardOf(id, SHARDS));
+                    assertTrue(document.endsWith("token" + id.substring(3) + "\tO"));
+                }
+            }
+        }
+    }
+
+    private void assertDumpShards(File target)
+            throws Exception
+    {
+        int[] counts = assertManifest(target, "dump", ".txt");
+
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < SHARDS; i++) {
+            List<String> lines = FileUtils.readLines(
+                    new File(target, String.format("dump-%05d.txt", i)), "UTF-8");
+
+            int count = 0;
+            for (String line : lines) {
+                if (line.startsWith("======== #") && line.contains(" begin ")) {
+                    String id = line.substring("======== #".length(), line.indexOf(" begin "));
+                    assertEquals(i, ShardedOutput.shardOf(id, SHARDS));
+                    assertTrue(ids.add(id));
+                    count++;
+                }
+            }
+            assertEquals(counts[i], count);
+        }
+        assertEquals(DOCUMENTS, ids.size());
+    }
+
+    @Test
+    public void testShardedTokenTab()
+            throws Exception
+    {
+        File target = folder.newFolder("sync");
+        runTokenTabWriter(target, false);
+        assertTokenTabShards(target);
+    }
+
+    @Test
+    public void testShardedTokenTabAsync()
+            throws Exception
+    {
+        File target = folder.newFolder("async");
+        runTokenTabWriter(target, true);
+        assertTokenTabShards(target);
+    }
+
+    @Test
+    public void testShardedDump()
+            throws Exception
+    {
+        File target = folder.newFolder("dump");
+        runDumpWriter(target, false);
+        assertDumpShards(target);
+    }
+
+    @Test
+    public void testShardedDumpAsync()
+            throws Exception
+    {
+        File target = folder.newFolder("dumpAsync");
+        runDumpWriter(target, true);
+        assertDumpShards(target);
+    }
+
+    @Test
+    public void testOnlyWrittenDocumentsAreCounted()
+            throws Exception
+    {
+        File target = folder.newFolder();
+        try (ShardedOutput output = new ShardedOutput(target, "shard", ".txt", 1)) {
+            output.route("doc0");
+            // the write of doc0 failed
+            output.documentWritten(output.route("doc1"));
+        }
+
+        assertEquals(Collections.singletonList("shard-00000.txt\t1"), FileUtils.readLines(
+                new File(target, "shard" + ShardedOutput.MANIFEST_SUFFIX), "UTF-8"));
+    }
+
+    @Test
+    public void testDocumentWithoutIdIsRejected()
+            throws Exception
+    {
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                TokenTabBIOArgumentWriter.class,
+                TokenTabBIOArgumentWriter.PARAM_TARGET_LOCATION, folder.newFolder(),
+                TokenTabBIOArgumentWriter.PARAM_SHARD_COUNT, SHARDS);
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("token");
+        DocumentMetaData.create(jCas);
+        new BIOTokenArgumentAnnotation(jCas, 0, 5).addToIndexes();
+        try {
+            writer.process(jCas);
+            fail("Expected AnalysisEngineProcessException");
+        }
+        catch (AnalysisEngineProcessException e) {
+            // expected
+        }
+        finally {
+            writer.destroy();
+        }
+    }
+}
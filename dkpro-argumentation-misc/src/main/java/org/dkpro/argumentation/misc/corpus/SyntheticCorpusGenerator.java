@@ -0,0 +1,426 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dkpro.argumentation.misc.corpus;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Paragraph;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.UIMAException;
+import org.apache.uima.cas.impl.Serialization;
+import org.apache.uima.cas.impl.XmiCasSerializer;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.*;
+import org.xml.sax.SAXException;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates synthetic documents of configurable size for scale and load testing. The same
+ * seed and document index always give the same document.
+ * <p>
+ * A document consists of {@link Paragraph}s of {@link Sentence}s of {@link Token}s, argument
+ * components of all {@link ArgumentComponent} subtypes (some of them spanning two sentences and
+ * thus overlapping the components of the next sentence, some nested in another component, some
+ * implicit or marked as appeal to emotion), {@link Support} and {@link Attack} relations
+ * between them, {@link DocumentMetaData} and {@link WebArgumentMetadata}.
+ * </p>
+ * <pre>
+ * new SyntheticCorpusGenerator(42).setSentencesPerDocument(10000)
+ *         .writeCorpus(new File("corpus"), 100, SyntheticCorpusGenerator.Format.XMI);
+ * </pre>
+ */
+public class SyntheticCorpusGenerator
+{
+    /**
+     * Output format of {@link #writeCorpus(File, int, Format)}
+     */
+    public enum Format
+    {
+        /**
+         * XMI, readable by the DKPro XmiReader
+         */
+        XMI(".xmi"),
+        /**
+         * UIMA compressed binary form 4, readable by the DKPro BinaryCasReader; requires the
+         * same type system when reading
+         */
+        BINARY(".bin");
+
+        private final String extension;
+
+        Format(String extension)
+        {
+            this.extension = extension;
+        }
+
+        public String getExtension()
+        {
+            return extension;
+        }
+    }
+
+    private static final String[] WORDS = { "the", "a", "we", "it", "should", "not", "is",
+            "because", "people", "law", "school", "children", "argue", "that", "more", "less",
+            "important", "students", "government", "public", "money", "health", "reason" };
+
+    private final long seed;
+
+    private int sentencesPerDocument = 100;
+
+    private int minSentenceLength = 5;
+
+    private int maxSentenceLength = 30;
+
+    private int sentencesPerParagraph = 5;
+
+    private double componentDensity = 0.5;
+
+    private double crossSentenceProbability = 0.1;
+
+    private double nestingProbability = 0.1;
+
+    private double implicitProbability = 0.02;
+
+    private double appealToEmotionProbability = 0.05;
+
+    private double relationProbability = 0.5;
+
+    /**
+     * @param seed random seed
+     */
+    public SyntheticCorpusGenerator(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * @param sentencesPerDocument number of sentences of each document; default 100
+     * @return this
+     */
+    public SyntheticCorpusGenerator setSentencesPerDocument(int sentencesPerDocument)
+    {
+        this.sentencesPerDocument = sentencesPerDocument;
+        return this;
+    }
+
+    /**
+     * @param min minimal number of tokens of a sentence, including the full stop; default 5
+     * @param max maximal number of tokens of a sentence; default 30
+     * @return this
+     */
+    public SyntheticCorpusGenerator setSentenceLength(int min, int max)
+    {
+        if (min < 3 || max < min) {
+            throw new IllegalArgumentException(
+                    "Sentence length must be at least 3 tokens, was " + min + "-" + max);
+        }
+        this.minSentenceLength = min;
+        this.maxSentenceLength = max;
+        return this;
+    }
+
+    /**
+     * @param sentencesPerParagraph number of sentences of a paragraph; default 5
+     * @return this
+     */
+    public SyntheticCorpusGenerator setSentencesPerParagraph(int sentencesPerParagraph)
+    {
+        this.sentencesPerParagraph = sentencesPerParagraph;
+        return this;
+    }
+
+    /**
+     * @param componentDensity probability that a sentence contains a component; default 0.5
+     * @return this
+     */
+    public SyntheticCorpusGenerator setComponentDensity(double componentDensity)
+    {
+        this.componentDensity = componentDensity;
+        return this;
+    }
+
+    /**
+     * @param crossSentenceProbability probability that a component continues into the next
+     *                                 sentence, overlapping its component; default 0.1
+     * @return this
+     */
+    public SyntheticCorpusGenerator setCrossSentenceProbability(double crossSentenceProbability)
+    {
+        this.crossSentenceProbability = crossSentenceProbability;
+        return this;
+    }
+
+    /**
+     * @param nestingProbability probability that a component contains a nested premise;
+     *                           default 0.1
+     * @return this
+     */
+    public SyntheticCorpusGenerator setNestingProbability(double nestingProbability)
+    {
+        this.nestingProbability = nestingProbability;
+        return this;
+    }
+
+    /**
+     * @param implicitProbability probability that a sentence contains an implicit (zero-length)
+     *                            component; default 0.02
+     * @return this
+     */
+    public SyntheticCorpusGenerator setImplicitProbability(double implicitProbability)
+    {
+        this.implicitProbability = implicitProbability;
+        return this;
+    }
+
+    /**
+     * @param appealToEmotionProbability probability that a component is marked as appeal to
+     *                                   emotion; default 0.05
+     * @return this
+     */
+    public SyntheticCorpusGenerator setAppealToEmotionProbability(
+            double appealToEmotionProbability)
+    {
+        this.appealToEmotionProbability = appealToEmotionProbability;
+        return this;
+    }
+
+    /**
+     * @param relationProbability probability that a component supports or attacks one of the
+     *                            preceding components; default 0.5
+     * @return this
+     */
+    public SyntheticCorpusGenerator setRelationProbability(double relationProbability)
+    {
+        this.relationProbability = relationProbability;
+        return this;
+    }
+
+    /**
+     * Creates a new CAS with the given document
+     *
+     * @param documentIndex document index
+     * @return document
+     * @throws UIMAException if the CAS cannot be created
+     */
+    public JCas generate(int documentIndex)
+            throws UIMAException
+    {
+        JCas jCas = JCasFactory.createJCas();
+        generate(jCas, documentIndex);
+        return jCas;
+    }
+
+    /**
+     * Fills the empty (e.g. reset) CAS with the given document
+     *
+     * @param jCas          empty CAS
+     * @param documentIndex document index
+     */
+    public void generate(JCas jCas, int documentIndex)
+    {
+        Random random = new Random(seed * 31 + documentIndex);
+
+        // text, tokens, sentences and paragraphs; token offsets are kept per sentence for the
+        // component spans
+        StringBuilder text = new StringBuilder();
+        int[][] tokenBegins = new int[sentencesPerDocument][];
+        int[][] tokenEnds = new int[sentencesPerDocument][];
+        int paragraphBegin = 0;
+
+        for (int s = 0; s < sentencesPerDocument; s++) {
+            if (s > 0) {
+                text.append(s % sentencesPerParagraph == 0 ? "\n\n" : " ");
+            }
+            if (s % sentencesPerParagraph == 0) {
+                paragraphBegin = text.length();
+            }
+
+            int length = minSentenceLength + random.nextInt(
+                    maxSentenceLength - minSentenceLength + 1);
+            tokenBegins[s] = new int[length];
+            tokenEnds[s] = new int[length];
+
+            for (int t = 0; t < length; t++) {
+                if (t > 0) {
+                    text.append(' ');
+                }
+                tokenBegins[s][t] = text.length();
+                if (t == length - 1) {
+                    text.append('.');
+                }
+                else {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    text.append(t == 0 ? Character.toUpperCase(word.charAt(0)) + word
+                            .substring(1) : word);
+                }
+                tokenEnds[s][t] = text.length();
+                new Token(jCas, tokenBegins[s][t], tokenEnds[s][t]).addToIndexes();
+            }
+            new Sentence(jCas, tokenBegins[s][0], tokenEnds[s][length - 1]).addToIndexes();
+
+            if ((s + 1) % sentencesPerParagraph == 0 || s == sentencesPerDocument - 1) {
+                new Paragraph(jCas, paragraphBegin, text.length()).addToIndexes();
+            }
+        }
+
+        jCas.setDocumentText(text.toString());
+        jCas.setDocumentLanguage("en");
+
+        String documentId = String.format("doc-%05d", documentIndex);
+        DocumentMetaData metaData = DocumentMetaData.create(jCas);
+        metaData.setDocumentId(documentId);
+        metaData.setDocumentTitle(documentId);
+
+        WebArgumentMetadata webMetadata = new WebArgumentMetadata(jCas);
+        webMetadata.setAuthor("author" + random.nextInt(100));
+        webMetadata.setTopic("topic" + random.nextInt(10));
+        webMetadata.setDocType(random.nextBoolean() ? "comment" : "forumPost");
+        webMetadata.setOrigId(documentIndex);
+        webMetadata.setTitle(documentId);
+        webMetadata.setThumbsUp(random.nextInt(50));
+        webMetadata.setThumbsDown(random.nextInt(50));
+        webMetadata.addToIndexes();
+
+        // components and relations
+        List<ArgumentComponent> recent = new ArrayList<>();
+        for (int s = 0; s < sentencesPerDocument; s++) {
+            int length = tokenBegins[s].length;
+
+            if (random.nextDouble() < implicitProbability) {
+                ArgumentComponent implicit = createComponent(jCas, random);
+                implicit.setBegin(tokenBegins[s][0]);
+                implicit.setEnd(tokenBegins[s][0]);
+                implicit.addToIndexes();
+                ArgumentUnitUtils.setIsImplicit(implicit, true);
+            }
+
+            if (random.nextDouble() >= componentDensity) {
+                continue;
+            }
+
+            // without the full stop
+            int first = random.nextInt((length - 1) / 2);
+            int last = first + random.nextInt(length - 1 - first);
+            int end = tokenEnds[s][last];
+            if (s + 1 < sentencesPerDocument
+                    && random.nextDouble() < crossSentenceProbability) {
+                int[] nextEnds = tokenEnds[s + 1];
+                end = nextEnds[random.nextInt(nextEnds.length)];
+            }
+
+            ArgumentComponent component = createComponent(jCas, random);
+            component.setBegin(tokenBegins[s][first]);
+            component.setEnd(end);
+            component.addToIndexes();
+            if (random.nextDouble() < appealToEmotionProbability) {
+                ArgumentUnitUtils.setProperty(component,
+                        ArgumentUnitUtils.PROP_KEY_IS_APPEAL_TO_EMOTION, "true");
+            }
+
+            if (last > first && random.nextDouble() < nestingProbability) {
+                int nestedFirst = first + 1 + random.nextInt(last - first);
+                Premise nested = new Premise(jCas, tokenBegins[s][nestedFirst],
+                        tokenEnds[s][last]);
+                nested.addToIndexes();
+            }
+
+            if (!recent.isEmpty() && random.nextDouble() < relationProbability) {
+                ArgumentComponent target = recent.get(random.nextInt(recent.size()));
+                ArgumentRelation relation = random.nextInt(4) == 0 ?
+                        new Attack(jCas, component.getBegin(), component.getEnd()) :
+                        new Support(jCas, component.getBegin(), component.getEnd());
+                relation.setSource(component);
+                relation.setTarget(target);
+                relation.addToIndexes();
+            }
+
+            // relations are local: only the last few components are targets
+            recent.add(component);
+            if (recent.size() > 10) {
+                recent.remove(0);
+            }
+        }
+    }
+
+    private static ArgumentComponent createComponent(JCas jCas, Random random)
+    {
+        int kind = random.nextInt(10);
+        if (kind < 4) {
+            return new Premise(jCas);
+        }
+        else if (kind < 7) {
+            Claim claim = new Claim(jCas);
+            claim.setStance(random.nextBoolean() ? "pro" : "con");
+            return claim;
+        }
+        else if (kind == 7) {
+            return new MajorClaim(jCas);
+        }
+        else if (kind == 8) {
+            return new Backing(jCas);
+        }
+        else {
+            return random.nextBoolean() ? new Rebuttal(jCas) : new Refutation(jCas);
+        }
+    }
+
+    /**
+     * Writes documents {@code 0..documentCount-1} to the directory as
+     * {@code doc-<index><extension>}. One CAS is reused for all documents.
+     *
+     * @param directory     output directory
+     * @param documentCount number of documents
+     * @param format        output format
+     * @throws IOException   if writing fails
+     * @throws UIMAException if the CAS cannot be created
+     */
+    public void writeCorpus(File directory, int documentCount, Format format)
+            throws IOException, UIMAException
+    {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+
+        JCas jCas = JCasFactory.createJCas();
+        for (int i = 0; i < documentCount; i++) {
+            jCas.reset();
+            generate(jCas, i);
+
+            File file = new File(directory, String.format("doc-%05d", i) + format
+                    .getExtension());
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+                if (format == Format.XMI) {
+                    XmiCasSerializer.serialize(jCas.getCas(), os);
+                }
+                else {
+                    Serialization.serializeWithCompression(jCas.getCas(), os);
+                }
+            }
+            catch (SAXException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.graph;
+
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.ArgumentComponent;
+import org.dkpro.argumentation.types.ArgumentRelation;
+import org.dkpro.argumentation.types.ArgumentUnit;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable graph of the argument components of a document and the relations between them,
+ * built from a CAS in one pass over the components and one over the relations.
+ * <p>
+ * Components get dense ids {@code 0..size()-1}: the indexed components in annotation order,
+ * followed by components which are not indexed but are the source or target of a relation.
+ * For each {@link RelationType}, the outgoing and incoming edges are kept in compressed sparse
+ * row form ({@code int[]} offsets and neighbors), so neighbor queries take O(degree) and graph
+ * algorithms run on the arrays without touching the CAS. Relations whose source or target is
+ * missing or not an argument component are skipped (see {@link #getSkippedRelationCount()}).
+ * </p>
+ * Usage:
+ * <pre>
+ * ArgumentGraph graph = ArgumentGraph.build(jCas);
+ * ArgumentGraph.Adjacency supporters = graph.getIncoming(RelationType.SUPPORT);
+ * for (int i = supporters.start(claim); i &lt; supporters.end(claim); i++) {
+ *     int premise = supporters.node(i);
+ * }
+ * </pre>
+ */
+public final class ArgumentGraph
+{
+    private static final RelationType[] RELATION_TYPES = RelationType.values();
+
+    /**
+     * Edges of one relation type in one direction, in compressed sparse row form: the neighbors
+     * of node {@code v} are at the positions {@code start(v)} (inclusive) to {@code end(v)}
+     * (exclusive)
+     */
+    public static final class Adjacency
+    {
+        private final int[] offsets;
+        private final int[] nodes;
+        private final int[] edges;
+
+        private Adjacency(int[] offsets, int[] nodes, int[] edges)
+        {
+            this.offsets = offsets;
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+
+        /**
+         * @param node node id
+         * @return first position of the node's neighbors
+         */
+        public int start(int node)
+        {
+            return offsets[node];
+        }
+
+        /**
+         * @param node node id
+         * @return position after the node's last neighbor
+         */
+        public int end(int node)
+        {
+            return offsets[node + 1];
+        }
+
+        /**
+         * @param node node id
+         * @return number of neighbors
+         */
+        public int degree(int node)
+        {
+            return offsets[node + 1] - offsets[node];
+        }
+
+        /**
+         * @param position position between {@link #start(int)} and {@link #end(int)}
+         * @return neighbor at the position
+         */
+        public int node(int position)
+        {
+            return nodes[position];
+        }
+
+        /**
+         * @param position position between {@link #start(int)} and {@link #end(int)}
+         * @return edge id at the position, see {@link ArgumentGraph#getRelation(RelationType, int)}
+         */
+        public int edge(int position)
+        {
+            return edges[position];
+        }
+
+        /**
+         * @param node node id
+         * @return copy of the neighbors of the node
+         */
+        public int[] neighbors(int node)
+        {
+            return Arrays.copyOfRange(nodes, offsets[node], offsets[node + 1]);
+        }
+
+        /**
+         * @param node     node id
+         * @param consumer called with each neighbor of the node
+         */
+        public void forEachNeighbor(int node, IntConsumer consumer)
+        {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                consumer.accept(nodes[i]);
+            }
+        }
+
+        /**
+         * @return number of edges
+         */
+        public int size()
+        {
+            return nodes.length;
+        }
+
+        private static Adjacency of(int nodeCount, int[] from, int[] to, int edgeCount)
+        {
+            int[] offsets = new int[nodeCount + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                offsets[from[e] + 1]++;
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+
+            int[] nodes = new int[edgeCount];
+            int[] edges = new int[edgeCount];
+            int[] cursor = Arrays.copyOf(offsets, nodeCount);
+            // edges are visited in id order, so neighbors keep the order of the relations
+            for (int e = 0; e < edgeCount; e++) {
+                int position = cursor[from[e]]++;
+                nodes[position] = to[e];
+                edges[position] = e;
+            }
+            return new Adjacency(offsets, nodes, edges);
+        }
+    }
+
+    /**
+     * Edges of one relation type during building
+     */
+    private static final class EdgeList
+    {
+        int[] sources = new int[8];
+        int[] targets = new int[8];
+        final List<ArgumentRelation> relations = new ArrayList<>();
+
+        void add(int source, int target, ArgumentRelation relation)
+        {
+            int size = relations.size();
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            relations.add(relation);
+        }
+    }
+
+    private final ArgumentComponent[] components;
+    private final Map<ArgumentComponent, Integer> ids;
+    private final int[] begins;
+    private final int[] ends;
+    private final ArgumentRelation[][] relations;
+    private final Adjacency[] outgoing;
+    private final Adjacency[] incoming;
+    private final int skippedRelationCount;
+
+    private ArgumentGraph(List<ArgumentComponent> components, Map<ArgumentComponent, Integer> ids,
+            EdgeList[] edgeLists, int skippedRelationCount)
+    {
+        int n = components.size();
+        this.components = components.toArray(new ArgumentComponent[n]);
+        this.ids = ids;
+        this.skippedRelationCount = skippedRelationCount;
+
+        begins = new int[n];
+        ends = new int[n];
+        for (int v = 0; v < n; v++) {
+            begins[v] = this.components[v].getBegin();
+            ends[v] = this.components[v].getEnd();
+        }
+
+        relations = new ArgumentRelation[RELATION_TYPES.length][];
+        outgoing = new Adjacency[RELATION_TYPES.length];
+        incoming = new Adjacency[RELATION_TYPES.length];
+        for (RelationType type : RELATION_TYPES) {
+            EdgeList edges = edgeLists[type.ordinal()];
+            int m = edges.relations.size();
+            relations[type.ordinal()] = edges.relations.toArray(new ArgumentRelation[m]);
+            outgoing[type.ordinal()] = Adjacency.of(n, edges.sources, edges.targets, m);
+            incoming[type.ordinal()] = Adjacency.of(n, edges.targets, edges.sources, m);
+        }
+    }
+
+    /**
+     * Builds the graph of the argument components and relations in the CAS
+     *
+     * @param jCas document
+     * @return graph
+     */
+    public static ArgumentGraph build(JCas jCas)
+    {
+        List<ArgumentComponent> components = new ArrayList<>();
+        Map<ArgumentComponent, Integer> ids = new HashMap<>();
+        for (ArgumentComponent component : JCasUtil.select(jCas, ArgumentComponent.class)) {
+            ids.put(component, components.size());
+            components.add(component);
+        }
+
+        EdgeList[] edgeLists = new EdgeList[RELATION_TYPES.length];
+        for (int t = 0; t < edgeLists.length; t++) {
+            edgeLists[t] = new EdgeList();
+        }
+
+        int skipped = 0;
+        for (ArgumentRelation relation : JCasUtil.select(jCas, ArgumentRelation.class)) {
+            ArgumentUnit source = relation.getSource();
+            ArgumentUnit target = relation.getTarget();
+            if (!(source instanceof ArgumentComponent && target instanceof ArgumentComponent)) {
+                skipped++;
+                continue;
+            }
+
+            int sourceId = idOf((ArgumentComponent) source, components, ids);
+            int targetId = idOf((ArgumentComponent) target, components, ids);
+            edgeLists[RelationType.of(relation).ordinal()].add(sourceId, targetId, relation);
+        }
+
+        return new ArgumentGraph(components, ids, edgeLists, skipped);
+    }
+
+    private static int idOf(ArgumentComponent component, List<ArgumentComponent> components,
+            Map<ArgumentComponent, Integer> ids)
+    {
+        Integer id = ids.get(component);
+        if (id == null) {
+            // component which is referenced but not indexed
+            id = components.size();
+            ids.put(component, id);
+            components.add(component);
+        }
+        return id;
+    }
+
+    /**
+     * @return number of components
+     */
+    public int size()
+    {
+        return components.length;
+    }
+
+    /**
+     * @param id component id
+     * @return the component
+     */
+    public ArgumentComponent getComponent(int id)
+    {
+        return components[id];
+    }
+
+    /**
+     * @param component component
+     * @return id of the component or -1 if it is not in the graph
+     */
+    public int getId(ArgumentComponent component)
+    {
+        Integer id = ids.get(component);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param id component id
+     * @return begin offset of the component
+     */
+    public int getBegin(int id)
+    {
+        return begins[id];
+    }
+
+    /**
+     * @param id component id
+     * @return end offset of the component
+     */
+    public int getEnd(int id)
+    {
+        return ends[id];
+    }
+
+    /**
+     * @param type relation type
+     * @return edges from the source to the target of the relations of the type
+     */
+    public Adjacency getOutgoing(RelationType type)
+    {
+        return outgoing[type.ordinal()];
+    }
+
+    /**
+     * @param type relation type
+     * @return edges from the target to the source of the relations of the type
+     */
+    public Adjacency getIncoming(RelationType type)
+    {
+        return incoming[type.ordinal()];
+    }
+
+    /**
+     * @param type relation type
+     * @return number of relations of the type
+     */
+    public int getRelationCount(RelationType type)
+    {
+        return relations[type.ordinal()].length;
+    }
+
+    /**
+     * @param type relation type
+     * @param edge edge id, see {@link Adjacency#edge(int)}
+     * @return the relation
+     */
+    public ArgumentRelation getRelation(RelationType type, int edge)
+    {
+        return relations[type.ordinal()][edge];
+    }
+
+    /**
+     * @return number of relations which are not in the graph because their source or target is
+     * missing or not an argument component
+     */
+    public int getSkippedRelationCount()
+    {
+        return skippedRelationCount;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only random access to a corpus written by {@link ArgumentGraphCorpusWriter}. The
+ * columns are memory-mapped, so the argument graphs are iterated directly in the mapped file
+ * without CAS deserialization; only the node type names and the document ids are read
+ * eagerly.
+ * <p>
+ * Node, edge and document indices are global over the whole corpus; the {@code ...Begin}
+ * methods return inclusive and the {@code ...End} methods exclusive indices. The outgoing
+ * edges of a node are:
+ * </p>
+ * <pre>
+ * for (int e = corpus.getNodeEdgeBegin(node); e &lt; corpus.getNodeEdgeEnd(node); e++) {
+ *     int target = corpus.getEdgeTarget(e);
+ *     RelationType type = corpus.getRelationType(e);
+ * }
+ * </pre>
+ * Instances are immutable and can be shared between threads.
+ */
+public class ArgumentGraphCorpus
+{
+    private static final RelationType[] RELATION_TYPES = RelationType.values();
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int documentCount;
+
+    private final List<String> nodeTypeNames;
+    private final String[] documentIds;
+
+    private final IntBuffer nodeTypes;
+    private final IntBuffer nodeBegins;
+    private final IntBuffer nodeEnds;
+    private final IntBuffer nodeEdgeStarts;
+    private final IntBuffer edgeTargets;
+    private final ByteBuffer edgeTypes;
+    private final IntBuffer documentNodeStarts;
+    private final IntBuffer documentEdgeStarts;
+
+    private ArgumentGraphCorpus(FileChannel channel)
+            throws IOException
+    {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(channel.size(), Integer.MAX_VALUE));
+
+        if (header.getInt() != ArgumentGraphCorpusFormat.MAGIC) {
+            throw new IOException("Not an argument graph corpus file");
+        }
+        int version = header.getInt();
+        if (version != ArgumentGraphCorpusFormat.VERSION) {
+            throw new IOException("Unsupported corpus version " + version);
+        }
+
+        nodeCount = header.getInt();
+        edgeCount = header.getInt();
+        documentCount = header.getInt();
+        int nodeTypeCount = header.getInt();
+        long dataOffset = header.getLong();
+
+        List<String> typeNames = new ArrayList<>(nodeTypeCount);
+        for (int i = 0; i < nodeTypeCount; i++) {
+            typeNames.add(readString(header));
+        }
+        nodeTypeNames = Collections.unmodifiableList(typeNames);
+
+        documentIds = new String[documentCount];
+        for (int i = 0; i < documentCount; i++) {
+            documentIds[i] = readString(header);
+        }
+
+        long position = dataOffset;
+        nodeTypes = mapInts(channel, position, nodeCount);
+        position = ArgumentGraphCorpusFormat.align(position + nodeCount * 4L);
+        nodeBegins = mapInts(channel, position, nodeCount);
+        position = ArgumentGraphCorpusFormat.align(position + nodeCount * 4L);
+        nodeEnds = mapInts(channel, position, nodeCount);
+        position = ArgumentGraphCorpusFormat.align(position + nodeCount * 4L);
+        nodeEdgeStarts = mapInts(channel, position, nodeCount + 1);
+        position = ArgumentGraphCorpusFormat.align(position + (nodeCount + 1) * 4L);
+        edgeTargets = mapInts(channel, position, edgeCount);
+        position = ArgumentGraphCorpusFormat.align(position + edgeCount * 4L);
+        edgeTypes = channel.map(FileChannel.MapMode.READ_ONLY, position, edgeCount)
+                .asReadOnlyBuffer();
+        position = ArgumentGraphCorpusFormat.align(position + edgeCount);
+        documentNodeStarts = mapInts(channel, position, documentCount + 1);
+        position = ArgumentGraphCorpusFormat.align(position + (documentCount + 1) * 4L);
+        documentEdgeStarts = mapInts(channel, position, documentCount + 1);
+    }
+
+    /**
+     * Maps the given corpus file. The mapping stays valid after this method returns; the file
+     * must not be modified while the corpus is in use.
+     *
+     * @param file corpus file
+     * @return corpus
+     * @throws IOException if the file cannot be mapped or is not a corpus file
+     */
+    public static ArgumentGraphCorpus open(File file)
+            throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new ArgumentGraphCorpus(channel);
+        }
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count)
+            throws IOException
+    {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, count * 4L).asIntBuffer();
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getNodeCount()
+    {
+        return nodeCount;
+    }
+
+    public int getEdgeCount()
+    {
+        return edgeCount;
+    }
+
+    public int getDocumentCount()
+    {
+        return documentCount;
+    }
+
+    /**
+     * Returns the node type vocabulary; node type codes are indices into this list
+     *
+     * @return unmodifiable list of UIMA type names, e.g.
+     * {@code org.dkpro.argumentation.types.Claim}
+     */
+    public List<String> getNodeTypeNames()
+    {
+        return nodeTypeNames;
+    }
+
+    public String getDocumentId(int document)
+    {
+        return documentIds[document];
+    }
+
+    public int getDocumentNodeBegin(int document)
+    {
+        return documentNodeStarts.get(document);
+    }
+
+    public int getDocumentNodeEnd(int document)
+    {
+        return documentNodeStarts.get(document + 1);
+    }
+
+    public int getDocumentEdgeBegin(int document)
+    {
+        return documentEdgeStarts.get(document);
+    }
+
+    public int getDocumentEdgeEnd(int document)
+    {
+        return documentEdgeStarts.get(document + 1);
+    }
+
+    /**
+     * @param node node index
+     * @return index into {@link #getNodeTypeNames()}
+     */
+    public int getNodeTypeCode(int node)
+    {
+        return nodeTypes.get(node);
+    }
+
+    /**
+     * @param node node index
+     * @return UIMA type name of the argument component
+     */
+    public String getNodeTypeName(int node)
+    {
+        return nodeTypeNames.get(nodeTypes.get(node));
+    }
+
+    /**
+     * @param node node index
+     * @return begin offset of the argument component in the document text
+     */
+    public int getNodeBegin(int node)
+    {
+        return nodeBegins.get(node);
+    }
+
+    /**
+     * @param node node index
+     * @return end offset of the argument component in the document text
+     */
+    public int getNodeEnd(int node)
+    {
+        return nodeEnds.get(node);
+    }
+
+    /**
+     * @param node node index
+     * @return first outgoing edge of the node
+     */
+    public int getNodeEdgeBegin(int node)
+    {
+        return nodeEdgeStarts.get(node);
+    }
+
+    /**
+     * @param node node index
+     * @return end of the outgoing edges of the node
+     */
+    public int getNodeEdgeEnd(int node)
+    {
+        return nodeEdgeStarts.get(node + 1);
+    }
+
+    /**
+     * @param edge edge index
+     * @return node index of the target of the relation
+     */
+    public int getEdgeTarget(int edge)
+    {
+        return edgeTargets.get(edge);
+    }
+
+    /**
+     * @param edge edge index
+     * @return type of the relation
+     */
+    public RelationType getRelationType(int edge)
+    {
+        return RELATION_TYPES[edgeTypes.get(edge)];
+    }
+
+    /**
+     * Returns a view of the edge targets of the given edge range, backed by the mapped file
+     *
+     * @param edgeBegin first edge (inclusive)
+     * @param edgeEnd   last edge (exclusive)
+     * @return read-only buffer positioned at zero
+     */
+    public IntBuffer getEdgeTargets(int edgeBegin, int edgeEnd)
+    {
+        IntBuffer view = edgeTargets.duplicate();
+        view.limit(edgeEnd);
+        view.position(edgeBegin);
+        return view.slice().asReadOnlyBuffer();
+    }
+}
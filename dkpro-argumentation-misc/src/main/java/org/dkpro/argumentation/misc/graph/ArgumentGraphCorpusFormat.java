@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.graph;
+
+/**
+ * Layout of the argument graph corpus file written by {@link ArgumentGraphCorpusWriter} and
+ * read by {@link ArgumentGraphCorpus}. All numbers are big-endian; node and edge indices are
+ * global over the corpus.
+ * <pre>
+ * int     magic ("ARGG")
+ * int     version
+ * int     node count (N)
+ * int     edge count (E)
+ * int     document count (D)
+ * int     node type count (K)
+ * long    data offset (start of the first column, 8-byte aligned)
+ * K x     node type name (int length, UTF-8 bytes)
+ * D x     document id (int length, UTF-8 bytes; length -1 for null)
+ * ...     padding up to data offset
+ * int[N]   node type codes (index into the node type names)
+ * int[N]   node begin offsets in the document text
+ * int[N]   node end offsets in the document text
+ * int[N+1] first outgoing edge of each node
+ * int[E]   edge targets (node index)
+ * byte[E]  relation type codes ({@link RelationType} ordinal)
+ * int[D+1] first node of each document
+ * int[D+1] first edge of each document
+ * </pre>
+ * The edges of a node are its outgoing relations ordered by relation type, so the edge
+ * columns form a compressed sparse row adjacency. Each column starts at an 8-byte aligned
+ * position.
+ */
+public final class ArgumentGraphCorpusFormat
+{
+    /**
+     * "ARGG"
+     */
+    public static final int MAGIC = 0x41524747;
+
+    public static final int VERSION = 1;
+
+    /**
+     * Column alignment in bytes
+     */
+    public static final int ALIGNMENT = 8;
+
+    private ArgumentGraphCorpusFormat()
+    {
+        throw new UnsupportedOperationException("utility class");
+    }
+
+    /**
+     * Rounds the position up to the next column boundary
+     *
+     * @param position position in the file
+     * @return aligned position
+     */
+    public static long align(long position)
+    {
+        return (position + ALIGNMENT - 1) & ~((long) ALIGNMENT - 1);
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.graph;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.AbstractCas;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.io.columnar.ColumnSpool;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetrics;
+import org.dkpro.argumentation.io.profiling.EngineProfiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends the {@link ArgumentGraph} of each document to a single binary corpus file that can
+ * be memory-mapped by {@link ArgumentGraphCorpus}, so graph analytics over a corpus do not need
+ * to parse text dumps or deserialize CASes. See {@link ArgumentGraphCorpusFormat} for the file
+ * layout.
+ * <p>
+ * The columns and the document ids are spooled into temporary files next to the output file
+ * (see {@link ColumnSpool}) while the collection is processed and assembled into the output
+ * file in {@link #collectionProcessComplete()}, so memory usage does not grow with the corpus;
+ * only the node type names are kept in memory.
+ * </p>
+ * Relations whose source or target is not an argument component are not exported.
+ */
+public class ArgumentGraphCorpusWriter
+        extends JCasAnnotator_ImplBase
+{
+    /**
+     * Output file of the corpus
+     */
+    public static final String PARAM_OUTPUT_FILE = "outputFile";
+    @ConfigurationParameter(name = PARAM_OUTPUT_FILE, mandatory = true)
+    private File outputFile;
+
+    /**
+     * Id of the pipeline under which the metrics are exposed via JMX (see
+     * {@link ArgumentationMetrics})
+     */
+    public static final String PARAM_PIPELINE_ID = ArgumentationMetrics.PARAM_PIPELINE_ID;
+    @ConfigurationParameter(name = PARAM_PIPELINE_ID, mandatory = true,
+            defaultValue = ArgumentationMetrics.DEFAULT_PIPELINE_ID)
+    private String pipelineId;
+
+    private ColumnSpool spool;
+
+    // in file order
+    private ColumnSpool.Column nodeTypes;
+    private ColumnSpool.Column nodeBegins;
+    private ColumnSpool.Column nodeEnds;
+    private ColumnSpool.Column nodeEdgeStarts;
+    private ColumnSpool.Column edgeTargets;
+    private ColumnSpool.Column edgeTypes;
+    private ColumnSpool.Column documentNodeStarts;
+    private ColumnSpool.Column documentEdgeStarts;
+
+    private ColumnSpool.Column documentIds;
+
+    private final Map<String, Integer> nodeTypeCodes = new HashMap<>();
+    private final List<String> nodeTypeNames = new ArrayList<>();
+
+    private int nodeCount;
+    private int edgeCount;
+    private int documentCount;
+
+    // bytes reported to the metrics while spooling
+    private long reportedBytes;
+
+    private ArgumentationMetrics metrics;
+
+    private final EngineProfiler profiler = EngineProfiler.forEngine(
+            getClass().getSimpleName());
+
+    @Override
+    public void initialize(UimaContext context)
+            throws ResourceInitializationException
+    {
+        super.initialize(context);
+
+        metrics = ArgumentationMetrics.attach(pipelineId, getClass().getSimpleName());
+
+        spool = new ColumnSpool(outputFile, ArgumentGraphCorpusFormat.ALIGNMENT);
+        try {
+            nodeTypes = spool.createColumn("nodeTypes");
+            nodeBegins = spool.createColumn("nodeBegins");
+            nodeEnds = spool.createColumn("nodeEnds");
+            nodeEdgeStarts = spool.createColumn("nodeEdgeStarts");
+            edgeTargets = spool.createColumn("edgeTargets");
+            edgeTypes = spool.createColumn("edgeTypes");
+            documentNodeStarts = spool.createColumn("documentNodeStarts");
+            documentEdgeStarts = spool.createColumn("documentEdgeStarts");
+            documentIds = spool.createStringColumn("documentIds");
+        }
+        catch (IOException e) {
+            spool.close();
+            throw new ResourceInitializationException(e);
+        }
+
+        nodeTypeCodes.clear();
+        nodeTypeNames.clear();
+        nodeCount = 0;
+        edgeCount = 0;
+        documentCount = 0;
+        reportedBytes = 0;
+    }
+
+    @Override
+    public void process(AbstractCas aCas)
+            throws AnalysisEngineProcessException
+    {
+        profiler.instrument((JCas) aCas, metrics, () -> super.process(aCas));
+    }
+
+    @Override
+    public void process(JCas jCas)
+            throws AnalysisEngineProcessException
+    {
+        ArgumentGraph graph = ArgumentGraph.build(jCas);
+        RelationType[] relationTypes = RelationType.values();
+
+        int nodesBefore = nodeCount;
+        try {
+            documentIds.writeString(DocumentMetaData.get(jCas).getDocumentId());
+            documentCount++;
+            documentNodeStarts.writeInt(nodeCount);
+            documentEdgeStarts.writeInt(edgeCount);
+
+            for (int v = 0; v < graph.size(); v++) {
+                nodeTypes.writeInt(getNodeTypeCode(graph.getComponent(v).getType().getName()));
+                nodeBegins.writeInt(graph.getBegin(v));
+                nodeEnds.writeInt(graph.getEnd(v));
+                nodeEdgeStarts.writeInt(edgeCount);
+
+                for (RelationType type : relationTypes) {
+                    ArgumentGraph.Adjacency outgoing = graph.getOutgoing(type);
+                    for (int i = outgoing.start(v); i < outgoing.end(v); i++) {
+                        edgeTargets.writeInt(nodesBefore + outgoing.node(i));
+                        edgeTypes.writeByte(type.ordinal());
+                        edgeCount++;
+                    }
+                }
+            }
+            nodeCount += graph.size();
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+        finally {
+            long spooled = spool.size();
+            metrics.bytesWritten(spooled - reportedBytes);
+            reportedBytes = spooled;
+        }
+    }
+
+    private int getNodeTypeCode(String typeName)
+    {
+        Integer code = nodeTypeCodes.get(typeName);
+        if (code == null) {
+            code = nodeTypeNames.size();
+            nodeTypeNames.add(typeName);
+            nodeTypeCodes.put(typeName, code);
+        }
+        return code;
+    }
+
+    @Override
+    public void collectionProcessComplete()
+            throws AnalysisEngineProcessException
+    {
+        try {
+            // closing offsets
+            nodeEdgeStarts.writeInt(edgeCount);
+            documentNodeStarts.writeInt(nodeCount);
+            documentEdgeStarts.writeInt(edgeCount);
+
+            long length = writeCorpus();
+            // the closing offsets, the header and the padding
+            metrics.bytesWritten(length - reportedBytes);
+            reportedBytes = length;
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+        finally {
+            spool.close();
+        }
+    }
+
+    /**
+     * @return size of the corpus file
+     */
+    private long writeCorpus()
+            throws IOException
+    {
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(ArgumentGraphCorpusFormat.MAGIC);
+        header.writeInt(ArgumentGraphCorpusFormat.VERSION);
+        header.writeInt(nodeCount);
+        header.writeInt(edgeCount);
+        header.writeInt(documentCount);
+        header.writeInt(nodeTypeNames.size());
+        header.flush();
+
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+        DataOutputStream strings = new DataOutputStream(stringBytes);
+        for (String typeName : nodeTypeNames) {
+            ColumnSpool.writeString(strings, typeName);
+        }
+        strings.flush();
+
+        return spool.writeFile(headerBytes.toByteArray(), stringBytes.toByteArray());
+    }
+
+    @Override
+    public void destroy()
+    {
+        // the collection may have been aborted before collectionProcessComplete()
+        if (spool != null) {
+            spool.close();
+        }
+
+        if (metrics != null) {
+            metrics.detach();
+            metrics = null;
+        }
+
+        super.destroy();
+    }
+}
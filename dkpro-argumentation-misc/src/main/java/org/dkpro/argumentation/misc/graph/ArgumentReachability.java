@@ -0,0 +1,449 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.graph;
+
+import org.dkpro.argumentation.types.ArgumentComponent;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Transitive reachability over the edges of selected relation types of an
+ * {@link ArgumentGraph}, e.g. all premises which support a major claim directly or through
+ * other premises:
+ * <pre>
+ * ArgumentReachability supporters = new ArgumentReachability(graph,
+ *         ArgumentReachability.Direction.INCOMING, RelationType.SUPPORT);
+ * ArgumentReachability.Reachable chain = supporters.reach(majorClaim);
+ * ArgumentReachability.Reachable attackers = supporters.adjacent(chain,
+ *         graph.getIncoming(RelationType.ATTACK));
+ * </pre>
+ * For graphs of up to {@value #CLOSURE_MAX_NODES} components the transitive closure is computed
+ * once as bit sets, so unbounded queries are answered by copying a row. Larger graphs and
+ * depth-limited queries use a breadth-first search in O(components + edges) with frontier
+ * arrays which are reused between queries. Cycles are allowed; {@link #findCycle()} reports
+ * one.
+ * <p>
+ * Instances are not thread-safe; the returned {@link Reachable} sets are independent of the
+ * instance.
+ * </p>
+ */
+public class ArgumentReachability
+{
+    /**
+     * Largest graph for which the transitive closure is computed, 32 KB of bit sets
+     */
+    public static final int CLOSURE_MAX_NODES = 512;
+
+    /**
+     * Direction in which the edges are followed
+     */
+    public enum Direction
+    {
+        /**
+         * From the source to the target of a relation, e.g. from a premise to the claims it
+         * supports
+         */
+        OUTGOING,
+        /**
+         * From the target to the source of a relation, e.g. from a claim to its premises
+         */
+        INCOMING
+    }
+
+    /**
+     * Components reachable from a root, excluding the root itself unless it lies on a cycle.
+     * Backed by a bit set over the component ids and the sorted ids, so membership tests take
+     * O(1) and the ids are in document order for indexed components.
+     */
+    public static final class Reachable
+    {
+        private final ArgumentGraph graph;
+        private final int root;
+        private final long[] bits;
+        private final int[] ids;
+
+        private Reachable(ArgumentGraph graph, int root, long[] bits)
+        {
+            this.graph = graph;
+            this.root = root;
+            this.bits = bits;
+
+            int size = 0;
+            for (long word : bits) {
+                size += Long.bitCount(word);
+            }
+            ids = new int[size];
+            int i = 0;
+            for (int w = 0; w < bits.length; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    ids[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+        }
+
+        /**
+         * @return id of the component the search started from
+         */
+        public int getRoot()
+        {
+            return root;
+        }
+
+        /**
+         * @return number of reachable components
+         */
+        public int size()
+        {
+            return ids.length;
+        }
+
+        /**
+         * @param index index between 0 and {@link #size()}
+         * @return id of the reachable component at the index, in ascending order
+         */
+        public int get(int index)
+        {
+            return ids[index];
+        }
+
+        /**
+         * @param id component id
+         * @return whether the component is reachable
+         */
+        public boolean contains(int id)
+        {
+            return (bits[id >>> 6] & (1L << id)) != 0;
+        }
+
+        /**
+         * @param consumer called with the id of each reachable component, in ascending order
+         */
+        public void forEach(IntConsumer consumer)
+        {
+            for (int id : ids) {
+                consumer.accept(id);
+            }
+        }
+
+        /**
+         * @return view of the reachable components
+         */
+        public List<ArgumentComponent> getComponents()
+        {
+            return new AbstractList<ArgumentComponent>()
+            {
+                @Override
+                public ArgumentComponent get(int index)
+                {
+                    return graph.getComponent(ids[index]);
+                }
+
+                @Override
+                public int size()
+                {
+                    return ids.length;
+                }
+            };
+        }
+
+        @Override
+        public String toString()
+        {
+            return Arrays.toString(ids);
+        }
+    }
+
+    private final ArgumentGraph graph;
+    private final ArgumentGraph.Adjacency[] adjacencies;
+    private final int words;
+
+    private long[][] closure;
+
+    // reused between searches; a component is visited if its stamp equals the current one
+    private final int[] queue;
+    private final int[] visited;
+    private int stamp;
+
+    /**
+     * @param graph     graph
+     * @param direction direction in which the edges are followed
+     * @param types     relation types whose edges are followed
+     */
+    public ArgumentReachability(ArgumentGraph graph, Direction direction, RelationType... types)
+    {
+        this.graph = graph;
+        adjacencies = new ArgumentGraph.Adjacency[types.length];
+        for (int t = 0; t < types.length; t++) {
+            adjacencies[t] = direction == Direction.OUTGOING ?
+                    graph.getOutgoing(types[t]) :
+                    graph.getIncoming(types[t]);
+        }
+
+        words = (graph.size() + 63) >>> 6;
+        queue = new int[graph.size()];
+        visited = new int[graph.size()];
+    }
+
+    /**
+     * @param root component id
+     * @return components reachable from the root
+     */
+    public Reachable reach(int root)
+    {
+        if (graph.size() <= CLOSURE_MAX_NODES) {
+            return new Reachable(graph, root, getClosure()[root].clone());
+        }
+        return reach(root, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param root     component id
+     * @param maxDepth maximal number of edges from the root
+     * @return components reachable from the root in at most {@code maxDepth} edges
+     */
+    public Reachable reach(int root, int maxDepth)
+    {
+        long[] bits = new long[words];
+        int size = search(root, maxDepth, -1);
+        for (int i = 0; i < size; i++) {
+            int id = queue[i];
+            bits[id >>> 6] |= 1L << id;
+        }
+        return new Reachable(graph, root, bits);
+    }
+
+    /**
+     * @param from component id
+     * @param to   component id
+     * @return whether there is a path of at least one edge from {@code from} to {@code to}
+     */
+    public boolean isReachable(int from, int to)
+    {
+        if (graph.size() <= CLOSURE_MAX_NODES) {
+            return (getClosure()[from][to >>> 6] & (1L << to)) != 0;
+        }
+        return search(from, Integer.MAX_VALUE, to) < 0;
+    }
+
+    /**
+     * Returns the components adjacent to the root or to any component of the set, through the
+     * given edges, which are neither the root nor in the set; e.g. the attackers of a support
+     * chain
+     *
+     * @param nodes     reachable set
+     * @param adjacency edges, e.g. {@code graph.getIncoming(RelationType.ATTACK)}
+     * @return adjacent components
+     */
+    public Reachable adjacent(Reachable nodes, ArgumentGraph.Adjacency adjacency)
+    {
+        long[] bits = new long[words];
+        addNeighbors(bits, nodes.root, adjacency);
+        for (int id : nodes.ids) {
+            addNeighbors(bits, id, adjacency);
+        }
+        for (int w = 0; w < words; w++) {
+            bits[w] &= ~nodes.bits[w];
+        }
+        bits[nodes.root >>> 6] &= ~(1L << nodes.root);
+        return new Reachable(graph, nodes.root, bits);
+    }
+
+    private static void addNeighbors(long[] bits, int id, ArgumentGraph.Adjacency adjacency)
+    {
+        for (int i = adjacency.start(id); i < adjacency.end(id); i++) {
+            int neighbor = adjacency.node(i);
+            bits[neighbor >>> 6] |= 1L << neighbor;
+        }
+    }
+
+    /**
+     * Breadth-first search, level by level; the reached components are in {@link #queue}
+     *
+     * @return number of reached components, or -1 if {@code stop} was reached
+     */
+    private int search(int root, int maxDepth, int stop)
+    {
+        stamp++;
+        if (maxDepth <= 0) {
+            return 0;
+        }
+
+        int head = 0;
+        int tail = expand(root, 0, stop);
+        for (int depth = 1; head < tail && depth < maxDepth; depth++) {
+            int levelEnd = tail;
+            while (tail >= 0 && head < levelEnd) {
+                tail = expand(queue[head++], tail, stop);
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Appends the unvisited neighbors of the component to the queue
+     *
+     * @return new end of the queue, or -1 if {@code stop} was reached
+     */
+    private int expand(int id, int tail, int stop)
+    {
+        for (ArgumentGraph.Adjacency adjacency : adjacencies) {
+            for (int i = adjacency.start(id); i < adjacency.end(id); i++) {
+                int neighbor = adjacency.node(i);
+                if (visited[neighbor] != stamp) {
+                    if (neighbor == stop) {
+                        return -1;
+                    }
+                    visited[neighbor] = stamp;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Computes the transitive closure as bit set rows with Warshall's algorithm, O(n^3 / 64)
+     */
+    private long[][] getClosure()
+    {
+        if (closure == null) {
+            int n = graph.size();
+            long[][] rows = new long[n][words];
+            for (int v = 0; v < n; v++) {
+                addAllNeighbors(rows[v], v);
+            }
+            for (int k = 0; k < n; k++) {
+                long[] row = rows[k];
+                long mask = 1L << k;
+                for (int i = 0; i < n; i++) {
+                    if ((rows[i][k >>> 6] & mask) != 0) {
+                        long[] target = rows[i];
+                        for (int w = 0; w < words; w++) {
+                            target[w] |= row[w];
+                        }
+                    }
+                }
+            }
+            closure = rows;
+        }
+        return closure;
+    }
+
+    private void addAllNeighbors(long[] bits, int id)
+    {
+        for (ArgumentGraph.Adjacency adjacency : adjacencies) {
+            addNeighbors(bits, id, adjacency);
+        }
+    }
+
+    /**
+     * Finds a cycle with an iterative depth-first search in O(components + edges)
+     *
+     * @return ids of the components of a cycle in the order of the edges, or an empty array if
+     * there is none
+     */
+    public int[] findCycle()
+    {
+        int n = graph.size();
+        // 0 unvisited, 1 on the stack, 2 done
+        byte[] state = new byte[n];
+        int[] parent = new int[n];
+        // per stack entry: component and adjacency cursor (adjacency index, position)
+        int[] stackNode = new int[n];
+        int[] stackAdjacency = new int[n];
+        int[] stackPosition = new int[n];
+
+        for (int start = 0; start < n; start++) {
+            if (state[start] != 0) {
+                continue;
+            }
+            int top = 0;
+            stackNode[0] = start;
+            stackAdjacency[0] = 0;
+            stackPosition[0] = -1;
+            state[start] = 1;
+            parent[start] = -1;
+
+            while (top >= 0) {
+                int node = stackNode[top];
+                int a = stackAdjacency[top];
+                int position = stackPosition[top];
+                int next = -1;
+
+                while (a < adjacencies.length) {
+                    ArgumentGraph.Adjacency adjacency = adjacencies[a];
+                    position = position < 0 ? adjacency.start(node) : position + 1;
+                    if (position < adjacency.end(node)) {
+                        next = adjacency.node(position);
+                        break;
+                    }
+                    a++;
+                    position = -1;
+                }
+                stackAdjacency[top] = a;
+                stackPosition[top] = position;
+
+                if (next < 0) {
+                    state[node] = 2;
+                    top--;
+                }
+                else if (state[next] == 1) {
+                    return cycle(parent, node, next);
+                }
+                else if (state[next] == 0) {
+                    state[next] = 1;
+                    parent[next] = node;
+                    top++;
+                    stackNode[top] = next;
+                    stackAdjacency[top] = 0;
+                    stackPosition[top] = -1;
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    private static int[] cycle(int[] parent, int last, int first)
+    {
+        int length = 1;
+        for (int v = last; v != first; v = parent[v]) {
+            length++;
+        }
+        int[] result = new int[length];
+        int i = length - 1;
+        for (int v = last; v != first; v = parent[v]) {
+            result[i--] = v;
+        }
+        result[0] = first;
+        return result;
+    }
+
+    /**
+     * @return whether the followed edges contain a cycle
+     */
+    public boolean hasCycle()
+    {
+        return findCycle().length > 0;
+    }
+}
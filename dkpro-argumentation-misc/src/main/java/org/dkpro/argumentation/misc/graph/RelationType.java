@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.graph;
+
+import org.dkpro.argumentation.types.ArgumentRelation;
+import org.dkpro.argumentation.types.Attack;
+import org.dkpro.argumentation.types.Detail;
+import org.dkpro.argumentation.types.Same;
+import org.dkpro.argumentation.types.Support;
+
+/**
+ * Relation types by which the edges of an {@link ArgumentGraph} are partitioned
+ */
+public enum RelationType
+{
+    SUPPORT,
+    ATTACK,
+    DETAIL,
+    SAME,
+    /**
+     * {@link ArgumentRelation} which is none of the above
+     */
+    OTHER;
+
+    /**
+     * @param relation relation
+     * @return type of the relation
+     */
+    public static RelationType of(ArgumentRelation relation)
+    {
+        if (relation instanceof Support) {
+            return SUPPORT;
+        }
+        if (relation instanceof Attack) {
+            return ATTACK;
+        }
+        if (relation instanceof Detail) {
+            return DETAIL;
+        }
+        if (relation instanceof Same) {
+            return SAME;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.uima;
+
+import org.apache.uima.cas.*;
+import org.apache.uima.cas.impl.LowLevelCAS;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Estimates the memory held by the feature structures of one or more CASes, by type: the
+ * number of feature structures, the bytes of the CAS heaps they occupy and the bytes of the
+ * Java strings referenced by their string features (e.g. {@code tag} of the BIO annotations,
+ * {@code properties} of argument components, or the document text held by the sofa).
+ * Footprints of several CASes can be added up to plan the heap for a corpus.
+ * <p>
+ * All feature structures in the indexes of all views and those reachable from them through
+ * features and arrays are counted once. The estimate follows the heap layout of UIMA 2: a
+ * feature structure takes one 4-byte cell for its type and one per feature, an array two
+ * cells plus its elements; a string takes {@value #STRING_OVERHEAD} bytes plus two bytes per
+ * character. JCas cover objects and index structures are not included.
+ * </p>
+ * Instances are not thread-safe.
+ */
+public class CasMemoryFootprint
+{
+    /**
+     * Bytes of a {@code String} and its {@code char[]} besides the characters
+     */
+    public static final int STRING_OVERHEAD = 40;
+
+    private static final int CELL = 4;
+
+    /**
+     * Footprint of the feature structures of one type
+     */
+    public static final class TypeFootprint
+    {
+        private final String typeName;
+        private long count;
+        private long heapBytes;
+        private long stringBytes;
+
+        TypeFootprint(String typeName)
+        {
+            this.typeName = typeName;
+        }
+
+        void add(long count, long heapBytes, long stringBytes)
+        {
+            this.count += count;
+            this.heapBytes += heapBytes;
+            this.stringBytes += stringBytes;
+        }
+
+        public String getTypeName()
+        {
+            return typeName;
+        }
+
+        /**
+         * @return number of feature structures
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * @return estimated bytes in the CAS heaps
+         */
+        public long getHeapBytes()
+        {
+            return heapBytes;
+        }
+
+        /**
+         * @return estimated bytes of the strings referenced by string features
+         */
+        public long getStringBytes()
+        {
+            return stringBytes;
+        }
+
+        /**
+         * @return heap and string bytes
+         */
+        public long getTotalBytes()
+        {
+            return heapBytes + stringBytes;
+        }
+    }
+
+    /**
+     * Features of a type by kind, computed once per type
+     */
+    private static final class TypeLayout
+    {
+        final int cells;
+        final List<Feature> stringFeatures = new ArrayList<>();
+        final List<Feature> referenceFeatures = new ArrayList<>();
+
+        TypeLayout(Type type, TypeSystem typeSystem)
+        {
+            Type stringType = typeSystem.getType(CAS.TYPE_NAME_STRING);
+            List<Feature> features = type.getFeatures();
+            cells = 1 + features.size();
+            for (Feature feature : features) {
+                Type range = feature.getRange();
+                if (typeSystem.subsumes(stringType, range)) {
+                    stringFeatures.add(feature);
+                }
+                else if (!range.isPrimitive()) {
+                    referenceFeatures.add(feature);
+                }
+            }
+        }
+    }
+
+    private final Map<String, TypeFootprint> types = new HashMap<>();
+
+    private long documentCount;
+
+    private long maxDocumentBytes;
+
+    /**
+     * Returns the footprint of a single CAS
+     *
+     * @param cas CAS
+     * @return footprint
+     */
+    public static CasMemoryFootprint of(CAS cas)
+    {
+        CasMemoryFootprint footprint = new CasMemoryFootprint();
+        footprint.add(cas);
+        return footprint;
+    }
+
+    /**
+     * Adds the feature structures of a CAS and counts it as one document
+     *
+     * @param cas any view of the CAS
+     */
+    public void add(CAS cas)
+    {
+        Map<Type, TypeLayout> layouts = new HashMap<>();
+        Map<Type, long[]> sums = new HashMap<>();
+        LowLevelCAS lowLevelCas = cas.getLowLevelCAS();
+        BitSet visited = new BitSet();
+        Deque<FeatureStructure> pending = new ArrayDeque<>();
+
+        Iterator<CAS> views = cas.getViewIterator();
+        while (views.hasNext()) {
+            CAS view = views.next();
+            push(view.getSofa(), lowLevelCas, visited, pending);
+            FSIterator<FeatureStructure> indexed = view.getIndexRepository()
+                    .getAllIndexedFS(cas.getTypeSystem().getTopType());
+            while (indexed.hasNext()) {
+                push(indexed.next(), lowLevelCas, visited, pending);
+            }
+        }
+
+        long documentBytes = 0;
+        while (!pending.isEmpty()) {
+            FeatureStructure fs = pending.pop();
+            Type type = fs.getType();
+            long heapBytes;
+            long stringBytes = 0;
+
+            if (fs instanceof CommonArrayFS) {
+                int size = ((CommonArrayFS) fs).size();
+                heapBytes = 2 * CELL + (long) size * elementBytes(fs);
+                if (fs instanceof StringArrayFS) {
+                    for (int i = 0; i < size; i++) {
+                        stringBytes += stringBytes(((StringArrayFS) fs).get(i));
+                    }
+                }
+                else if (fs instanceof ArrayFS) {
+                    for (int i = 0; i < size; i++) {
+                        push(((ArrayFS) fs).get(i), lowLevelCas, visited, pending);
+                    }
+                }
+            }
+            else {
+                TypeLayout layout = layouts.get(type);
+                if (layout == null) {
+                    layout = new TypeLayout(type, cas.getTypeSystem());
+                    layouts.put(type, layout);
+                }
+                heapBytes = (long) layout.cells * CELL;
+                for (Feature feature : layout.stringFeatures) {
+                    stringBytes += stringBytes(fs.getStringValue(feature));
+                }
+                for (Feature feature : layout.referenceFeatures) {
+                    push(fs.getFeatureValue(feature), lowLevelCas, visited, pending);
+                }
+            }
+
+            long[] sum = sums.get(type);
+            if (sum == null) {
+                sum = new long[3];
+                sums.put(type, sum);
+            }
+            sum[0]++;
+            sum[1] += heapBytes;
+            sum[2] += stringBytes;
+            documentBytes += heapBytes + stringBytes;
+        }
+
+        for (Map.Entry<Type, long[]> entry : sums.entrySet()) {
+            long[] sum = entry.getValue();
+            getOrCreate(entry.getKey().getName()).add(sum[0], sum[1], sum[2]);
+        }
+        documentCount++;
+        maxDocumentBytes = Math.max(maxDocumentBytes, documentBytes);
+    }
+
+    private static void push(FeatureStructure fs, LowLevelCAS lowLevelCas, BitSet visited,
+            Deque<FeatureStructure> pending)
+    {
+        if (fs == null) {
+            return;
+        }
+        int address = lowLevelCas.ll_getFSRef(fs);
+        if (!visited.get(address)) {
+            visited.set(address);
+            pending.push(fs);
+        }
+    }
+
+    private static int elementBytes(FeatureStructure array)
+    {
+        if (array instanceof ByteArrayFS || array instanceof BooleanArrayFS) {
+            return 1;
+        }
+        if (array instanceof ShortArrayFS) {
+            return 2;
+        }
+        if (array instanceof LongArrayFS || array instanceof DoubleArrayFS) {
+            return 8;
+        }
+        return CELL;
+    }
+
+    private static long stringBytes(String value)
+    {
+        return value != null ? STRING_OVERHEAD + 2L * value.length() : 0;
+    }
+
+    private TypeFootprint getOrCreate(String typeName)
+    {
+        TypeFootprint footprint = types.get(typeName);
+        if (footprint == null) {
+            footprint = new TypeFootprint(typeName);
+            types.put(typeName, footprint);
+        }
+        return footprint;
+    }
+
+    /**
+     * Adds the footprint of other CASes, e.g. of another thread
+     *
+     * @param other footprint
+     */
+    public void add(CasMemoryFootprint other)
+    {
+        for (TypeFootprint footprint : other.types.values()) {
+            getOrCreate(footprint.typeName).add(footprint.count, footprint.heapBytes,
+                    footprint.stringBytes);
+        }
+        documentCount += other.documentCount;
+        maxDocumentBytes = Math.max(maxDocumentBytes, other.maxDocumentBytes);
+    }
+
+    /**
+     * @return footprints by type, the largest first
+     */
+    public List<TypeFootprint> getTypes()
+    {
+        List<TypeFootprint> result = new ArrayList<>(types.values());
+        result.sort(Comparator.comparingLong(TypeFootprint::getTotalBytes).reversed()
+                .thenComparing(TypeFootprint::getTypeName));
+        return result;
+    }
+
+    /**
+     * @param typeName type name
+     * @return footprint of the type, or null if there are no feature structures of the type
+     */
+    public TypeFootprint getType(String typeName)
+    {
+        return types.get(typeName);
+    }
+
+    /**
+     * @return number of added CASes
+     */
+    public long getDocumentCount()
+    {
+        return documentCount;
+    }
+
+    /**
+     * @return estimated bytes of all types
+     */
+    public long getTotalBytes()
+    {
+        long total = 0;
+        for (TypeFootprint footprint : types.values()) {
+            total += footprint.getTotalBytes();
+        }
+        return total;
+    }
+
+    /**
+     * @return estimated bytes of the largest CAS
+     */
+    public long getMaxDocumentBytes()
+    {
+        return maxDocumentBytes;
+    }
+
+    /**
+     * Writes the footprints as a tab-separated table with the columns type, count, heap
+     * bytes, string bytes, total bytes and bytes per document, the largest type first
+     *
+     * @param writer output
+     * @throws IOException if writing fails
+     */
+    public void write(Writer writer)
+            throws IOException
+    {
+        writer.write("type\tcount\theapBytes\tstringBytes\ttotalBytes\tbytesPerDocument\n");
+        for (TypeFootprint footprint : getTypes()) {
+            writer.write(footprint.typeName + "\t" + footprint.count + "\t"
+                    + footprint.heapBytes + "\t" + footprint.stringBytes + "\t"
+                    + footprint.getTotalBytes() + "\t"
+                    + footprint.getTotalBytes() / Math.max(documentCount, 1) + "\n");
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d documents, %d bytes in total, %d bytes per document, "
+                        + "%d bytes in the largest document%n", documentCount, getTotalBytes(),
+                getTotalBytes() / Math.max(documentCount, 1), maxDocumentBytes));
+        sb.append(String.format("%-70s %10s %14s %14s%n", "type", "count", "heap bytes",
+                "string bytes"));
+        for (TypeFootprint footprint : getTypes()) {
+            sb.append(String.format("%-70s %10d %14d %14d%n", footprint.typeName,
+                    footprint.count, footprint.heapBytes, footprint.stringBytes));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.uima;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.jcas.JCas;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Adds up the {@link CasMemoryFootprint} of all documents of a collection and reports it at
+ * the end: the summary is logged and, if {@link #PARAM_REPORT_FILE} is set, the footprint by
+ * type is written as a tab-separated table. Place it at the end of the pipeline to see the
+ * footprint of the complete CASes. Each instance reports the documents it processed.
+ */
+public class CasMemoryFootprintReporter
+        extends JCasAnnotator_ImplBase
+{
+    /**
+     * Tab-separated report file, see {@link CasMemoryFootprint#write(Writer)}; optional
+     */
+    public static final String PARAM_REPORT_FILE = "reportFile";
+    @ConfigurationParameter(name = PARAM_REPORT_FILE, mandatory = false)
+    private File reportFile;
+
+    private final CasMemoryFootprint footprint = new CasMemoryFootprint();
+
+    @Override
+    public void process(JCas aJCas)
+            throws AnalysisEngineProcessException
+    {
+        footprint.add(aJCas.getCas());
+    }
+
+    /**
+     * @return footprint of the documents processed so far
+     */
+    public CasMemoryFootprint getFootprint()
+    {
+        return footprint;
+    }
+
+    @Override
+    public void collectionProcessComplete()
+            throws AnalysisEngineProcessException
+    {
+        super.collectionProcessComplete();
+
+        getLogger().info("CAS memory footprint: " + footprint);
+
+        if (reportFile != null) {
+            if (reportFile.getParentFile() != null) {
+                reportFile.getParentFile().mkdirs();
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(reportFile), StandardCharsets.UTF_8))) {
+                footprint.write(writer);
+            }
+            catch (IOException e) {
+                throw new AnalysisEngineProcessException(e);
+            }
+        }
+    }
+}
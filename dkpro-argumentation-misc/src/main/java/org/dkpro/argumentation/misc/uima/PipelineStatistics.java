@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dkpro.argumentation.misc.uima;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters of a component, optionally shared by all its instances in a pipeline, e.g. by
+ * replicated copies of an annotator processing documents in parallel. Counters are
+ * {@link LongAdder}s, so they can be incremented concurrently without contention.
+ * <p>
+ * Each instance calls {@link #attach(String)} (or {@link #local()} for statistics of its own)
+ * when initialized, {@link #documentProcessed()} for each document, {@link #complete()} at the
+ * end of the collection and {@link #detach()} when destroyed. The instances with the same key
+ * share their counters; the totals are returned by the {@code complete()} of the last of the
+ * instances which processed documents since the last report, so they are reported once per
+ * collection, and the counters are then reset. Instances which processed no documents, e.g.
+ * engines left over from an earlier run which were never destroyed, do not delay the report.
+ * The shared statistics of a key are released when the last instance is detached.
+ * </p>
+ */
+public final class PipelineStatistics
+{
+    private static final ConcurrentMap<String, Shared> REGISTRY = new ConcurrentHashMap<>();
+
+    /**
+     * Counters of all instances with the same key
+     */
+    private static final class Shared
+    {
+        private final String key;
+
+        private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+        /**
+         * Guarded by this
+         */
+        private int attached;
+
+        /**
+         * Instances which processed documents since the last report; guarded by this
+         */
+        private int active;
+
+        /**
+         * Active instances which completed; guarded by this
+         */
+        private int completed;
+
+        Shared(String key)
+        {
+            this.key = key;
+        }
+    }
+
+    private final Shared shared;
+
+    /**
+     * Whether this instance processed documents since the last report; written while holding
+     * the lock of {@link #shared}
+     */
+    private volatile boolean active;
+
+    private boolean detached;
+
+    private PipelineStatistics(Shared shared)
+    {
+        this.shared = shared;
+    }
+
+    /**
+     * Returns statistics sharing the counters of all instances attached with the same key
+     *
+     * @param key key of the shared statistics, e.g. the pipeline id and the qualified context
+     *            name of the component
+     * @return statistics of the calling instance
+     */
+    public static PipelineStatistics attach(String key)
+    {
+        return new PipelineStatistics(REGISTRY.compute(key, (k, shared) -> {
+            Shared result = shared != null ? shared : new Shared(k);
+            synchronized (result) {
+                result.attached++;
+            }
+            return result;
+        }));
+    }
+
+    /**
+     * Returns statistics which are not shared with other instances
+     *
+     * @return statistics of the calling instance
+     */
+    public static PipelineStatistics local()
+    {
+        Shared shared = new Shared(null);
+        shared.attached = 1;
+        return new PipelineStatistics(shared);
+    }
+
+    /**
+     * Unregisters the instance; the shared statistics are removed from the registry with the
+     * last one
+     */
+    public void detach()
+    {
+        synchronized (shared) {
+            if (detached) {
+                return;
+            }
+            detached = true;
+
+            // an instance aborted before completing no longer delays the report
+            if (active) {
+                active = false;
+                shared.active--;
+            }
+        }
+
+        if (shared.key != null) {
+            REGISTRY.computeIfPresent(shared.key, (key, current) -> {
+                if (current != shared) {
+                    return current;
+                }
+                synchronized (current) {
+                    current.attached--;
+                    return current.attached > 0 ? current : null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Records that the instance processed a document, so that the report waits for its
+     * {@link #complete()}
+     */
+    public void documentProcessed()
+    {
+        if (!active) {
+            synchronized (shared) {
+                if (!active && !detached) {
+                    active = true;
+                    shared.active++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if needed
+     *
+     * @param name counter name
+     * @return counter
+     */
+    public LongAdder counter(String name)
+    {
+        return shared.counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Marks the end of the collection for the instance
+     *
+     * @return the totals of all counters, sorted by name, if all instances which processed
+     * documents since the last report completed; null otherwise
+     */
+    public SortedMap<String, Long> complete()
+    {
+        synchronized (shared) {
+            if (active) {
+                active = false;
+                shared.completed++;
+            }
+            if (shared.completed < shared.active) {
+                return null;
+            }
+
+            shared.active = 0;
+            shared.completed = 0;
+            SortedMap<String, Long> result = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> entry : shared.counters.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().sumThenReset());
+            }
+            return Collections.unmodifiableSortedMap(result);
+        }
+    }
+
+    /**
+     * @return key of the shared statistics; null for {@link #local()} statistics
+     */
+    public String getKey()
+    {
+        return shared.key;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.misc.utils;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.LowLevelCAS;
+import org.apache.uima.cas.impl.LowLevelIterator;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.ArgumentRelation;
+import org.dkpro.argumentation.types.ArgumentUnit;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of the {@link ArgumentRelation}s of a CAS by their source and target, so the incoming
+ * and outgoing relations of a component are found in O(log units + degree) instead of
+ * iterating over all relations:
+ * <pre>
+ * ArgumentRelationIndex index = ArgumentRelationIndex.build(jCas);
+ * for (ArgumentComponent component : JCasUtil.select(jCas, ArgumentComponent.class)) {
+ *     List&lt;ArgumentRelation&gt; supportsAndAttacks = index.getIncoming(component);
+ * }
+ * </pre>
+ * The index is built in one pass over the relations and is a snapshot: relations added,
+ * removed or re-linked afterwards are not reflected. It is meant to be built once per document
+ * and dropped with it, e.g. as a local variable of {@code process}; it holds feature structure
+ * addresses, which refer to other feature structures once the CAS is reset.
+ */
+public final class ArgumentRelationIndex
+{
+    /**
+     * Relation and endpoint addresses of one CAS view
+     */
+    private static final class Entry
+    {
+        // relation address of each relation, in index order
+        final int[] relations;
+
+        // sorted distinct endpoint addresses, with the positions of their relations
+        final int[] units;
+        final int[] outOffsets;
+        final int[] outRelations;
+        final int[] inOffsets;
+        final int[] inRelations;
+
+        Entry(int[] relations, int[] sources, int[] targets)
+        {
+            this.relations = relations;
+
+            int size = relations.length;
+            int[] endpoints = Arrays.copyOf(sources, size * 2);
+            System.arraycopy(targets, 0, endpoints, size, size);
+            Arrays.sort(endpoints);
+            int distinct = 0;
+            for (int i = 0; i < endpoints.length; i++) {
+                // address 0 is a missing endpoint
+                if (endpoints[i] != 0
+                        && (distinct == 0 || endpoints[i] != endpoints[distinct - 1])) {
+                    endpoints[distinct++] = endpoints[i];
+                }
+            }
+            units = Arrays.copyOf(endpoints, distinct);
+
+            outOffsets = new int[distinct + 1];
+            outRelations = new int[size];
+            fill(units, sources, relations, outOffsets, outRelations);
+            inOffsets = new int[distinct + 1];
+            inRelations = new int[size];
+            fill(units, targets, relations, inOffsets, inRelations);
+        }
+
+        private static void fill(int[] units, int[] endpoints, int[] relations, int[] offsets,
+                int[] result)
+        {
+            int[] positions = new int[endpoints.length];
+            for (int r = 0; r < endpoints.length; r++) {
+                positions[r] = endpoints[r] == 0 ? -1 : Arrays.binarySearch(units, endpoints[r]);
+                if (positions[r] >= 0) {
+                    offsets[positions[r] + 1]++;
+                }
+            }
+            for (int u = 0; u < units.length; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            int[] cursor = Arrays.copyOf(offsets, units.length);
+            for (int r = 0; r < endpoints.length; r++) {
+                if (positions[r] >= 0) {
+                    result[cursor[positions[r]]++] = relations[r];
+                }
+            }
+        }
+    }
+
+    private final LowLevelCAS cas;
+    private final Entry entry;
+
+    private ArgumentRelationIndex(LowLevelCAS cas, Entry entry)
+    {
+        this.cas = cas;
+        this.entry = entry;
+    }
+
+    /**
+     * Builds the index of the current relations of the CAS view
+     *
+     * @param jCas jcas
+     * @return relation index
+     */
+    public static ArgumentRelationIndex build(JCas jCas)
+    {
+        LowLevelCAS cas = jCas.getLowLevelCas();
+        int relationType = cas.ll_getTypeSystem()
+                .ll_getCodeForTypeName(ArgumentRelation.class.getName());
+        int sourceFeature = cas.ll_getTypeSystem()
+                .ll_getCodeForFeatureName(ArgumentRelation.class.getName() + ":source");
+        int targetFeature = cas.ll_getTypeSystem()
+                .ll_getCodeForFeatureName(ArgumentRelation.class.getName() + ":target");
+
+        LowLevelIterator iterator = cas.ll_getIndexRepository()
+                .ll_getIndex(CAS.STD_ANNOTATION_INDEX, relationType).ll_iterator();
+        int size = iterator.ll_indexSize();
+        int[] relations = new int[size];
+        int[] sources = new int[size];
+        int[] targets = new int[size];
+        for (int r = 0; iterator.isValid(); r++, iterator.moveToNext()) {
+            relations[r] = iterator.ll_get();
+            sources[r] = cas.ll_getRefValue(relations[r], sourceFeature);
+            targets[r] = cas.ll_getRefValue(relations[r], targetFeature);
+        }
+        return new ArgumentRelationIndex(cas, new Entry(relations, sources, targets));
+    }
+
+    /**
+     * @param unit argument component or other unit
+     * @return relations with the unit as source, in index order
+     */
+    public List<ArgumentRelation> getOutgoing(ArgumentUnit unit)
+    {
+        return select(unit, entry.outOffsets, entry.outRelations);
+    }
+
+    /**
+     * @param unit argument component or other unit
+     * @return relations with the unit as target, in index order
+     */
+    public List<ArgumentRelation> getIncoming(ArgumentUnit unit)
+    {
+        return select(unit, entry.inOffsets, entry.inRelations);
+    }
+
+    /**
+     * @return number of indexed relations
+     */
+    public int size()
+    {
+        return entry.relations.length;
+    }
+
+    private List<ArgumentRelation> select(ArgumentUnit unit, int[] offsets, int[] relations)
+    {
+        int position = Arrays.binarySearch(entry.units, cas.ll_getFSRef(unit));
+        if (position < 0) {
+            return Collections.emptyList();
+        }
+
+        int start = offsets[position];
+        int end = offsets[position + 1];
+        return new AbstractList<ArgumentRelation>()
+        {
+            @Override
+            public ArgumentRelation get(int index)
+            {
+                if (index < 0 || index >= end - start) {
+                    throw new IndexOutOfBoundsException(String.valueOf(index));
+                }
+                return cas.ll_getFSForRef(relations[start + index]);
+            }
+
+            @Override
+            public int size()
+            {
+                return end - start;
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.misc.corpus;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Paragraph;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import org.apache.uima.cas.impl.XmiCasDeserializer;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.writer.ArgumentDumpWriter;
+import org.dkpro.argumentation.misc.uima.JCasUtil2;
+import org.dkpro.argumentation.types.ArgumentComponent;
+import org.dkpro.argumentation.types.ArgumentRelation;
+import org.dkpro.argumentation.types.ArgumentUnitUtils;
+import org.dkpro.argumentation.types.WebArgumentMetadataHelper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SyntheticCorpusGenerator}
+ */
+public class SyntheticCorpusGeneratorTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDeterministic()
+            throws Exception
+    {
+        SyntheticCorpusGenerator generator = new SyntheticCorpusGenerator(7)
+                .setSentencesPerDocument(50);
+
+        String first = ArgumentDumpWriter.dumpArguments(generator.generate(3), true, true);
+        String second = ArgumentDumpWriter.dumpArguments(generator.generate(3), true, true);
+        assertEquals(first, second);
+
+        String other = ArgumentDumpWriter.dumpArguments(generator.generate(4), true, true);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    public void testContent()
+            throws Exception
+    {
+        JCas jCas = new SyntheticCorpusGenerator(1).setSentencesPerDocument(200)
+                .setSentencesPerParagraph(10).setComponentDensity(1.0)
+                .setCrossSentenceProbability(0.5).setImplicitProbability(0.1)
+                .generate(0);
+
+        assertEquals(200, JCasUtil.select(jCas, Sentence.class).size());
+        assertEquals(20, JCasUtil.select(jCas, Paragraph.class).size());
+        assertNotNull(WebArgumentMetadataHelper.get(jCas));
+
+        int implicit = 0;
+        int overlapping = 0;
+        List<ArgumentComponent> components = new ArrayList<>(
+                JCasUtil.select(jCas, ArgumentComponent.class));
+        for (ArgumentComponent component : components) {
+            if (ArgumentUnitUtils.isImplicit(component)) {
+                implicit++;
+            }
+            else if (JCasUtil2.selectOverlapping(ArgumentComponent.class, component, jCas)
+                    .size() > 1) {
+                overlapping++;
+            }
+        }
+        assertTrue(implicit > 0);
+        assertTrue(overlapping > 0);
+        assertFalse(JCasUtil.select(jCas, ArgumentRelation.class).isEmpty());
+    }
+
+    @Test
+    public void testWriteCorpus()
+            throws Exception
+    {
+        File directory = folder.newFolder("corpus");
+        SyntheticCorpusGenerator generator = new SyntheticCorpusGenerator(5)
+                .setSentencesPerDocument(20);
+        generator.writeCorpus(directory, 3, SyntheticCorpusGenerator.Format.XMI);
+        generator.writeCorpus(directory, 3, SyntheticCorpusGenerator.Format.BINARY);
+
+        assertEquals(6, directory.list().length);
+
+        JCas jCas = JCasFactory.createJCas();
+        try (InputStream is = new FileInputStream(new File(directory, "doc-00002.xmi"))) {
+            XmiCasDeserializer.deserialize(is, jCas.getCas());
+        }
+        assertEquals(ArgumentDumpWriter.dumpArguments(generator.generate(2), true, true),
+                ArgumentDumpWriter.dumpArguments(jCas, true, true));
+    }
+}
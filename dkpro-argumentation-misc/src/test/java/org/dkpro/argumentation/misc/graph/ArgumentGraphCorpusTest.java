@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.misc.graph;
+
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetrics;
+import org.dkpro.argumentation.types.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ArgumentGraphCorpusTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JCas createDocument(String documentId, String text)
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText(text);
+        DocumentMetaData.create(jCas).setDocumentId(documentId);
+        return jCas;
+    }
+
+    private static void addRelation(ArgumentRelation relation, ArgumentUnit source,
+            ArgumentUnit target)
+    {
+        relation.setSource(source);
+        relation.setTarget(target);
+        relation.addToIndexes();
+    }
+
+    @Test
+    public void testRoundTrip()
+            throws Exception
+    {
+        File output = new File(folder.getRoot(), "graphs.bin");
+
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                ArgumentGraphCorpusWriter.class,
+                ArgumentGraphCorpusWriter.PARAM_OUTPUT_FILE, output);
+
+        // claim supported by two premises, one of which is attacked
+        JCas doc1 = createDocument("doc1", "Claim. One. Two. Three.");
+        Claim claim = new Claim(doc1, 0, 6);
+        claim.addToIndexes();
+        Premise one = new Premise(doc1, 7, 11);
+        one.addToIndexes();
+        Premise two = new Premise(doc1, 12, 16);
+        two.addToIndexes();
+        Premise three = new Premise(doc1, 17, 23);
+        three.addToIndexes();
+        addRelation(new Support(doc1), one, claim);
+        addRelation(new Attack(doc1), three, one);
+        addRelation(new Support(doc1), two, claim);
+        addRelation(new Detail(doc1), two, one);
+        writer.process(doc1);
+
+        // no components
+        writer.process(createDocument("doc2", "Nothing."));
+
+        // component only referenced by a relation
+        JCas doc3 = createDocument("doc3", "Major. Premise.");
+        MajorClaim majorClaim = new MajorClaim(doc3, 0, 6);
+        majorClaim.addToIndexes();
+        addRelation(new Same(doc3), new Premise(doc3, 7, 15), majorClaim);
+        writer.process(doc3);
+
+        writer.collectionProcessComplete();
+        writer.destroy();
+
+        ArgumentGraphCorpus corpus = ArgumentGraphCorpus.open(output);
+
+        assertEquals(3, corpus.getDocumentCount());
+        assertEquals(6, corpus.getNodeCount());
+        assertEquals(5, corpus.getEdgeCount());
+
+        assertEquals("doc1", corpus.getDocumentId(0));
+        assertEquals(0, corpus.getDocumentNodeBegin(0));
+        assertEquals(4, corpus.getDocumentNodeEnd(0));
+        assertEquals(0, corpus.getDocumentEdgeBegin(0));
+        assertEquals(4, corpus.getDocumentEdgeEnd(0));
+        assertEquals(Claim.class.getName(), corpus.getNodeTypeName(0));
+        assertEquals(Premise.class.getName(), corpus.getNodeTypeName(3));
+        assertEquals(corpus.getNodeTypeCode(1), corpus.getNodeTypeCode(2));
+        assertEquals(17, corpus.getNodeBegin(3));
+        assertEquals(23, corpus.getNodeEnd(3));
+
+        // the claim has no outgoing edges
+        assertEquals(corpus.getNodeEdgeBegin(0), corpus.getNodeEdgeEnd(0));
+
+        // edges of "Two" ordered by relation type
+        int edge = corpus.getNodeEdgeBegin(2);
+        assertEquals(2, corpus.getNodeEdgeEnd(2) - edge);
+        assertEquals(0, corpus.getEdgeTarget(edge));
+        assertEquals(RelationType.SUPPORT, corpus.getRelationType(edge));
+        assertEquals(1, corpus.getEdgeTarget(edge + 1));
+        assertEquals(RelationType.DETAIL, corpus.getRelationType(edge + 1));
+
+        edge = corpus.getNodeEdgeBegin(3);
+        assertEquals(1, corpus.getEdgeTarget(edge));
+        assertEquals(RelationType.ATTACK, corpus.getRelationType(edge));
+
+        assertEquals("doc2", corpus.getDocumentId(1));
+        assertEquals(4, corpus.getDocumentNodeBegin(1));
+        assertEquals(4, corpus.getDocumentNodeEnd(1));
+        assertEquals(4, corpus.getDocumentEdgeBegin(1));
+        assertEquals(4, corpus.getDocumentEdgeEnd(1));
+
+        assertEquals("doc3", corpus.getDocumentId(2));
+        assertEquals(4, corpus.getDocumentNodeBegin(2));
+        assertEquals(6, corpus.getDocumentNodeEnd(2));
+        assertEquals(MajorClaim.class.getName(), corpus.getNodeTypeName(4));
+        assertEquals(Premise.class.getName(), corpus.getNodeTypeName(5));
+        assertEquals(3, corpus.getNodeTypeNames().size());
+
+        edge = corpus.getNodeEdgeBegin(5);
+        assertEquals(RelationType.SAME, corpus.getRelationType(edge));
+        IntBuffer targets = corpus.getEdgeTargets(corpus.getDocumentEdgeBegin(2),
+                corpus.getDocumentEdgeEnd(2));
+        assertEquals(1, targets.remaining());
+        assertEquals(4, targets.get(0));
+    }
+
+    @Test
+    public void testBytesWritten()
+            throws Exception
+    {
+        File output = new File(folder.getRoot(), "graphs.bin");
+
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                ArgumentGraphCorpusWriter.class,
+                ArgumentGraphCorpusWriter.PARAM_OUTPUT_FILE, output,
+                ArgumentGraphCorpusWriter.PARAM_PIPELINE_ID, "graphBytes");
+        JCas jCas = createDocument("doc1", "Claim. Premise.");
+        Claim claim = new Claim(jCas, 0, 6);
+        claim.addToIndexes();
+        addRelation(new Support(jCas), new Premise(jCas, 7, 15), claim);
+        writer.process(jCas);
+        writer.collectionProcessComplete();
+
+        ObjectName name = ArgumentationMetrics.objectName("graphBytes",
+                ArgumentGraphCorpusWriter.class.getSimpleName());
+        assertEquals(output.length(), ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(name, "BytesWritten"));
+        writer.destroy();
+
+        // the temporary files are deleted
+        assertArrayEquals(new String[] { "graphs.bin" }, folder.getRoot().list());
+    }
+
+    @Test
+    public void testAbortedCollectionLeavesNoTemporaryFiles()
+            throws Exception
+    {
+        File output = new File(folder.getRoot(), "graphs.bin");
+
+        AnalysisEngine writer = AnalysisEngineFactory.createEngine(
+                ArgumentGraphCorpusWriter.class,
+                ArgumentGraphCorpusWriter.PARAM_OUTPUT_FILE, output);
+        JCas jCas = createDocument("doc1", "Claim.");
+        new Claim(jCas, 0, 6).addToIndexes();
+        writer.process(jCas);
+
+        // no collectionProcessComplete()
+        writer.destroy();
+
+        assertEquals(0, folder.getRoot().list().length);
+    }
+}
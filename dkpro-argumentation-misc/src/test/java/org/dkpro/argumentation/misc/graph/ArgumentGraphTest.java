@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.misc.graph;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ArgumentGraphTest
+{
+    private JCas jCas;
+
+    private Claim claim;
+
+    private Premise premise1;
+
+    private Premise premise2;
+
+    private Premise unindexed;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("Claim one two not.");
+
+        claim = new Claim(jCas, 0, 5);
+        claim.addToIndexes();
+        premise1 = new Premise(jCas, 6, 9);
+        premise1.addToIndexes();
+        premise2 = new Premise(jCas, 10, 13);
+        premise2.addToIndexes();
+        // referenced by a relation only
+        unindexed = new Premise(jCas, 14, 17);
+
+        addRelation(new Support(jCas, 6, 9), premise1, claim);
+        addRelation(new Support(jCas, 10, 13), premise2, claim);
+        addRelation(new Attack(jCas, 14, 17), unindexed, claim);
+        addRelation(new Detail(jCas, 10, 13), premise2, premise1);
+        // no target
+        addRelation(new Support(jCas, 0, 5), premise1, null);
+    }
+
+    private static void addRelation(ArgumentRelation relation, ArgumentUnit source,
+            ArgumentUnit target)
+    {
+        relation.setSource(source);
+        relation.setTarget(target);
+        relation.addToIndexes();
+    }
+
+    private static List<Integer> neighbors(ArgumentGraph.Adjacency adjacency, int node)
+    {
+        List<Integer> result = new ArrayList<>();
+        adjacency.forEachNeighbor(node, result::add);
+        return result;
+    }
+
+    @Test
+    public void testIds()
+    {
+        ArgumentGraph graph = ArgumentGraph.build(jCas);
+
+        assertEquals(4, graph.size());
+        assertEquals(0, graph.getId(claim));
+        assertEquals(1, graph.getId(premise1));
+        assertEquals(2, graph.getId(premise2));
+        assertEquals(3, graph.getId(unindexed));
+        assertSame(premise2, graph.getComponent(2));
+        assertEquals(14, graph.getBegin(3));
+        assertEquals(17, graph.getEnd(3));
+        assertEquals(-1, graph.getId(new Claim(jCas, 0, 1)));
+        assertEquals(1, graph.getSkippedRelationCount());
+    }
+
+    @Test
+    public void testAdjacency()
+    {
+        ArgumentGraph graph = ArgumentGraph.build(jCas);
+
+        assertEquals(2, graph.getRelationCount(RelationType.SUPPORT));
+        assertEquals(1, graph.getRelationCount(RelationType.ATTACK));
+        assertEquals(1, graph.getRelationCount(RelationType.DETAIL));
+        assertEquals(0, graph.getRelationCount(RelationType.SAME));
+
+        ArgumentGraph.Adjacency supporters = graph.getIncoming(RelationType.SUPPORT);
+        assertArrayEquals(new int[] { 1, 2 }, supporters.neighbors(0));
+        assertEquals(0, supporters.degree(1));
+        assertArrayEquals(new int[] { 3 },
+                graph.getIncoming(RelationType.ATTACK).neighbors(0));
+
+        ArgumentGraph.Adjacency supported = graph.getOutgoing(RelationType.SUPPORT);
+        assertEquals(1, supported.degree(1));
+        assertEquals(0, supported.degree(0));
+        assertEquals(0, supported.node(supported.start(2)));
+
+        ArgumentGraph.Adjacency details = graph.getOutgoing(RelationType.DETAIL);
+        assertEquals(1, details.size());
+        assertEquals(1, neighbors(details, 2).size());
+        assertEquals(1, (int) neighbors(details, 2).get(0));
+
+        int position = supporters.start(0) + 1;
+        ArgumentRelation relation = graph.getRelation(RelationType.SUPPORT,
+                supporters.edge(position));
+        assertSame(premise2, relation.getSource());
+        assertSame(claim, relation.getTarget());
+    }
+
+    @Test
+    public void testEmpty()
+            throws Exception
+    {
+        ArgumentGraph graph = ArgumentGraph.build(JCasFactory.createJCas());
+
+        assertEquals(0, graph.size());
+        for (RelationType type : RelationType.values()) {
+            assertEquals(0, graph.getOutgoing(type).size());
+            assertEquals(0, graph.getIncoming(type).size());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.misc.graph;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ArgumentReachabilityTest
+{
+    private static Premise[] addPremises(JCas jCas, int count)
+    {
+        Premise[] premises = new Premise[count];
+        for (int i = 0; i < count; i++) {
+            premises[i] = new Premise(jCas, i, i + 1);
+            premises[i].addToIndexes();
+        }
+        return premises;
+    }
+
+    private static void addRelation(ArgumentRelation relation, ArgumentUnit source,
+            ArgumentUnit target)
+    {
+        relation.setSource(source);
+        relation.setTarget(target);
+        relation.addToIndexes();
+    }
+
+    private static int[] ids(ArgumentReachability.Reachable reachable)
+    {
+        int[] ids = new int[reachable.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = reachable.get(i);
+        }
+        return ids;
+    }
+
+    @Test
+    public void testSupportChain()
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("abcdef");
+        // 0 is the major claim
+        Premise[] p = addPremises(jCas, 6);
+        addRelation(new Support(jCas), p[1], p[0]);
+        addRelation(new Support(jCas), p[2], p[1]);
+        addRelation(new Support(jCas), p[3], p[2]);
+        addRelation(new Attack(jCas), p[4], p[2]);
+        addRelation(new Attack(jCas), p[5], p[4]);
+
+        ArgumentGraph graph = ArgumentGraph.build(jCas);
+        ArgumentReachability supporters = new ArgumentReachability(graph,
+                ArgumentReachability.Direction.INCOMING, RelationType.SUPPORT);
+
+        ArgumentReachability.Reachable chain = supporters.reach(0);
+        assertArrayEquals(new int[] { 1, 2, 3 }, ids(chain));
+        assertTrue(chain.contains(3));
+        assertFalse(chain.contains(0));
+        assertSame(p[2], chain.getComponents().get(1));
+
+        assertArrayEquals(new int[] { 1 }, ids(supporters.reach(0, 1)));
+        assertArrayEquals(new int[] { 1, 2 }, ids(supporters.reach(0, 2)));
+        assertEquals(0, supporters.reach(0, 0).size());
+
+        ArgumentReachability.Reachable attackers = supporters.adjacent(chain,
+                graph.getIncoming(RelationType.ATTACK));
+        assertArrayEquals(new int[] { 4 }, ids(attackers));
+
+        assertTrue(supporters.isReachable(0, 3));
+        assertFalse(supporters.isReachable(3, 0));
+        assertFalse(supporters.isReachable(0, 4));
+        assertFalse(supporters.hasCycle());
+    }
+
+    @Test
+    public void testCycle()
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("abcd");
+        Premise[] p = addPremises(jCas, 4);
+        addRelation(new Support(jCas), p[0], p[1]);
+        addRelation(new Support(jCas), p[1], p[2]);
+        addRelation(new Support(jCas), p[2], p[3]);
+        addRelation(new Support(jCas), p[3], p[1]);
+
+        ArgumentReachability reachability = new ArgumentReachability(
+                ArgumentGraph.build(jCas), ArgumentReachability.Direction.OUTGOING,
+                RelationType.SUPPORT);
+
+        int[] cycle = reachability.findCycle();
+        assertEquals(3, cycle.length);
+        int[] sorted = cycle.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(new int[] { 1, 2, 3 }, sorted);
+
+        // a component on a cycle reaches itself
+        assertArrayEquals(new int[] { 1, 2, 3 }, ids(reachability.reach(1)));
+        assertArrayEquals(new int[] { 1, 2, 3 }, ids(reachability.reach(1, 5)));
+        assertTrue(reachability.isReachable(2, 2));
+        assertFalse(reachability.isReachable(0, 0));
+    }
+
+    @Test
+    public void testSearchMatchesClosure()
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyz0123456789");
+        Premise[] p = addPremises(jCas, 60);
+        Random random = new Random(42);
+        for (int e = 0; e < 90; e++) {
+            addRelation(random.nextBoolean() ? new Support(jCas) : new Attack(jCas),
+                    p[random.nextInt(p.length)], p[random.nextInt(p.length)]);
+        }
+
+        ArgumentReachability reachability = new ArgumentReachability(
+                ArgumentGraph.build(jCas), ArgumentReachability.Direction.INCOMING,
+                RelationType.SUPPORT, RelationType.ATTACK);
+        for (int v = 0; v < p.length; v++) {
+            // unbounded queries use the closure, depth-limited ones the search
+            int[] closure = ids(reachability.reach(v));
+            assertArrayEquals(closure, ids(reachability.reach(v, Integer.MAX_VALUE)));
+            for (int w = 0; w < p.length; w++) {
+                assertEquals(Arrays.binarySearch(closure, w) >= 0,
+                        reachability.isReachable(v, w));
+            }
+        }
+    }
+
+    @Test
+    public void testLargeGraph()
+            throws Exception
+    {
+        int size = ArgumentReachability.CLOSURE_MAX_NODES * 4;
+        JCas jCas = JCasFactory.createJCas();
+        char[] text = new char[size];
+        Arrays.fill(text, 'a');
+        jCas.setDocumentText(new String(text));
+        Premise[] p = addPremises(jCas, size);
+        for (int i = 1; i < size; i++) {
+            addRelation(new Support(jCas), p[i], p[i - 1]);
+        }
+
+        ArgumentReachability supporters = new ArgumentReachability(ArgumentGraph.build(jCas),
+                ArgumentReachability.Direction.INCOMING, RelationType.SUPPORT);
+
+        assertEquals(size - 1, supporters.reach(0).size());
+        assertEquals(100, supporters.reach(0, 100).size());
+        assertEquals(101, supporters.reach(0, 100).get(99) + 1);
+        assertTrue(supporters.isReachable(0, size - 1));
+        assertFalse(supporters.isReachable(size - 1, 0));
+        assertFalse(supporters.hasCycle());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.misc.uima;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.cas.Type;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.Claim;
+import org.dkpro.argumentation.types.Premise;
+import org.dkpro.argumentation.types.Support;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CasMemoryFootprintTest
+{
+    private static JCas createJCas()
+            throws Exception
+    {
+        JCas jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("We should. Because.");
+        new Token(jCas, 0, 2).addToIndexes();
+        new Token(jCas, 3, 9).addToIndexes();
+        new Token(jCas, 9, 10).addToIndexes();
+
+        Claim claim = new Claim(jCas, 0, 10);
+        claim.setProperties("key=value");
+        claim.addToIndexes();
+
+        // not indexed, only reachable from the relation
+        Premise premise = new Premise(jCas, 11, 19);
+
+        Support support = new Support(jCas, 11, 19);
+        support.setSource(premise);
+        support.setTarget(claim);
+        support.addToIndexes();
+        return jCas;
+    }
+
+    private static long cells(JCas jCas, Class<?> type)
+    {
+        Type casType = jCas.getTypeSystem().getType(type.getName());
+        return 1 + casType.getFeatures().size();
+    }
+
+    @Test
+    public void testFootprint()
+            throws Exception
+    {
+        JCas jCas = createJCas();
+        CasMemoryFootprint footprint = CasMemoryFootprint.of(jCas.getCas());
+
+        CasMemoryFootprint.TypeFootprint tokens = footprint.getType(Token.class.getName());
+        assertEquals(3, tokens.getCount());
+        assertEquals(3 * 4 * cells(jCas, Token.class), tokens.getHeapBytes());
+        assertEquals(0, tokens.getStringBytes());
+
+        CasMemoryFootprint.TypeFootprint claims = footprint.getType(Claim.class.getName());
+        assertEquals(1, claims.getCount());
+        assertEquals(4 * cells(jCas, Claim.class), claims.getHeapBytes());
+        assertEquals(CasMemoryFootprint.STRING_OVERHEAD + 2 * "key=value".length(),
+                claims.getStringBytes());
+
+        assertEquals(1, footprint.getType(Premise.class.getName()).getCount());
+        assertEquals(1, footprint.getType(Support.class.getName()).getCount());
+
+        // the document text is held by the sofa
+        assertTrue(footprint.getType("uima.cas.Sofa").getStringBytes()
+                >= 2 * jCas.getDocumentText().length());
+        assertEquals(1, footprint.getDocumentCount());
+        assertEquals(footprint.getTotalBytes(), footprint.getMaxDocumentBytes());
+    }
+
+    @Test
+    public void testCorpus()
+            throws Exception
+    {
+        CasMemoryFootprint single = CasMemoryFootprint.of(createJCas().getCas());
+
+        CasMemoryFootprint corpus = new CasMemoryFootprint();
+        corpus.add(createJCas().getCas());
+        corpus.add(CasMemoryFootprint.of(createJCas().getCas()));
+
+        assertEquals(2, corpus.getDocumentCount());
+        assertEquals(2 * single.getTotalBytes(), corpus.getTotalBytes());
+        assertEquals(single.getTotalBytes(), corpus.getMaxDocumentBytes());
+        assertEquals(6, corpus.getType(Token.class.getName()).getCount());
+
+        StringWriter writer = new StringWriter();
+        corpus.write(writer);
+        String[] lines = writer.toString().split("\n");
+        assertEquals(corpus.getTypes().size() + 1, lines.length);
+        assertTrue(lines[1].startsWith(corpus.getTypes().get(0).getTypeName() + "\t"));
+    }
+}
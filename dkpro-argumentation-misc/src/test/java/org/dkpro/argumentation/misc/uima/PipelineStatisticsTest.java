@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.misc.uima;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link PipelineStatistics}
+ */
+public class PipelineStatisticsTest
+{
+    @Test
+    public void testAggregateInstances()
+            throws Exception
+    {
+        final PipelineStatistics first = PipelineStatistics.attach("aggregate-test");
+        final PipelineStatistics second = PipelineStatistics.attach("aggregate-test");
+        assertSame(first.counter("tokens"), second.counter("tokens"));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final PipelineStatistics statistics = i % 2 == 0 ? first : second;
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    statistics.documentProcessed();
+                    statistics.counter("tokens").increment();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // only the last instance gets the totals
+        assertNull(first.complete());
+        Map<String, Long> totals = second.complete();
+        assertEquals(Long.valueOf(4000), totals.get("tokens"));
+
+        first.detach();
+        second.detach();
+
+        // released with the last instance
+        PipelineStatistics third = PipelineStatistics.attach("aggregate-test");
+        assertNotSame(first.counter("tokens"), third.counter("tokens"));
+        assertEquals(Long.valueOf(0), third.complete().getOrDefault("tokens", 0L));
+        third.detach();
+    }
+
+    @Test
+    public void testIdleInstanceDoesNotDelayReport()
+    {
+        // an engine of an earlier run which was never destroyed
+        PipelineStatistics stale = PipelineStatistics.attach("stale-test");
+        stale.documentProcessed();
+        stale.counter("conflicts").increment();
+        assertEquals(Long.valueOf(1), stale.complete().get("conflicts"));
+
+        PipelineStatistics current = PipelineStatistics.attach("stale-test");
+        current.documentProcessed();
+        current.counter("conflicts").add(2);
+        Map<String, Long> totals = current.complete();
+        assertEquals(Long.valueOf(2), totals.get("conflicts"));
+
+        current.detach();
+        stale.detach();
+    }
+
+    @Test
+    public void testDetachedInstanceDoesNotDelayReport()
+    {
+        PipelineStatistics aborted = PipelineStatistics.attach("detach-test");
+        PipelineStatistics completed = PipelineStatistics.attach("detach-test");
+        aborted.documentProcessed();
+        completed.documentProcessed();
+        completed.counter("conflicts").increment();
+
+        // destroyed without collectionProcessComplete
+        aborted.detach();
+        aborted.detach();
+
+        assertEquals(Long.valueOf(1), completed.complete().get("conflicts"));
+        completed.detach();
+    }
+
+    @Test
+    public void testLocalStatistics()
+    {
+        PipelineStatistics first = PipelineStatistics.local();
+        PipelineStatistics second = PipelineStatistics.local();
+        assertNull(first.getKey());
+
+        first.documentProcessed();
+        first.counter("conflicts").increment();
+        second.documentProcessed();
+        second.counter("conflicts").add(2);
+
+        // each instance reports its own counts
+        assertEquals(Long.valueOf(1), first.complete().get("conflicts"));
+        assertEquals(Long.valueOf(2), second.complete().get("conflicts"));
+        first.detach();
+        second.detach();
+    }
+}
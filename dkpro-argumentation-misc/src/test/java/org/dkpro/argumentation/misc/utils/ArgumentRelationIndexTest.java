@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.misc.utils;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.types.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ArgumentRelationIndexTest
+{
+    private JCas jCas;
+
+    private Claim claim;
+
+    private Premise premise1;
+
+    private Premise premise2;
+
+    private Support support1;
+
+    private Support support2;
+
+    private Attack attack;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        jCas = JCasFactory.createJCas();
+        jCas.setDocumentText("Claim one two.");
+
+        claim = new Claim(jCas, 0, 5);
+        claim.addToIndexes();
+        premise1 = new Premise(jCas, 6, 9);
+        premise1.addToIndexes();
+        premise2 = new Premise(jCas, 10, 13);
+        premise2.addToIndexes();
+
+        support1 = addRelation(new Support(jCas, 6, 9), premise1, claim);
+        support2 = addRelation(new Support(jCas, 10, 13), premise2, claim);
+        attack = addRelation(new Attack(jCas, 10, 13), premise2, premise1);
+        // no target
+        addRelation(new Support(jCas, 0, 5), premise1, null);
+    }
+
+    private static <T extends ArgumentRelation> T addRelation(T relation, ArgumentUnit source,
+            ArgumentUnit target)
+    {
+        relation.setSource(source);
+        relation.setTarget(target);
+        relation.addToIndexes();
+        return relation;
+    }
+
+    private static Set<ArgumentRelation> set(ArgumentRelation... relations)
+    {
+        return new HashSet<>(Arrays.asList(relations));
+    }
+
+    @Test
+    public void testIncomingAndOutgoing()
+    {
+        ArgumentRelationIndex index = ArgumentRelationIndex.build(jCas);
+
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(support1, support2), index.getIncoming(claim));
+        assertEquals(Collections.emptyList(), index.getOutgoing(claim));
+        assertEquals(Collections.singletonList(attack), index.getIncoming(premise1));
+        assertEquals(2, index.getOutgoing(premise1).size());
+        // same span, so the order depends on the type priorities
+        assertEquals(set(support2, attack), new HashSet<>(index.getOutgoing(premise2)));
+        assertEquals(Collections.emptyList(), index.getIncoming(new Claim(jCas, 0, 1)));
+    }
+
+    @Test
+    public void testSnapshot()
+    {
+        ArgumentRelationIndex index = ArgumentRelationIndex.build(jCas);
+
+        Attack rebuttal = addRelation(new Attack(jCas, 6, 9), premise1, claim);
+        // re-linked relation
+        support2.setTarget(premise1);
+        support1.removeFromIndexes();
+
+        // the index built before keeps its relations ...
+        assertEquals(Arrays.asList(support1, support2), index.getIncoming(claim));
+
+        // ... and a new one sees the changes
+        ArgumentRelationIndex rebuilt = ArgumentRelationIndex.build(jCas);
+        assertEquals(Collections.singletonList(rebuttal), rebuilt.getIncoming(claim));
+        assertEquals(set(support2, attack), new HashSet<>(rebuilt.getIncoming(premise1)));
+    }
+
+    @Test
+    public void testReset()
+    {
+        assertEquals(4, ArgumentRelationIndex.build(jCas).size());
+
+        // a pooled CAS gets the index of its next document
+        jCas.reset();
+        Claim next = new Claim(jCas, 0, 5);
+        next.addToIndexes();
+        addRelation(new Support(jCas, 0, 5), next, next);
+
+        ArgumentRelationIndex index = ArgumentRelationIndex.build(jCas);
+        assertEquals(1, index.size());
+        assertEquals(1, index.getIncoming(next).size());
+    }
+}
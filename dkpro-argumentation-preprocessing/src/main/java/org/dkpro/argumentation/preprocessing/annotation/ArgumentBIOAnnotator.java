@@ -19,9 +19,21 @@
 package org.dkpro.argumentation.preprocessing.annotation;
 
 import org.apache.uima.UimaContext;
+import org.apache.uima.UimaContextAdmin;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.AbstractCas;
 import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetrics;
+import org.dkpro.argumentation.io.profiling.EngineProfiler;
+import org.dkpro.argumentation.misc.uima.PipelineStatistics;
+import org.dkpro.argumentation.types.BIOAbstractArgumentAnnotation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Ivan Habernal
@@ -53,6 +65,29 @@ public abstract class ArgumentBIOAnnotator
     @ConfigurationParameter(name = PARAM_LABEL_GRANULARITY, mandatory = true, defaultValue = BIO)
     protected String codingGranularity;
 
+    /**
+     * Id of the pipeline under which the metrics are exposed via JMX (see
+     * {@link ArgumentationMetrics}). The statistics of all instances of the annotator with the
+     * same id and the same position in the aggregate (e.g. replicated engines) are summed up
+     * and reported once at the end of the collection; with the default id, each instance
+     * reports its own statistics.
+     */
+    public static final String PARAM_PIPELINE_ID = ArgumentationMetrics.PARAM_PIPELINE_ID;
+    @ConfigurationParameter(name = PARAM_PIPELINE_ID, mandatory = true,
+            defaultValue = ArgumentationMetrics.DEFAULT_PIPELINE_ID)
+    protected String pipelineId;
+
+    private PipelineStatistics statistics;
+
+    private ArgumentationMetrics metrics;
+
+    // tags of the labels of the current document; counted locally, so the shared metrics are
+    // updated once per tag
+    private final Map<String, int[]> labelCounts = new HashMap<>();
+
+    private final EngineProfiler profiler = EngineProfiler.forEngine(
+            getClass().getSimpleName());
+
     @Override public void initialize(UimaContext context)
             throws ResourceInitializationException
     {
@@ -62,6 +97,115 @@ public abstract class ArgumentBIOAnnotator
             throw new ResourceInitializationException(new IllegalArgumentException(
                     "Only BIO and IO labelGranularity is allowed, was " + codingGranularity));
         }
+
+        // the context name tells apart instances at different positions in the aggregate
+        String contextName = context instanceof UimaContextAdmin ?
+                ((UimaContextAdmin) context).getQualifiedContextName() :
+                "/";
+        statistics = ArgumentationMetrics.DEFAULT_PIPELINE_ID.equals(pipelineId) ?
+                PipelineStatistics.local() :
+                PipelineStatistics.attach(pipelineId + contextName + getClass().getName());
+        metrics = ArgumentationMetrics.attach(pipelineId, getClass().getSimpleName());
+    }
+
+    @Override
+    public void process(AbstractCas aCas)
+            throws AnalysisEngineProcessException
+    {
+        labelCounts.clear();
+        try {
+            profiler.instrument((JCas) aCas, metrics, () -> {
+                super.process(aCas);
+                // the labels are counted for processed documents only
+                for (Map.Entry<String, int[]> entry : labelCounts.entrySet()) {
+                    metrics.labelsAssigned(entry.getKey(), entry.getValue()[0],
+                            isTokenLabelType());
+                }
+            });
+        }
+        finally {
+            statistics.documentProcessed();
+        }
+    }
+
+    /**
+     * @return whether the labels added by {@link #addLabel(BIOAbstractArgumentAnnotation)} are
+     * assigned to tokens (rather than e.g. to sentences)
+     */
+    protected boolean isTokenLabelType()
+    {
+        return true;
+    }
+
+    /**
+     * Adds the label to the indexes and counts its tag, which is reported in the metrics after
+     * the document; labels without a tag are not counted
+     *
+     * @param label label with its tag set
+     */
+    protected void addLabel(BIOAbstractArgumentAnnotation label)
+    {
+        label.addToIndexes();
+        if (label.getTag() != null) {
+            labelCounts.computeIfAbsent(label.getTag(), tag -> new int[1])[0]++;
+        }
+    }
+
+    /**
+     * Returns the live metrics of the annotator, shared by all its instances in the pipeline
+     *
+     * @return metrics
+     */
+    protected ArgumentationMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Returns a counter shared by the instances of the annotator in the pipeline (see
+     * {@link #PARAM_PIPELINE_ID}); non-zero counters are logged as {@code <name>: <total>} at the
+     * end of the collection
+     *
+     * @param name counter name
+     * @return counter
+     */
+    protected LongAdder counter(String name)
+    {
+        return statistics.counter(name);
+    }
+
+    @Override
+    public void collectionProcessComplete()
+            throws AnalysisEngineProcessException
+    {
+        super.collectionProcessComplete();
+
+        // only the last instance of the pipeline which processed documents reports
+        Map<String, Long> totals = statistics.complete();
+        if (totals != null) {
+            for (Map.Entry<String, Long> entry : totals.entrySet()) {
+                if (entry.getValue() > 0) {
+                    getLogger().warn(entry.getKey() + ": " + entry.getValue());
+                }
+            }
+            getLogger().info(getClass().getSimpleName() + " latency: "
+                    + metrics.getLatency().summary());
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (statistics != null) {
+            statistics.detach();
+            statistics = null;
+        }
+        if (metrics != null) {
+            metrics.detach();
+            metrics = null;
+        }
+
+        super.destroy();
     }
 
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.preprocessing.annotation;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.descriptor.TypeCapability;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.types.ArgumentComponent;
+import org.dkpro.argumentation.types.BIOAbstractArgumentAnnotation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Inverse of {@link ArgumentTokenBIOAnnotator}: decodes sequences of BIO labels such as
+ * Claim-B; Claim-I; O; Premise-B; Premise-I into {@link ArgumentComponent} annotations of the
+ * corresponding subtype ({@code Claim}, {@code Premise}, ...) in one pass over the labels.
+ * <p>
+ * In the BIO coding, an I label which does not continue a component of the same type (e.g.
+ * O; Claim-I or Premise-B; Claim-I) is malformed and handled according to
+ * {@link #PARAM_REPAIR_POLICY}. In the IO coding, a change of the type starts a new component.
+ * Tokens without a tag are treated as O.
+ * </p>
+ */
+@TypeCapability(inputs = {
+        "org.dkpro.argumentation.types.BIOTokenArgumentAnnotation"
+}, outputs = {
+        "org.dkpro.argumentation.types.ArgumentComponent"
+})
+public class ArgumentComponentBIODecoder
+        extends ArgumentBIOAnnotator
+{
+    /**
+     * Repair policy - a malformed I label begins a new component
+     */
+    public static final String REPAIR_BEGIN = "BEGIN";
+
+    /**
+     * Repair policy - tokens with a malformed I label are treated as O
+     */
+    public static final String REPAIR_DISCARD = "DISCARD";
+
+    /**
+     * Repair policy - a malformed I label is an error
+     */
+    public static final String REPAIR_STRICT = "STRICT";
+
+    /**
+     * How malformed I labels are handled; one of {@link #REPAIR_BEGIN} (default),
+     * {@link #REPAIR_DISCARD} or {@link #REPAIR_STRICT}
+     */
+    public static final String PARAM_REPAIR_POLICY = "repairPolicy";
+    @ConfigurationParameter(name = PARAM_REPAIR_POLICY, mandatory = true,
+            defaultValue = REPAIR_BEGIN)
+    protected String repairPolicy;
+
+    /**
+     * Type of the label annotations to decode, a subtype of
+     * {@link BIOAbstractArgumentAnnotation}; {@code BIOTokenArgumentAnnotation} by default
+     */
+    public static final String PARAM_ANNOTATION_TYPE = "annotationType";
+    @ConfigurationParameter(name = PARAM_ANNOTATION_TYPE, mandatory = true,
+            defaultValue = "org.dkpro.argumentation.types.BIOTokenArgumentAnnotation")
+    protected String annotationType;
+
+    private Class<? extends BIOAbstractArgumentAnnotation> annotationClass;
+
+    /**
+     * Parsed label
+     */
+    private static final class Label
+    {
+        final Type type;
+        final boolean begin;
+
+        Label(Type type, boolean begin)
+        {
+            this.type = type;
+            this.begin = begin;
+        }
+    }
+
+    private static final Label OUTSIDE = new Label(null, false);
+
+    /**
+     * Component types by their short name, the prefix of the labels
+     */
+    private final Map<String, Type> componentTypes = new HashMap<>();
+
+    /**
+     * Parsed labels; the label set is small, so each distinct label is parsed once
+     */
+    private final Map<String, Label> labels = new HashMap<>();
+
+    private TypeSystem typeSystem;
+
+    // for debugging purposes
+    private LongAdder repairedLabels;
+
+    @Override
+    public void initialize(UimaContext context)
+            throws ResourceInitializationException
+    {
+        super.initialize(context);
+
+        if (!(REPAIR_BEGIN.equals(repairPolicy) || REPAIR_DISCARD.equals(repairPolicy)
+                || REPAIR_STRICT.equals(repairPolicy))) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "Only BEGIN, DISCARD and STRICT repairPolicy is allowed, was "
+                            + repairPolicy));
+        }
+
+        try {
+            annotationClass = Class.forName(annotationType)
+                    .asSubclass(BIOAbstractArgumentAnnotation.class);
+        }
+        catch (ClassNotFoundException | ClassCastException e) {
+            throw new ResourceInitializationException(e);
+        }
+
+        repairedLabels = counter("Malformed I labels (policy " + repairPolicy + ")");
+    }
+
+    /**
+     * Builds the label prefix to type table once per type system
+     */
+    private void updateTypeTable(CAS cas)
+    {
+        if (typeSystem == cas.getTypeSystem()) {
+            return;
+        }
+
+        typeSystem = cas.getTypeSystem();
+        componentTypes.clear();
+        labels.clear();
+
+        Type componentType = typeSystem.getType(ArgumentComponent.class.getName());
+        componentTypes.put(componentType.getShortName(), componentType);
+        for (Type subtype : typeSystem.getProperlySubsumedTypes(componentType)) {
+            componentTypes.put(subtype.getShortName(), subtype);
+        }
+    }
+
+    private Label parseLabel(String tag)
+            throws AnalysisEngineProcessException
+    {
+        if (tag == null || O_TAG.equals(tag)) {
+            return OUTSIDE;
+        }
+
+        Label label = labels.get(tag);
+        if (label == null) {
+            boolean begin;
+            if (tag.endsWith(B_SUFFIX)) {
+                begin = true;
+            }
+            else if (tag.endsWith(I_SUFFIX)) {
+                begin = false;
+            }
+            else {
+                throw new AnalysisEngineProcessException(
+                        new IllegalArgumentException("Unknown label suffix: " + tag));
+            }
+
+            String typeName = tag.substring(0, tag.length() - B_SUFFIX.length());
+            Type type = componentTypes.get(typeName);
+            if (type == null) {
+                throw new AnalysisEngineProcessException(new IllegalArgumentException(
+                        "No argument component type for label " + tag));
+            }
+
+            label = new Label(type, begin);
+            labels.put(tag, label);
+        }
+
+        return label;
+    }
+
+    @Override
+    public void process(JCas jCas)
+            throws AnalysisEngineProcessException
+    {
+        CAS cas = jCas.getCas();
+        updateTypeTable(cas);
+
+        boolean bio = BIO.equals(codingGranularity);
+
+        // currently open component
+        Type openType = null;
+        int openBegin = 0;
+        int openEnd = 0;
+
+        for (BIOAbstractArgumentAnnotation annotation : JCasUtil.select(jCas, annotationClass)) {
+            Label label = parseLabel(annotation.getTag());
+
+            if (label == OUTSIDE) {
+                addComponent(cas, openType, openBegin, openEnd);
+                openType = null;
+                continue;
+            }
+
+            boolean continues = openType == label.type && !(bio && label.begin);
+
+            if (!continues && bio && !label.begin) {
+                // I label without a preceding B or I label of the same type
+                repairedLabels.increment();
+
+                if (REPAIR_STRICT.equals(repairPolicy)) {
+                    throw new AnalysisEngineProcessException(new IllegalStateException(
+                            "Malformed label sequence: " + annotation.getTag() + " at ["
+                                    + annotation.getBegin() + ", " + annotation.getEnd()
+                                    + "] does not continue a component"));
+                }
+                else if (REPAIR_DISCARD.equals(repairPolicy)) {
+                    addComponent(cas, openType, openBegin, openEnd);
+                    openType = null;
+                    continue;
+                }
+            }
+
+            if (continues) {
+                openEnd = annotation.getEnd();
+            }
+            else {
+                addComponent(cas, openType, openBegin, openEnd);
+                openType = label.type;
+                openBegin = annotation.getBegin();
+                openEnd = annotation.getEnd();
+            }
+        }
+
+        addComponent(cas, openType, openBegin, openEnd);
+    }
+
+    private static void addComponent(CAS cas, Type type, int begin, int end)
+    {
+        if (type != null) {
+            AnnotationFS component = cas.createAnnotation(type, begin, end);
+            cas.addFsToIndexes(component);
+        }
+    }
+}
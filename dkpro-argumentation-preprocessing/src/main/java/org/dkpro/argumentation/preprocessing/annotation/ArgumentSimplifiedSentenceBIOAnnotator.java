@@ -30,6 +30,7 @@ import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,6 +38,7 @@ import java.util.List;
  */
 @TypeCapability(inputs = {
         "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token",
+        "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence",
         "org.dkpro.argumentation.types.ArgumentComponent"
 }, outputs = {
         "org.dkpro.argumentation.types.BIOSimplifiedSentenceArgumentAnnotation"
@@ -63,49 +65,131 @@ public class ArgumentSimplifiedSentenceBIOAnnotator
         super.initialize(context);
     }
 
+    @Override
+    protected boolean isTokenLabelType()
+    {
+        return false;
+    }
+
     @Override
     public void process(JCas aJCas)
             throws AnalysisEngineProcessException
     {
+        if (forkJoinPool != null) {
+            if (sentenceWindowSize > 0) {
+                SentenceWindowCursor cursor = new SentenceWindowCursor(aJCas,
+                        sentenceWindowSize);
+                while (cursor.next()) {
+                    annotateSentencesInParallel(aJCas, cursor.getSentences(),
+                            new SentenceSpanSnapshot(cursor.getSentences(),
+                                    cursor.getComponents(), null));
+                }
+            }
+            else {
+                List<Sentence> sentences = new ArrayList<>(
+                        JCasUtil.select(aJCas, Sentence.class));
+                annotateSentencesInParallel(aJCas, sentences, new SentenceSpanSnapshot(sentences,
+                        new ArrayList<>(JCasUtil.select(aJCas, ArgumentComponent.class)), null));
+            }
+            return;
+        }
+
+        if (sentenceWindowSize > 0) {
+            SentenceWindowCursor cursor = new SentenceWindowCursor(aJCas, sentenceWindowSize);
+            while (cursor.next()) {
+                for (Sentence sentence : cursor.getSentences()) {
+                    annotateSentence(aJCas, sentence, cursor.selectComponents(sentence));
+                }
+            }
+            return;
+        }
+
         for (Sentence sentence : JCasUtil.select(aJCas, Sentence.class)) {
 
             // all argument components present in the sentence
             List<ArgumentComponent> argumentComponents = ArgumentUtils
                     .selectOverlappingComponentsWithoutPathosAndImplicit(sentence, aJCas);
 
-            // create new sentence-long annotation
+            annotateSentence(aJCas, sentence, argumentComponents);
+        }
+    }
+
+    /**
+     * Computes the labels of the sentences of the snapshot in parallel and then adds them to the
+     * CAS
+     *
+     * @param aJCas     jcas
+     * @param sentences sentences of the snapshot
+     * @param snapshot  spans of the sentences
+     */
+    private void annotateSentencesInParallel(JCas aJCas, List<Sentence> sentences,
+            final SentenceSpanSnapshot snapshot)
+    {
+        final String[] tags = new String[snapshot.getSentenceCount()];
+        final boolean bio = BIO.equals(this.codingGranularity);
+
+        snapshot.forEachSentence(forkJoinPool, sentence -> {
+            int component = snapshot.selectMainComponent(sentence);
+            if (component < 0) {
+                tags[sentence] = O_TAG;
+            }
+            else if (this.startEachSentenceWithB || (bio
+                    && snapshot.getComponentBegin(component) >= snapshot
+                    .getSentenceBegin(sentence))) {
+                tags[sentence] = snapshot.getComponentName(component) + B_SUFFIX;
+            }
+            else {
+                tags[sentence] = snapshot.getComponentName(component) + I_SUFFIX;
+            }
+        });
+
+        // the CAS is only modified by this thread
+        for (int i = 0; i < tags.length; i++) {
+            Sentence sentence = sentences.get(i);
             BIOSimplifiedSentenceArgumentAnnotation sentenceArgumentAnnotation =
                     new BIOSimplifiedSentenceArgumentAnnotation(aJCas, sentence.getBegin(),
                             sentence.getEnd());
-            sentenceArgumentAnnotation.addToIndexes();
+            sentenceArgumentAnnotation.setTag(tags[i]);
+            addLabel(sentenceArgumentAnnotation);
+        }
+    }
 
-            if (argumentComponents.isEmpty()) {
-                // empty labels = "O"
-                sentenceArgumentAnnotation.setTag(O_TAG);
-            }
+    private void annotateSentence(JCas aJCas, Sentence sentence,
+            List<ArgumentComponent> argumentComponents)
+    {
+        // create new sentence-long annotation
+        BIOSimplifiedSentenceArgumentAnnotation sentenceArgumentAnnotation =
+                new BIOSimplifiedSentenceArgumentAnnotation(aJCas, sentence.getBegin(),
+                        sentence.getEnd());
 
-            else {
-                // find the maximum spanning argument component
-                ArgumentComponent coveringArgumentComponent = selectMainArgumentComponent(
-                        argumentComponents);
-
-                StringBuilder outputLabel = new StringBuilder(
-                        coveringArgumentComponent.getClass().getSimpleName());
-
-                // does the annotation start in this sentence?
-                if (this.startEachSentenceWithB || (
-                        coveringArgumentComponent.getBegin() >= sentence.getBegin() &&
-                                BIO.equals(this.codingGranularity))) {
-                    outputLabel.append(B_SUFFIX);
-                }
-                else {
-                    // otherwise it continues from the previous one
-                    outputLabel.append(I_SUFFIX);
-                }
+        if (argumentComponents.isEmpty()) {
+            // empty labels = "O"
+            sentenceArgumentAnnotation.setTag(O_TAG);
+        }
+
+        else {
+            // find the maximum spanning argument component
+            ArgumentComponent coveringArgumentComponent = selectMainArgumentComponent(
+                    argumentComponents);
 
-                // set the label
-                sentenceArgumentAnnotation.setTag(outputLabel.toString());
+            StringBuilder outputLabel = new StringBuilder(
+                    coveringArgumentComponent.getClass().getSimpleName());
+
+            // does the annotation start in this sentence?
+            if (this.startEachSentenceWithB || (
+                    coveringArgumentComponent.getBegin() >= sentence.getBegin() &&
+                            BIO.equals(this.codingGranularity))) {
+                outputLabel.append(B_SUFFIX);
+            }
+            else {
+                // otherwise it continues from the previous one
+                outputLabel.append(I_SUFFIX);
             }
+
+            // set the label
+            sentenceArgumentAnnotation.setTag(outputLabel.toString());
         }
+
+        addLabel(sentenceArgumentAnnotation);
     }
 }
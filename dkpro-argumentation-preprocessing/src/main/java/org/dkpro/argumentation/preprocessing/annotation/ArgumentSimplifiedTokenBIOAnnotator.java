@@ -33,8 +33,12 @@ import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * For each sentence that contains an argument component, it creates new annotations for each
@@ -47,6 +51,7 @@ import java.util.List;
  */
 @TypeCapability(inputs = {
         "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token",
+        "de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence",
         "org.dkpro.argumentation.types.ArgumentComponent"
 }, outputs = {
         "org.dkpro.argumentation.types.BIOSimplifiedTokenArgumentAnnotation"
@@ -55,7 +60,7 @@ public class ArgumentSimplifiedTokenBIOAnnotator
         extends ArgumentBIOAnnotator
 {
     // for debugging purposes
-    int outsideSentencesAnnotations = 0;
+    private LongAdder outsideSentencesAnnotations;
 
     public static final String PARAM_RECREATE_FROM_SIMPLIFIED_SENTENCE_ANNOTATIONS = "recreateFromSimplifiedSentenceAnnotations";
     /**
@@ -67,10 +72,50 @@ public class ArgumentSimplifiedTokenBIOAnnotator
             mandatory = true, defaultValue = "false")
     protected boolean recreateFromSimplifiedSentenceAnnotations;
 
+    /**
+     * If positive, the sentences are processed in windows of at most this many sentences and
+     * only the argument components and tokens of the current window are held in memory, instead
+     * of selecting the overlapping components from all components of the document for each
+     * sentence. Meant for very large documents; the output is the same. Has no effect if
+     * {@link #PARAM_RECREATE_FROM_SIMPLIFIED_SENTENCE_ANNOTATIONS} is set.
+     */
+    public static final String PARAM_SENTENCE_WINDOW_SIZE = "sentenceWindowSize";
+    @ConfigurationParameter(name = PARAM_SENTENCE_WINDOW_SIZE, mandatory = true,
+            defaultValue = "0")
+    protected int sentenceWindowSize;
+
+    /**
+     * Number of threads computing the labels of the sentences of a document. If greater than 1,
+     * the spans of the sentences, components and tokens (of each window, see
+     * {@link #PARAM_SENTENCE_WINDOW_SIZE}) are copied, the labels are computed in parallel on a
+     * fork-join pool and the annotations are then created in document order by the calling
+     * thread, as the CAS must not be modified concurrently. The main component is the longest
+     * one; {@link #selectMainArgumentComponent(List)} is not called in this mode. Has no effect
+     * if {@link #PARAM_RECREATE_FROM_SIMPLIFIED_SENTENCE_ANNOTATIONS} is set.
+     */
+    public static final String PARAM_PARALLELISM = "parallelism";
+    @ConfigurationParameter(name = PARAM_PARALLELISM, mandatory = true, defaultValue = "1")
+    protected int parallelism;
+
+    /**
+     * Computes the labels if {@link #parallelism} is greater than 1
+     */
+    protected ForkJoinPool forkJoinPool;
+
     @Override public void initialize(UimaContext context)
             throws ResourceInitializationException
     {
         super.initialize(context);
+
+        if (parallelism < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "parallelism must be positive, was " + parallelism));
+        }
+        if (parallelism > 1) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+        }
+
+        outsideSentencesAnnotations = counter("Tokens outside annotated sentences");
     }
 
     /**
@@ -82,54 +127,143 @@ public class ArgumentSimplifiedTokenBIOAnnotator
     protected void processFromBIOTokenArgumentAnnotation(JCas aJCas)
             throws AnalysisEngineProcessException
     {
+        if (forkJoinPool != null) {
+            if (sentenceWindowSize > 0) {
+                SentenceWindowCursor cursor = new SentenceWindowCursor(aJCas,
+                        sentenceWindowSize);
+                while (cursor.next()) {
+                    annotateTokensInParallel(aJCas, new SentenceSpanSnapshot(
+                            cursor.getSentences(), cursor.getComponents(), cursor.getTokens()));
+                }
+            }
+            else {
+                annotateTokensInParallel(aJCas, new SentenceSpanSnapshot(
+                        new ArrayList<>(JCasUtil.select(aJCas, Sentence.class)),
+                        new ArrayList<>(JCasUtil.select(aJCas, ArgumentComponent.class)),
+                        new ArrayList<>(JCasUtil.select(aJCas, Token.class))));
+            }
+            return;
+        }
+
+        if (sentenceWindowSize > 0) {
+            SentenceWindowCursor cursor = new SentenceWindowCursor(aJCas, sentenceWindowSize);
+            while (cursor.next()) {
+                for (Sentence sentence : cursor.getSentences()) {
+                    annotateSentenceTokens(aJCas, sentence, cursor.selectComponents(sentence),
+                            cursor.selectTokens(sentence));
+                }
+            }
+            return;
+        }
+
         for (Sentence sentence : JCasUtil.select(aJCas, Sentence.class)) {
 
             // all argument components present in the sentence
             List<ArgumentComponent> argumentComponents = ArgumentUtils
                     .selectOverlappingComponentsWithoutPathosAndImplicit(sentence, aJCas);
 
-            // empty labels = "O"
-            if (argumentComponents.isEmpty()) {
-                for (Token token : JCasUtil.selectCovered(aJCas, Token.class, sentence)) {
-                    BIOSimplifiedTokenArgumentAnnotation sequenceLabel = new BIOSimplifiedTokenArgumentAnnotation(
-                            aJCas);
-                    sequenceLabel.setBegin(token.getBegin());
-                    sequenceLabel.setEnd(token.getEnd());
-                    sequenceLabel.setTag(O_TAG);
-                    sequenceLabel.addToIndexes();
+            annotateSentenceTokens(aJCas, sentence, argumentComponents,
+                    JCasUtil.selectCovered(aJCas, Token.class, sentence));
+        }
+    }
+
+    /**
+     * Labels the tokens of the sentence according to the main argument component
+     *
+     * @param aJCas              jcas
+     * @param sentence           sentence
+     * @param argumentComponents argument components present in the sentence
+     * @param tokens             tokens covered by the sentence
+     */
+    private void annotateSentenceTokens(JCas aJCas, Sentence sentence,
+            List<ArgumentComponent> argumentComponents, List<Token> tokens)
+    {
+        // empty labels = "O"
+        if (argumentComponents.isEmpty()) {
+            for (Token token : tokens) {
+                BIOSimplifiedTokenArgumentAnnotation sequenceLabel = new BIOSimplifiedTokenArgumentAnnotation(
+                        aJCas);
+                sequenceLabel.setBegin(token.getBegin());
+                sequenceLabel.setEnd(token.getEnd());
+                sequenceLabel.setTag(O_TAG);
+                addLabel(sequenceLabel);
+            }
+        }
+
+        else {
+            // find the maximum spanning argument component
+            ArgumentComponent coveringArgumentComponent = selectMainArgumentComponent(
+                    argumentComponents);
+
+            for (int i = 0; i < tokens.size(); i++) {
+                Token token = tokens.get(i);
+
+                StringBuilder outputLabel = new StringBuilder(
+                        coveringArgumentComponent.getClass().getSimpleName());
+
+                // component annotation starts in the sentence, we add "B" to the first token
+                if ((i == 0) && (coveringArgumentComponent.getBegin() >= sentence.getBegin()) &&
+                        BIO.equals(this.codingGranularity)) {
+                    outputLabel.append(B_SUFFIX);
                 }
+                else {
+                    outputLabel.append(I_SUFFIX);
+                }
+
+                BIOSimplifiedTokenArgumentAnnotation label = new BIOSimplifiedTokenArgumentAnnotation(
+                        aJCas);
+                label.setBegin(token.getBegin());
+                label.setEnd(token.getEnd());
+                label.setTag(outputLabel.toString());
+                addLabel(label);
             }
+        }
+    }
 
-            else {
-                // find the maximum spanning argument component
-                ArgumentComponent coveringArgumentComponent = selectMainArgumentComponent(
-                        argumentComponents);
-
-                List<Token> tokens = JCasUtil.selectCovered(aJCas, Token.class, sentence);
-
-                for (int i = 0; i < tokens.size(); i++) {
-                    Token token = tokens.get(i);
-
-                    StringBuilder outputLabel = new StringBuilder(
-                            coveringArgumentComponent.getClass().getSimpleName());
-
-                    // component annotation starts in the sentence, we add "B" to the first token
-                    if ((i == 0) && (coveringArgumentComponent.getBegin() >= sentence.getBegin()) &&
-                            BIO.equals(this.codingGranularity)) {
-                        outputLabel.append(B_SUFFIX);
-                    }
-                    else {
-                        outputLabel.append(I_SUFFIX);
-                    }
-
-                    BIOSimplifiedTokenArgumentAnnotation label = new BIOSimplifiedTokenArgumentAnnotation(
-                            aJCas);
-                    label.setBegin(token.getBegin());
-                    label.setEnd(token.getEnd());
-                    label.setTag(outputLabel.toString());
-                    label.addToIndexes();
+    /**
+     * Computes the labels of the tokens of all sentences of the snapshot in parallel and then
+     * adds them to the CAS
+     *
+     * @param aJCas    jcas
+     * @param snapshot spans of the sentences
+     */
+    private void annotateTokensInParallel(JCas aJCas, final SentenceSpanSnapshot snapshot)
+    {
+        final int[][] tokens = new int[snapshot.getSentenceCount()][];
+        final String[][] tags = new String[snapshot.getSentenceCount()][];
+        final boolean bio = BIO.equals(this.codingGranularity);
+
+        snapshot.forEachSentence(forkJoinPool, sentence -> {
+            int[] sentenceTokens = snapshot.selectTokens(sentence);
+            String[] sentenceTags = new String[sentenceTokens.length];
+
+            int component = snapshot.selectMainComponent(sentence);
+            for (int i = 0; i < sentenceTokens.length; i++) {
+                if (component < 0) {
+                    sentenceTags[i] = O_TAG;
+                }
+                else if (i == 0 && bio && snapshot.getComponentBegin(component) >= snapshot
+                        .getSentenceBegin(sentence)) {
+                    sentenceTags[i] = snapshot.getComponentName(component) + B_SUFFIX;
+                }
+                else {
+                    sentenceTags[i] = snapshot.getComponentName(component) + I_SUFFIX;
                 }
             }
+
+            tokens[sentence] = sentenceTokens;
+            tags[sentence] = sentenceTags;
+        });
+
+        // the CAS is only modified by this thread
+        for (int sentence = 0; sentence < tokens.length; sentence++) {
+            for (int i = 0; i < tokens[sentence].length; i++) {
+                int token = tokens[sentence][i];
+                BIOSimplifiedTokenArgumentAnnotation label = new BIOSimplifiedTokenArgumentAnnotation(
+                        aJCas, snapshot.getTokenBegin(token), snapshot.getTokenEnd(token));
+                label.setTag(tags[sentence][i]);
+                addLabel(label);
+            }
         }
     }
 
@@ -172,7 +306,6 @@ public class ArgumentSimplifiedTokenBIOAnnotator
                         aJCas);
                 label.setBegin(token.getBegin());
                 label.setEnd(token.getEnd());
-                label.addToIndexes();
 
                 // the output label
                 if (O_TAG.equals(sentenceTag)) {
@@ -184,6 +317,7 @@ public class ArgumentSimplifiedTokenBIOAnnotator
                 else {
                     label.setTag(sentenceTagWithoutSuffix + I_SUFFIX);
                 }
+                addLabel(label);
             }
         }
 
@@ -201,17 +335,18 @@ public class ArgumentSimplifiedTokenBIOAnnotator
         }
 
         // are there any tokens outside of sentences?
-        for (Token token : JCasUtil.select(aJCas, Token.class)) {
-            List<BIOSimplifiedTokenArgumentAnnotation> covered = JCasUtil
-                    .selectCovering(aJCas, BIOSimplifiedTokenArgumentAnnotation.class, token);
-            if (covered.isEmpty()) {
-                BIOSimplifiedTokenArgumentAnnotation label = new BIOSimplifiedTokenArgumentAnnotation(
-                        aJCas);
-                label.setBegin(token.getBegin());
-                label.setEnd(token.getEnd());
-                label.setTag(O_TAG);
-                label.addToIndexes();
-                outsideSentencesAnnotations++;
+        if (!this.recreateFromSimplifiedSentenceAnnotations
+                && (sentenceWindowSize > 0 || forkJoinPool != null)) {
+            annotateTokensOutsideSentences(aJCas);
+        }
+        else {
+            for (Token token : JCasUtil.select(aJCas, Token.class)) {
+                List<BIOSimplifiedTokenArgumentAnnotation> covered = JCasUtil
+                        .selectCovering(aJCas, BIOSimplifiedTokenArgumentAnnotation.class,
+                                token);
+                if (covered.isEmpty()) {
+                    annotateOutsideToken(aJCas, token);
+                }
             }
         }
 
@@ -226,6 +361,51 @@ public class ArgumentSimplifiedTokenBIOAnnotator
         }
     }
 
+    /**
+     * Labels the tokens not covered by any sentence with "O" in a single pass over the tokens
+     * and sentences, both ordered by their begin. In the windowed and parallel modes, exactly
+     * these tokens have no label yet.
+     *
+     * @param aJCas jcas
+     */
+    private void annotateTokensOutsideSentences(JCas aJCas)
+    {
+        // collect first, the token index must not be modified while iterating
+        List<Token> outside = new ArrayList<>();
+
+        Iterator<Sentence> sentences = JCasUtil.iterator(aJCas, Sentence.class);
+        Sentence nextSentence = sentences.hasNext() ? sentences.next() : null;
+        // maximal end of the sentences beginning at or before the current token
+        int coveredEnd = -1;
+
+        for (Token token : JCasUtil.select(aJCas, Token.class)) {
+            while (nextSentence != null && nextSentence.getBegin() <= token.getBegin()) {
+                coveredEnd = Math.max(coveredEnd, nextSentence.getEnd());
+                nextSentence = sentences.hasNext() ? sentences.next() : null;
+            }
+
+            if (coveredEnd < token.getEnd()) {
+                outside.add(token);
+            }
+        }
+
+        for (Token token : outside) {
+            annotateOutsideToken(aJCas, token);
+        }
+    }
+
+    private void annotateOutsideToken(JCas aJCas, Token token)
+    {
+        BIOSimplifiedTokenArgumentAnnotation label = new BIOSimplifiedTokenArgumentAnnotation(
+                aJCas);
+        label.setBegin(token.getBegin());
+        label.setEnd(token.getEnd());
+        label.setTag(O_TAG);
+        addLabel(label);
+        outsideSentencesAnnotations.increment();
+        getMetrics().tokenOutsideSentences();
+    }
+
     /**
      * Selects the main argument component from a list of components that are present in the
      * sentence; currently the longest
@@ -256,13 +436,13 @@ public class ArgumentSimplifiedTokenBIOAnnotator
     }
 
     @Override
-    public void collectionProcessComplete()
-            throws AnalysisEngineProcessException
+    public void destroy()
     {
-        super.collectionProcessComplete();
-
-        if (outsideSentencesAnnotations > 0) {
-            getLogger().warn("Tokens outside annotated sentences: " + outsideSentencesAnnotations);
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
         }
+
+        super.destroy();
     }
 }
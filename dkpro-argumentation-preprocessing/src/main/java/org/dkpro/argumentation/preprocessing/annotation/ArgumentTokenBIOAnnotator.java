@@ -18,17 +18,35 @@
 
 package org.dkpro.argumentation.preprocessing.annotation;
 
+import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
 import org.dkpro.argumentation.misc.utils.ArgumentUtils;
 import org.dkpro.argumentation.types.ArgumentComponent;
 import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.commons.io.IOUtils;
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.TypeCapability;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Annotates the tokens as a sequence of BIO labels, such as
@@ -38,6 +56,12 @@ import java.util.List;
  * If a token contains multiple annotations (i.e. was annotated as a claim AND backing),
  * an exception is thrown.
  * </p>
+ * <p>
+ * In the lenient mode, such conflicts are counted per combination of component types and the
+ * totals are reported at the end of the collection. Only the first
+ * {@link #PARAM_CONFLICT_SAMPLE_SIZE} conflicts of each combination in a document are logged;
+ * all of them can be written to {@link #PARAM_CONFLICT_REPORT_FILE}.
+ * </p>
  *
  * @author Ivan Habernal
  */
@@ -59,6 +83,74 @@ public class ArgumentTokenBIOAnnotator
     @ConfigurationParameter(name = PARAM_LENIENT, mandatory = true, defaultValue = "false")
     private boolean lenient;
 
+    /**
+     * In the lenient mode, the number of conflicts logged per document and combination of
+     * component types
+     */
+    public static final String PARAM_CONFLICT_SAMPLE_SIZE = "conflictSampleSize";
+    @ConfigurationParameter(name = PARAM_CONFLICT_SAMPLE_SIZE, mandatory = true,
+            defaultValue = "3")
+    private int conflictSampleSize;
+
+    /**
+     * In the lenient mode, an optional tab-separated file to which all conflicts are written:
+     * document id, begin and end of the token and the types and spans of the covering
+     * components. Each annotator instance needs its own file.
+     */
+    public static final String PARAM_CONFLICT_REPORT_FILE = "conflictReportFile";
+    @ConfigurationParameter(name = PARAM_CONFLICT_REPORT_FILE, mandatory = false)
+    private File conflictReportFile;
+
+    private static final String CONFLICT_COUNTER_PREFIX = "Conflicting components ";
+
+    /**
+     * Sequence of the types of the components covering a token, as a node of a trie; the
+     * label and counter of a conflict are computed once per sequence
+     */
+    private static final class TypeSequence
+    {
+        final Map<Class<?>, TypeSequence> next = new HashMap<>();
+        String types;
+        LongAdder counter;
+    }
+
+    private final TypeSequence typeSequences = new TypeSequence();
+
+    /**
+     * Conflict counters by the combination of the component types; sequences with the same
+     * types in a different order share the counter
+     */
+    private final Map<String, LongAdder> conflictCounters = new HashMap<>();
+
+    private Writer conflictReport;
+
+    @Override
+    public void initialize(UimaContext context)
+            throws ResourceInitializationException
+    {
+        super.initialize(context);
+
+        if (conflictSampleSize < 0) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                    "conflictSampleSize must not be negative, was " + conflictSampleSize));
+        }
+
+        if (lenient && conflictReportFile != null) {
+            try {
+                File parent = conflictReportFile.getAbsoluteFile().getParentFile();
+                if (!parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Cannot create directory " + parent);
+                }
+                conflictReport = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(conflictReportFile), StandardCharsets.UTF_8));
+                conflictReport.write("document\tbegin\tend\ttypes\tspans\n");
+            }
+            catch (IOException e) {
+                throw new ResourceInitializationException(e);
+            }
+        }
+    }
+
     /**
      * Returns a label for the annotated token
      *
@@ -90,6 +182,10 @@ public class ArgumentTokenBIOAnnotator
     public void process(JCas jCas)
             throws AnalysisEngineProcessException
     {
+        // conflicts of the document by the combination of the component types
+        Map<String, int[]> conflicts = null;
+        String documentId = null;
+
         for (Token token : JCasUtil.select(jCas, Token.class)) {
             List<ArgumentComponent> covering = ArgumentUtils.removeAppealToEmotion(JCasUtil
                     .selectCovering(ArgumentComponent.class, token));
@@ -106,20 +202,143 @@ public class ArgumentTokenBIOAnnotator
 
                 sequenceLabel.setTag(label);
             }
-            else {
-                String message = "More than one annotation found for particular word!" + token
-                        .getCoveredText() + ", " + covering;
-                if (this.lenient) {
-                    getLogger().warn(message);
+            else if (this.lenient) {
+                if (conflicts == null) {
+                    conflicts = new LinkedHashMap<>();
+                    documentId = getDocumentId(jCas);
                 }
-                else {
-                    throw new AnalysisEngineProcessException(new IllegalArgumentException(message));
+
+                TypeSequence sequence = getTypeSequence(covering);
+                String types = sequence.types;
+                int count = ++conflicts.computeIfAbsent(types, key -> new int[1])[0];
+                sequence.counter.increment();
+                getMetrics().lenientConflict();
+
+                if (count <= conflictSampleSize) {
+                    getLogger().warn("More than one annotation found for particular word: "
+                            + types + " at [" + token.getBegin() + ", " + token.getEnd()
+                            + "] in " + documentId);
+                }
+                if (conflictReport != null) {
+                    writeConflict(documentId, token, types, covering);
                 }
             }
+            else {
+                throw new AnalysisEngineProcessException(new IllegalArgumentException(
+                        "More than one annotation found for particular word!" + token
+                                .getCoveredText() + ", " + covering));
+            }
 
             sequenceLabel.setBegin(token.getBegin());
             sequenceLabel.setEnd(token.getEnd());
-            sequenceLabel.addToIndexes();
+            addLabel(sequenceLabel);
+        }
+
+        if (conflicts != null) {
+            for (Map.Entry<String, int[]> entry : conflicts.entrySet()) {
+                int count = entry.getValue()[0];
+                if (count > conflictSampleSize) {
+                    getLogger().warn((count - conflictSampleSize) + " more " + entry.getKey()
+                            + " conflicts not logged in " + documentId);
+                }
+            }
         }
     }
+
+    private static String getDocumentId(JCas jCas)
+    {
+        Iterator<DocumentMetaData> metaData = JCasUtil.iterator(jCas, DocumentMetaData.class);
+        return metaData.hasNext() ? metaData.next().getDocumentId() : null;
+    }
+
+    private TypeSequence getTypeSequence(List<ArgumentComponent> components)
+    {
+        TypeSequence sequence = typeSequences;
+        for (ArgumentComponent component : components) {
+            sequence = sequence.next.computeIfAbsent(component.getClass(),
+                    type -> new TypeSequence());
+        }
+        if (sequence.types == null) {
+            sequence.types = getTypes(components);
+            sequence.counter = getConflictCounter(sequence.types);
+        }
+        return sequence;
+    }
+
+    /**
+     * Returns the sorted distinct short type names of the components, e.g. Claim/Premise
+     */
+    private static String getTypes(List<ArgumentComponent> components)
+    {
+        SortedSet<String> types = new TreeSet<>();
+        for (ArgumentComponent component : components) {
+            types.add(component.getClass().getSimpleName());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String type : types) {
+            if (sb.length() > 0) {
+                sb.append('/');
+            }
+            sb.append(type);
+        }
+        return sb.toString();
+    }
+
+    private LongAdder getConflictCounter(String types)
+    {
+        LongAdder result = conflictCounters.get(types);
+        if (result == null) {
+            result = counter(CONFLICT_COUNTER_PREFIX + types);
+            conflictCounters.put(types, result);
+        }
+        return result;
+    }
+
+    private void writeConflict(String documentId, Token token, String types,
+            List<ArgumentComponent> covering)
+            throws AnalysisEngineProcessException
+    {
+        try {
+            conflictReport.write(documentId + "\t" + token.getBegin() + "\t" + token.getEnd()
+                    + "\t" + types + "\t");
+            for (int i = 0; i < covering.size(); i++) {
+                ArgumentComponent component = covering.get(i);
+                if (i > 0) {
+                    conflictReport.write(',');
+                }
+                conflictReport.write(component.getClass().getSimpleName() + ":"
+                        + component.getBegin() + "-" + component.getEnd());
+            }
+            conflictReport.write('\n');
+        }
+        catch (IOException e) {
+            throw new AnalysisEngineProcessException(e);
+        }
+    }
+
+    @Override
+    public void collectionProcessComplete()
+            throws AnalysisEngineProcessException
+    {
+        if (conflictReport != null) {
+            try {
+                conflictReport.flush();
+            }
+            catch (IOException e) {
+                throw new AnalysisEngineProcessException(e);
+            }
+        }
+
+        super.collectionProcessComplete();
+    }
+
+    @Override
+    public void destroy()
+    {
+        IOUtils.closeQuietly(conflictReport);
+        conflictReport = null;
+
+        super.destroy();
+    }
 }
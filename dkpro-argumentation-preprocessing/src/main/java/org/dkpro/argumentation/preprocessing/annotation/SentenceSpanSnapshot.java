@@ -0,0 +1,250 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.dkpro.argumentation.preprocessing.annotation;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.dkpro.argumentation.misc.utils.ArgumentUtils;
+import org.dkpro.argumentation.types.ArgumentComponent;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only copy of the spans of sentences, argument components and tokens, so that the labels
+ * of the sentences can be computed by several threads without accessing the CAS.
+ * <p>
+ * Pathos and implicit components are removed when the snapshot is taken. For a sentence,
+ * {@link #selectMainComponent(int)} returns the longest overlapping component, the first one in
+ * index order if there are several, like
+ * {@link ArgumentSimplifiedTokenBIOAnnotator#selectMainArgumentComponent(List)}.
+ * </p>
+ */
+final class SentenceSpanSnapshot
+{
+    /**
+     * Number of sentences below which a task is not split further
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 32;
+
+    private final int[] sentenceBegins;
+    private final int[] sentenceEnds;
+
+    private final int[] componentBegins;
+    private final int[] componentEnds;
+    private final String[] componentNames;
+    private final int maxComponentLength;
+
+    private final int[] tokenBegins;
+    private final int[] tokenEnds;
+
+    /**
+     * @param sentences  sentences in index order
+     * @param components argument components in index order, must contain all components
+     *                   overlapping the sentences
+     * @param tokens     tokens in index order, may be null if tokens are not needed
+     */
+    SentenceSpanSnapshot(List<Sentence> sentences, List<ArgumentComponent> components,
+            List<Token> tokens)
+    {
+        sentenceBegins = new int[sentences.size()];
+        sentenceEnds = new int[sentences.size()];
+        for (int i = 0; i < sentences.size(); i++) {
+            sentenceBegins[i] = sentences.get(i).getBegin();
+            sentenceEnds[i] = sentences.get(i).getEnd();
+        }
+
+        components = ArgumentUtils
+                .removeImplicitComponents(ArgumentUtils.removeAppealToEmotion(components));
+        componentBegins = new int[components.size()];
+        componentEnds = new int[components.size()];
+        componentNames = new String[components.size()];
+        int maxLength = 0;
+        for (int i = 0; i < components.size(); i++) {
+            ArgumentComponent component = components.get(i);
+            componentBegins[i] = component.getBegin();
+            componentEnds[i] = component.getEnd();
+            componentNames[i] = component.getClass().getSimpleName();
+            maxLength = Math.max(maxLength, componentEnds[i] - componentBegins[i]);
+        }
+        maxComponentLength = maxLength;
+
+        int tokenCount = tokens != null ? tokens.size() : 0;
+        tokenBegins = new int[tokenCount];
+        tokenEnds = new int[tokenCount];
+        for (int i = 0; i < tokenCount; i++) {
+            tokenBegins[i] = tokens.get(i).getBegin();
+            tokenEnds[i] = tokens.get(i).getEnd();
+        }
+    }
+
+    int getSentenceCount()
+    {
+        return sentenceBegins.length;
+    }
+
+    int getSentenceBegin(int sentence)
+    {
+        return sentenceBegins[sentence];
+    }
+
+    int getComponentBegin(int component)
+    {
+        return componentBegins[component];
+    }
+
+    String getComponentName(int component)
+    {
+        return componentNames[component];
+    }
+
+    int getTokenBegin(int token)
+    {
+        return tokenBegins[token];
+    }
+
+    int getTokenEnd(int token)
+    {
+        return tokenEnds[token];
+    }
+
+    /**
+     * Returns the longest component overlapping the sentence
+     *
+     * @param sentence sentence index
+     * @return component index or -1 if no component overlaps the sentence
+     */
+    int selectMainComponent(int sentence)
+    {
+        int begin = sentenceBegins[sentence];
+        int end = sentenceEnds[sentence];
+
+        // components beginning before this cannot reach the sentence
+        int from = lowerBound(componentBegins, begin - maxComponentLength);
+
+        int result = -1;
+        int resultLength = Integer.MIN_VALUE;
+        for (int i = from; i < componentBegins.length && componentBegins[i] < end; i++) {
+            if (componentEnds[i] > begin) {
+                int length = componentEnds[i] - componentBegins[i];
+                if (length > resultLength) {
+                    resultLength = length;
+                    result = i;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tokens covered by the sentence
+     *
+     * @param sentence sentence index
+     * @return token indices
+     */
+    int[] selectTokens(int sentence)
+    {
+        int begin = sentenceBegins[sentence];
+        int end = sentenceEnds[sentence];
+
+        int from = lowerBound(tokenBegins, begin);
+        int to = from;
+        int count = 0;
+        for (; to < tokenBegins.length && tokenBegins[to] < end; to++) {
+            if (tokenEnds[to] <= end) {
+                count++;
+            }
+        }
+
+        int[] result = new int[count];
+        count = 0;
+        for (int i = from; i < to; i++) {
+            if (tokenEnds[i] <= end) {
+                result[count++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of the first value greater than or equal to the key
+     */
+    private static int lowerBound(int[] values, int key)
+    {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Calls the action for each sentence index on the pool and waits for all of them. The action
+     * must only read the snapshot and write to its own slot of a result array.
+     *
+     * @param pool   fork-join pool
+     * @param action action
+     */
+    void forEachSentence(ForkJoinPool pool, IntConsumer action)
+    {
+        pool.invoke(new SentenceRangeAction(action, 0, getSentenceCount()));
+    }
+
+    private static final class SentenceRangeAction
+            extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+
+        SentenceRangeAction(IntConsumer action, int from, int to)
+        {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SentenceRangeAction(action, from, middle),
+                        new SentenceRangeAction(action, middle, to));
+            }
+        }
+    }
+}
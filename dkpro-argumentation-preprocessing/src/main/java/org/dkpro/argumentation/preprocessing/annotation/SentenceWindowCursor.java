@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dkpro.argumentation.preprocessing.annotation;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.dkpro.argumentation.misc.uima.JCasUtil2;
+import org.dkpro.argumentation.misc.utils.ArgumentUtils;
+import org.dkpro.argumentation.types.ArgumentComponent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Walks the sentences of a document in windows of a bounded number of sentences. For each
+ * window, only the components overlapping the window and (on demand) the tokens covered by it
+ * are held in memory; they are released when moving to the next window.
+ * <p>
+ * Components are read in a single pass over the annotation index: a component enters the
+ * active set when the window reaches its begin and leaves it when the window has passed its
+ * end. {@link #selectComponents(Sentence)} returns the same components in the same order as
+ * {@link ArgumentUtils#selectOverlappingComponentsWithoutPathosAndImplicit(Sentence, JCas)}.
+ * </p>
+ */
+class SentenceWindowCursor
+{
+    private final JCas jCas;
+
+    private final int windowSize;
+
+    private final Iterator<Sentence> sentenceIterator;
+
+    private final FSIterator<Annotation> componentIterator;
+
+    private final List<Sentence> sentences;
+
+    /**
+     * Components overlapping the current window, in index order
+     */
+    private final List<ArgumentComponent> active = new ArrayList<>();
+
+    private List<Token> tokens;
+
+    private int windowBegin;
+
+    private int windowEnd;
+
+    /**
+     * @param jCas       jcas
+     * @param windowSize maximal number of sentences per window
+     */
+    SentenceWindowCursor(JCas jCas, int windowSize)
+    {
+        this.jCas = jCas;
+        this.windowSize = windowSize;
+        this.sentences = new ArrayList<>(windowSize);
+        this.sentenceIterator = JCasUtil.iterator(jCas, Sentence.class);
+        this.componentIterator = jCas.getAnnotationIndex(ArgumentComponent.type).iterator();
+    }
+
+    /**
+     * Moves to the next window
+     *
+     * @return false if there are no more sentences
+     */
+    boolean next()
+    {
+        sentences.clear();
+        tokens = null;
+
+        while (sentences.size() < windowSize && sentenceIterator.hasNext()) {
+            sentences.add(sentenceIterator.next());
+        }
+        if (sentences.isEmpty()) {
+            active.clear();
+            return false;
+        }
+
+        windowBegin = sentences.get(0).getBegin();
+        windowEnd = windowBegin;
+        for (Sentence sentence : sentences) {
+            windowEnd = Math.max(windowEnd, sentence.getEnd());
+        }
+
+        // drop the components which end before this window
+        Iterator<ArgumentComponent> it = active.iterator();
+        while (it.hasNext()) {
+            if (it.next().getEnd() <= windowBegin) {
+                it.remove();
+            }
+        }
+
+        // add the components which begin before the end of this window
+        while (componentIterator.isValid() && componentIterator.get().getBegin() < windowEnd) {
+            ArgumentComponent component = (ArgumentComponent) componentIterator.get();
+            if (component.getEnd() > windowBegin) {
+                active.add(component);
+            }
+            componentIterator.moveToNext();
+        }
+
+        return true;
+    }
+
+    /**
+     * @return sentences of the current window
+     */
+    List<Sentence> getSentences()
+    {
+        return Collections.unmodifiableList(sentences);
+    }
+
+    /**
+     * @return argument components overlapping the current window, in index order
+     */
+    List<ArgumentComponent> getComponents()
+    {
+        return Collections.unmodifiableList(active);
+    }
+
+    /**
+     * @return tokens covered by the current window
+     */
+    List<Token> getTokens()
+    {
+        if (tokens == null) {
+            tokens = JCasUtil.selectCovered(jCas, Token.class, windowBegin, windowEnd);
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the argument components overlapping the sentence, without pathos and implicit
+     * components
+     *
+     * @param sentence sentence of the current window
+     * @return components
+     */
+    List<ArgumentComponent> selectComponents(Sentence sentence)
+    {
+        List<ArgumentComponent> result = new ArrayList<>();
+        for (ArgumentComponent component : active) {
+            if (JCasUtil2.doOverlap(sentence, component)) {
+                result.add(component);
+            }
+        }
+
+        result = ArgumentUtils.removeAppealToEmotion(result);
+        return ArgumentUtils.removeImplicitComponents(result);
+    }
+
+    /**
+     * Returns the tokens covered by the sentence, like
+     * {@link JCasUtil#selectCovered(JCas, Class, org.apache.uima.cas.text.AnnotationFS)}
+     *
+     * @param sentence sentence of the current window
+     * @return tokens
+     */
+    List<Token> selectTokens(Sentence sentence)
+    {
+        List<Token> tokens = getTokens();
+
+        // first token beginning at or after the sentence begin
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.get(mid).getBegin() < sentence.getBegin()) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+
+        List<Token> result = new ArrayList<>();
+        for (int i = low; i < tokens.size() && tokens.get(i).getBegin() < sentence.getEnd();
+             i++) {
+            Token token = tokens.get(i);
+            if (token.getEnd() <= sentence.getEnd()) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+}
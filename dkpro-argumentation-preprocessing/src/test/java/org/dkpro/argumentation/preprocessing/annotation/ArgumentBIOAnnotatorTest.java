@@ -23,24 +23,44 @@ import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
 import de.tudarmstadt.ukp.dkpro.core.tokit.BreakIteratorSegmenter;
+import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.fit.factory.JCasFactory;
 import org.apache.uima.fit.pipeline.SimplePipeline;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetrics;
+import org.dkpro.argumentation.io.profiling.ArgumentationMetricsMXBean;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(JUnit4.class)
 public class ArgumentBIOAnnotatorTest
@@ -50,6 +70,9 @@ public class ArgumentBIOAnnotatorTest
     @Rule
     public ExpectedException exception = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Before
     public void setUp()
             throws Exception
@@ -337,4 +360,378 @@ public class ArgumentBIOAnnotatorTest
         assertEquals("O", labelsPredicted.get(7).getTag());
         assertEquals("O", labelsPredicted.get(8).getTag());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDecodeComponents()
+            throws Exception
+    {
+        SimplePipeline.runPipeline(jCas,
+                AnalysisEngineFactory.createEngineDescription(ArgumentTokenBIOAnnotator.class));
+
+        for (ArgumentComponent component : new ArrayList<ArgumentComponent>(
+                JCasUtil.select(jCas, ArgumentComponent.class))) {
+            component.removeFromIndexes();
+        }
+
+        SimplePipeline.runPipeline(jCas,
+                AnalysisEngineFactory.createEngineDescription(ArgumentComponentBIODecoder.class));
+
+        List<ArgumentComponent> components = new ArrayList<ArgumentComponent>(
+                JCasUtil.select(jCas, ArgumentComponent.class));
+        assertEquals(1, components.size());
+        assertEquals(Premise.class, components.get(0).getClass());
+        assertEquals("S1PB S1PI. S2PI", components.get(0).getCoveredText());
+    }
+
+    private JCas createTaggedJCas(String... tags)
+            throws Exception
+    {
+        JCas tagged = JCasFactory.createJCas();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tags.length; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            BIOTokenArgumentAnnotation annotation = new BIOTokenArgumentAnnotation(tagged,
+                    text.length(), text.length() + 2);
+            annotation.setTag(tags[i]);
+            annotation.addToIndexes();
+            text.append("t").append(i);
+        }
+        tagged.setDocumentText(text.toString());
+        return tagged;
+    }
+
+    @Test
+    public void testDecodeMalformedSequence()
+            throws Exception
+    {
+        String[] tags = { "Claim-B", "Premise-I", "Premise-I", "O", "Claim-I" };
+
+        JCas begin = createTaggedJCas(tags);
+        SimplePipeline.runPipeline(begin,
+                AnalysisEngineFactory.createEngineDescription(ArgumentComponentBIODecoder.class));
+        List<ArgumentComponent> components = new ArrayList<ArgumentComponent>(
+                JCasUtil.select(begin, ArgumentComponent.class));
+        assertEquals(3, components.size());
+        assertEquals(Claim.class, components.get(0).getClass());
+        assertEquals("t1 t2", components.get(1).getCoveredText());
+        assertEquals(Premise.class, components.get(1).getClass());
+        assertEquals("t4", components.get(2).getCoveredText());
+
+        JCas discard = createTaggedJCas(tags);
+        SimplePipeline.runPipeline(discard,
+                AnalysisEngineFactory.createEngineDescription(ArgumentComponentBIODecoder.class,
+                        ArgumentComponentBIODecoder.PARAM_REPAIR_POLICY,
+                        ArgumentComponentBIODecoder.REPAIR_DISCARD));
+        components = new ArrayList<ArgumentComponent>(
+                JCasUtil.select(discard, ArgumentComponent.class));
+        assertEquals(1, components.size());
+        assertEquals("t0", components.get(0).getCoveredText());
+
+        exception.expect(AnalysisEngineProcessException.class);
+        SimplePipeline.runPipeline(createTaggedJCas(tags),
+                AnalysisEngineFactory.createEngineDescription(ArgumentComponentBIODecoder.class,
+                        ArgumentComponentBIODecoder.PARAM_REPAIR_POLICY,
+                        ArgumentComponentBIODecoder.REPAIR_STRICT));
+    }
+
+    /**
+     * Creates a document with components spanning several sentences and with tokens outside
+     * of sentences
+     */
+    private JCas createMultiSentenceJCas()
+            throws Exception
+    {
+        JCas document = JCasFactory.createJCas();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            text.append("S").append(i).append("a S").append(i).append("b S").append(i)
+                    .append("c. ");
+        }
+        document.setDocumentText(text.toString().trim());
+        document.setDocumentLanguage("en");
+        new DocumentMetaData(document).addToIndexes();
+
+        SimplePipeline.runPipeline(document,
+                AnalysisEngineFactory.createEngineDescription(BreakIteratorSegmenter.class));
+
+        List<Sentence> sentences = new ArrayList<Sentence>(
+                JCasUtil.select(document, Sentence.class));
+        List<Token> tokens = new ArrayList<Token>(JCasUtil.select(document, Token.class));
+
+        // the tokens of the 7th and the last sentence are outside of sentences
+        sentences.get(6).removeFromIndexes();
+        sentences.get(11).removeFromIndexes();
+
+        new Premise(document, tokens.get(5).getBegin(), tokens.get(13).getEnd()).addToIndexes();
+        new Claim(document, tokens.get(16).getBegin(), tokens.get(17).getEnd()).addToIndexes();
+        new Premise(document, tokens.get(18).getBegin(), tokens.get(19).getEnd())
+                .addToIndexes();
+        new MajorClaim(document, tokens.get(25).getBegin(), tokens.get(41).getEnd())
+                .addToIndexes();
+
+        return document;
+    }
+
+    private static List<String> tags(JCas jCas,
+            Class<? extends BIOAbstractArgumentAnnotation> type)
+    {
+        List<String> result = new ArrayList<String>();
+        for (BIOAbstractArgumentAnnotation annotation : JCasUtil.select(jCas, type)) {
+            result.add(annotation.getBegin() + ":" + annotation.getTag());
+        }
+        return result;
+    }
+
+    @Test
+    public void testSentenceWindowsSameOutput()
+            throws Exception
+    {
+        JCas expected = createMultiSentenceJCas();
+        SimplePipeline.runPipeline(expected,
+                AnalysisEngineFactory.createEngineDescription(ArgumentTokenBIOAnnotator.class),
+                AnalysisEngineFactory.createEngineDescription(
+                        ArgumentSimplifiedTokenBIOAnnotator.class),
+                AnalysisEngineFactory.createEngineDescription(
+                        ArgumentSimplifiedSentenceBIOAnnotator.class));
+
+        for (int windowSize : new int[] { 1, 2, 5, 100 }) {
+            assertSameOutput(expected, windowSize, 1);
+        }
+
+        assertEquals(48, tags(expected, BIOSimplifiedTokenArgumentAnnotation.class).size());
+    }
+
+    @Test
+    public void testParallelSameOutput()
+            throws Exception
+    {
+        JCas expected = createMultiSentenceJCas();
+        SimplePipeline.runPipeline(expected,
+                AnalysisEngineFactory.createEngineDescription(ArgumentTokenBIOAnnotator.class),
+                AnalysisEngineFactory.createEngineDescription(
+                        ArgumentSimplifiedTokenBIOAnnotator.class),
+                AnalysisEngineFactory.createEngineDescription(
+                        ArgumentSimplifiedSentenceBIOAnnotator.class));
+
+        for (int windowSize : new int[] { 0, 1, 5 }) {
+            assertSameOutput(expected, windowSize, 3);
+        }
+    }
+
+    private void assertSameOutput(JCas expected, int windowSize, int parallelism)
+            throws Exception
+    {
+        JCas actual = createMultiSentenceJCas();
+        SimplePipeline.runPipeline(actual,
+                AnalysisEngineFactory.createEngineDescription(ArgumentTokenBIOAnnotator.class),
+                AnalysisEngineFactory.createEngineDescription(
+                        ArgumentSimplifiedTokenBIOAnnotator.class,
+                        ArgumentSimplifiedTokenBIOAnnotator.PARAM_SENTENCE_WINDOW_SIZE,
+                        windowSize,
+                        ArgumentSimplifiedTokenBIOAnnotator.PARAM_PARALLELISM, parallelism),
+                AnalysisEngineFactory.createEngineDescription(
+                        ArgumentSimplifiedSentenceBIOAnnotator.class,
+                        ArgumentSimplifiedTokenBIOAnnotator.PARAM_SENTENCE_WINDOW_SIZE,
+                        windowSize,
+                        ArgumentSimplifiedTokenBIOAnnotator.PARAM_PARALLELISM, parallelism));
+
+        assertEquals(tags(expected, BIOSimplifiedTokenArgumentAnnotation.class),
+                tags(actual, BIOSimplifiedTokenArgumentAnnotation.class));
+        assertEquals(tags(expected, BIOSimplifiedSentenceArgumentAnnotation.class),
+                tags(actual, BIOSimplifiedSentenceArgumentAnnotation.class));
+    }
+
+    @Test
+    public void testLenientConflictReport()
+            throws Exception
+    {
+        List<Token> tokens = new ArrayList<Token>(JCasUtil.select(jCas, Token.class));
+        new Claim(jCas, tokens.get(2).getBegin(), tokens.get(3).getEnd()).addToIndexes();
+        File report = new File(folder.getRoot(), "conflicts/report.tsv");
+
+        SimplePipeline.runPipeline(jCas,
+                AnalysisEngineFactory.createEngineDescription(ArgumentTokenBIOAnnotator.class,
+                        ArgumentTokenBIOAnnotator.PARAM_LENIENT, true,
+                        ArgumentTokenBIOAnnotator.PARAM_CONFLICT_SAMPLE_SIZE, 1,
+                        ArgumentTokenBIOAnnotator.PARAM_CONFLICT_REPORT_FILE, report));
+
+        List<BIOTokenArgumentAnnotation> labels = new ArrayList<BIOTokenArgumentAnnotation>(
+                JCasUtil.select(jCas, BIOTokenArgumentAnnotation.class));
+        assertEquals(9, labels.size());
+        assertEquals("Premise-B", labels.get(1).getTag());
+        assertEquals(null, labels.get(2).getTag());
+        assertEquals(null, labels.get(3).getTag());
+
+        List<String> lines = Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertEquals("null\t" + tokens.get(2).getBegin() + "\t" + tokens.get(2).getEnd()
+                + "\tClaim/Premise\tPremise:" + tokens.get(1).getBegin() + "-"
+                + tokens.get(4).getEnd() + ",Claim:" + tokens.get(2).getBegin() + "-"
+                + tokens.get(3).getEnd(), lines.get(1));
+    }
+
+    @Test
+    public void testConflictSamplePerTypeCombination()
+            throws Exception
+    {
+        List<Token> tokens = new ArrayList<Token>(JCasUtil.select(jCas, Token.class));
+        // two Claim/Premise conflicts, then one MajorClaim/Premise conflict
+        new Claim(jCas, tokens.get(2).getBegin(), tokens.get(3).getEnd()).addToIndexes();
+        new MajorClaim(jCas, tokens.get(4).getBegin(), tokens.get(4).getEnd()).addToIndexes();
+
+        final List<String> warnings = Collections.synchronizedList(new ArrayList<String>());
+        Handler handler = new Handler()
+        {
+            @Override
+            public void publish(LogRecord record)
+            {
+                if (record.getLevel() == Level.WARNING) {
+                    warnings.add(record.getMessage());
+                }
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+        Logger root = Logger.getLogger("");
+        root.addHandler(handler);
+        try {
+            AnalysisEngine annotator = AnalysisEngineFactory.createEngine(
+                    ArgumentTokenBIOAnnotator.class,
+                    ArgumentTokenBIOAnnotator.PARAM_LENIENT, true,
+                    ArgumentTokenBIOAnnotator.PARAM_CONFLICT_SAMPLE_SIZE, 1);
+            annotator.process(jCas);
+            annotator.destroy();
+        }
+        finally {
+            root.removeHandler(handler);
+        }
+
+        List<String> logged = new ArrayList<String>();
+        for (String warning : warnings) {
+            if (warning.startsWith("More than one annotation") || warning.contains(" more ")) {
+                logged.add(warning);
+            }
+        }
+
+        // the first conflict of each combination is logged
+        assertEquals(3, logged.size());
+        assertTrue(logged.get(0).contains("Claim/Premise at [" + tokens.get(2).getBegin()));
+        assertTrue(logged.get(1).contains("MajorClaim/Premise at [" + tokens.get(4).getBegin()));
+        assertTrue(logged.get(2).startsWith("1 more Claim/Premise conflicts not logged"));
+    }
+
+    @Test
+    public void testConflictTypesIndependentOfOrder()
+            throws Exception
+    {
+        List<Token> tokens = new ArrayList<Token>(JCasUtil.select(jCas, Token.class));
+        // covers tokens 1 and 2 before the premise, then token 4 after it
+        new Claim(jCas, tokens.get(0).getBegin(), tokens.get(2).getEnd()).addToIndexes();
+        new Claim(jCas, tokens.get(4).getBegin(), tokens.get(4).getEnd()).addToIndexes();
+        File report = new File(folder.getRoot(), "report.tsv");
+
+        SimplePipeline.runPipeline(jCas,
+                AnalysisEngineFactory.createEngineDescription(ArgumentTokenBIOAnnotator.class,
+                        ArgumentTokenBIOAnnotator.PARAM_LENIENT, true,
+                        ArgumentTokenBIOAnnotator.PARAM_CONFLICT_SAMPLE_SIZE, 0,
+                        ArgumentTokenBIOAnnotator.PARAM_CONFLICT_REPORT_FILE, report));
+
+        List<String> lines = Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).endsWith("\tClaim/Premise\tClaim:" + tokens.get(0).getBegin()
+                + "-" + tokens.get(2).getEnd() + ",Premise:" + tokens.get(1).getBegin() + "-"
+                + tokens.get(4).getEnd()));
+        assertTrue(lines.get(3).endsWith("\tClaim/Premise\tPremise:" + tokens.get(1).getBegin()
+                + "-" + tokens.get(4).getEnd() + ",Claim:" + tokens.get(4).getBegin() + "-"
+                + tokens.get(4).getEnd()));
+    }
+
+    @Test
+    public void testNegativeConflictSampleSize()
+            throws Exception
+    {
+        exception.expect(ResourceInitializationException.class);
+        AnalysisEngineFactory.createEngine(ArgumentTokenBIOAnnotator.class,
+                ArgumentTokenBIOAnnotator.PARAM_LENIENT, true,
+                ArgumentTokenBIOAnnotator.PARAM_CONFLICT_SAMPLE_SIZE, -1);
+    }
+
+    @Test
+    public void testMetrics()
+            throws Exception
+    {
+        AnalysisEngine annotator = AnalysisEngineFactory.createEngine(
+                ArgumentTokenBIOAnnotator.class,
+                ArgumentTokenBIOAnnotator.PARAM_PIPELINE_ID, "metricsTest");
+        annotator.process(jCas);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = ArgumentationMetrics.objectName("metricsTest",
+                ArgumentTokenBIOAnnotator.class.getSimpleName());
+        ArgumentationMetricsMXBean metrics = JMX.newMXBeanProxy(server, name,
+                ArgumentationMetricsMXBean.class);
+        assertEquals(1, metrics.getDocumentsProcessed());
+        assertEquals(9, metrics.getTokensLabeled());
+        Map<String, Long> distribution = metrics.getLabelDistribution();
+        assertEquals(3, distribution.size());
+        assertEquals(Long.valueOf(5), distribution.get("O"));
+        assertEquals(Long.valueOf(1), distribution.get("Premise-B"));
+        assertEquals(Long.valueOf(3), distribution.get("Premise-I"));
+
+        annotator.destroy();
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testDefaultPipelineId()
+            throws Exception
+    {
+        AnalysisEngine annotator = AnalysisEngineFactory.createEngine(
+                ArgumentTokenBIOAnnotator.class);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = ArgumentationMetrics.objectName(
+                ArgumentationMetrics.DEFAULT_PIPELINE_ID,
+                ArgumentTokenBIOAnnotator.class.getSimpleName());
+        assertTrue(server.isRegistered(name));
+        annotator.destroy();
+    }
+
+    @Test
+    public void testSentenceMetrics()
+            throws Exception
+    {
+        AnalysisEngine annotator = AnalysisEngineFactory.createEngine(
+                ArgumentSimplifiedSentenceBIOAnnotator.class,
+                ArgumentSimplifiedSentenceBIOAnnotator.PARAM_PIPELINE_ID, "sentenceMetricsTest");
+        annotator.process(jCas);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = ArgumentationMetrics.objectName("sentenceMetricsTest",
+                ArgumentSimplifiedSentenceBIOAnnotator.class.getSimpleName());
+        ArgumentationMetricsMXBean metrics = JMX.newMXBeanProxy(server, name,
+                ArgumentationMetricsMXBean.class);
+
+        // one label per sentence, none per token
+        long labels = 0;
+        for (long count : metrics.getLabelDistribution().values()) {
+            labels += count;
+        }
+        assertEquals(JCasUtil.select(jCas, Sentence.class).size(), labels);
+        assertEquals(JCasUtil.select(jCas, BIOSimplifiedSentenceArgumentAnnotation.class).size(),
+                labels);
+        assertEquals(0, metrics.getTokensLabeled());
+
+        annotator.destroy();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.preprocessing.scaling;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Measures how the running time of an operation grows with the input size and checks the
+ * growth exponent: the slope of the least-squares line through (log size, log time) for
+ * doubling sizes, i.e. about 1 for linear, slightly above 1 for n log n and 2 for quadratic
+ * operations.
+ * <p>
+ * Each size is measured on freshly prepared inputs, at least {@value #MIN_REPETITIONS} times
+ * and until the measured runs add up to {@value #MIN_DURATION_MILLIS} ms, and the minimum is
+ * taken, which is the least affected by GC pauses and other processes. A fit exceeding the
+ * bound is measured again up to {@value #ATTEMPTS} times before the check fails, so a single
+ * disturbed measurement does not fail the build.
+ * </p>
+ */
+final class GrowthExponent
+{
+    /**
+     * Bound for operations expected to be linear or n log n
+     */
+    static final double LINEAR = 1.5;
+
+    /**
+     * Bound for the known exceptions in {@link ScalingTest}, which are quadratic today; fails if
+     * they get worse
+     */
+    static final double KNOWN_QUADRATIC = 2.3;
+
+    static final int MIN_REPETITIONS = 5;
+
+    private static final int MAX_REPETITIONS = 200;
+
+    static final long MIN_DURATION_MILLIS = 20;
+
+    static final int ATTEMPTS = 3;
+
+    interface Setup<T>
+    {
+        T prepare(int size)
+                throws Exception;
+    }
+
+    interface Operation<T>
+    {
+        void run(T input)
+                throws Exception;
+    }
+
+    private GrowthExponent()
+    {
+        // empty
+    }
+
+    /**
+     * Fits the growth exponent and fails if it exceeds the bound in all attempts
+     *
+     * @param name      operation name for the failure message
+     * @param bound     maximal exponent
+     * @param sizes     input sizes, each double the previous one
+     * @param setup     prepares an input of the given size; not measured
+     * @param operation measured operation
+     * @return the exponent of the first attempt within the bound
+     */
+    static <T> double assertExponent(String name, double bound, int[] sizes, Setup<T> setup,
+            Operation<T> operation)
+            throws Exception
+    {
+        // warm up the JIT on the smallest size
+        for (int i = 0; i < MIN_REPETITIONS; i++) {
+            operation.run(setup.prepare(sizes[0]));
+        }
+
+        double exponent = Double.NaN;
+        StringBuilder timings = new StringBuilder();
+        for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+            double[] x = new double[sizes.length];
+            double[] y = new double[sizes.length];
+            timings.append(" attempt ").append(attempt).append(':');
+
+            for (int s = 0; s < sizes.length; s++) {
+                long best = measure(sizes[s], setup, operation);
+                x[s] = Math.log(sizes[s]);
+                y[s] = Math.log(Math.max(best, 1));
+                timings.append(' ').append(sizes[s]).append('=').append(best / 1000)
+                        .append("us");
+            }
+
+            exponent = slope(x, y);
+            if (exponent <= bound) {
+                return exponent;
+            }
+            timings.append(String.format(" (%.2f);", exponent));
+        }
+
+        fail(String.format("%s grows with exponent %.2f, more than %.2f;%s", name, exponent,
+                bound, timings));
+        return exponent;
+    }
+
+    /**
+     * Minimal running time in nanoseconds of the operation on inputs of the given size
+     */
+    private static <T> long measure(int size, Setup<T> setup, Operation<T> operation)
+            throws Exception
+    {
+        long minDuration = MIN_DURATION_MILLIS * 1_000_000;
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < MAX_REPETITIONS && (i < MIN_REPETITIONS || total < minDuration);
+                i++) {
+            T input = setup.prepare(size);
+            long start = System.nanoTime();
+            operation.run(input);
+            long duration = System.nanoTime() - start;
+            best = Math.min(best, duration);
+            total += duration;
+        }
+        return best;
+    }
+
+    /**
+     * Least-squares slope
+     */
+    static double slope(double[] x, double[] y)
+    {
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < x.length; i++) {
+            meanX += x[i];
+            meanY += y[i];
+        }
+        meanX /= x.length;
+        meanY /= y.length;
+
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < x.length; i++) {
+            covariance += (x[i] - meanX) * (y[i] - meanY);
+            variance += (x[i] - meanX) * (x[i] - meanX);
+        }
+        return covariance / variance;
+    }
+}
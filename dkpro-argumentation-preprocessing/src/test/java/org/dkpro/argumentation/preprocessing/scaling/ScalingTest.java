@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dkpro.argumentation.preprocessing.scaling;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.argumentation.misc.corpus.SyntheticCorpusGenerator;
+import org.dkpro.argumentation.misc.uima.JCasUtil2;
+import org.dkpro.argumentation.preprocessing.annotation.ArgumentComponentBIODecoder;
+import org.dkpro.argumentation.preprocessing.annotation.ArgumentSimplifiedSentenceBIOAnnotator;
+import org.dkpro.argumentation.preprocessing.annotation.ArgumentSimplifiedTokenBIOAnnotator;
+import org.dkpro.argumentation.preprocessing.annotation.ArgumentTokenBIOAnnotator;
+import org.dkpro.argumentation.types.ArgumentComponent;
+import org.dkpro.argumentation.types.BIOTokenArgumentAnnotation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.dkpro.argumentation.preprocessing.scaling.GrowthExponent.LINEAR;
+import static org.dkpro.argumentation.preprocessing.scaling.GrowthExponent.KNOWN_QUADRATIC;
+import static org.dkpro.argumentation.preprocessing.scaling.GrowthExponent.assertExponent;
+
+/**
+ * Complexity regression tests: each hot path is run on synthetic documents of doubling number
+ * of sentences and must stay linear (or n log n). The paths which are quadratic today are
+ * marked as known exceptions below and checked against {@link GrowthExponent#KNOWN_QUADRATIC}
+ * only, so they do not get worse; move them to {@link GrowthExponent#LINEAR} once fixed.
+ * <p>
+ * The timings depend on the machine, so the tests are not part of the default build; run them
+ * with {@code mvn test -Pscaling}.
+ * </p>
+ */
+public class ScalingTest
+{
+    private static final int[] SMALL = { 25, 50, 100, 200 };
+
+    /**
+     * For the paths calling selectCovering per token, which scans the annotation index
+     */
+    private static final int[] TINY = { 10, 20, 40, 80 };
+
+    private static final int[] LARGE = { 100, 200, 400, 800 };
+
+    /**
+     * Reused by all inputs, so that the engines do not initialize a new type system per input,
+     * which would dominate the timings of small documents
+     */
+    private JCas input;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        input = JCasFactory.createJCas();
+    }
+
+    /**
+     * Document without overlapping or nested components, which the strict token annotator
+     * rejects
+     */
+    private JCas document(int sentences)
+    {
+        input.reset();
+        new SyntheticCorpusGenerator(sentences).setSentencesPerDocument(sentences)
+                .setCrossSentenceProbability(0).setNestingProbability(0).generate(input, 0);
+        return input;
+    }
+
+    /**
+     * Document with an O label for each token, as required by the simplified token annotator
+     */
+    private JCas labeledDocument(int sentences)
+    {
+        JCas jCas = document(sentences);
+        for (Token token : new ArrayList<>(JCasUtil.select(jCas, Token.class))) {
+            BIOTokenArgumentAnnotation label = new BIOTokenArgumentAnnotation(jCas,
+                    token.getBegin(), token.getEnd());
+            label.setTag("O");
+            label.addToIndexes();
+        }
+        return jCas;
+    }
+
+    /**
+     * Document with a well-formed sequence of labels of three-token components
+     */
+    private JCas taggedDocument(int sentences)
+    {
+        String[] tags = { "Claim-B", "Claim-I", "Claim-I", "O", "Premise-B", "Premise-I",
+                "Premise-I", "O" };
+        JCas jCas = document(sentences);
+        int i = 0;
+        for (Token token : new ArrayList<>(JCasUtil.select(jCas, Token.class))) {
+            BIOTokenArgumentAnnotation label = new BIOTokenArgumentAnnotation(jCas,
+                    token.getBegin(), token.getEnd());
+            label.setTag(tags[i++ % tags.length]);
+            label.addToIndexes();
+        }
+        return jCas;
+    }
+
+    @Test
+    public void testTokenBIOAnnotator()
+            throws Exception
+    {
+        AnalysisEngine engine = AnalysisEngineFactory.createEngine(
+                ArgumentTokenBIOAnnotator.class);
+        // known exception: JCasUtil.selectCovering per token scans all components before it
+        assertExponent("ArgumentTokenBIOAnnotator", KNOWN_QUADRATIC, TINY, this::document,
+                engine::process);
+        engine.destroy();
+    }
+
+    @Test
+    public void testSimplifiedTokenBIOAnnotator()
+            throws Exception
+    {
+        AnalysisEngine engine = AnalysisEngineFactory.createEngine(
+                ArgumentSimplifiedTokenBIOAnnotator.class);
+        // known exception: without a sentence window, selectOverlapping per sentence and
+        // selectCovering per token scan the whole document
+        assertExponent("ArgumentSimplifiedTokenBIOAnnotator", KNOWN_QUADRATIC, TINY,
+                this::labeledDocument, engine::process);
+        engine.destroy();
+    }
+
+    @Test
+    public void testSimplifiedTokenBIOAnnotatorWindowed()
+            throws Exception
+    {
+        AnalysisEngine engine = AnalysisEngineFactory.createEngine(
+                ArgumentSimplifiedTokenBIOAnnotator.class,
+                ArgumentSimplifiedTokenBIOAnnotator.PARAM_SENTENCE_WINDOW_SIZE, 32);
+        assertExponent("ArgumentSimplifiedTokenBIOAnnotator (windowed)", LINEAR, LARGE,
+                this::labeledDocument, engine::process);
+        engine.destroy();
+    }
+
+    @Test
+    public void testSimplifiedSentenceBIOAnnotator()
+            throws Exception
+    {
+        AnalysisEngine engine = AnalysisEngineFactory.createEngine(
+                ArgumentSimplifiedSentenceBIOAnnotator.class);
+        // known exception: without a sentence window, selectOverlapping per sentence scans all
+        // components
+        assertExponent("ArgumentSimplifiedSentenceBIOAnnotator", KNOWN_QUADRATIC, SMALL,
+                this::document, engine::process);
+        engine.destroy();
+    }
+
+    @Test
+    public void testSimplifiedSentenceBIOAnnotatorWindowed()
+            throws Exception
+    {
+        AnalysisEngine engine = AnalysisEngineFactory.createEngine(
+                ArgumentSimplifiedSentenceBIOAnnotator.class,
+                ArgumentSimplifiedTokenBIOAnnotator.PARAM_SENTENCE_WINDOW_SIZE, 32);
+        assertExponent("ArgumentSimplifiedSentenceBIOAnnotator (windowed)", LINEAR, LARGE,
+                this::document, engine::process);
+        engine.destroy();
+    }
+
+    @Test
+    public void testComponentBIODecoder()
+            throws Exception
+    {
+        AnalysisEngine engine = AnalysisEngineFactory.createEngine(
+                ArgumentComponentBIODecoder.class);
+        assertExponent("ArgumentComponentBIODecoder", LINEAR, LARGE,
+                this::taggedDocument, engine::process);
+        engine.destroy();
+    }
+
+    @Test
+    public void testSelectOverlapping()
+            throws Exception
+    {
+        // known exception: as called by the simplified annotators once per sentence, each call
+        // scans all components
+        assertExponent("JCasUtil2.selectOverlapping per sentence", KNOWN_QUADRATIC, SMALL,
+                this::document, jCas -> {
+                    for (Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
+                        JCasUtil2.selectOverlapping(ArgumentComponent.class, sentence, jCas);
+                    }
+                });
+    }
+
+    @Test
+    public void testFindTokenByBeginPosition()
+            throws Exception
+    {
+        // a fixed number of lookups of tokens spread over the document
+        assertExponent("JCasUtil2.findTokenByBeginPosition", LINEAR, LARGE,
+                this::document, jCas -> {
+                    List<Token> tokens = new ArrayList<>(JCasUtil.select(jCas, Token.class));
+                    for (int i = 1; i <= 50; i++) {
+                        JCasUtil2.findTokenByBeginPosition(jCas,
+                                tokens.get(tokens.size() * i / 51).getBegin());
+                    }
+                });
+    }
+}